@@ -0,0 +1,9 @@
+#!/bin/sh
+# Сборка и запуск бенчмарков; результаты сохраняются в benchmarks/results/<коммит>.json.
+# Дополнительные аргументы передаются JMH, например: ./benchmarks/run.sh -p rows=1000 ClientRepository
+set -e
+cd "$(dirname "$0")/.."
+mvn -B -q -f benchmarks/pom.xml package
+mkdir -p benchmarks/results
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "benchmarks/results/$commit.json" "$@"
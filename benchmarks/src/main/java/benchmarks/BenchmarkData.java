@@ -0,0 +1,128 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Синтетические файлы таблиц для бенчмарков. Строки детерминированы номером записи, поэтому
+ * результаты разных коммитов сравнимы. Эталонный файл каждого размера создается один раз
+ * во временном каталоге и копируется в рабочий каталог бенчмарка перед изменяющими операциями.
+ */
+public final class BenchmarkData {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 9, 0);
+    private static final String[] CITIES = {"Москва", "Санкт-Петербург", "Казань", "Новосибирск", "Екатеринбург"};
+    private static final int USERS = 200;
+
+    public enum Table {
+        CLIENT, CONTACT, DEAL, TASK, USER, MESSAGE
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Строка таблицы в формате соответствующего репозитория.
+     *
+     * @param table таблица
+     * @param id    номер записи, начиная с 1
+     * @param rows  размер таблицы; ссылки на клиентов и пользователей распределяются в его пределах
+     */
+    static String line(Table table, long id, int rows) {
+        long clientId = 1 + (id * 7919) % Math.max(rows / 5, 1);
+        long userId = 1 + id % USERS;
+        return switch (table) {
+            case CLIENT -> id + "|" + userId + "|Клиент " + id + "|client" + id + "@bench.test|"
+                    + String.format(Locale.ROOT, "+7900%07d", id % 10_000_000) + "|" + CITIES[(int) (id % CITIES.length)]
+                    + ", ул. Ленина, " + (id % 200 + 1) + "|" + (id % 20 == 0 ? "DELETE" : "ACTIVE");
+            case CONTACT -> id + "|" + clientId + "|Контакт " + id + "|contact" + id + "@bench.test|"
+                    + String.format(Locale.ROOT, "+7901%07d", id % 10_000_000) + "|Менеджер по закупкам";
+            case DEAL -> id + "|Сделка " + id + "|" + clientId + "|" + userId + "|"
+                    + String.format(Locale.ROOT, "%.2f", 1000 + (id * 104729) % 5_000_000 / 100.0) + "|"
+                    + (id % 4 == 0 ? "COMPLETED" : "PROGRESS") + "|" + EPOCH.toLocalDate().plusDays(id % 365).format(DATE)
+                    + "|" + (id % 4 == 0 ? EPOCH.toLocalDate().plusDays(id % 365 + 30).format(DATE) : "");
+            case TASK -> id + "|" + clientId + "|Звонок клиенту|Уточнить условия договора " + id + "|" + userId + "|"
+                    + EPOCH.plusMinutes(id) + "|" + EPOCH.plusMinutes(id).plusDays(7).format(DATE_TIME) + "|CALL";
+            case USER -> id + "|user" + id + "@bench.test|pbkdf2$1000$c2FsdA==$aGFzaA==|Иван|Петров" + id + "|MANAGER";
+            case MESSAGE -> {
+                LocalDateTime timestamp = EPOCH.plusSeconds(id * 3);
+                yield id + "|" + userId + "|" + (1 + (id * 31) % USERS) + "|Добрый день! Напоминаю о сделке №" + id
+                        + "|" + timestamp + "|" + timestamp.format(DATE_TIME);
+            }
+        };
+    }
+
+    /**
+     * Копирует эталонный файл таблицы в рабочий каталог, создавая эталон при первом обращении.
+     *
+     * @return путь к копии
+     */
+    static Path copyTable(Table table, int rows, Path workDir, String fileName) {
+        try {
+            Path target = workDir.resolve(fileName);
+            Files.copy(pristine(table, rows), target, StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при подготовке данных бенчмарка: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Файл последовательности идентификаторов, продолженной после {@code lastId}: генератор прочитает одну строку.
+     */
+    static String idFile(Path workDir, String fileName, long lastId) {
+        try {
+            Path file = workDir.resolve(fileName);
+            Files.writeString(file, lastId + "|\n", StandardCharsets.UTF_8);
+            return file.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при подготовке данных бенчмарка: " + e.getMessage(), e);
+        }
+    }
+
+    static Path createWorkDir() {
+        try {
+            return Files.createTempDirectory("crm-bench-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при создании рабочего каталога: " + e.getMessage(), e);
+        }
+    }
+
+    static void deleteWorkDir(Path workDir) {
+        try (Stream<Path> files = Files.walk(workDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при удалении рабочего каталога: " + e.getMessage(), e);
+        }
+    }
+
+    private static synchronized Path pristine(Table table, int rows) throws IOException {
+        Path dir = Path.of(System.getProperty("java.io.tmpdir"), "crm-bench-data");
+        Files.createDirectories(dir);
+        Path file = dir.resolve(table.name().toLowerCase(Locale.ROOT) + "-" + rows + ".txt");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path temp = dir.resolve(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (long id = 1; id <= rows; id++) {
+                writer.write(line(table, id, rows));
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+}
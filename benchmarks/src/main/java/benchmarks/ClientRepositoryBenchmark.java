@@ -0,0 +1,89 @@
+package benchmarks;
+
+import models.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ClientRepositoryFileBasedImpl;
+import util.IdGenerators;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ClientRepositoryFileBasedImpl}: чтение, поиск, добавление и изменение клиента.
+ * Данные восстанавливаются перед каждой итерацией, чтобы изменяющие операции не накапливались.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path workDir;
+    private ClientRepositoryFileBasedImpl repository;
+    private long middleId;
+    private String middleEmail;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+        middleId = rows / 2;
+        middleEmail = "client" + middleId + "@bench.test";
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreData() {
+        Path file = BenchmarkData.copyTable(BenchmarkData.Table.CLIENT, rows, workDir, "client.txt");
+        repository = new ClientRepositoryFileBasedImpl(file.toString(),
+                IdGenerators.createGenerator(BenchmarkData.idFile(workDir, "client_id.txt", rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public List<Client> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Client searchClientById() {
+        return repository.searchClientById(middleId);
+    }
+
+    @Benchmark
+    public List<Client> searchClientByEmail() {
+        return repository.searchClient(middleEmail);
+    }
+
+    @Benchmark
+    public Client save() {
+        Client client = new Client(0L, 1L, "Новый клиент", "new@bench.test", "+79001234567", "Москва", Client.Status.ACTIVE);
+        repository.save(client);
+        return client;
+    }
+
+    @Benchmark
+    public void updateClientInfo() {
+        repository.updateClientInfo(middleId, 2, "Переименованный клиент");
+    }
+}
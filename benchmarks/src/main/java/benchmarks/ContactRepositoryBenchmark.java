@@ -0,0 +1,71 @@
+package benchmarks;
+
+import models.Contact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ContactRepositoryFileBasedImpl;
+import util.IdGenerators;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ContactRepositoryFileBasedImpl}: контакты клиента и добавление контакта.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContactRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path workDir;
+    private ContactRepositoryFileBasedImpl repository;
+    private long clientId;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+        clientId = Math.max(rows / 10, 1);
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreData() {
+        Path file = BenchmarkData.copyTable(BenchmarkData.Table.CONTACT, rows, workDir, "contact.txt");
+        repository = new ContactRepositoryFileBasedImpl(file.toString(),
+                IdGenerators.createGenerator(BenchmarkData.idFile(workDir, "contact_id.txt", rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public List<Contact> findAllContactByClient() {
+        return repository.findAllContactByClient(clientId);
+    }
+
+    @Benchmark
+    public Contact save() {
+        Contact contact = new Contact(0L, clientId, "Новый контакт", "contact@bench.test", "+79011234567", "Директор");
+        repository.addingInformation(contact);
+        return contact;
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import models.Deal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.DealRepositoryFileBasedImpl;
+import util.IdGenerators;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DealRepositoryFileBasedImpl} без колоночного хранилища: чтение, поиск по id, добавление и изменение.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DealRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path workDir;
+    private DealRepositoryFileBasedImpl repository;
+    private long middleId;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+        middleId = rows / 2;
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreData() {
+        Path file = BenchmarkData.copyTable(BenchmarkData.Table.DEAL, rows, workDir, "deal.txt");
+        repository = new DealRepositoryFileBasedImpl(file.toString(),
+                IdGenerators.createGenerator(BenchmarkData.idFile(workDir, "deal_id.txt", rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public List<Deal> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Optional<Deal> findById() {
+        return repository.findById(middleId);
+    }
+
+    @Benchmark
+    public Deal save() {
+        Deal deal = new Deal(0L, "Новая сделка", 1L, 1L, 150_000.0, Deal.Status.NEW, LocalDate.of(2024, 6, 1), null);
+        repository.save(deal);
+        return deal;
+    }
+
+    @Benchmark
+    public void updateDeal() {
+        repository.updateDeal(new Deal(middleId, "Измененная сделка", 1L, 1L, 200_000.0, Deal.Status.PROGRESS,
+                LocalDate.of(2024, 6, 1), null));
+    }
+}
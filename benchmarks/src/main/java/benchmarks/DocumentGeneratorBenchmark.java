@@ -0,0 +1,79 @@
+package benchmarks;
+
+import models.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import template.DocumentGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рендеринг договора {@link DocumentGenerator#generateDocument(Map)} по шаблону из корня проекта
+ * (или по его встроенной копии, если бенчмарк запущен из другого каталога).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentGeneratorBenchmark {
+
+    private static final String FALLBACK_TEMPLATE = """
+                        Договор продажи
+               Типичный договор купли продажи, между ООО"Рога и копыта" и клиентом {name}
+               контакты:
+               Email: {email}
+               Телефон: {phone}
+               Адрес: {address}
+            """;
+
+    private Path workDir;
+    private DocumentGenerator generator;
+    private Map<String, String> placeholders;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        workDir = BenchmarkData.createWorkDir();
+        try {
+            Path template = workDir.resolve("sales_contract.txt");
+            Path projectTemplate = Path.of("sales_contract.txt");
+            if (Files.exists(projectTemplate)) {
+                Files.copy(projectTemplate, template);
+            } else {
+                Files.writeString(template, FALLBACK_TEMPLATE, StandardCharsets.UTF_8);
+            }
+            generator = new DocumentGenerator(template.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        placeholders = DocumentGenerator.placeholders(new Client(12345L, 17L, "ООО \"Ромашка\"", "info@romashka.test",
+                "+79001234567", "Москва, ул. Ленина, 1", Client.Status.ACTIVE));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public String generateDocument() {
+        return generator.generateDocument(placeholders);
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import util.IdGenerator;
+import util.IdGeneratorFileBased;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача идентификаторов {@link IdGeneratorFileBased}: одним потоком и при конкуренции четырех потоков.
+ * Первое обращение читает файл последовательности, поэтому генератор прогревается при подготовке итерации.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private Path workDir;
+    private IdGenerator generator;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSequence() {
+        generator = new IdGeneratorFileBased(BenchmarkData.idFile(workDir, "sequence_id.txt", 1_000_000));
+        generator.nextId();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public Long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long nextIdContended() {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,114 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.ClientRepositoryFileBasedImpl;
+import repositories.ContactRepositoryFileBasedImpl;
+import repositories.DealRepositoryFileBasedImpl;
+import repositories.MessageRepositoryFileBaseImpl;
+import repositories.TaskRepositoryFileBasedImpl;
+import repositories.UsersRepositoryFileBasedImpl;
+import util.IdGenerator;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Разбор одной строки функциями {@code lineTo*Function} репозиториев.
+ * Функции — закрытые поля репозиториев, поэтому достаются через reflection один раз при подготовке.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LineParserBenchmark {
+
+    @Param({"CLIENT", "CONTACT", "DEAL", "TASK", "USER", "MESSAGE"})
+    BenchmarkData.Table table;
+
+    private Path workDir;
+    private Function<String, ?> parser;
+    private String[] lines;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void prepare() throws ReflectiveOperationException {
+        workDir = BenchmarkData.createWorkDir();
+        IdGenerator ids = () -> 0L;
+        String file = workDir.resolve("table.txt").toString();
+        try {
+            Files.createFile(workDir.resolve("table.txt"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Object repository;
+        String field;
+        switch (table) {
+            case CLIENT -> {
+                repository = new ClientRepositoryFileBasedImpl(file, ids);
+                field = "lineToClientFunction";
+            }
+            case CONTACT -> {
+                repository = new ContactRepositoryFileBasedImpl(file, ids);
+                field = "lineToContactFunction";
+            }
+            case DEAL -> {
+                repository = new DealRepositoryFileBasedImpl(file, ids);
+                field = "lineToDealFunction";
+            }
+            case TASK -> {
+                repository = new TaskRepositoryFileBasedImpl(file, ids);
+                field = "lineToTaskFunction";
+            }
+            case USER -> {
+                repository = new UsersRepositoryFileBasedImpl(file, ids);
+                field = "lineToUserFunction";
+            }
+            case MESSAGE -> {
+                repository = new MessageRepositoryFileBaseImpl(file, ids);
+                field = "lineToMessageFunction";
+            }
+            default -> throw new IllegalArgumentException("Неизвестная таблица: " + table);
+        }
+        Field function = repository.getClass().getDeclaredField(field);
+        function.setAccessible(true);
+        // Поле объявлено как Function<String, модель>; тип модели бенчмарку не важен
+        @SuppressWarnings("unchecked")
+        Function<String, ?> lineFunction = (Function<String, ?>) function.get(repository);
+        parser = lineFunction;
+        // Несколько разных строк, чтобы предсказатель ветвлений не подстраивался под одну
+        lines = new String[1024];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = BenchmarkData.line(table, 100_000 + i * 37L, 1_000_000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public Object parse() {
+        next = (next + 1) & (lines.length - 1);
+        return parser.apply(lines[next]);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import models.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.MessageRepositoryFileBaseImpl;
+import util.IdGenerators;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageRepositoryFileBaseImpl}: полное чтение, страница входящих по индексу, поиск и отправка.
+ * Индекс строится при первом обращении в итерации и входит в измерения прогрева.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path workDir;
+    private MessageRepositoryFileBaseImpl repository;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreData() {
+        Path file = BenchmarkData.copyTable(BenchmarkData.Table.MESSAGE, rows, workDir, "message.tst");
+        repository = new MessageRepositoryFileBaseImpl(file.toString(),
+                IdGenerators.createGenerator(BenchmarkData.idFile(workDir, "message_id.txt", rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public List<Message> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<Message> findMessagesByUserNewestFirst() {
+        return repository.findMessagesByUserNewestFirst(42L, 0, 20);
+    }
+
+    @Benchmark
+    public List<Message> search() {
+        return repository.search("напоминаю сделке", null, null, null, null, 20);
+    }
+
+    @Benchmark
+    public Message save() {
+        Message message = new Message(0L, 1L, 2L, "Добрый день! Когда удобно созвониться?", LocalDateTime.now());
+        repository.save(message);
+        return message;
+    }
+}
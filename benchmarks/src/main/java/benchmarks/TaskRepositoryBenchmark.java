@@ -0,0 +1,85 @@
+package benchmarks;
+
+import models.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.TaskRepositoryFileBasedImpl;
+import util.IdGenerators;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TaskRepositoryFileBasedImpl}: загрузка кэша при создании, чтение из кэша и добавление задачи
+ * (добавление перезаписывает весь файл).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path workDir;
+    private Path file;
+    private String idFile;
+    private TaskRepositoryFileBasedImpl repository;
+    private long middleId;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+        middleId = rows / 2;
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreData() {
+        file = BenchmarkData.copyTable(BenchmarkData.Table.TASK, rows, workDir, "task.txt");
+        idFile = BenchmarkData.idFile(workDir, "task_id.txt", rows);
+        repository = new TaskRepositoryFileBasedImpl(file.toString(), IdGenerators.createGenerator(idFile));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public TaskRepositoryFileBasedImpl load() {
+        return new TaskRepositoryFileBasedImpl(file.toString(), IdGenerators.createGenerator(idFile));
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Optional<Task> findById() {
+        return repository.findById(middleId);
+    }
+
+    @Benchmark
+    public Task save() {
+        Task task = new Task(0L, 1L, "Новая задача", "Подготовить предложение", 1L, "2024-06-01 10:00:00", Task.Status.MEETING);
+        repository.save(task);
+        return task;
+    }
+}
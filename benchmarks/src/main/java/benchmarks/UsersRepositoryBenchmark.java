@@ -0,0 +1,84 @@
+package benchmarks;
+
+import models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repositories.UsersRepositoryFileBasedImpl;
+import util.IdGenerators;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UsersRepositoryFileBasedImpl}: чтение, поиск по email (вход в систему) и регистрация.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsersRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path workDir;
+    private UsersRepositoryFileBasedImpl repository;
+    private long middleId;
+    private String middleEmail;
+
+    @Setup(Level.Trial)
+    public void createWorkDir() {
+        workDir = BenchmarkData.createWorkDir();
+        middleId = rows / 2;
+        middleEmail = "user" + middleId + "@bench.test";
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreData() {
+        Path file = BenchmarkData.copyTable(BenchmarkData.Table.USER, rows, workDir, "users.txt");
+        repository = new UsersRepositoryFileBasedImpl(file.toString(),
+                IdGenerators.createGenerator(BenchmarkData.idFile(workDir, "users_id.txt", rows)));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkDir() {
+        BenchmarkData.deleteWorkDir(workDir);
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        return repository.findByEmail(middleEmail);
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return repository.findById(middleId);
+    }
+
+    @Benchmark
+    public User save() {
+        User user = new User(0L, "new@bench.test", "pbkdf2$1000$c2FsdA==$aGFzaA==", "Анна", "Смирнова", User.Role.MANAGER);
+        repository.save(user);
+        return user;
+    }
+}
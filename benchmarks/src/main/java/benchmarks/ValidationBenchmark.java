@@ -0,0 +1,58 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ValidationUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверки {@link ValidationUtil} на корректных значениях (ошибочные значения бросают исключение
+ * и измеряли бы стоимость его создания, а не проверки).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private String email = "manager.petrov@romashka.test";
+    private String phone = "+79001234567";
+    private String dateTime = "2024-06-01 10:00:00";
+    private String title = "Подготовить коммерческое предложение";
+    private Double amount = 150_000.0;
+
+    @Benchmark
+    public void checkNotEmptyEmail() {
+        ValidationUtil.checkNotEmptyEmail(email, "Некорректный email");
+    }
+
+    @Benchmark
+    public void checkValidPhoneNumber() {
+        ValidationUtil.checkValidPhoneNumber(phone, "Некорректный телефон");
+    }
+
+    @Benchmark
+    public void checkValidDateTimeString() {
+        ValidationUtil.checkValidDateTimeString(dateTime, "Некорректная дата");
+    }
+
+    @Benchmark
+    public void checkNotEmpty() {
+        ValidationUtil.checkNotEmpty(title, "Пустая строка");
+    }
+
+    @Benchmark
+    public void checkPositive() {
+        ValidationUtil.checkPositive(amount, "Отрицательное число");
+    }
+}
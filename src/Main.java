@@ -1,21 +1,37 @@
 
 
+import api.HttpApiServer;
 import dto.ClientDto;
+import dto.DealStatsDto;
 import dto.UserDto;
+import metrics.MetricsProxy;
+import metrics.MetricsRegistry;
 import models.*;
 import repositories.*;
 import services.*;
+import template.BatchReport;
 import template.DocumentGenerator;
+import template.DocumentSink;
+import template.FileDocumentSink;
+import template.PackDocumentSink;
+import util.AsyncExecutor;
+import util.DigestMailUtil;
+import util.HashedWheelTimer;
 import util.IdGenerators;
+import util.MailOutbox;
 import util.MailUtil;
-import util.MailUtilMockImpl;
+import util.StubMailTransport;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,36 +39,68 @@ public class Main {
     private static final Logger logger = Logger.getLogger(Main.class.getName());
     private static final Scanner scanner = new Scanner(System.in);
 
-    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
-    // Репозитории и сервисы
-    private static final UsersRepository usersRepository = new UsersRepositoryFileBasedImpl("users.txt",
-            IdGenerators.createGenerator("users_id.txt"));
-    private static final ClientRepository clientRepository = new ClientRepositoryFileBasedImpl("client.txt",
-            IdGenerators.createGenerator("client_id.txt"));
-    private static final ContactRepository contactRepository = new ContactRepositoryFileBasedImpl("contact.txt",
-            IdGenerators.createGenerator("contact_id.txt"));
-    private static final DealRepository dealRepository = new DealRepositoryFileBasedImpl("deal.txt",
-            IdGenerators.createGenerator("deal_id.txt"));
-    private static final TaskRepository taskRepository = new TaskRepositoryFileBasedImpl("task.txt",
-            IdGenerators.createGenerator("task_id.txt"));
-
-    private static final MessageRepository messageRepository = new MessageRepositoryFileBaseImpl("message.tst",
-            IdGenerators.createGenerator("message_id.txt"));
+    private static final AsyncExecutor executor = new AsyncExecutor("crm",
+            Integer.getInteger("crm.async.maxConcurrency", 64));
+    private static final MetricsRegistry metrics = createMetrics();
+    // Репозитории и сервисы обернуты измеряющими декораторами
+    private static final UsersRepository usersRepository = MetricsProxy.wrap(UsersRepository.class,
+            new UsersRepositoryFileBasedImpl("users.txt", IdGenerators.createGenerator("users_id.txt")), metrics);
+    private static final ClientRepository clientRepository = MetricsProxy.wrap(ClientRepository.class,
+            new ClientRepositoryFileBasedImpl("client.txt", IdGenerators.createGenerator("client_id.txt")), metrics);
+    private static final ContactRepository contactRepository = MetricsProxy.wrap(ContactRepository.class,
+            new ContactRepositoryFileBasedImpl("contact.txt", IdGenerators.createGenerator("contact_id.txt")), metrics);
+    private static final DealColumnStore dealColumnStore = new DealColumnStore("deal_columns");
+    private static final DealRepository dealRepository = MetricsProxy.wrap(DealRepository.class,
+            new DealRepositoryFileBasedImpl("deal.txt", IdGenerators.createGenerator("deal_id.txt"),
+                    dealColumnStore), metrics);
+    private static final TaskRepository taskRepository = MetricsProxy.wrap(TaskRepository.class,
+            new TaskRepositoryFileBasedImpl("task.txt", IdGenerators.createGenerator("task_id.txt")), metrics);
+
+    private static final MessageRepository messageRepository = MetricsProxy.wrap(MessageRepository.class,
+            new MessageRepositoryFileBaseImpl("message.tst", IdGenerators.createGenerator("message_id.txt")), metrics);
     private static final DocumentGenerator documentGenerator = new DocumentGenerator("sales_contract.txt");
-    private static final MailUtil mailUtil = new MailUtilMockImpl();
-    private static final UsersService usersService = new UsersServiceImpl(usersRepository, mailUtil);
-    private static final ClientService clientService = new ClientServiceImpl(clientRepository, documentGenerator);
-    private static final ContactService contactService = new ContactServiceImpl(contactRepository);
-    private static final DealService dealService = new DealServiceImpl(dealRepository);
-    private static final TaskService taskService = new TaskServiceImpl(taskRepository);
+    private static final DocumentSink documentSink = createDocumentSink();
+    private static final MailOutbox mailOutbox = new MailOutbox("mail_outbox", new StubMailTransport());
+    private static final MailUtil mailUtil = mailOutbox;
+    // Уведомления о задачах объединяются в сводки, чтобы массовые изменения не порождали поток писем
+    private static final DigestMailUtil notificationMail = new DigestMailUtil(mailOutbox,
+            new HashedWheelTimer(100, 512, executor, "mail-digest"),
+            Long.getLong("crm.mail.digestWindowMillis", 60_000), 50, 10_000);
+    private static final UsersService usersService = MetricsProxy.wrap(UsersService.class,
+            new UsersServiceImpl(usersRepository, mailUtil), metrics);
+    private static final ClientService clientService = MetricsProxy.wrap(ClientService.class,
+            new ClientServiceImpl(clientRepository, documentGenerator, executor, documentSink), metrics);
+    private static final AsyncClientService asyncClientService = MetricsProxy.wrap(AsyncClientService.class,
+            new AsyncClientServiceImpl(clientService, executor), metrics);
+    private static final ContactService contactService = MetricsProxy.wrap(ContactService.class,
+            new ContactServiceImpl(contactRepository), metrics);
+    private static final AsyncContactService asyncContactService = MetricsProxy.wrap(AsyncContactService.class,
+            new AsyncContactServiceImpl(contactService, executor), metrics);
+    private static final DealAggregates dealAggregates = new DealAggregates("deal_aggregates.txt", "deal.txt");
+    private static final DealService dealService = MetricsProxy.wrap(DealService.class,
+            new DealServiceImpl(dealRepository, dealAggregates), metrics);
+    private static final AsyncDealService asyncDealService = MetricsProxy.wrap(AsyncDealService.class,
+            new AsyncDealServiceImpl(dealService, executor), metrics);
+    private static final TaskReminderScheduler taskReminderScheduler = new TaskReminderScheduler(taskRepository,
+            usersRepository, notificationMail, new HashedWheelTimer(1000, 4096, executor, "task-reminders"));
+    private static final TaskService taskService = MetricsProxy.wrap(TaskService.class,
+            new TaskServiceImpl(taskRepository, taskReminderScheduler), metrics);
+
+    private static final MessageService messageService = MetricsProxy.wrap(MessageService.class,
+            new MessageServiceImpl(messageRepository, MetricsProxy.wrap(ReadMarkerRepository.class,
+                    new ReadMarkerRepositoryFileBasedImpl("message_read.txt"), metrics),
+                    new MessageBroker(executor, 256)), metrics);
+    // Токен сессии текущего пользователя консоли
+    private static String sessionToken = null;
 
-    private static final MessageService messageService = new MessageServiceImpl(messageRepository);
-    private static boolean isAuthenticated = false;
-
-    private static Long currentUserId = null; //ID текущего пользователя
 
     public static void main(String[] args) {
         logger.info("Программа запущена.");
+        dealAggregates.startCheckpoints(30, TimeUnit.SECONDS);
+        taskReminderScheduler.start();
+        metrics.registerMBean("MailOutbox", "mail_outbox", mailOutbox);
+        mailOutbox.start();
+        HttpApiServer apiServer = List.of(args).contains("--http") ? startApiServer() : null;
 
         while (true) {
             printMenu();
@@ -79,9 +127,24 @@ public class Main {
                     case 17 -> deleteTask();
                     case 18 -> sendMessage();
                     case 19 -> readMessage();
+                    case 20 -> showDealStats();
+                    case 21 -> generateAllContracts();
+                    case 22 -> searchMessages();
+                    case 23 -> changeTask();
                     case 0 -> {
                         logger.info("Завершение работы программы.");
-                        executor.shutdown();
+                        usersService.logout(sessionToken);
+                        if (apiServer != null) {
+                            apiServer.close();
+                        }
+                        taskReminderScheduler.stop();
+                        notificationMail.close();
+                        executor.close();
+                        mailOutbox.close();
+                        dealAggregates.shutdown();
+                        dealColumnStore.close();
+                        documentSink.close();
+                        metrics.close();
                         return;
                     }
                     default -> System.out.println("Неизвестная команда. Попробуйте снова.");
@@ -93,40 +156,134 @@ public class Main {
         }
     }
 
+    /**
+     * Метрики операций публикуются в JMX (домен {@code crm.metrics}); если задано свойство
+     * {@code crm.metrics.snapshotSeconds}, их снимок периодически пишется в журнал.
+     */
+    private static MetricsRegistry createMetrics() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.registerMBeans("crm.metrics");
+        long period = Long.getLong("crm.metrics.snapshotSeconds", 0);
+        if (period > 0) {
+            registry.startPeriodicSnapshot(Duration.ofSeconds(period),
+                    snapshot -> logger.info("Метрики операций:\n" + snapshot));
+        }
+        return registry;
+    }
+
+    /**
+     * Договоры сохраняются отдельными файлами в рабочем каталоге; если задано свойство
+     * {@code crm.documents.pack}, они складываются в один pack-файл с индексом.
+     */
+    private static DocumentSink createDocumentSink() {
+        String pack = System.getProperty("crm.documents.pack");
+        if (pack == null || pack.isBlank()) {
+            return new FileDocumentSink(".");
+        }
+        try {
+            return new PackDocumentSink(pack);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при открытии pack-файла документов: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * HTTP API запускается ключом {@code --http}; порт и ограничение параллельности задаются свойствами
+     * {@code crm.http.port} и {@code crm.http.maxConcurrency}.
+     */
+    private static HttpApiServer startApiServer() {
+        try {
+            HttpApiServer server = new HttpApiServer(Integer.getInteger("crm.http.port", 8080),
+                    Integer.getInteger("crm.http.maxConcurrency", 1024), usersService, clientService,
+                    contactService, dealService, taskService, messageService);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при запуске HTTP API: " + e.getMessage(), e);
+        }
+    }
+
     private static void sendMessage() {
         Long id = IdGenerators.createGenerator("message_id.txt").nextId();
 
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы");
         }
         findAllUsers();
         Long receiverId = (long) readIntInput("Выберите ID получателя");
         String content = readStringInput("Введите сообщение: ");
 
-        messageService.sendMessage(id, currentUserId, receiverId, content);
+        messageService.sendMessage(id, currentUserId(), receiverId, content);
         System.out.println("Сообщение отправлено");
     }
 
     private static void readMessage() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы");
             return;
         }
-        List<Message> messages = messageService.getUserMessages(currentUserId);
-        if (messages.isEmpty()) {
-            System.out.println("Сообщений нет");
-        } else {
-            System.out.println("Ваши сообщения");
+        Long userId = currentUserId();
+        System.out.println("Непрочитанных сообщений: " + messageService.getUnreadCount(userId));
+        int pageSize = 10;
+        long newestReceivedId = 0;
+        for (int page = 0; ; page++) {
+            List<Message> messages = messageService.getUserMessagesPage(userId, page, pageSize);
+            if (messages.isEmpty()) {
+                if (page == 0) {
+                    System.out.println("Сообщений нет");
+                }
+                break;
+            }
+            if (page == 0) {
+                System.out.println("Ваши сообщения (сначала новые)");
+            }
             for (Message message : messages) {
                 String senderName = usersRepository.findById(message.getSenderId()).map(User::getName).orElse("Неизвестный");
-                String receiverName = usersRepository.findById(message.getSenderId()).map(User::getName).orElse("Неизвестный");
+                String receiverName = usersRepository.findById(message.getReceiverId()).map(User::getName).orElse("Неизвестный");
                 System.out.printf("[%s] %s -> %s: %s\n",
                         message.getTimestamp(),
                         senderName,
                         receiverName,
                         message.getContent());
+                if (message.getReceiverId().equals(userId)) {
+                    newestReceivedId = Math.max(newestReceivedId, message.getId());
+                }
+            }
+            if (messages.size() < pageSize
+                    || !readStringInput("Показать более ранние сообщения? (да/нет): ").equalsIgnoreCase("да")) {
+                break;
             }
         }
+        if (newestReceivedId > 0) {
+            messageService.markRead(userId, newestReceivedId);
+        }
+    }
+
+    private static void searchMessages() {
+        if (!isAuthenticated()) {
+            System.out.println("Вы не аутентифицированы");
+            return;
+        }
+        String query = readStringInput("Введите запрос (слова, OR, -исключить, \"фраза\"): ");
+        // По умолчанию поиск ограничен перепиской текущего пользователя; по всем сообщениям
+        // могут искать только администратор и контроль
+        User.Role role = usersService.authenticate(sessionToken).map(SessionManager.Session::getRole).orElse(null);
+        boolean global = (role == User.Role.ADMIN || role == User.Role.SUPERVISION)
+                && readStringInput("Искать по сообщениям всех пользователей? (да/нет): ").trim().equalsIgnoreCase("да");
+        List<Message> messages = global
+                ? messageService.searchMessages(query, null, null, null, null, 50)
+                : messageService.searchUserMessages(query, currentUserId(), null, null, 50);
+        if (messages.isEmpty()) {
+            System.out.println("Ничего не найдено");
+            return;
+        }
+        for (Message message : messages) {
+            System.out.printf("[%s] %d -> %d: %s\n",
+                    message.getTimestamp(),
+                    message.getSenderId(),
+                    message.getReceiverId(),
+                    message.getContent());
+        }
     }
 
     private static void printMenu() {
@@ -150,6 +307,10 @@ public class Main {
         System.out.println("17. Удалить задачу");
         System.out.println("18. Отправить сообщение");
         System.out.println("19. Прочитать сообщения");
+        System.out.println("20. Сводка по сделкам");
+        System.out.println("21. Сгенерировать договоры для всех клиентов");
+        System.out.println("22. Поиск по сообщениям");
+        System.out.println("23. Изменить задачу");
         System.out.println("0. Выход");
     }
 
@@ -169,7 +330,7 @@ public class Main {
     }
 
     private static void registerUser() {
-        if (isAuthenticated) {
+        if (isAuthenticated()) {
             System.out.println("Вы уже аутентифицированы.");
             return;
         }
@@ -189,14 +350,23 @@ public class Main {
         }
     }
 
+    private static boolean isAuthenticated() {
+        return usersService.authenticate(sessionToken).isPresent();
+    }
+
+    //ID текущего пользователя
+    private static Long currentUserId() {
+        return usersService.authenticate(sessionToken).map(SessionManager.Session::getUserId).orElse(null);
+    }
+
     private static void authenticateUser() {
         String email = readStringInput("Введите почту: ");
         String password = readStringInput("Введите пароль: ");
 
-        Optional<User> userOptional = usersRepository.findByEmail(email);
-        if (userOptional.isPresent() && userOptional.get().getPassword().equals(password)) {
-            isAuthenticated = true;
-            currentUserId = userOptional.get().getId();
+        Optional<String> token = usersService.login(email, password);
+        if (token.isPresent()) {
+            usersService.logout(sessionToken);
+            sessionToken = token.get();
             System.out.println("Аутентификация прошла успешно.");
         } else {
             System.out.println("Неверные данные.");
@@ -204,7 +374,7 @@ public class Main {
     }
 
     private static void findAllUsers() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -221,7 +391,7 @@ public class Main {
     }
 
     private static void addClient() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -236,11 +406,10 @@ public class Main {
         String phone = readStringInput("Введите телефон: ");
         String address = readStringInput("Введите адрес: ");
         String status = readStringInput("Введите статус (1 - активный, 2 - удален): ");
-        executor.execute(() -> {
-            try {
-                clientService.save(id, idUser, name, email, phone, address, status(status));
+        asyncClientService.save(id, idUser, name, email, phone, address, status(status)).whenComplete((result, e) -> {
+            if (e == null) {
                 System.out.println("Клиент успешно добавлен.");
-            } catch (Exception e) {
+            } else {
                 logger.log(Level.SEVERE, "Ошибка при сохранении клиента: " + e.getMessage(), e);
             }
         });
@@ -259,7 +428,7 @@ public class Main {
     }
 
     private static void findClientsByManager() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -279,7 +448,7 @@ public class Main {
     }
 
     private static void deleteClient() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -305,7 +474,7 @@ public class Main {
     }
 
     private static void updateClientInfo() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -314,11 +483,10 @@ public class Main {
         long idClient = readIntInput("Выберите id клиента: ");
         int whatToChange = readIntInput("Выберите что изменить (1 - менеджер, 2 - имя, 3 - почта, 4 - телефон, 5 - адрес): ");
         String newInfo = readStringInput("Введите новое значение: ");
-        executor.execute(() -> {
-            try {
-                clientService.updateClient(idClient, whatToChange, newInfo);
+        asyncClientService.updateClient(idClient, whatToChange, newInfo).whenComplete((result, e) -> {
+            if (e == null) {
                 System.out.println("Информация о клиенте успешно обновлена.");
-            } catch (Exception e) {
+            } else {
                 logger.log(Level.SEVERE, "Ошибка при обновлении информации о клиенте: " + e.getMessage(), e);
                 System.out.println("Ошибка при обновлении информации о клиенте.");
             }
@@ -326,7 +494,7 @@ public class Main {
     }
 
     private static void addContact() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -340,11 +508,10 @@ public class Main {
         String email = readStringInput("Введите почту: ");
         String phone = readStringInput("Введите телефон: ");
         String position = readStringInput("Введите должность: ");
-        executor.execute(() -> {
-            try {
-                contactService.save(idContact, idClient, email, phone, name, position);
+        asyncContactService.save(idContact, idClient, email, phone, name, position).whenComplete((result, e) -> {
+            if (e == null) {
                 System.out.println("Контакт успешно добавлен.");
-            } catch (Exception e) {
+            } else {
                 logger.log(Level.SEVERE, "Ошибка при добавлении контакта: " + e.getMessage(), e);
                 System.out.println("Ошибка при добавлении контакта.");
             }
@@ -371,7 +538,7 @@ public class Main {
     }
 
     private static void addDeal() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -394,38 +561,70 @@ public class Main {
     }
 
     private static void findAllDeals() {
-        List<Deal> deals = dealRepository.findAll();
+        // Выводятся четыре поля из восьми: даты, клиент и менеджер не разбираются
+        List<String> deals = dealRepository.findAll(row -> true, row -> row.getLong(DealRepository.ID) + " "
+                + row.get(DealRepository.TITLE) + " " + row.getDouble(DealRepository.AMOUNT) + " "
+                + Deal.Status.valueOf(row.get(DealRepository.STATUS)));
         if (deals.isEmpty()) {
             System.out.println("Сделки не найдены.");
         } else {
             System.out.println("Список сделок:");
-            for (Deal deal : deals) {
-                System.out.println(deal.getId() + " " + deal.getTitle() + " " + deal.getAmount() + " " + deal.getStatus());
+            for (String deal : deals) {
+                System.out.println(deal);
             }
         }
     }
 
+    private static void showDealStats() {
+        System.out.println("Сделки по статусам:");
+        for (Map.Entry<Deal.Status, DealStatsDto> entry : dealService.getDealTotalsByStatus(null, null, null).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue().getCount() + " шт. на сумму " + entry.getValue().getAmount());
+        }
+        System.out.println("Сделки по менеджерам:");
+        for (Map.Entry<Long, DealStatsDto> entry : dealService.getDealTotalsByUser(null, null, null).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue().getCount() + " шт. на сумму " + entry.getValue().getAmount());
+        }
+        System.out.println("Сделки по месяцам:");
+        for (Map.Entry<YearMonth, DealStatsDto> entry : dealService.getDealTotalsByMonth(null, null, null, null).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue().getCount() + " шт. на сумму " + entry.getValue().getAmount());
+        }
+    }
+
+    private static void generateAllContracts() {
+        if (!isAuthenticated()) {
+            System.out.println("Вы не аутентифицированы.");
+            return;
+        }
+
+        int concurrency = Integer.getInteger("crm.batch.concurrency", Runtime.getRuntime().availableProcessors());
+        BatchReport report = documentGenerator.generateBatch(clientRepository, documentSink, concurrency, "contract_batch_progress.txt");
+        System.out.printf("Сгенерировано договоров: %d, ошибок: %d, пропущено: %d, скорость: %.1f док/с%n",
+                report.getGenerated(), report.getFailed(), report.getSkipped(), report.getDocsPerSecond());
+        if (!report.getFailedClientIds().isEmpty()) {
+            System.out.println("Не удалось сгенерировать договоры для клиентов: " + report.getFailedClientIds());
+        }
+    }
+
     private static void deleteDeal() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
 
         findAllDeals();
         long idDeal = readIntInput("Выберите id сделки: ");
-        executor.execute(() -> {
-            try {
-                dealRepository.deleteById(idDeal);
+        asyncDealService.deleteDeal(idDeal).whenComplete((result, e) -> {
+            if (e == null) {
                 System.out.println("Сделка успешно удалена.");
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Ошибка при удалении клиента: " + e.getMessage(), e);
-                System.out.println("Ошибка при удалении клиента.");
+            } else {
+                logger.log(Level.SEVERE, "Ошибка при удалении сделки: " + e.getMessage(), e);
+                System.out.println("Ошибка при удалении сделки.");
             }
         });
     }
 
     private static void addTask() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
@@ -463,17 +662,32 @@ public class Main {
     }
 
     private static void deleteTask() {
-        if (!isAuthenticated) {
+        if (!isAuthenticated()) {
             System.out.println("Вы не аутентифицированы.");
             return;
         }
 
         findAllTasks();
         long idTask = readIntInput("Выберите id задачи: ");
-        taskRepository.deleteById(idTask);
+        taskService.deleteTask(idTask);
         System.out.println("Задача успешно удалена.");
     }
 
+    private static void changeTask() {
+        if (!isAuthenticated()) {
+            System.out.println("Вы не аутентифицированы.");
+            return;
+        }
+
+        findAllTasks();
+        long idTask = readIntInput("Выберите id задачи: ");
+        int whatToChange = readIntInput("Выберите что изменить (1 - название, 2 - описание, 3 - исполнитель, 4 - срок, 5 - статус): ");
+        String newMeaning = readStringInput(whatToChange == 4
+                ? "Введите новый срок (yyyy-MM-dd HH:mm:ss): " : "Введите новое значение: ");
+        taskService.changeTask(idTask, whatToChange, newMeaning);
+        System.out.println("Задача успешно изменена.");
+    }
+
     private static double readDoubleInput(String prompt) {
         System.out.print(prompt);
         while (!scanner.hasNextDouble()) {
@@ -0,0 +1,865 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dto.ClientDto;
+import dto.DealStatsDto;
+import dto.UserDto;
+import models.Client;
+import models.Contact;
+import models.Deal;
+import models.Message;
+import models.Task;
+import models.User;
+import services.ClientService;
+import services.ContactService;
+import services.DealService;
+import services.MessageBroker;
+import services.MessageService;
+import services.SessionManager;
+import services.TaskService;
+import services.UsersService;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Встроенный HTTP/JSON API поверх сервисов приложения.
+ * <p>
+ * Каждый запрос обрабатывается в собственном виртуальном потоке, поэтому блокирующие операции с файлами
+ * и long polling сообщений не занимают потоков платформы. Количество одновременно обрабатываемых запросов
+ * ограничено {@code maxConcurrency}: сверх лимита сервер сразу отвечает 503, а не копит очередь.
+ * Long polling на время ожидания возвращает разрешение общего лимита и учитывается отдельным лимитом
+ * {@code crm.api.maxLongPolls} (по умолчанию 10000), чтобы ждущие клиенты не блокировали остальные запросы.
+ * <p>
+ * Аутентификация — заголовок {@code Authorization: Bearer <токен>}, токен выдается {@code POST /api/sessions}.
+ * Изменять клиентов, контакты, сделки и задачи может их владелец (пользователь клиента или сделки,
+ * исполнитель задачи), а также администратор или супервизор; только они могут указать в теле запроса
+ * другого пользователя ({@code userId}, {@code assignedTo}) и зарегистрировать пользователя с ролью
+ * ADMIN или SUPERVISION.
+ * Списки сериализуются потоково: ответ отправляется частями по мере записи элементов.
+ */
+public class HttpApiServer implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(HttpApiServer.class.getName());
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final long MAX_POLL_MILLIS = 60_000;
+    private static final int MAX_LONG_POLLS = Integer.getInteger("crm.api.maxLongPolls", 10_000);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Semaphore pollPermits = new Semaphore(MAX_LONG_POLLS);
+    private final AtomicLong requestIds = new AtomicLong();
+    private final List<Route> routes = new ArrayList<>();
+
+    private final UsersService usersService;
+    private final ClientService clientService;
+    private final ContactService contactService;
+    private final DealService dealService;
+    private final TaskService taskService;
+    private final MessageService messageService;
+
+    /**
+     * @param port           порт; 0 — выбрать свободный
+     * @param maxConcurrency максимальное количество одновременно обрабатываемых запросов
+     * @throws IllegalArgumentException если maxConcurrency не положителен
+     * @throws NullPointerException     если любой из сервисов равен null
+     * @throws IOException              если не удалось открыть порт
+     */
+    public HttpApiServer(int port, int maxConcurrency, UsersService usersService, ClientService clientService,
+                         ContactService contactService, DealService dealService, TaskService taskService,
+                         MessageService messageService) throws IOException {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Ограничение параллельности должно быть положительным");
+        }
+        if (usersService == null || clientService == null || contactService == null || dealService == null
+                || taskService == null || messageService == null) {
+            throw new NullPointerException("Сервисы не могут быть null");
+        }
+        this.usersService = usersService;
+        this.clientService = clientService;
+        this.contactService = contactService;
+        this.dealService = dealService;
+        this.taskService = taskService;
+        this.messageService = messageService;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        registerRoutes();
+    }
+
+    public void start() {
+        server.start();
+        logger.info("HTTP API запущен на порту " + getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает прием соединений и ждет завершения начатых запросов (не дольше секунды).
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("HTTP API остановлен");
+    }
+
+    private void registerRoutes() {
+        // Пользователи и сессии
+        publicRoute("POST", "/api/users", this::registerUser);
+        publicRoute("POST", "/api/sessions", this::login);
+        route("DELETE", "/api/sessions", this::logout);
+        route("GET", "/api/users", request -> request.sendList(usersService.getUsers(), HttpApiServer::writeUser));
+        // Клиенты и контакты
+        route("GET", "/api/clients", this::listClients);
+        route("POST", "/api/clients", this::createClient);
+        route("GET", "/api/clients/{id}", this::getClient);
+        route("DELETE", "/api/clients/{id}", this::deleteClient);
+        route("GET", "/api/clients/{id}/contacts", request -> request.sendList(
+                contactService.contactGetClient(request.pathLong("id")), HttpApiServer::writeContact));
+        route("POST", "/api/contacts", this::createContact);
+        route("DELETE", "/api/contacts/{id}", this::deleteContact);
+        // Сделки
+        route("GET", "/api/deals", request -> request.sendList(dealService.getDeals(), HttpApiServer::writeDeal));
+        route("POST", "/api/deals", this::createDeal);
+        route("PUT", "/api/deals/{id}", this::updateDeal);
+        route("DELETE", "/api/deals/{id}", this::deleteDeal);
+        route("GET", "/api/deals/stats", this::dealStats);
+        // Задачи
+        route("GET", "/api/tasks", request -> request.sendList(taskService.getTasks(), HttpApiServer::writeTask));
+        route("POST", "/api/tasks", this::createTask);
+        route("PUT", "/api/tasks/{id}", this::updateTask);
+        route("DELETE", "/api/tasks/{id}", this::deleteTask);
+        // Сообщения
+        route("GET", "/api/messages", this::listMessages);
+        route("POST", "/api/messages", this::sendMessage);
+        route("GET", "/api/messages/unread", request -> {
+            int unread = messageService.getUnreadCount(RequestContext.current().requireUserId());
+            request.send(200, json -> json.beginObject().field("unread", unread).endObject());
+        });
+        route("POST", "/api/messages/read", this::markRead);
+        route("GET", "/api/messages/search", this::searchMessages);
+        route("GET", "/api/messages/poll", this::pollMessage);
+    }
+
+    private void route(String method, String path, Handler handler) {
+        routes.add(new Route(method, path, handler, false));
+    }
+
+    private void publicRoute(String method, String path, Handler handler) {
+        routes.add(new Route(method, path, handler, true));
+    }
+
+    private void handle(HttpExchange exchange) {
+        if (!permits.tryAcquire()) {
+            sendError(exchange, 503, "Сервер перегружен, повторите запрос позже");
+            exchange.close();
+            return;
+        }
+        long requestId = requestIds.incrementAndGet();
+        AtomicBoolean permitHeld = new AtomicBoolean(true);
+        Runnable releasePermit = () -> {
+            if (permitHeld.compareAndSet(true, false)) {
+                permits.release();
+            }
+        };
+        try {
+            dispatch(exchange, requestId, releasePermit);
+        } finally {
+            RequestContext.close();
+            releasePermit.run();
+            exchange.close();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange, long requestId, Runnable releasePermit) {
+        Request request = null;
+        try {
+            String[] segments = split(exchange.getRequestURI().getPath());
+            Map<String, String> params = new HashMap<>();
+            Route route = null;
+            boolean pathMatched = false;
+            for (Route candidate : routes) {
+                if (candidate.match(segments, params)) {
+                    pathMatched = true;
+                    if (candidate.method.equals(exchange.getRequestMethod())) {
+                        route = candidate;
+                        break;
+                    }
+                }
+                params.clear();
+            }
+            if (route == null) {
+                throw new ApiException(pathMatched ? 405 : 404, pathMatched ? "Метод не поддерживается" : "Ресурс не найден");
+            }
+            SessionManager.Session session = route.isPublic ? null : authenticate(exchange);
+            RequestContext.open(requestId, session);
+            request = new Request(exchange, params, releasePermit);
+            route.handler.handle(request);
+        } catch (ApiException e) {
+            respondError(exchange, request, e.getStatus(), e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            respondError(exchange, request, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respondError(exchange, request, 503, "Запрос прерван");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Ошибка ввода-вывода при обработке запроса " + requestId + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Ошибка при обработке запроса " + requestId + ": " + e.getMessage(), e);
+            respondError(exchange, request, 500, "Внутренняя ошибка сервера");
+        }
+    }
+
+    private SessionManager.Session authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new ApiException(401, "Требуется аутентификация");
+        }
+        return usersService.authenticate(header.substring("Bearer ".length()).trim())
+                .orElseThrow(() -> new ApiException(401, "Сессия недействительна или истекла"));
+    }
+
+    private void respondError(HttpExchange exchange, Request request, int status, String message) {
+        if (request != null && request.responded) {
+            // Заголовки уже отправлены — сменить статус нельзя, ответ просто обрывается
+            logger.warning("Ошибка после начала ответа: " + message);
+            return;
+        }
+        sendError(exchange, status, message);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            Request.sendJson(exchange, status, json -> json.beginObject().field("error", message).endObject());
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Не удалось отправить ответ об ошибке: " + e.getMessage());
+        }
+    }
+
+    // ---- Обработчики ----
+
+    /**
+     * Регистрация открыта, но роли ADMIN и SUPERVISION выдает только аутентифицированный администратор:
+     * иначе любой мог бы обойти проверки владельца, зарегистрировавшись администратором.
+     */
+    private void registerUser(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        User.Role role = parseEnum(User.Role.class, string(body, "role"));
+        if (role == User.Role.ADMIN || role == User.Role.SUPERVISION) {
+            SessionManager.Session session = authenticate(request.exchange);
+            if (session.getRole() != User.Role.ADMIN) {
+                throw new ApiException(403, "Роль " + role + " может выдать только администратор");
+            }
+        }
+        usersService.signUp(0L, string(body, "email"), string(body, "password"), string(body, "name"),
+                string(body, "lastName"), role);
+        request.sendEmpty(201);
+    }
+
+    private void login(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        Optional<String> token = usersService.login(string(body, "email"), string(body, "password"));
+        if (token.isEmpty()) {
+            throw new ApiException(401, "Неверный логин или пароль");
+        }
+        request.send(200, json -> json.beginObject().field("token", token.get()).endObject());
+    }
+
+    private void logout(Request request) throws IOException {
+        String header = request.exchange.getRequestHeaders().getFirst("Authorization");
+        usersService.logout(header.substring("Bearer ".length()).trim());
+        request.sendEmpty(204);
+    }
+
+    private void listClients(Request request) throws IOException {
+        String search = request.query("search");
+        if (search != null) {
+            request.sendList(clientService.getClientBySearch(search), HttpApiServer::writeClient);
+            return;
+        }
+        String userId = request.query("userId");
+        List<ClientDto> clients = userId == null
+                ? clientService.getClients()
+                : clientService.getClientToUser(parseLong(userId, "userId"));
+        request.sendList(clients, HttpApiServer::writeClientDto);
+    }
+
+    private void createClient(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        clientService.save(0L, RequestContext.current().requireUserId(), string(body, "name"), string(body, "email"),
+                string(body, "phone"), string(body, "address"), Client.Status.ACTIVE);
+        request.sendEmpty(201);
+    }
+
+    private void getClient(Request request) throws IOException {
+        Client client = requireClient(request.pathLong("id"));
+        request.send(200, json -> {
+            json.beginObject()
+                    .field("id", client.getId())
+                    .field("userId", client.getUserId())
+                    .field("name", client.getName())
+                    .field("email", client.getEmail())
+                    .field("phone", client.getPhone())
+                    .field("address", client.getAddress())
+                    .field("status", client.getStatus());
+            json.name("contacts").beginArray();
+            for (Contact contact : contactService.contactGetClient(client.getId())) {
+                writeContact(json, contact);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    private void deleteClient(Request request) throws IOException {
+        Client client = requireClient(request.pathLong("id"));
+        RequestContext.current().requireOwnerOrPrivileged(client.getUserId());
+        clientService.delete(client, Client.Status.DELETE);
+        request.sendEmpty(204);
+    }
+
+    private Client requireClient(Long id) {
+        Client client = clientService.getClientById(id);
+        if (client == null) {
+            throw new ApiException(404, "Клиент с ID " + id + " не найден");
+        }
+        return client;
+    }
+
+    /**
+     * @return клиент, записи которого (контакты, сделки, задачи) может изменять текущий пользователь
+     * @throws ApiException 404, если клиента нет, и 403, если он чужой
+     */
+    private Client requireOwnClient(Long id) {
+        Client client = requireClient(id);
+        RequestContext.current().requireOwnerOrPrivileged(client.getUserId());
+        return client;
+    }
+
+    /**
+     * @return пользователь из поля тела запроса для администратора и супервизора, иначе текущий пользователь:
+     * остальным создавать записи от имени другого пользователя нельзя
+     */
+    private static Long actingUserId(Map<String, Object> body, String field) {
+        RequestContext context = RequestContext.current();
+        return context.isPrivileged() && body.containsKey(field) ? longValue(body, field) : context.requireUserId();
+    }
+
+    private void createContact(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        Long clientId = requireOwnClient(longValue(body, "clientId")).getId();
+        contactService.save(0L, clientId, string(body, "email"), string(body, "phone"),
+                string(body, "name"), string(body, "position"));
+        request.sendEmpty(201);
+    }
+
+    private void deleteContact(Request request) throws IOException {
+        Long id = request.pathLong("id");
+        Contact contact = contactService.getContactById(id)
+                .orElseThrow(() -> new ApiException(404, "Контакт с ID " + id + " не найден"));
+        requireOwnClient(contact.getClientId());
+        contactService.deleteContact(id);
+        request.sendEmpty(204);
+    }
+
+    private void createDeal(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        Long userId = actingUserId(body, "userId");
+        Long clientId = requireOwnClient(longValue(body, "clientId")).getId();
+        dealService.save(0L, string(body, "title"), clientId, userId, doubleValue(body, "amount"),
+                parseEnum(Deal.Status.class, string(body, "status")), LocalDate.now(), null);
+        request.sendEmpty(201);
+    }
+
+    private void updateDeal(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        Deal deal = requireOwnDeal(request.pathLong("id"));
+        dealService.updateDeal(deal.getId(), string(body, "title"), doubleValue(body, "amount"),
+                parseEnum(Deal.Status.class, string(body, "status")));
+        request.sendEmpty(204);
+    }
+
+    private void deleteDeal(Request request) throws IOException {
+        dealService.deleteDeal(requireOwnDeal(request.pathLong("id")).getId());
+        request.sendEmpty(204);
+    }
+
+    private Deal requireOwnDeal(Long id) {
+        Deal deal = dealService.getDealById(id)
+                .orElseThrow(() -> new ApiException(404, "Сделка с ID " + id + " не найдена"));
+        RequestContext.current().requireOwnerOrPrivileged(deal.getUserId());
+        return deal;
+    }
+
+    /**
+     * Итоги по сделкам из колоночного хранилища. Необязательные параметры запроса: status, userId,
+     * from и to (даты создания yyyy-MM-dd, включительно); каждый разрез учитывает все фильтры,
+     * кроме собственного ключа.
+     */
+    private void dealStats(Request request) throws IOException {
+        String statusParam = request.query("status");
+        String userParam = request.query("userId");
+        String fromParam = request.query("from");
+        String toParam = request.query("to");
+        Deal.Status status = statusParam == null ? null : parseEnum(Deal.Status.class, statusParam);
+        Long userId = userParam == null ? null : parseLong(userParam, "userId");
+        LocalDate from = fromParam == null ? null : LocalDate.parse(fromParam);
+        LocalDate to = toParam == null ? null : LocalDate.parse(toParam);
+
+        Map<Deal.Status, DealStatsDto> byStatus = dealService.getDealTotalsByStatus(userId, from, to);
+        Map<Long, DealStatsDto> byUser = dealService.getDealTotalsByUser(status, from, to);
+        Map<YearMonth, DealStatsDto> byMonth = dealService.getDealTotalsByMonth(status, userId, from, to);
+        DealStatsDto total = dealService.getDealTotals(status, userId, from, to);
+        request.send(200, json -> {
+            json.beginObject().name("byStatus").beginObject();
+            for (Map.Entry<Deal.Status, DealStatsDto> entry : byStatus.entrySet()) {
+                json.name(entry.getKey().name());
+                writeStats(json, entry.getValue());
+            }
+            json.endObject().name("byUser").beginObject();
+            for (Map.Entry<Long, DealStatsDto> entry : byUser.entrySet()) {
+                json.name(String.valueOf(entry.getKey()));
+                writeStats(json, entry.getValue());
+            }
+            json.endObject().name("byMonth").beginObject();
+            for (Map.Entry<YearMonth, DealStatsDto> entry : byMonth.entrySet()) {
+                json.name(entry.getKey().toString());
+                writeStats(json, entry.getValue());
+            }
+            json.endObject().name("total");
+            writeStats(json, total);
+            json.endObject();
+        });
+    }
+
+    private void createTask(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        Long assignedTo = actingUserId(body, "assignedTo");
+        Long clientId = requireOwnClient(longValue(body, "clientId")).getId();
+        taskService.save(0L, clientId, string(body, "title"), string(body, "description"),
+                assignedTo, string(body, "dueDate"), parseEnum(Task.Status.class, string(body, "status")));
+        request.sendEmpty(201);
+    }
+
+    /**
+     * Изменяет название, описание, срок и статус задачи. Изменение идет через {@link TaskService#changeTask},
+     * поэтому при новом сроке напоминание перепланируется; поля, совпадающие с текущими, не переписываются.
+     */
+    private void updateTask(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        Task task = requireOwnTask(request.pathLong("id"));
+        String title = string(body, "title");
+        String description = string(body, "description");
+        String dueDate = string(body, "dueDate");
+        Task.Status status = parseEnum(Task.Status.class, string(body, "status"));
+        // Срок проверяется строже остальных полей, поэтому меняется первым
+        if (!dueDate.equals(task.getDueDate())) {
+            taskService.changeTask(task.getId(), 4, dueDate);
+        }
+        if (!title.equals(task.getTitle())) {
+            taskService.changeTask(task.getId(), 1, title);
+        }
+        if (!description.equals(task.getDescription())) {
+            taskService.changeTask(task.getId(), 2, description);
+        }
+        if (status != task.getStatus()) {
+            taskService.changeTask(task.getId(), 5, status.name());
+        }
+        request.sendEmpty(204);
+    }
+
+    private void deleteTask(Request request) throws IOException {
+        taskService.deleteTask(requireOwnTask(request.pathLong("id")).getId());
+        request.sendEmpty(204);
+    }
+
+    private Task requireOwnTask(Long id) {
+        Task task = taskService.getTaskById(id)
+                .orElseThrow(() -> new ApiException(404, "Задача с ID " + id + " не найдена"));
+        RequestContext.current().requireOwnerOrPrivileged(task.getAssignedTo());
+        return task;
+    }
+
+    private void listMessages(Request request) throws IOException {
+        int page = request.queryInt("page", 0);
+        int size = request.queryInt("size", 20);
+        List<Message> messages = messageService.getUserMessagesPage(RequestContext.current().requireUserId(), page, size);
+        request.sendList(messages, HttpApiServer::writeMessage);
+    }
+
+    private void sendMessage(Request request) throws IOException {
+        Map<String, Object> body = request.body();
+        messageService.sendMessage(0L, RequestContext.current().requireUserId(), longValue(body, "receiverId"),
+                string(body, "content"));
+        request.sendEmpty(201);
+    }
+
+    private void markRead(Request request) throws IOException {
+        messageService.markRead(RequestContext.current().requireUserId(), longValue(request.body(), "messageId"));
+        request.sendEmpty(204);
+    }
+
+    private void searchMessages(Request request) throws IOException {
+        String query = request.query("q");
+        if (query == null) {
+            throw new ApiException(400, "Не задан параметр q");
+        }
+        String from = request.query("from");
+        String to = request.query("to");
+        // Поиск ограничен входящими сообщениями текущего пользователя
+        Long userId = RequestContext.current().requireUserId();
+        List<Message> found = messageService.searchMessages(query, null, userId,
+                from == null ? null : LocalDateTime.parse(from), to == null ? null : LocalDateTime.parse(to),
+                request.queryInt("limit", 50));
+        request.sendList(found, HttpApiServer::writeMessage);
+    }
+
+    /**
+     * Long polling: ждет следующее входящее сообщение текущего пользователя не дольше {@code timeout} мс.
+     * Виртуальный поток ожидания не занимает поток платформы, а на время ожидания запрос возвращает
+     * разрешение общего лимита и занимает разрешение лимита long polling.
+     */
+    private void pollMessage(Request request) throws IOException, InterruptedException {
+        long timeout = Math.min(request.queryInt("timeout", 30_000), MAX_POLL_MILLIS);
+        Long userId = RequestContext.current().requireUserId();
+        request.releasePermit();
+        if (!pollPermits.tryAcquire()) {
+            throw new ApiException(503, "Слишком много ожидающих запросов, повторите позже");
+        }
+        Message message;
+        try (MessageBroker.Subscription subscription = messageService.subscribe(userId)) {
+            message = subscription.poll(timeout, TimeUnit.MILLISECONDS);
+        } finally {
+            pollPermits.release();
+        }
+        if (message == null) {
+            request.sendEmpty(204);
+        } else {
+            request.send(200, json -> writeMessage(json, message));
+        }
+    }
+
+    // ---- Сериализация моделей ----
+
+    private static void writeUser(JsonWriter json, UserDto user) throws IOException {
+        json.beginObject().field("id", user.getId()).field("email", user.getEmail()).endObject();
+    }
+
+    private static void writeClientDto(JsonWriter json, ClientDto client) throws IOException {
+        json.beginObject()
+                .field("id", client.getId())
+                .field("name", client.getName())
+                .field("email", client.getEmail())
+                .field("phone", client.getPhone())
+                .field("address", client.getAddress())
+                .endObject();
+    }
+
+    private static void writeClient(JsonWriter json, Client client) throws IOException {
+        json.beginObject()
+                .field("id", client.getId())
+                .field("userId", client.getUserId())
+                .field("name", client.getName())
+                .field("email", client.getEmail())
+                .field("phone", client.getPhone())
+                .field("address", client.getAddress())
+                .field("status", client.getStatus())
+                .endObject();
+    }
+
+    private static void writeContact(JsonWriter json, Contact contact) throws IOException {
+        json.beginObject()
+                .field("id", contact.getId())
+                .field("clientId", contact.getClientId())
+                .field("name", contact.getName())
+                .field("email", contact.getEmail())
+                .field("phone", contact.getPhone())
+                .field("position", contact.getPosition())
+                .endObject();
+    }
+
+    private static void writeDeal(JsonWriter json, Deal deal) throws IOException {
+        json.beginObject()
+                .field("id", deal.getId())
+                .field("title", deal.getTitle())
+                .field("clientId", deal.getClientId())
+                .field("userId", deal.getUserId())
+                .field("amount", deal.getAmount())
+                .field("status", deal.getStatus())
+                .field("createdDate", deal.getCreatedDate())
+                .field("closedDate", deal.getClosedDate())
+                .endObject();
+    }
+
+    private static void writeTask(JsonWriter json, Task task) throws IOException {
+        json.beginObject()
+                .field("id", task.getId())
+                .field("clientId", task.getIdClient())
+                .field("title", task.getTitle())
+                .field("description", task.getDescription())
+                .field("assignedTo", task.getAssignedTo())
+                .field("dueDate", task.getDueDate())
+                .field("status", task.getStatus())
+                .endObject();
+    }
+
+    private static void writeMessage(JsonWriter json, Message message) throws IOException {
+        json.beginObject()
+                .field("id", message.getId())
+                .field("senderId", message.getSenderId())
+                .field("receiverId", message.getReceiverId())
+                .field("content", message.getContent())
+                .field("timestamp", message.getTimestamp())
+                .endObject();
+    }
+
+    private static void writeStats(JsonWriter json, DealStatsDto stats) throws IOException {
+        json.beginObject().field("count", stats.getCount()).field("amount", stats.getAmount()).endObject();
+    }
+
+    // ---- Разбор параметров ----
+
+    private static String string(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value == null) {
+            throw new ApiException(400, "Не задано поле " + name);
+        }
+        return value.toString();
+    }
+
+    private static Long longValue(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        return parseLong(string(body, name), name);
+    }
+
+    private static Double doubleValue(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(string(body, name));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Поле " + name + " должно быть числом");
+        }
+    }
+
+    private static Long parseLong(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Параметр " + name + " должен быть целым числом");
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Недопустимое значение " + value);
+        }
+    }
+
+    private static String[] split(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(Request request) throws IOException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    interface JsonBody {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ItemWriter<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    /**
+     * Маршрут: метод и шаблон пути, сегменты вида {name} захватываются как параметры.
+     */
+    private static final class Route {
+        private final String method;
+        private final String[] segments;
+        private final Handler handler;
+        private final boolean isPublic;
+
+        Route(String method, String path, Handler handler, boolean isPublic) {
+            this.method = method;
+            this.segments = split(path);
+            this.handler = handler;
+            this.isPublic = isPublic;
+        }
+
+        boolean match(String[] path, Map<String, String> params) {
+            if (path.length != segments.length) {
+                return false;
+            }
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    params.put(segment.substring(1, segment.length() - 1), path[i]);
+                } else if (!segment.equals(path[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Запрос в процессе обработки: параметры пути и строки запроса, тело и отправка ответа.
+     */
+    private static final class Request {
+        private final HttpExchange exchange;
+        private final Map<String, String> pathParams;
+        private final Runnable releasePermit;
+        private Map<String, String> queryParams;
+        private boolean responded;
+
+        Request(HttpExchange exchange, Map<String, String> pathParams, Runnable releasePermit) {
+            this.exchange = exchange;
+            this.pathParams = pathParams;
+            this.releasePermit = releasePermit;
+        }
+
+        /**
+         * Досрочно возвращает разрешение общего лимита параллельности; повторный вызов ничего не делает.
+         */
+        void releasePermit() {
+            releasePermit.run();
+        }
+
+        Long pathLong(String name) {
+            return parseLong(pathParams.get(name), name);
+        }
+
+        String query(String name) {
+            if (queryParams == null) {
+                queryParams = parseQuery(exchange.getRequestURI().getRawQuery());
+            }
+            return queryParams.get(name);
+        }
+
+        int queryInt(String name, int defaultValue) {
+            String value = query(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Параметр " + name + " должен быть целым числом");
+            }
+        }
+
+        Map<String, Object> body() throws IOException {
+            InputStream in = exchange.getRequestBody();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                if (buffer.size() + read > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Тело запроса слишком велико");
+                }
+                buffer.write(chunk, 0, read);
+            }
+            return JsonReader.parseObject(buffer.toString(StandardCharsets.UTF_8));
+        }
+
+        void send(int status, JsonBody body) throws IOException {
+            responded = true;
+            sendJson(exchange, status, body);
+        }
+
+        /**
+         * Отправляет список массивом JSON. Ответ передается частями (chunked), элементы сериализуются
+         * прямо в поток ответа без сборки документа в памяти.
+         */
+        <T> void sendList(List<T> items, ItemWriter<? super T> writer) throws IOException {
+            send(200, json -> {
+                json.beginArray();
+                for (T item : items) {
+                    writer.write(json, item);
+                }
+                json.endArray();
+            });
+        }
+
+        void sendEmpty(int status) throws IOException {
+            responded = true;
+            exchange.sendResponseHeaders(status, -1);
+        }
+
+        static void sendJson(HttpExchange exchange, int status, JsonBody body) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, 0);
+            try (JsonWriter json = new JsonWriter(new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192))) {
+                body.writeTo(json);
+            }
+        }
+
+        private static Map<String, String> parseQuery(String rawQuery) {
+            if (rawQuery == null || rawQuery.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> params = new HashMap<>();
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+            return params;
+        }
+    }
+}
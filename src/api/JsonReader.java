@@ -0,0 +1,225 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбор JSON тел запросов. Объекты представляются как {@link Map}, массивы — {@link List},
+ * целые числа — {@link Long}, дробные — {@link Double}.
+ */
+public final class JsonReader {
+
+    /**
+     * Максимальная вложенность объектов и массивов: разбор рекурсивный, и без ограничения тело
+     * из тысяч скобок {@code [} переполнило бы стек потока запроса.
+     */
+    static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private JsonReader(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param text JSON-документ
+     * @return разобранное значение
+     * @throws IllegalArgumentException если документ некорректен
+     * @throws ApiException             со статусом 400, если вложенность превышает {@link #MAX_DEPTH}
+     */
+    public static Object parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("JSON не может быть null");
+        }
+        JsonReader reader = new JsonReader(text);
+        Object value = reader.readValue();
+        reader.skipWhitespace();
+        if (reader.position != text.length()) {
+            throw reader.error("лишние символы после документа");
+        }
+        return value;
+    }
+
+    /**
+     * @param text JSON-документ, содержащий объект
+     * @return поля объекта
+     * @throws IllegalArgumentException если документ некорректен или не является объектом
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Ожидался JSON-объект");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("неожиданный конец документа");
+        }
+        char c = text.charAt(position);
+        return switch (c) {
+            case '{' -> readNested(true);
+            case '[' -> readNested(false);
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> readNumber();
+        };
+    }
+
+    private Object readNested(boolean object) {
+        if (++depth > MAX_DEPTH) {
+            throw new ApiException(400, "Некорректный JSON: вложенность больше " + MAX_DEPTH);
+        }
+        Object value = object ? readObject() : readArray();
+        depth--;
+        return value;
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("ожидалось имя поля");
+            }
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(name, readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String readString() {
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("некорректная escape-последовательность");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text, position, position + 4, 16));
+                    } catch (NumberFormatException e) {
+                        throw error("некорректная escape-последовательность");
+                    }
+                    position += 4;
+                }
+                default -> throw error("некорректная escape-последовательность");
+            }
+        }
+        throw error("незакрытая строка");
+    }
+
+    private Object readNumber() {
+        int start = position;
+        boolean fractional = false;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                fractional = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return fractional ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("некорректное значение");
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("некорректное значение");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("неожиданный конец документа");
+        }
+        return text.charAt(position);
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("ожидался символ '" + expected + "'");
+        }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Некорректный JSON в позиции " + position + ": " + message);
+    }
+}
@@ -0,0 +1,199 @@
+package api;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Потоковая запись JSON: значения пишутся сразу в {@link Writer}, документ целиком в памяти не собирается.
+ * Запятые и кавычки расставляются автоматически; корректность вложенности проверяется.
+ */
+public class JsonWriter implements Flushable, Closeable {
+
+    private final Writer out;
+    // Для каждого уровня вложенности: true — объект, false — массив
+    private boolean[] objects = new boolean[16];
+    // Для каждого уровня: был ли уже записан элемент
+    private boolean[] nonEmpty = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push(true);
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        pop(true);
+        out.write('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push(false);
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        pop(false);
+        out.write(']');
+        return this;
+    }
+
+    /**
+     * Записывает имя поля объекта; следующим должно быть записано значение.
+     */
+    public JsonWriter name(String name) throws IOException {
+        if (depth == 0 || !objects[depth - 1] || afterName) {
+            throw new IllegalStateException("Имя поля допустимо только внутри объекта");
+        }
+        if (nonEmpty[depth - 1]) {
+            out.write(',');
+        }
+        nonEmpty[depth - 1] = true;
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        beforeValue();
+        out.write(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    /**
+     * Записывает поле объекта. Числа и логические значения пишутся как есть, null — как null,
+     * остальные значения (строки, перечисления, даты) — строкой через {@code toString()}.
+     */
+    public JsonWriter field(String name, Object value) throws IOException {
+        name(name);
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Long || value instanceof Integer) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            return value(((Number) value).doubleValue());
+        }
+        if (value instanceof Boolean) {
+            return value((boolean) (Boolean) value);
+        }
+        return value(value.toString());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Закрывает приемник; все начатые объекты и массивы должны быть завершены.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (depth != 0) {
+            throw new IllegalStateException("JSON-документ не завершен");
+        }
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (objects[depth - 1]) {
+                throw new IllegalStateException("Значение в объекте должно следовать за именем поля");
+            }
+            if (nonEmpty[depth - 1]) {
+                out.write(',');
+            }
+            nonEmpty[depth - 1] = true;
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            nonEmpty = Arrays.copyOf(nonEmpty, depth * 2);
+        }
+        objects[depth] = object;
+        nonEmpty[depth] = false;
+        depth++;
+    }
+
+    private void pop(boolean object) {
+        if (depth == 0 || objects[depth - 1] != object || afterName) {
+            throw new IllegalStateException("Некорректная вложенность JSON");
+        }
+        depth--;
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escape;
+            switch (c) {
+                case '"' -> escape = "\\\"";
+                case '\\' -> escape = "\\\\";
+                case '\n' -> escape = "\\n";
+                case '\r' -> escape = "\\r";
+                case '\t' -> escape = "\\t";
+                default -> escape = c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            }
+            if (escape != null) {
+                out.write(value, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
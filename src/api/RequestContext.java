@@ -0,0 +1,93 @@
+package api;
+
+import models.User;
+import services.SessionManager;
+
+/**
+ * Контекст текущего HTTP-запроса: идентификатор запроса и сессия пользователя.
+ * <p>
+ * Каждый запрос обрабатывается в своем виртуальном потоке, поэтому контекст хранится в {@link ThreadLocal}
+ * и устанавливается сервером на время обработки.
+ */
+public final class RequestContext {
+
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    private final long requestId;
+    private final SessionManager.Session session;
+    private final long startedAtNanos;
+
+    private RequestContext(long requestId, SessionManager.Session session) {
+        this.requestId = requestId;
+        this.session = session;
+        this.startedAtNanos = System.nanoTime();
+    }
+
+    static void open(long requestId, SessionManager.Session session) {
+        CURRENT.set(new RequestContext(requestId, session));
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return контекст текущего запроса
+     * @throws IllegalStateException если вызов сделан вне обработки запроса
+     */
+    public static RequestContext current() {
+        RequestContext context = CURRENT.get();
+        if (context == null) {
+            throw new IllegalStateException("Вызов вне обработки HTTP-запроса");
+        }
+        return context;
+    }
+
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return идентификатор пользователя сессии
+     * @throws ApiException со статусом 401, если запрос не аутентифицирован
+     */
+    public Long requireUserId() {
+        if (session == null) {
+            throw new ApiException(401, "Требуется аутентификация");
+        }
+        return session.getUserId();
+    }
+
+    /**
+     * @return true, если пользователь сессии — администратор или супервизор: им доступны чужие клиенты,
+     * сделки и задачи
+     */
+    public boolean isPrivileged() {
+        if (session == null) {
+            return false;
+        }
+        User.Role role = session.getRole();
+        return role == User.Role.ADMIN || role == User.Role.SUPERVISION;
+    }
+
+    /**
+     * Проверяет, что пользователь сессии может изменять запись указанного владельца.
+     *
+     * @param ownerId идентификатор пользователя — владельца записи
+     * @throws ApiException со статусом 401, если запрос не аутентифицирован, и 403, если запись чужая,
+     *                      а пользователь не администратор и не супервизор
+     */
+    public void requireOwnerOrPrivileged(Long ownerId) {
+        Long userId = requireUserId();
+        if (!userId.equals(ownerId) && !isPrivileged()) {
+            throw new ApiException(403, "Недостаточно прав для изменения чужой записи");
+        }
+    }
+
+    /**
+     * @return время с начала обработки запроса, мкс
+     */
+    public long elapsedMicros() {
+        return (System.nanoTime() - startedAtNanos) / 1000;
+    }
+}
@@ -0,0 +1,37 @@
+package dto;
+
+
+/**
+ * Агрегированные показатели по группе сделок: количество и сумма.
+ * Сумма хранится в копейках, чтобы итоги по большим выборкам не теряли точность.
+ */
+public class DealStatsDto {
+
+    private final long count;
+    private final long amountCents;
+
+    public DealStatsDto(long count, long amountCents) {
+        this.count = count;
+        this.amountCents = amountCents;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public double getAmount() {
+        return amountCents / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        return "DealStatsDto{" +
+                "count=" + count +
+                ", amount=" + getAmount() +
+                '}';
+    }
+}
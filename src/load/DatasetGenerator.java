@@ -0,0 +1,456 @@
+package load;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Генератор воспроизводимых синтетических данных во всех файлах приложения.
+ * <p>
+ * Каждая строка строится из собственного генератора случайных чисел, зерно которого зависит только от общего
+ * зерна, таблицы и id строки. Поэтому результат не зависит от количества потоков, а связанные значения
+ * (например, менеджер клиента в сделке) вычисляются повторно, без хранения таблиц в памяти.
+ * <p>
+ * Строки таблицы рендерятся блоками параллельно и записываются одним потоком в порядке id во временный файл,
+ * который затем атомарно переименовывается. Рядом создаются файлы последовательностей {@code *_id.txt},
+ * а производные файлы (колоночное хранилище сделок, итоги, отметки прочтения) удаляются — приложение
+ * пересоздаст их по новым данным.
+ */
+public class DatasetGenerator {
+
+    private static final Logger logger = Logger.getLogger(DatasetGenerator.class.getName());
+
+    private static final int CHUNK_ROWS = 32_768;
+    private static final long BASE_EPOCH_SECOND = LocalDateTime.of(2023, 1, 1, 9, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long SPAN_SECONDS = 2L * 365 * 24 * 3600;
+    private static final String[] DERIVED_FILES = {"deal_aggregates.txt", "message_read.txt", "deal_columns"};
+
+    private static final String[] CYRILLIC_MALE_NAMES = {"Александр", "Дмитрий", "Максим", "Сергей", "Андрей",
+            "Алексей", "Артём", "Илья", "Кирилл", "Михаил", "Никита", "Матвей", "Роман", "Егор", "Иван"};
+    private static final String[] CYRILLIC_FEMALE_NAMES = {"Анастасия", "Мария", "Анна", "Виктория", "Екатерина",
+            "Наталья", "Марина", "Полина", "Дарья", "Алиса", "Ксения", "Елена", "Ольга", "Татьяна", "Юлия"};
+    private static final String[] CYRILLIC_SURNAMES = {"Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев",
+            "Петров", "Соколов", "Михайлов", "Новиков", "Фёдоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семёнов"};
+    private static final String[] LATIN_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer",
+            "Michael", "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Thomas"};
+    private static final String[] LATIN_SURNAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia",
+            "Miller", "Davis", "Rodriguez", "Martinez", "Wilson", "Anderson", "Taylor", "Thomas", "Moore"};
+    private static final String[] CYRILLIC_COMPANY_WORDS = {"Ромашка", "Вектор", "Альянс", "Гранит", "Импульс",
+            "Меридиан", "Север", "Техносфера", "Созвездие", "Прогресс", "Горизонт", "Орион", "Стройресурс"};
+    private static final String[] LATIN_COMPANY_WORDS = {"Nordic", "Atlas", "Vertex", "Quantum", "Summit",
+            "Horizon", "Pioneer", "Sterling", "Apex", "Evergreen", "Bluewave", "Ironclad", "Brightline"};
+    private static final String[] CYRILLIC_LEGAL_FORMS = {"ООО", "АО", "ИП", "ПАО"};
+    private static final String[] LATIN_LEGAL_FORMS = {"LLC", "Ltd", "Inc", "GmbH"};
+    private static final String[] CITIES = {"Москва", "Санкт-Петербург", "Новосибирск", "Екатеринбург", "Казань",
+            "Нижний Новгород", "Челябинск", "Самара", "Ростов-на-Дону", "Уфа"};
+    private static final String[] STREETS = {"ул. Ленина", "ул. Гагарина", "пр. Мира", "ул. Советская",
+            "ул. Садовая", "Невский пр.", "ул. Пушкина", "Lenina St.", "Tverskaya St."};
+    private static final String[] DOMAINS = {"mail.ru", "yandex.ru", "gmail.com", "corp.example", "company.test"};
+    private static final String[] POSITIONS = {"Генеральный директор", "Финансовый директор", "Менеджер по закупкам",
+            "Главный бухгалтер", "Procurement Manager", "CTO", "Юрист", "Office Manager"};
+    private static final String[] TASK_TITLES = {"Звонок клиенту", "Встреча по договору", "Отправить КП",
+            "Follow-up call", "Согласовать скидку", "Демонстрация продукта", "Подписание акта"};
+    private static final String[] TASK_DESCRIPTIONS = {"Уточнить условия поставки", "Обсудить продление договора",
+            "Discuss renewal terms", "Подготовить коммерческое предложение", "Согласовать график платежей"};
+    private static final String[] MESSAGE_PHRASES = {"Добрый день!", "Коллеги, прошу проверить сделку",
+            "Клиент просит перенести встречу", "Hi, can you review the proposal?", "Договор подписан",
+            "Нужна скидка для клиента", "Please update the deal status", "Созвонимся завтра в 10:00",
+            "Отправил счёт клиенту", "Клиент не отвечает на звонки", "Thanks, looks good", "Срочно: оплата не прошла"};
+    private static final String[] USER_ROLES = {"ADMIN", "MANAGER", "SERVICE", "SUPERVISION"};
+    private static final String[] DEAL_STATUSES = {"NEW", "PROGRESS", "COMPLETED", "FAILED"};
+    private static final String[] TASK_STATUSES = {"CALL", "MEETING", "SALE"};
+
+    /**
+     * Таблицы в порядке генерации: имя файла данных и файла последовательности id.
+     */
+    public enum Table {
+        USERS("users.txt", "users_id.txt"),
+        CLIENTS("client.txt", "client_id.txt"),
+        CONTACTS("contact.txt", "contact_id.txt"),
+        DEALS("deal.txt", "deal_id.txt"),
+        TASKS("task.txt", "task_id.txt"),
+        MESSAGES("message.tst", "message_id.txt");
+
+        private final String fileName;
+        private final String sequenceFileName;
+
+        Table(String fileName, String sequenceFileName) {
+            this.fileName = fileName;
+            this.sequenceFileName = sequenceFileName;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getSequenceFileName() {
+            return sequenceFileName;
+        }
+    }
+
+    private final long seed;
+    private final double managerSkew;
+    private final double conversationSkew;
+    private final double latinShare;
+    private final int threads;
+    private final String passwordHash;
+
+    /**
+     * @param seed             зерно; одинаковые параметры дают побайтно одинаковые файлы
+     * @param managerSkew      показатель Ципфа распределения клиентов по менеджерам (0 — равномерно, ~1.1 —
+     *                         несколько менеджеров ведут большинство клиентов)
+     * @param conversationSkew показатель Ципфа размеров переписок: доля сообщений самой активной пары пользователей
+     * @param latinShare       доля имен и названий латиницей, от 0 до 1
+     * @param threads          количество потоков рендеринга
+     * @param passwordHash     значение поля пароля всех пользователей (например, хеш общего пароля)
+     * @throws IllegalArgumentException если параметры вне допустимых диапазонов
+     */
+    public DatasetGenerator(long seed, double managerSkew, double conversationSkew, double latinShare, int threads,
+                            String passwordHash) {
+        if (managerSkew < 0 || conversationSkew < 0) {
+            throw new IllegalArgumentException("Показатели перекоса не могут быть отрицательными");
+        }
+        if (latinShare < 0 || latinShare > 1) {
+            throw new IllegalArgumentException("Доля латиницы должна быть в диапазоне от 0 до 1");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным");
+        }
+        if (passwordHash == null || passwordHash.contains("|")) {
+            throw new IllegalArgumentException("Некорректное значение пароля");
+        }
+        this.seed = seed;
+        this.managerSkew = managerSkew;
+        this.conversationSkew = conversationSkew;
+        this.latinShare = latinShare;
+        this.threads = threads;
+        this.passwordHash = passwordHash;
+    }
+
+    /**
+     * Генерирует все таблицы в каталоге, заменяя существующие файлы.
+     *
+     * @throws IllegalArgumentException если нет ни одного пользователя или клиента при непустых зависимых таблицах
+     * @throws IOException              если не удалось записать файлы
+     * @throws InterruptedException     если генерация прервана
+     */
+    public void generate(Path directory, long users, long clients, long contacts, long deals, long tasks, long messages)
+            throws IOException, InterruptedException {
+        if (users <= 0 && (clients > 0 || deals > 0 || tasks > 0 || messages > 0)) {
+            throw new IllegalArgumentException("Для клиентов, сделок, задач и сообщений нужны пользователи");
+        }
+        if (clients <= 0 && (contacts > 0 || deals > 0 || tasks > 0)) {
+            throw new IllegalArgumentException("Для контактов, сделок и задач нужны клиенты");
+        }
+        Files.createDirectories(directory);
+        for (String derived : DERIVED_FILES) {
+            delete(directory.resolve(derived));
+        }
+        Run run = new Run(users, clients, messages);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            writeTable(pool, directory, Table.USERS, users, run::appendUser);
+            writeTable(pool, directory, Table.CLIENTS, clients, run::appendClient);
+            writeTable(pool, directory, Table.CONTACTS, contacts, run::appendContact);
+            writeTable(pool, directory, Table.DEALS, deals, run::appendDeal);
+            writeTable(pool, directory, Table.TASKS, tasks, run::appendTask);
+            writeTable(pool, directory, Table.MESSAGES, messages, run::appendMessage);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void writeTable(ExecutorService pool, Path directory, Table table, long rows, RowWriter rowWriter)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Path target = directory.resolve(table.getFileName());
+        Path temp = directory.resolve(table.getFileName() + ".tmp");
+        // Блоков в работе не больше двух на поток: память ограничена, а запись не ждет рендеринга
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        long bytes = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long first = 1; first <= rows; first += CHUNK_ROWS) {
+                if (pending.size() >= threads * 2) {
+                    bytes += write(out, pending.poll());
+                }
+                long from = first;
+                long to = Math.min(rows, first + CHUNK_ROWS - 1);
+                pending.add(pool.submit(() -> renderChunk(table, from, to, rowWriter)));
+            }
+            while (!pending.isEmpty()) {
+                bytes += write(out, pending.poll());
+            }
+            out.force(false);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            pending.forEach(future -> future.cancel(true));
+            delete(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.writeString(directory.resolve(table.getSequenceFileName()), rows + "|\n", StandardCharsets.UTF_8);
+        logger.info(String.format("%s: %d строк, %.1f МБ за %d мс", table.getFileName(), rows, bytes / 1048576.0,
+                (System.nanoTime() - started) / 1_000_000));
+    }
+
+    private byte[] renderChunk(Table table, long from, long to, RowWriter rowWriter) {
+        StringBuilder text = new StringBuilder((int) (to - from + 1) * 96);
+        for (long id = from; id <= to; id++) {
+            rowWriter.append(text, id, rowRandom(table, id));
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long write(FileChannel out, Future<byte[]> chunk) throws IOException, InterruptedException {
+        byte[] bytes;
+        try {
+            bytes = chunk.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка при генерации данных: " + e.getCause().getMessage(), e.getCause());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return bytes.length;
+    }
+
+    private SplittableRandom rowRandom(Table table, long id) {
+        return new SplittableRandom(mix(seed * 31 + table.ordinal()) ^ mix(id));
+    }
+
+    private static long mix(long value) {
+        // Финализатор SplitMix64: соседние id дают некоррелированные зерна
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void append(StringBuilder out, long id, SplittableRandom random);
+    }
+
+    /**
+     * Размеры и распределения одного запуска. Строки таблиц, ссылающиеся на другие таблицы,
+     * восстанавливают связанные значения из генератора строки, на которую ссылаются.
+     */
+    private final class Run {
+        private final long users;
+        private final long clients;
+        private final ZipfSampler managers;
+        private final ZipfSampler conversations;
+        private final long conversationCount;
+        private final double messageInterval;
+
+        Run(long users, long clients, long messages) {
+            this.users = users;
+            this.clients = clients;
+            this.managers = users > 0 ? new ZipfSampler(users, managerSkew) : null;
+            // Пар пользователей с перепиской — примерно по десять на пользователя
+            this.conversationCount = Math.max(1, Math.min(users * 10, Math.max(messages, 1)));
+            this.conversations = new ZipfSampler(conversationCount, conversationSkew);
+            this.messageInterval = messages > 0 ? (double) SPAN_SECONDS / messages : 0;
+        }
+
+        void appendUser(StringBuilder out, long id, SplittableRandom random) {
+            boolean latin = random.nextDouble() < latinShare;
+            boolean female = random.nextBoolean();
+            String role = id == 1 ? USER_ROLES[0] : role(random);
+            out.append(id).append('|')
+                    .append("manager").append(id - 1).append("@load.test").append('|')
+                    .append(passwordHash).append('|')
+                    .append(latin ? pick(random, LATIN_NAMES)
+                            : pick(random, female ? CYRILLIC_FEMALE_NAMES : CYRILLIC_MALE_NAMES)).append('|');
+            if (latin) {
+                out.append(pick(random, LATIN_SURNAMES));
+            } else {
+                out.append(pick(random, CYRILLIC_SURNAMES));
+                if (female) {
+                    out.append('а');
+                }
+            }
+            out.append('|').append(role);
+        }
+
+        void appendClient(StringBuilder out, long id, SplittableRandom random) {
+            long owner = managers.sample(random);
+            boolean latin = random.nextDouble() < latinShare;
+            out.append(id).append('|').append(owner).append('|');
+            if (latin) {
+                out.append(pick(random, LATIN_COMPANY_WORDS)).append(' ').append(pick(random, LATIN_LEGAL_FORMS));
+            } else {
+                out.append(pick(random, CYRILLIC_LEGAL_FORMS)).append(" \"").append(pick(random, CYRILLIC_COMPANY_WORDS))
+                        .append('"');
+            }
+            out.append(' ').append(id).append('|')
+                    .append("client").append(id).append('@').append(pick(random, DOMAINS)).append('|');
+            appendPhone(out, 9_000_000_000L + id % 1_000_000_000L);
+            out.append('|').append(pick(random, CITIES)).append(", ").append(pick(random, STREETS)).append(", ")
+                    .append(1 + random.nextInt(150)).append('|')
+                    .append(random.nextInt(100) < 5 ? "DELETE" : "ACTIVE");
+        }
+
+        void appendContact(StringBuilder out, long id, SplittableRandom random) {
+            boolean latin = random.nextDouble() < latinShare;
+            out.append(id).append('|').append(1 + random.nextLong(clients)).append('|')
+                    .append(latin ? pick(random, LATIN_NAMES) : pick(random, CYRILLIC_MALE_NAMES)).append(' ')
+                    .append(latin ? pick(random, LATIN_SURNAMES) : pick(random, CYRILLIC_SURNAMES)).append('|')
+                    .append("contact").append(id).append('@').append(pick(random, DOMAINS)).append('|');
+            appendPhone(out, 9_100_000_000L + id % 800_000_000L);
+            out.append('|').append(pick(random, POSITIONS));
+        }
+
+        void appendDeal(StringBuilder out, long id, SplittableRandom random) {
+            long clientId = 1 + random.nextLong(clients);
+            String status = DEAL_STATUSES[weighted(random, 20, 35, 30, 15)];
+            LocalDate created = LocalDate.ofEpochDay(BASE_EPOCH_SECOND / 86_400 + random.nextLong(SPAN_SECONDS / 86_400));
+            // Логнормальная сумма: медиана ~60 тыс., длинный хвост крупных сделок
+            long cents = Math.max(100_000, (long) (Math.exp(11 + 1.2 * gaussian(random)) * 100));
+            out.append(id).append('|').append("Сделка ").append(id).append('|').append(clientId).append('|')
+                    .append(ownerOf(clientId)).append('|')
+                    .append(cents / 100).append('.');
+            appendPadded(out, cents % 100, 2);
+            out.append('|').append(status).append('|');
+            appendDate(out, created);
+            out.append('|');
+            if (status.equals("COMPLETED") || status.equals("FAILED")) {
+                appendDate(out, created.plusDays(1 + random.nextInt(120)));
+            }
+        }
+
+        void appendTask(StringBuilder out, long id, SplittableRandom random) {
+            long clientId = 1 + random.nextLong(clients);
+            long createdSecond = BASE_EPOCH_SECOND + random.nextLong(SPAN_SECONDS);
+            LocalDateTime created = LocalDateTime.ofEpochSecond(createdSecond, 0, ZoneOffset.UTC);
+            LocalDateTime due = LocalDateTime.ofEpochSecond(createdSecond + 3600 + random.nextLong(30L * 86_400),
+                    0, ZoneOffset.UTC);
+            out.append(id).append('|').append(clientId).append('|').append(pick(random, TASK_TITLES)).append('|')
+                    .append(pick(random, TASK_DESCRIPTIONS)).append('|').append(ownerOf(clientId)).append('|');
+            appendDateTime(out, created, 'T');
+            out.append('|');
+            appendDateTime(out, due, ' ');
+            out.append('|').append(pick(random, TASK_STATUSES));
+        }
+
+        void appendMessage(StringBuilder out, long id, SplittableRandom random) {
+            long conversation = conversations.sample(random);
+            long first = 1 + Math.floorMod(mix(conversation * 2 + seed), users);
+            long second = 1 + Math.floorMod(mix(conversation * 2 + 1 + seed), users);
+            if (second == first && users > 1) {
+                second = first % users + 1;
+            }
+            boolean reply = random.nextBoolean();
+            // Время растет вместе с id, как при обычной отправке: поиск по сообщениям опирается на этот порядок
+            long second0 = BASE_EPOCH_SECOND + (long) ((id - 1 + 0.9 * random.nextDouble()) * messageInterval);
+            LocalDateTime sent = LocalDateTime.ofEpochSecond(second0, 0, ZoneOffset.UTC);
+            out.append(id).append('|').append(reply ? second : first).append('|').append(reply ? first : second).append('|')
+                    .append(pick(random, MESSAGE_PHRASES));
+            if (random.nextInt(3) == 0) {
+                out.append(" (сделка №").append(1 + random.nextInt(1_000_000)).append(')');
+            }
+            out.append('|');
+            appendDateTime(out, sent, 'T');
+            out.append('|');
+            appendDateTime(out, sent, ' ');
+        }
+
+        /**
+         * Менеджер клиента: повторяет выборку из строки клиента с тем же зерном.
+         */
+        private long ownerOf(long clientId) {
+            return managers.sample(rowRandom(Table.CLIENTS, clientId));
+        }
+
+        private String role(SplittableRandom random) {
+            int value = random.nextInt(100);
+            return value < 80 ? USER_ROLES[1] : value < 90 ? USER_ROLES[2] : USER_ROLES[3];
+        }
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static int weighted(SplittableRandom random, int... weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Преобразование Бокса — Мюллера; SplittableRandom не умеет нормальное распределение
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static void appendPhone(StringBuilder out, long digits) {
+        out.append("+7");
+        appendPadded(out, digits, 10);
+    }
+
+    private static void appendDate(StringBuilder out, LocalDate date) {
+        appendPadded(out, date.getYear(), 4);
+        out.append('-');
+        appendPadded(out, date.getMonthValue(), 2);
+        out.append('-');
+        appendPadded(out, date.getDayOfMonth(), 2);
+    }
+
+    private static void appendDateTime(StringBuilder out, LocalDateTime dateTime, char separator) {
+        appendDate(out, dateTime.toLocalDate());
+        out.append(separator);
+        appendPadded(out, dateTime.getHour(), 2);
+        out.append(':');
+        appendPadded(out, dateTime.getMinute(), 2);
+        out.append(':');
+        appendPadded(out, dateTime.getSecond(), 2);
+    }
+
+    private static void appendPadded(StringBuilder out, long value, int width) {
+        int digits = value == 0 ? 1 : (int) Math.log10(value) + 1;
+        for (int i = digits; i < width; i++) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+}
@@ -0,0 +1,53 @@
+package load;
+
+import util.PasswordHasher;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Точка входа генератора синтетических данных. Параметры задаются в виде {@code --имя=значение}:
+ * <ul>
+ *     <li>{@code --dir=load_data} — каталог файлов данных; существующие таблицы заменяются;</li>
+ *     <li>{@code --seed=42} — зерно; одинаковые параметры дают одинаковые файлы;</li>
+ *     <li>{@code --users=200}, {@code --clients=100000}, {@code --contacts}, {@code --deals}, {@code --tasks},
+ *     {@code --messages} — количество строк в таблицах (по умолчанию равно количеству клиентов);</li>
+ *     <li>{@code --manager-skew=1.1} — перекос распределения клиентов по менеджерам;</li>
+ *     <li>{@code --conversation-skew=1.2} — перекос размеров переписок;</li>
+ *     <li>{@code --latin-share=0.3} — доля имен латиницей;</li>
+ *     <li>{@code --threads} — потоков рендеринга (по числу процессоров);</li>
+ *     <li>{@code --password=Load-password} — общий пароль всех пользователей.</li>
+ * </ul>
+ * Пользователи получают email {@code manager<i>@load.test}, как в {@link LoadGeneratorMain}: сгенерированный
+ * каталог можно сразу использовать для нагрузочного прогона с тем же {@code --password}.
+ */
+public class DatasetGeneratorMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        Path dir = Paths.get(options.getOrDefault("dir", "load_data"));
+        long users = Long.parseLong(options.getOrDefault("users", "200"));
+        long clients = Long.parseLong(options.getOrDefault("clients", "100000"));
+        long contacts = Long.parseLong(options.getOrDefault("contacts", String.valueOf(clients)));
+        long deals = Long.parseLong(options.getOrDefault("deals", String.valueOf(clients)));
+        long tasks = Long.parseLong(options.getOrDefault("tasks", String.valueOf(clients)));
+        long messages = Long.parseLong(options.getOrDefault("messages", String.valueOf(clients)));
+        String password = options.getOrDefault("password", "Load-password");
+
+        // Хеш общий для всех пользователей: PBKDF2 на каждую строку сделал бы генерацию часовой
+        DatasetGenerator generator = new DatasetGenerator(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Double.parseDouble(options.getOrDefault("manager-skew", "1.1")),
+                Double.parseDouble(options.getOrDefault("conversation-skew", "1.2")),
+                Double.parseDouble(options.getOrDefault("latin-share", "0.3")),
+                Integer.parseInt(options.getOrDefault("threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                new PasswordHasher().hash(password));
+
+        long started = System.nanoTime();
+        generator.generate(dir, users, clients, contacts, deals, tasks, messages);
+        System.out.printf("Данные сгенерированы в %s за %.1f с%n", dir.toAbsolutePath(),
+                (System.nanoTime() - started) / 1e9);
+    }
+}
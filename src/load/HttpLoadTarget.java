@@ -0,0 +1,153 @@
+package load;
+
+import api.JsonReader;
+import api.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Нагрузка через HTTP API ({@link api.HttpApiServer}): учитывает сериализацию, сеть и аутентификацию по токену.
+ */
+public class HttpLoadTarget implements LoadTarget {
+
+    private static final DateTimeFormatter DUE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String baseUrl;
+    private final LoadDataset dataset;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client;
+
+    /**
+     * @param baseUrl адрес сервера, например {@code http://localhost:8080}
+     */
+    public HttpLoadTarget(String baseUrl, LoadDataset dataset) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.dataset = dataset;
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Override
+    public void execute(LoadOperation operation, SimulatedUser user) throws IOException, InterruptedException {
+        if (operation == LoadOperation.SIGN_IN || user.getToken() == null) {
+            signIn(user);
+            if (operation == LoadOperation.SIGN_IN) {
+                return;
+            }
+        }
+        Random random = user.getRandom();
+        switch (operation) {
+            case ADD_CLIENT -> {
+                long n = dataset.nextSequence();
+                send(user, "POST", "/api/clients", json(json -> json.beginObject()
+                        .field("name", "Нагрузочный клиент " + n)
+                        .field("email", "load" + n + "@client.test")
+                        .field("phone", String.format("+7%010d", n))
+                        .field("address", dataset.randomCity(random))
+                        .endObject()));
+            }
+            case SEARCH_CLIENT -> send(user, "GET", "/api/clients?search="
+                    + URLEncoder.encode(dataset.randomSearchTerm(random), StandardCharsets.UTF_8), null);
+            case ADD_DEAL -> send(user, "POST", "/api/deals", json(json -> json.beginObject()
+                    .field("title", "Сделка " + dataset.nextSequence())
+                    .field("clientId", dataset.randomClientId(random))
+                    .field("amount", 1000.0 + random.nextInt(1_000_000))
+                    .field("status", "NEW")
+                    .endObject()));
+            case ADD_TASK -> send(user, "POST", "/api/tasks", json(json -> json.beginObject()
+                    .field("clientId", dataset.randomClientId(random))
+                    .field("title", "Звонок клиенту")
+                    .field("description", "Уточнить условия договора")
+                    .field("dueDate", LocalDateTime.now().plusDays(1 + random.nextInt(14)).format(DUE_DATE_FORMAT))
+                    .field("status", "CALL")
+                    .endObject()));
+            case SEND_MESSAGE -> send(user, "POST", "/api/messages", json(json -> json.beginObject()
+                    .field("receiverId", dataset.randomUserId(random))
+                    .field("content", "Добрый день! Прошу проверить сделку №" + random.nextInt(100_000))
+                    .endObject()));
+            case READ_MESSAGES -> {
+                String page = send(user, "GET", "/api/messages?page=0&size=20", null);
+                Object messages = JsonReader.parse(page);
+                if (messages instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof Map<?, ?> newest) {
+                    send(user, "POST", "/api/messages/read", json(json -> json.beginObject()
+                            .field("messageId", newest.get("id"))
+                            .endObject()));
+                }
+            }
+            default -> throw new IllegalArgumentException("Неизвестная операция: " + operation);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private void signIn(SimulatedUser user) throws IOException, InterruptedException {
+        String response = send(null, "POST", "/api/sessions", json(json -> json.beginObject()
+                .field("email", user.getEmail())
+                .field("password", user.getPassword())
+                .endObject()));
+        user.setToken((String) JsonReader.parseObject(response).get("token"));
+    }
+
+    private String send(SimulatedUser user, String method, String path, String body)
+            throws IOException, InterruptedException {
+        return send(user, method, path, body, true);
+    }
+
+    private String send(SimulatedUser user, String method, String path, String body, boolean retryOnExpiredSession)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        if (body != null) {
+            request.header("Content-Type", "application/json; charset=utf-8");
+        }
+        if (user != null) {
+            request.header("Authorization", "Bearer " + user.getToken());
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() == 401 && user != null && retryOnExpiredSession) {
+            // Сессия истекла — входим заново и повторяем запрос один раз
+            signIn(user);
+            return send(user, method, path, body, false);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode() + " для " + method + " " + path + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String json(JsonBody body) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+        body.writeTo(json);
+        json.close();
+        return out.toString();
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+}
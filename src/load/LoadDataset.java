@@ -0,0 +1,58 @@
+package load;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Синтетические данные, на которые опираются операции нагрузки: существующие пользователи и клиенты,
+ * строки для поиска. Новые записи получают уникальные имена из общего счетчика.
+ */
+public class LoadDataset {
+
+    private static final String[] CITIES = {"Москва", "Санкт-Петербург", "Казань", "Новосибирск", "Екатеринбург"};
+
+    private final long[] userIds;
+    private final long[] clientIds;
+    private final String[] searchTerms;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @throws IllegalArgumentException если нет ни одного пользователя, клиента или строки поиска
+     */
+    public LoadDataset(List<Long> userIds, List<Long> clientIds, List<String> searchTerms) {
+        if (userIds.isEmpty() || clientIds.isEmpty() || searchTerms.isEmpty()) {
+            throw new IllegalArgumentException("Для нагрузки нужны пользователи, клиенты и строки поиска");
+        }
+        this.userIds = userIds.stream().mapToLong(Long::longValue).toArray();
+        this.clientIds = clientIds.stream().mapToLong(Long::longValue).toArray();
+        this.searchTerms = searchTerms.toArray(new String[0]);
+    }
+
+    public Long randomUserId(Random random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    public Long randomClientId(Random random) {
+        return clientIds[random.nextInt(clientIds.length)];
+    }
+
+    public String randomSearchTerm(Random random) {
+        return searchTerms[random.nextInt(searchTerms.length)];
+    }
+
+    public String randomCity(Random random) {
+        return CITIES[random.nextInt(CITIES.length)];
+    }
+
+    /**
+     * @return номер для уникальных имен и email новых записей
+     */
+    public long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    public int getClientCount() {
+        return clientIds.length;
+    }
+}
@@ -0,0 +1,165 @@
+package load;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Генератор нагрузки: смоделированные менеджеры выполняют операции из {@link WorkloadMix}.
+ * <p>
+ * Замкнутая модель — каждый пользователь работает в своем виртуальном потоке: операция, пауза, следующая операция.
+ * Нагрузка сама подстраивается под скорость системы, поэтому годится для оценки пропускной способности.
+ * <p>
+ * Открытая модель — запросы поступают пуассоновским потоком с заданной интенсивностью независимо от того,
+ * успевает ли система. Запрос обслуживает первый освободившийся пользователь; пока свободных нет, запрос ждет
+ * в очереди в порядке поступления. Задержка отсчитывается от запланированного момента поступления, поэтому
+ * ожидание в очереди перед системой попадает в перцентили. Очередь ограничена {@code maxBacklog} запросами:
+ * сверх нее запрос отбрасывается и учитывается в отчете отдельно. После окончания прогона
+ * накопленная очередь дообслуживается.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+    private static final int DEFAULT_MAX_BACKLOG = 100_000;
+
+    private final LoadTarget target;
+    private final WorkloadMix mix;
+    private final List<SimulatedUser> users;
+
+    /**
+     * @throws IllegalArgumentException если список пользователей пуст
+     */
+    public LoadGenerator(LoadTarget target, WorkloadMix mix, List<SimulatedUser> users) {
+        if (users.isEmpty()) {
+            throw new IllegalArgumentException("Для нагрузки нужен хотя бы один пользователь");
+        }
+        this.target = target;
+        this.mix = mix;
+        this.users = users;
+    }
+
+    /**
+     * Прогон в замкнутой модели.
+     *
+     * @param warmup    прогрев, измерения которого отбрасываются
+     * @param duration  длительность измерения
+     * @param thinkTime средняя пауза пользователя между операциями (экспоненциальное распределение); 0 — без пауз
+     */
+    public LoadReport runClosedLoop(Duration warmup, Duration duration, Duration thinkTime) {
+        LoadReport report = new LoadReport("CLOSED", users.size(), warmup, duration, 0, mix);
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        logger.info("Замкнутая модель: " + users.size() + " пользователей, " + duration.toSeconds() + " с");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SimulatedUser user : users) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        long start = System.nanoTime();
+                        execute(mix.pick(user.getRandom()), user, start, measureFrom, report);
+                        if (!thinkTime.isZero()) {
+                            // Экспоненциальная пауза, чтобы пользователи не синхронизировались
+                            LockSupport.parkNanos((long) (-Math.log(1 - user.getRandom().nextDouble()) * thinkTime.toNanos()));
+                        }
+                    }
+                });
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Прогон в открытой модели.
+     *
+     * @param warmup        прогрев, измерения которого отбрасываются
+     * @param duration      длительность измерения
+     * @param ratePerSecond средняя интенсивность поступления запросов
+     * @throws IllegalArgumentException если интенсивность не положительна
+     */
+    public LoadReport runOpenLoop(Duration warmup, Duration duration, double ratePerSecond) {
+        return runOpenLoop(warmup, duration, ratePerSecond, DEFAULT_MAX_BACKLOG);
+    }
+
+    /**
+     * Прогон в открытой модели с ограничением очереди ожидающих запросов.
+     *
+     * @param warmup        прогрев, измерения которого отбрасываются
+     * @param duration      длительность измерения
+     * @param ratePerSecond средняя интенсивность поступления запросов
+     * @param maxBacklog    сколько запросов может ждать свободного пользователя; остальные отбрасываются
+     * @throws IllegalArgumentException если интенсивность или размер очереди не положительны
+     */
+    public LoadReport runOpenLoop(Duration warmup, Duration duration, double ratePerSecond, int maxBacklog) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Интенсивность нагрузки должна быть положительной");
+        }
+        if (maxBacklog <= 0) {
+            throw new IllegalArgumentException("Размер очереди должен быть положительным");
+        }
+        LoadReport report = new LoadReport("OPEN", users.size(), warmup, duration, ratePerSecond, mix);
+        // Справедливая очередь: ждущие запросы получают пользователей в порядке поступления
+        BlockingQueue<SimulatedUser> idle = new ArrayBlockingQueue<>(users.size(), true, users);
+        AtomicInteger backlog = new AtomicInteger();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        double meanInterval = 1_000_000_000.0 / ratePerSecond;
+        logger.info("Открытая модель: " + ratePerSecond + " запросов/с, " + users.size() + " пользователей");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long next = System.nanoTime();
+            while (next < end && !Thread.currentThread().isInterrupted()) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                long scheduled = next;
+                next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanInterval);
+                if (backlog.incrementAndGet() > maxBacklog) {
+                    backlog.decrementAndGet();
+                    if (scheduled >= measureFrom) {
+                        report.recordDropped();
+                    }
+                    continue;
+                }
+                executor.execute(() -> {
+                    SimulatedUser user;
+                    try {
+                        user = idle.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } finally {
+                        backlog.decrementAndGet();
+                    }
+                    try {
+                        execute(mix.pick(user.getRandom()), user, scheduled, measureFrom, report);
+                    } finally {
+                        idle.add(user);
+                    }
+                });
+            }
+        }
+        return report;
+    }
+
+    private void execute(LoadOperation operation, SimulatedUser user, long start, long measureFrom, LoadReport report) {
+        Exception error = null;
+        try {
+            target.execute(operation, user);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            error = e;
+        }
+        if (start >= measureFrom) {
+            report.record(operation, System.nanoTime() - start, error);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package load;
+
+import api.HttpApiServer;
+import dto.ClientDto;
+import dto.UserDto;
+import models.Client;
+import models.User;
+import repositories.ClientRepositoryFileBasedImpl;
+import repositories.ContactRepositoryFileBasedImpl;
+import repositories.DealColumnStore;
+import repositories.DealRepositoryFileBasedImpl;
+import repositories.MessageRepositoryFileBaseImpl;
+import repositories.ReadMarkerRepositoryFileBasedImpl;
+import repositories.TaskRepositoryFileBasedImpl;
+import repositories.UsersRepositoryFileBasedImpl;
+import services.ClientService;
+import services.ClientServiceImpl;
+import services.ContactServiceImpl;
+import services.DealService;
+import services.DealServiceImpl;
+import services.MessageBroker;
+import services.MessageService;
+import services.MessageServiceImpl;
+import services.TaskService;
+import services.TaskServiceImpl;
+import services.UsersService;
+import services.UsersServiceImpl;
+import template.DocumentGenerator;
+import template.FileDocumentSink;
+import util.AsyncExecutor;
+import util.IdGenerators;
+import util.MailUtilMockImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Точка входа генератора нагрузки. Параметры задаются в виде {@code --имя=значение}:
+ * <ul>
+ *     <li>{@code --target=service|http} — сервисный слой напрямую или встроенный HTTP API (service);</li>
+ *     <li>{@code --mode=closed|open} — замкнутая или открытая модель поступления запросов (closed);</li>
+ *     <li>{@code --users=200} — количество менеджеров;</li>
+ *     <li>{@code --clients=2000} — количество клиентов в синтетических данных;</li>
+ *     <li>{@code --duration=60}, {@code --warmup=10} — длительность измерения и прогрева, секунды;</li>
+ *     <li>{@code --think-ms=500} — средняя пауза между операциями в замкнутой модели;</li>
+ *     <li>{@code --rate=100} — запросов в секунду в открытой модели;</li>
+ *     <li>{@code --backlog=100000} — сколько запросов открытой модели может ждать свободного менеджера;</li>
+ *     <li>{@code --mix=SEARCH_CLIENT=30,ADD_DEAL=10,...} — доли операций;</li>
+ *     <li>{@code --dir=load_data} — каталог файлов данных; {@code --out=load_report.json} — файл отчета;</li>
+ *     <li>{@code --seed=42} — зерно генератора случайных чисел;</li>
+ *     <li>{@code --password=...} — общий пароль всех менеджеров, например для данных {@link DatasetGeneratorMain}.</li>
+ * </ul>
+ * Недостающие пользователи и клиенты создаются перед прогоном, повторный запуск использует уже созданные.
+ * Регистрация хеширует пароли, поэтому для больших наборов стоит уменьшить {@code -Dcrm.password.iterations}.
+ */
+public class LoadGeneratorMain {
+
+    private static final String USER_EMAIL_FORMAT = "manager%d@load.test";
+    private static final String[] DATA_FILES = {"users.txt", "client.txt", "contact.txt", "deal.txt", "task.txt", "message.tst"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        int userCount = Integer.parseInt(options.getOrDefault("users", "200"));
+        int clientCount = Integer.parseInt(options.getOrDefault("clients", "2000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Path dir = Paths.get(options.getOrDefault("dir", "load_data"));
+        Files.createDirectories(dir);
+        for (String name : DATA_FILES) {
+            if (Files.notExists(dir.resolve(name))) {
+                Files.createFile(dir.resolve(name));
+            }
+        }
+
+        try (AsyncExecutor executor = new AsyncExecutor("load", 64)) {
+            UsersService usersService = new UsersServiceImpl(new UsersRepositoryFileBasedImpl(file(dir, "users.txt"),
+                    IdGenerators.createGenerator(file(dir, "users_id.txt"))), new MailUtilMockImpl(executor));
+            ClientService clientService = new ClientServiceImpl(new ClientRepositoryFileBasedImpl(file(dir, "client.txt"),
+                    IdGenerators.createGenerator(file(dir, "client_id.txt"))),
+                    new DocumentGenerator(options.getOrDefault("template", "sales_contract.txt")), executor,
+                    new FileDocumentSink(dir.resolve("documents").toString()));
+            DealService dealService = new DealServiceImpl(new DealRepositoryFileBasedImpl(file(dir, "deal.txt"),
+                    IdGenerators.createGenerator(file(dir, "deal_id.txt")), new DealColumnStore(file(dir, "deal_columns"))));
+            TaskService taskService = new TaskServiceImpl(new TaskRepositoryFileBasedImpl(file(dir, "task.txt"),
+                    IdGenerators.createGenerator(file(dir, "task_id.txt"))));
+            MessageService messageService = new MessageServiceImpl(new MessageRepositoryFileBaseImpl(file(dir, "message.tst"),
+                    IdGenerators.createGenerator(file(dir, "message_id.txt"))),
+                    new ReadMarkerRepositoryFileBasedImpl(file(dir, "message_read.txt")), new MessageBroker(executor, 256));
+
+            List<SimulatedUser> users = seedUsers(usersService, userCount, seed, options.get("password"));
+            LoadDataset dataset = seedClients(clientService, users, clientCount, new Random(seed));
+            System.out.println("Данные готовы: " + users.size() + " пользователей, " + dataset.getClientCount() + " клиентов");
+
+            HttpApiServer server = null;
+            LoadTarget target;
+            if ("http".equalsIgnoreCase(options.getOrDefault("target", "service"))) {
+                server = new HttpApiServer(0, Math.max(userCount * 2, 64), usersService, clientService,
+                        new ContactServiceImpl(new ContactRepositoryFileBasedImpl(file(dir, "contact.txt"),
+                                IdGenerators.createGenerator(file(dir, "contact_id.txt")))),
+                        dealService, taskService, messageService);
+                server.start();
+                target = new HttpLoadTarget("http://localhost:" + server.getPort(), dataset);
+            } else {
+                target = new ServiceLoadTarget(usersService, clientService, dealService, taskService, messageService, dataset);
+            }
+
+            try (target) {
+                for (SimulatedUser user : users) {
+                    target.execute(LoadOperation.SIGN_IN, user);
+                }
+                WorkloadMix mix = options.containsKey("mix") ? WorkloadMix.parse(options.get("mix")) : WorkloadMix.defaultMix();
+                LoadGenerator generator = new LoadGenerator(target, mix, users);
+                Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+                Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+                LoadReport report = "open".equalsIgnoreCase(options.getOrDefault("mode", "closed"))
+                        ? generator.runOpenLoop(warmup, duration, Double.parseDouble(options.getOrDefault("rate", "100")),
+                        Integer.parseInt(options.getOrDefault("backlog", "100000")))
+                        : generator.runClosedLoop(warmup, duration,
+                        Duration.ofMillis(Long.parseLong(options.getOrDefault("think-ms", "500"))));
+                Path out = Paths.get(options.getOrDefault("out", "load_report.json"));
+                report.writeJson(out);
+                System.out.print(report);
+                System.out.println("Отчет сохранен: " + out.toAbsolutePath());
+            } finally {
+                if (server != null) {
+                    server.close();
+                }
+            }
+        }
+    }
+
+    private static List<SimulatedUser> seedUsers(UsersService usersService, int count, long seed, String sharedPassword) {
+        Map<String, Long> existing = new HashMap<>();
+        for (UserDto user : usersService.getUsers()) {
+            existing.put(user.getEmail(), user.getId());
+        }
+        for (int i = 0; i < count; i++) {
+            String email = String.format(USER_EMAIL_FORMAT, i);
+            if (!existing.containsKey(email)) {
+                usersService.signUp(0L, email, password(i, sharedPassword), "Менеджер", "Нагрузочный" + i, User.Role.MANAGER);
+            }
+        }
+        for (UserDto user : usersService.getUsers()) {
+            existing.put(user.getEmail(), user.getId());
+        }
+        List<SimulatedUser> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String email = String.format(USER_EMAIL_FORMAT, i);
+            users.add(new SimulatedUser(existing.get(email), email, password(i, sharedPassword), seed * 31 + i));
+        }
+        return users;
+    }
+
+    private static LoadDataset seedClients(ClientService clientService, List<SimulatedUser> users, int count, Random random) {
+        List<ClientDto> clients = clientService.getClients();
+        for (int i = clients.size(); i < count; i++) {
+            Long owner = users.get(random.nextInt(users.size())).getUserId();
+            clientService.save(0L, owner, "Клиент " + i, "client" + i + "@load.test", String.format("+7900%07d", i),
+                    "Москва", Client.Status.ACTIVE);
+        }
+        clients = clientService.getClients();
+        List<Long> clientIds = new ArrayList<>(clients.size());
+        List<String> searchTerms = new ArrayList<>();
+        for (ClientDto client : clients) {
+            clientIds.add(client.getId());
+            // Поиск по точному совпадению: имени, email или телефону существующего клиента
+            switch (random.nextInt(3)) {
+                case 0 -> searchTerms.add(client.getName());
+                case 1 -> searchTerms.add(client.getEmail());
+                default -> searchTerms.add(client.getPhone());
+            }
+        }
+        List<Long> userIds = users.stream().map(SimulatedUser::getUserId).toList();
+        return new LoadDataset(userIds, clientIds, searchTerms);
+    }
+
+    private static String password(int index, String sharedPassword) {
+        return sharedPassword != null ? sharedPassword : "Load-" + index;
+    }
+
+    private static String file(Path dir, String name) {
+        return dir.resolve(name).toString();
+    }
+}
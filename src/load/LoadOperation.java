@@ -0,0 +1,14 @@
+package load;
+
+/**
+ * Операции, которые выполняет смоделированный менеджер.
+ */
+public enum LoadOperation {
+    SIGN_IN,
+    ADD_CLIENT,
+    SEARCH_CLIENT,
+    ADD_DEAL,
+    ADD_TASK,
+    SEND_MESSAGE,
+    READ_MESSAGES
+}
@@ -0,0 +1,170 @@
+package load;
+
+import api.JsonWriter;
+import util.LatencyHistogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты нагрузочного прогона: пропускная способность и задержки по каждой операции.
+ * Измерения периода прогрева в отчет не попадают.
+ */
+public class LoadReport {
+
+    private final String mode;
+    private final int users;
+    private final Duration warmup;
+    private final Duration duration;
+    private final double targetRatePerSecond;
+    private final String mix;
+    private final Map<LoadOperation, OperationStats> operations = new EnumMap<>(LoadOperation.class);
+    private final LongAdder dropped = new LongAdder();
+
+    LoadReport(String mode, int users, Duration warmup, Duration duration, double targetRatePerSecond, WorkloadMix mix) {
+        this.mode = mode;
+        this.users = users;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.targetRatePerSecond = targetRatePerSecond;
+        this.mix = mix.toString();
+        for (LoadOperation operation : LoadOperation.values()) {
+            operations.put(operation, new OperationStats());
+        }
+    }
+
+    void record(LoadOperation operation, long latencyNanos, Exception error) {
+        OperationStats stats = operations.get(operation);
+        stats.latency.record(latencyNanos);
+        if (error != null) {
+            stats.errors.increment();
+            stats.firstError.compareAndSet(null, error.getClass().getSimpleName() + ": " + error.getMessage());
+        }
+    }
+
+    /**
+     * Запрос открытой модели не выполнен, потому что все пользователи заняты.
+     */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    public LatencyHistogram getLatency(LoadOperation operation) {
+        return operations.get(operation).latency;
+    }
+
+    public long getErrors(LoadOperation operation) {
+        return operations.get(operation).errors.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return суммарная гистограмма по всем операциям
+     */
+    public LatencyHistogram getTotalLatency() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (OperationStats stats : operations.values()) {
+            total.add(stats.latency);
+        }
+        return total;
+    }
+
+    /**
+     * Сохраняет отчет в JSON. Задержки — в микросекундах.
+     *
+     * @throws IOException если не удалось записать файл
+     */
+    public void writeJson(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonWriter json = new JsonWriter(out)) {
+            json.beginObject()
+                    .field("mode", mode)
+                    .field("users", users)
+                    .field("warmupSeconds", warmup.toMillis() / 1000.0)
+                    .field("durationSeconds", duration.toMillis() / 1000.0)
+                    .field("targetRatePerSecond", targetRatePerSecond)
+                    .field("mix", mix)
+                    .field("dropped", getDropped());
+            long errors = 0;
+            for (OperationStats stats : operations.values()) {
+                errors += stats.errors.sum();
+            }
+            json.name("total");
+            writeStats(json, getTotalLatency(), errors, null);
+            json.name("operations").beginObject();
+            for (Map.Entry<LoadOperation, OperationStats> entry : operations.entrySet()) {
+                OperationStats stats = entry.getValue();
+                if (stats.latency.getCount() == 0) {
+                    continue;
+                }
+                json.name(entry.getKey().name());
+                writeStats(json, stats.latency, stats.errors.sum(), stats.firstError.get());
+            }
+            json.endObject().endObject();
+        }
+    }
+
+    private void writeStats(JsonWriter json, LatencyHistogram latency, long errors, String firstError) throws IOException {
+        json.beginObject()
+                .field("count", latency.getCount())
+                .field("errors", errors)
+                .field("throughputPerSecond", latency.getCount() / seconds());
+        if (firstError != null) {
+            json.field("firstError", firstError);
+        }
+        json.name("latencyMicros").beginObject()
+                .field("mean", latency.getMean() / 1000.0)
+                .field("p50", latency.valueAtPercentile(50) / 1000.0)
+                .field("p99", latency.valueAtPercentile(99) / 1000.0)
+                .field("p999", latency.valueAtPercentile(99.9) / 1000.0)
+                .field("max", latency.getMax() / 1000.0)
+                .endObject()
+                .endObject();
+    }
+
+    private double seconds() {
+        return Math.max(duration.toNanos(), 1) / 1_000_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("%-14s %9s %7s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50,ms", "p99,ms", "p999,ms"));
+        for (Map.Entry<LoadOperation, OperationStats> entry : operations.entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            result.append(String.format("%-14s %9d %7d %10.1f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), latency.getCount(), entry.getValue().errors.sum(), latency.getCount() / seconds(),
+                    latency.valueAtPercentile(50) / 1e6, latency.valueAtPercentile(99) / 1e6,
+                    latency.valueAtPercentile(99.9) / 1e6));
+        }
+        if (getDropped() > 0) {
+            // Отброшенные запросы не попали в перцентили выше: без этой строки они скрывали бы перегрузку
+            long dropped = getDropped();
+            long offered = dropped + getTotalLatency().getCount();
+            result.append(String.format("dropped: %d (%.1f%% поступивших запросов, не учтены в перцентилях)%n",
+                    dropped, 100.0 * dropped / offered));
+        }
+        return result.toString();
+    }
+
+    private static final class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+    }
+}
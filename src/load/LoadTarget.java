@@ -0,0 +1,22 @@
+package load;
+
+/**
+ * Система под нагрузкой: выполняет операции от имени смоделированного пользователя.
+ */
+public interface LoadTarget extends AutoCloseable {
+
+    /**
+     * Выполняет операцию. Любое исключение считается ошибкой операции.
+     *
+     * @param operation операция
+     * @param user      пользователь, от имени которого выполняется операция
+     */
+    void execute(LoadOperation operation, SimulatedUser user) throws Exception;
+
+    /**
+     * Освобождает ресурсы цели; по умолчанию ничего не делает.
+     */
+    @Override
+    default void close() {
+    }
+}
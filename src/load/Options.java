@@ -0,0 +1,28 @@
+package load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Разбор параметров командной строки вида {@code --имя=значение} для утилит нагрузочного тестирования.
+ */
+final class Options {
+
+    private Options() {
+    }
+
+    /**
+     * @throws IllegalArgumentException если параметр записан в другом виде
+     */
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Параметр должен иметь вид --имя=значение: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
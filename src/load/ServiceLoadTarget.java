@@ -0,0 +1,89 @@
+package load;
+
+import models.Client;
+import models.Deal;
+import models.Message;
+import models.Task;
+import services.ClientService;
+import services.DealService;
+import services.MessageService;
+import services.TaskService;
+import services.UsersService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Нагрузка на сервисный слой в том же процессе, без сетевых накладных расходов.
+ * Перед каждой операцией проверяется сессия пользователя, как это делает HTTP API.
+ */
+public class ServiceLoadTarget implements LoadTarget {
+
+    private static final DateTimeFormatter DUE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final UsersService usersService;
+    private final ClientService clientService;
+    private final DealService dealService;
+    private final TaskService taskService;
+    private final MessageService messageService;
+    private final LoadDataset dataset;
+
+    public ServiceLoadTarget(UsersService usersService, ClientService clientService, DealService dealService,
+                             TaskService taskService, MessageService messageService, LoadDataset dataset) {
+        this.usersService = usersService;
+        this.clientService = clientService;
+        this.dealService = dealService;
+        this.taskService = taskService;
+        this.messageService = messageService;
+        this.dataset = dataset;
+    }
+
+    @Override
+    public void execute(LoadOperation operation, SimulatedUser user) {
+        if (operation == LoadOperation.SIGN_IN) {
+            signIn(user);
+            return;
+        }
+        if (user.getToken() == null || usersService.authenticate(user.getToken()).isEmpty()) {
+            signIn(user);
+        }
+        Random random = user.getRandom();
+        switch (operation) {
+            case ADD_CLIENT -> {
+                long n = dataset.nextSequence();
+                clientService.save(0L, user.getUserId(), "Нагрузочный клиент " + n, "load" + n + "@client.test",
+                        String.format("+7%010d", n), dataset.randomCity(random), Client.Status.ACTIVE);
+            }
+            case SEARCH_CLIENT -> clientService.getClientBySearch(dataset.randomSearchTerm(random));
+            case ADD_DEAL -> dealService.save(0L, "Сделка " + dataset.nextSequence(), dataset.randomClientId(random),
+                    user.getUserId(), 1000.0 + random.nextInt(1_000_000), Deal.Status.NEW, LocalDate.now(), null);
+            case ADD_TASK -> taskService.save(0L, dataset.randomClientId(random), "Звонок клиенту",
+                    "Уточнить условия договора", user.getUserId(),
+                    LocalDateTime.now().plusDays(1 + random.nextInt(14)).format(DUE_DATE_FORMAT), Task.Status.CALL);
+            case SEND_MESSAGE -> messageService.sendMessage(0L, user.getUserId(), dataset.randomUserId(random),
+                    "Добрый день! Прошу проверить сделку №" + random.nextInt(100_000));
+            case READ_MESSAGES -> {
+                List<Message> page = messageService.getUserMessagesPage(user.getUserId(), 0, 20);
+                if (!page.isEmpty()) {
+                    messageService.markRead(user.getUserId(), page.get(0).getId());
+                }
+            }
+            default -> throw new IllegalArgumentException("Неизвестная операция: " + operation);
+        }
+    }
+
+    private void signIn(SimulatedUser user) {
+        Optional<String> token = usersService.login(user.getEmail(), user.getPassword());
+        if (token.isEmpty()) {
+            throw new IllegalStateException("Не удалось войти пользователю " + user.getEmail());
+        }
+        if (user.getToken() != null) {
+            usersService.logout(user.getToken());
+        }
+        user.setToken(token.get());
+    }
+}
@@ -0,0 +1,49 @@
+package load;
+
+import java.util.Random;
+
+/**
+ * Смоделированный менеджер: учетные данные и состояние сессии.
+ * <p>
+ * В замкнутой модели пользователь работает в одном потоке; в открытой модели свободные пользователи
+ * раздаются поступающим запросам, поэтому состояние используется одним потоком в каждый момент времени.
+ */
+public class SimulatedUser {
+
+    private final Long userId;
+    private final String email;
+    private final String password;
+    private final Random random;
+    private String token;
+
+    public SimulatedUser(Long userId, String email, String password, long seed) {
+        this.userId = userId;
+        this.email = email;
+        this.password = password;
+        this.random = new Random(seed);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
@@ -0,0 +1,90 @@
+package load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Доли операций в нагрузке. Операция выбирается случайно пропорционально весу.
+ */
+public class WorkloadMix {
+
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    /**
+     * @param weights веса операций; операции с нулевым весом не выполняются
+     * @throws IllegalArgumentException если вес отрицателен или сумма весов равна нулю
+     */
+    public WorkloadMix(Map<LoadOperation, Integer> weights) {
+        operations = new LoadOperation[weights.size()];
+        cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<LoadOperation, Integer> entry : new EnumMap<>(weights).entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Вес операции " + entry.getKey() + " не может быть отрицательным");
+            }
+            total += entry.getValue();
+            operations[i] = entry.getKey();
+            cumulativeWeights[i] = total;
+            i++;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Сумма весов операций должна быть положительной");
+        }
+        this.totalWeight = total;
+    }
+
+    /**
+     * Типичный день менеджера: чаще всего поиск клиентов и чтение сообщений, реже — новые клиенты и вход.
+     */
+    public static WorkloadMix defaultMix() {
+        return parse("SIGN_IN=2,ADD_CLIENT=8,SEARCH_CLIENT=30,ADD_DEAL=10,ADD_TASK=10,SEND_MESSAGE=15,READ_MESSAGES=25");
+    }
+
+    /**
+     * @param spec веса вида {@code SEARCH_CLIENT=30,ADD_DEAL=10}
+     * @throws IllegalArgumentException если строка некорректна
+     */
+    public static WorkloadMix parse(String spec) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String pair : spec.split(",")) {
+            String[] parts = pair.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Некорректный вес операции: " + pair);
+            }
+            try {
+                weights.put(LoadOperation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Вес операции должен быть целым числом: " + pair);
+            }
+        }
+        return new WorkloadMix(weights);
+    }
+
+    public LoadOperation pick(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        int previous = 0;
+        for (int i = 0; i < operations.length; i++) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(operations[i]).append('=').append(cumulativeWeights[i] - previous);
+            previous = cumulativeWeights[i];
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package load;
+
+import java.util.SplittableRandom;
+
+/**
+ * Выборка из распределения Ципфа на {@code 1..n}: значение k выпадает с вероятностью, пропорциональной k^-s.
+ * <p>
+ * Используется метод rejection-inversion (Hörmann, Derflinger), поэтому память не зависит от n,
+ * а выборка стоит несколько логарифмов. Объект неизменяем и безопасен для общего использования потоками.
+ */
+public class ZipfSampler {
+
+    private final long n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * @param n        количество значений
+     * @param exponent показатель степени; 0 — равномерное распределение, больше — сильнее перекос к малым k
+     * @throws IllegalArgumentException если n не положительно или показатель отрицателен
+     */
+    public ZipfSampler(long n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Количество значений должно быть положительным");
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Показатель степени не может быть отрицательным");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * @return значение от 1 до n
+     */
+    public long sample(SplittableRandom random) {
+        if (n == 1) {
+            return 1;
+        }
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1;
+        }
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    // (e^x - 1) / x и ln(1 + x) / x с рядом Тейлора около нуля, чтобы не терять точность при exponent ~ 1
+
+    private static double expm1OverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + x * 0.25));
+    }
+
+    private static double log1pOverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - x * 0.25));
+    }
+}
@@ -0,0 +1,207 @@
+package logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * Асинхронный обработчик журнала: записи складываются в кольцевой буфер, а форматирование и запись
+ * в целевые обработчики (консоль, файл) выполняет отдельный поток-демон.
+ * <p>
+ * Поток, который пишет в журнал, только занимает ячейку буфера. Если буфер заполнен, запись отбрасывается
+ * и учитывается; количество отброшенных записей периодически сообщается предупреждением. Поэтому поток
+ * данных в журнал не может затормозить сканирование файла.
+ * <p>
+ * Место вызова (класс и метод) не определяется: обход стека в потоке записи стоил бы дороже самой записи,
+ * а в фоновом потоке дал бы неверный результат. Вместо класса-источника подставляется имя логгера.
+ * <p>
+ * Настройки в {@code logging.properties}:
+ * <pre>
+ * logging.AsyncHandler.handlers=java.util.logging.ConsoleHandler, java.util.logging.FileHandler
+ * logging.AsyncHandler.capacity=8192
+ * logging.AsyncHandler.level=INFO
+ * </pre>
+ */
+public final class AsyncHandler extends Handler {
+
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final Handler[] targets;
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final int mask;
+    // Номер следующей занимаемой ячейки и номер следующей читаемой; разница — заполненность буфера
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean closed;
+
+    /**
+     * Конструктор для {@link LogManager}: настройки читаются из конфигурации журнала.
+     */
+    public AsyncHandler() {
+        this(createTargets(property("handlers", "java.util.logging.ConsoleHandler")),
+                Integer.parseInt(property("capacity", "8192")));
+        setLevel(Level.parse(property("level", "ALL")));
+    }
+
+    /**
+     * @param targets  обработчики, в которые передаются записи
+     * @param capacity емкость буфера; округляется вверх до степени двойки
+     * @throws IllegalArgumentException если емкость не положительна
+     */
+    public AsyncHandler(Handler[] targets, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость буфера журнала должна быть положительной");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.targets = targets.clone();
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.consumer = new Thread(this::drainLoop, "async-log");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // Отключает поиск места вызова по стеку
+        record.setSourceClassName(record.getLoggerName());
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= ring.length()) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        ring.lazySet((int) sequence & mask, record);
+    }
+
+    /**
+     * @return количество записей, отброшенных из-за переполнения буфера
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        long reportedDropped = 0;
+        while (true) {
+            boolean drained = drain();
+            long droppedNow = dropped.get();
+            if (droppedNow != reportedDropped) {
+                deliver(new StructuredLogRecord(Level.WARNING, "Буфер журнала переполнен, записи отброшены",
+                        "dropped", droppedNow - reportedDropped));
+                reportedDropped = droppedNow;
+            }
+            if (!drained) {
+                if (closed && tail == head.get()) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        flushTargets();
+    }
+
+    /**
+     * Передает целевым обработчикам все опубликованные записи.
+     *
+     * @return была ли передана хотя бы одна запись
+     */
+    private boolean drain() {
+        boolean any = false;
+        long next = tail;
+        while (next < head.get()) {
+            int slot = (int) next & mask;
+            LogRecord record = ring.get(slot);
+            if (record == null) {
+                // Ячейка занята, но запись еще не опубликована
+                break;
+            }
+            ring.lazySet(slot, null);
+            tail = ++next;
+            deliver(record);
+            any = true;
+        }
+        if (any) {
+            flushTargets();
+        }
+        return any;
+    }
+
+    private void deliver(LogRecord record) {
+        for (Handler target : targets) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Ошибка при записи в журнал", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private void flushTargets() {
+        for (Handler target : targets) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Ждет, пока фоновый поток передаст записи, опубликованные до вызова.
+     */
+    @Override
+    public void flush() {
+        long target = head.get();
+        while (tail < target && consumer.isAlive()) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Передает оставшиеся записи и закрывает целевые обработчики.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + "." + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static Handler[] createTargets(String classNames) {
+        List<Handler> handlers = new ArrayList<>();
+        for (String className : classNames.split("[,\\s]+")) {
+            if (className.isEmpty()) {
+                continue;
+            }
+            try {
+                handlers.add((Handler) ClassLoader.getSystemClassLoader().loadClass(className)
+                        .getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalStateException("Не удалось создать обработчик журнала " + className + ": " + e.getMessage(), e);
+            }
+        }
+        return handlers.toArray(new Handler[0]);
+    }
+}
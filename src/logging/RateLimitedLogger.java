@@ -0,0 +1,92 @@
+package logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Логгер одного места вызова с ограничением частоты: не больше {@code burst} записей в секунду,
+ * сверх того — каждая {@code sampleEvery}-я запись. Пропущенные записи учитываются полем {@code suppressed}
+ * следующей выведенной записи.
+ * <p>
+ * Сообщение — постоянная строка, переменные части передаются полями и превращаются в текст только
+ * для выведенных записей. Отброшенная запись стоит нескольких атомарных операций без создания строк.
+ * <pre>
+ * private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
+ * parseLog.warning("Ошибка при чтении строки", "file", fileName, "line", line);
+ * </pre>
+ */
+public class RateLimitedLogger {
+
+    /**
+     * Ограничения по умолчанию: 10 записей в секунду, сверх того — каждая тысячная.
+     */
+    public static final int DEFAULT_BURST = 10;
+    public static final int DEFAULT_SAMPLE_EVERY = 1000;
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final Logger logger;
+    private final int burst;
+    private final int sampleEvery;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong inWindow = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLogger(Logger logger) {
+        this(logger, DEFAULT_BURST, DEFAULT_SAMPLE_EVERY);
+    }
+
+    /**
+     * @param logger      логгер, в который передаются записи
+     * @param burst       записей в секунду без ограничения
+     * @param sampleEvery сверх лимита выводится каждая sampleEvery-я запись; 0 — не выводятся совсем
+     * @throws IllegalArgumentException если параметры отрицательны
+     */
+    public RateLimitedLogger(Logger logger, int burst, int sampleEvery) {
+        if (burst < 0 || sampleEvery < 0) {
+            throw new IllegalArgumentException("Параметры ограничения журнала не могут быть отрицательными");
+        }
+        this.logger = logger;
+        this.burst = burst;
+        this.sampleEvery = sampleEvery;
+    }
+
+    public void warning(String message, Object... fields) {
+        log(Level.WARNING, null, message, fields);
+    }
+
+    /**
+     * @param level   уровень записи
+     * @param thrown  исключение или null
+     * @param message постоянная часть сообщения
+     * @param fields  пары имя-значение
+     */
+    public void log(Level level, Throwable thrown, String message, Object... fields) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            inWindow.set(0);
+        }
+        long position = inWindow.incrementAndGet();
+        if (position > burst && (sampleEvery == 0 || (position - burst) % sampleEvery != 0)) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long skipped = suppressed.getAndSet(0);
+        if (skipped > 0) {
+            Object[] withSkipped = new Object[fields.length + 2];
+            System.arraycopy(fields, 0, withSkipped, 0, fields.length);
+            withSkipped[fields.length] = "suppressed";
+            withSkipped[fields.length + 1] = skipped;
+            fields = withSkipped;
+        }
+        StructuredLogRecord record = new StructuredLogRecord(level, message, fields);
+        record.setLoggerName(logger.getName());
+        record.setThrown(thrown);
+        logger.log(record);
+    }
+}
@@ -0,0 +1,81 @@
+package logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Форматирует запись в одну строку вида {@code key=value}, удобную для grep и разбора:
+ * <pre>
+ * ts=2024-05-01T10:15:30.123 level=WARNING logger=repositories.X thread=main msg="Ошибка при чтении строки" file=client.txt
+ * </pre>
+ * Поля {@link StructuredLogRecord} выводятся после сообщения; значения с пробелами, кавычками и {@code =}
+ * заключаются в кавычки, переводы строк экранируются. Стек исключения выводится следующими строками.
+ */
+public class StructuredFormatter extends Formatter {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    @Override
+    public String format(LogRecord record) {
+        StringBuilder out = new StringBuilder(160);
+        out.append("ts=");
+        TIMESTAMP.formatTo(record.getInstant(), out);
+        out.append(" level=").append(record.getLevel().getName());
+        out.append(" logger=").append(record.getLoggerName());
+        out.append(" thread=").append(record.getLongThreadID());
+        out.append(" msg=");
+        if (record instanceof StructuredLogRecord structured) {
+            appendValue(out, structured.getBaseMessage());
+            for (int i = 0; i < structured.getFieldCount(); i++) {
+                out.append(' ').append(structured.getFieldName(i)).append('=');
+                appendValue(out, String.valueOf(structured.getFieldValue(i)));
+            }
+        } else {
+            appendValue(out, formatMessage(record));
+        }
+        out.append(System.lineSeparator());
+        if (record.getThrown() != null) {
+            StringWriter trace = new StringWriter();
+            record.getThrown().printStackTrace(new PrintWriter(trace));
+            out.append(trace);
+        }
+        return out.toString();
+    }
+
+    private static void appendValue(StringBuilder out, String value) {
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package logging;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Запись журнала с именованными полями. Значения хранятся как есть и превращаются в текст
+ * только при форматировании — в потоке {@link AsyncHandler}, а не в потоке, который пишет в журнал.
+ * <p>
+ * {@link StructuredFormatter} выводит поля отдельно; для остальных форматтеров они добавляются
+ * к тексту {@link #getMessage()}.
+ * <p>
+ * Значения полей могут быть несериализуемыми, поэтому поля не сериализуются: после десериализации
+ * запись содержит только постоянную часть сообщения.
+ */
+public class StructuredLogRecord extends LogRecord {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object[] fields;
+
+    /**
+     * @param level   уровень
+     * @param message постоянная часть сообщения
+     * @param fields  пары имя-значение: {@code "file", fileName, "line", line}
+     * @throws IllegalArgumentException если количество элементов нечетно
+     */
+    public StructuredLogRecord(Level level, String message, Object... fields) {
+        super(level, message);
+        if (fields.length % 2 != 0) {
+            throw new IllegalArgumentException("Поля записи журнала задаются парами имя-значение");
+        }
+        this.fields = fields;
+    }
+
+    /**
+     * @return сообщение без полей
+     */
+    public String getBaseMessage() {
+        return super.getMessage();
+    }
+
+    /**
+     * @return сообщение с полями: {@code "Ошибка при чтении строки: file=client.txt, line=..."}
+     */
+    @Override
+    public String getMessage() {
+        if (getFieldCount() == 0) {
+            return super.getMessage();
+        }
+        StringBuilder text = new StringBuilder(super.getMessage()).append(": ");
+        for (int i = 0; i < getFieldCount(); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(getFieldName(i)).append('=').append(getFieldValue(i));
+        }
+        return text.toString();
+    }
+
+    public int getFieldCount() {
+        return fields == null ? 0 : fields.length / 2;
+    }
+
+    public String getFieldName(int index) {
+        return String.valueOf(fields[index * 2]);
+    }
+
+    public Object getFieldValue(int index) {
+        return fields[index * 2 + 1];
+    }
+}
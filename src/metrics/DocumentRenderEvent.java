@@ -0,0 +1,34 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: рендеринг документа по шаблону, включая запись в приемник документов.
+ */
+@Name("crm.DocumentRender")
+@Label("Document Render")
+@Category({"CRM", "Documents"})
+@Description("Генерация документа по шаблону")
+public class DocumentRenderEvent extends jdk.jfr.Event {
+
+    @Label("Template")
+    String template;
+
+    @Label("Document")
+    String document;
+
+    /**
+     * Завершает событие и сохраняет его, если событие включено в записи и прошло порог длительности.
+     */
+    public void finish(String template, String document) {
+        end();
+        if (shouldCommit()) {
+            this.template = template;
+            this.document = document;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR: задача исполнителя начала выполняться. Время в очереди — от передачи задачи
+ * исполнителю до получения разрешения на запуск.
+ */
+@Name("crm.ExecutorQueue")
+@Label("Executor Queue")
+@Category({"CRM", "Executors"})
+@Description("Ожидание задачи в очереди асинхронного исполнителя")
+public class ExecutorQueueEvent extends jdk.jfr.Event {
+
+    @Label("Executor")
+    String executor;
+
+    @Label("Queue Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+
+    /**
+     * Сохраняет событие о запуске задачи, если запись события включена.
+     *
+     * @param executor       имя исполнителя
+     * @param submittedNanos значение {@link System#nanoTime()} в момент передачи задачи
+     */
+    public static void emit(String executor, long submittedNanos) {
+        ExecutorQueueEvent event = new ExecutorQueueEvent();
+        if (event.isEnabled()) {
+            event.executor = executor;
+            event.queueTime = System.nanoTime() - submittedNanos;
+            event.commit();
+        }
+    }
+}
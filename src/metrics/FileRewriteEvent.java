@@ -0,0 +1,41 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: полная перезапись файла данных (обновление или удаление строки через копию файла).
+ * Используется так же, как {@link FileScanEvent}.
+ */
+@Name("crm.FileRewrite")
+@Label("File Rewrite")
+@Category({"CRM", "File I/O"})
+@Description("Перезапись файла данных репозиторием")
+public class FileRewriteEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Завершает событие и сохраняет его, если событие включено в записи и прошло порог длительности.
+     */
+    public void finish(String file, long rows, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.file = file;
+            this.rows = rows;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: последовательное чтение файла данных от начала до конца сканирования.
+ * <p>
+ * Создается перед чтением ({@code new} + {@link #begin()}) и завершается {@link #finish}. Без активной записи
+ * JFR событие не сохраняется, а его создание устраняется JIT-компилятором.
+ */
+@Name("crm.FileScan")
+@Label("File Scan")
+@Category({"CRM", "File I/O"})
+@Description("Чтение файла данных репозиторием")
+public class FileScanEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Завершает событие и сохраняет его, если событие включено в записи и прошло порог длительности.
+     */
+    public void finish(String file, long rows, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.file = file;
+            this.rows = rows;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
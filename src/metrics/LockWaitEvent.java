@@ -0,0 +1,34 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: ожидание блокировки приложения; длительность события — время ожидания.
+ * В отличие от встроенных событий JVM, учитывает и {@link java.util.concurrent.locks.ReentrantLock}.
+ * По умолчанию сохраняются только ожидания дольше 1 мс: захват без конкуренции не интересен.
+ */
+@Name("crm.LockWait")
+@Label("Lock Wait")
+@Category({"CRM", "Locks"})
+@Description("Ожидание блокировки, например генератора идентификаторов")
+@Threshold("1 ms")
+public class LockWaitEvent extends jdk.jfr.Event {
+
+    @Label("Lock")
+    String lock;
+
+    /**
+     * Завершает событие после захвата блокировки.
+     */
+    public void finish(String lock) {
+        end();
+        if (shouldCommit()) {
+            this.lock = lock;
+            commit();
+        }
+    }
+}
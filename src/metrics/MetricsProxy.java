@@ -0,0 +1,91 @@
+package metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Декоратор, измеряющий каждый вызов методов интерфейса: количество, ошибки, задержку и объем данных
+ * из {@link OperationContext}. Операция называется {@code <ИмяИнтерфейса>.<метод>}; перегруженные методы
+ * учитываются вместе.
+ * <p>
+ * Для методов, возвращающих {@link CompletionStage}, задержка и ошибка фиксируются при завершении результата,
+ * а объем данных не учитывается: работа выполняется в другом потоке.
+ */
+public final class MetricsProxy implements InvocationHandler {
+
+    private final Object target;
+    private final Map<Method, OperationMetrics> metrics;
+
+    private MetricsProxy(Object target, Map<Method, OperationMetrics> metrics) {
+        this.target = target;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Оборачивает реализацию интерфейса измеряющим декоратором.
+     *
+     * @param type     интерфейс, вызовы которого измеряются
+     * @param target   реализация
+     * @param registry реестр метрик
+     * @return декоратор, реализующий тот же интерфейс
+     * @throws IllegalArgumentException если type не интерфейс
+     * @throws NullPointerException     если target или registry равны null
+     */
+    public static <T> T wrap(Class<T> type, T target, MetricsRegistry registry) {
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException("Измерять можно только интерфейс: " + type.getName());
+        }
+        if (target == null || registry == null) {
+            throw new NullPointerException("Параметры target и registry не могут быть null");
+        }
+        // Метрики создаются заранее: в горячем пути только поиск по Method без сборки имени
+        Map<Method, OperationMetrics> metrics = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            metrics.put(method, registry.operation(type.getSimpleName() + "." + method.getName()));
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new MetricsProxy(target, metrics)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        OperationMetrics operation = metrics.get(method);
+        if (operation == null) {
+            // equals, hashCode и toString объекта
+            return call(method, args);
+        }
+        long[] counters = OperationContext.counters();
+        long rows = counters[OperationContext.ROWS_SCANNED];
+        long read = counters[OperationContext.BYTES_READ];
+        long written = counters[OperationContext.BYTES_WRITTEN];
+        long started = System.nanoTime();
+        Object result;
+        try {
+            result = call(method, args);
+        } catch (Throwable e) {
+            operation.record(System.nanoTime() - started, true, counters[OperationContext.ROWS_SCANNED] - rows,
+                    counters[OperationContext.BYTES_READ] - read, counters[OperationContext.BYTES_WRITTEN] - written);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            stage.whenComplete((value, error) -> operation.record(System.nanoTime() - started, error != null, 0, 0, 0));
+        } else {
+            operation.record(System.nanoTime() - started, false, counters[OperationContext.ROWS_SCANNED] - rows,
+                    counters[OperationContext.BYTES_READ] - read, counters[OperationContext.BYTES_WRITTEN] - written);
+        }
+        return result;
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
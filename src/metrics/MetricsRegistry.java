@@ -0,0 +1,182 @@
+package metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Реестр метрик операций приложения.
+ * <p>
+ * Метрики создаются при первом обращении по имени и живут до закрытия реестра. После {@link #registerMBeans(String)}
+ * каждая операция публикуется в JMX как {@code <домен>:type=Operation,name=<имя>}, включая созданные позже.
+ * Другие компоненты со своими MBean-ами, например очередь писем, добавляются через {@link #registerMBean}.
+ * Текстовый снимок всех операций доступен через {@link #snapshot()} и может выводиться периодически.
+ */
+public class MetricsRegistry implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(MetricsRegistry.class.getName());
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final Map<String, Object> components = new LinkedHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private volatile String jmxDomain;
+    private ScheduledExecutorService snapshotScheduler;
+
+    /**
+     * @param name имя операции, например {@code ClientRepository.findAll}
+     * @return метрики операции; один и тот же объект для одного имени
+     */
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        OperationMetrics created = new OperationMetrics(name);
+        metrics = operations.putIfAbsent(name, created);
+        if (metrics != null) {
+            return metrics;
+        }
+        String domain = jmxDomain;
+        if (domain != null) {
+            register(domain, created);
+        }
+        return created;
+    }
+
+    /**
+     * Публикует метрики в платформенном MBean-сервере. Повторный вызов ничего не делает.
+     *
+     * @param domain домен имен JMX, например {@code crm.metrics}
+     */
+    public synchronized void registerMBeans(String domain) {
+        if (jmxDomain != null) {
+            return;
+        }
+        jmxDomain = domain;
+        for (OperationMetrics metrics : operations.values()) {
+            register(domain, metrics);
+        }
+        for (Map.Entry<String, Object> component : components.entrySet()) {
+            register(domain, component.getKey(), component.getValue());
+        }
+    }
+
+    /**
+     * Публикует MBean компонента как {@code <домен>:type=<тип>,name=<имя>} — сразу, если публикация
+     * уже включена, иначе при вызове {@link #registerMBeans(String)}. Снимается с публикации при закрытии реестра.
+     *
+     * @param type  тип компонента, например {@code MailOutbox}
+     * @param name  имя экземпляра
+     * @param mbean объект, реализующий стандартный MBean-интерфейс
+     */
+    public synchronized void registerMBean(String type, String name, Object mbean) {
+        String key = "type=" + type + ",name=" + ObjectName.quote(name);
+        components.put(key, mbean);
+        String domain = jmxDomain;
+        if (domain != null) {
+            register(domain, key, mbean);
+        }
+    }
+
+    private void register(String domain, OperationMetrics metrics) {
+        register(domain, "type=Operation,name=" + ObjectName.quote(metrics.getName()), metrics);
+    }
+
+    private synchronized void register(String domain, String key, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(domain + ":" + key);
+            server.registerMBean(mbean, name);
+            registered.add(name);
+        } catch (InstanceAlreadyExistsException e) {
+            // Объект уже опубликован другим экземпляром реестра с тем же доменом
+            logger.fine("MBean уже зарегистрирован: " + key);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Ошибка при регистрации MBean " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return таблица метрик всех операций, упорядоченных по имени; значения накоплены с начала работы
+     */
+    public String snapshot() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-48s %10s %7s %12s %12s %12s %10s %10s %10s %10s%n", "Операция", "Вызовов",
+                "Ошибок", "Строк", "Прочитано", "Записано", "p50 мкс", "p99 мкс", "p99.9 мкс", "max мкс"));
+        for (OperationMetrics m : new TreeMap<>(operations).values()) {
+            long calls = m.getCalls();
+            if (calls == 0) {
+                continue;
+            }
+            out.append(String.format("%-48s %10d %7d %12d %12d %12d %10d %10d %10d %10d%n", m.getName(), calls,
+                    m.getErrors(), m.getRowsScanned(), m.getBytesRead(), m.getBytesWritten(), m.getP50Micros(),
+                    m.getP99Micros(), m.getP999Micros(), m.getMaxMicros()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Периодически передает снимок метрик получателю в фоновом потоке-демоне.
+     *
+     * @param period период вывода
+     * @param sink   получатель снимка, например запись в журнал
+     * @throws IllegalArgumentException если период не положителен
+     * @throws IllegalStateException    если периодический вывод уже запущен
+     */
+    public synchronized void startPeriodicSnapshot(Duration period, Consumer<String> sink) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Период вывода метрик должен быть положительным");
+        }
+        if (snapshotScheduler != null) {
+            throw new IllegalStateException("Периодический вывод метрик уже запущен");
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleAtFixedRate(() -> {
+            try {
+                sink.accept(snapshot());
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Ошибка при выводе метрик: " + e.getMessage(), e);
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает периодический вывод и снимает MBean-ы с публикации.
+     */
+    @Override
+    public synchronized void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotScheduler = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                logger.fine("MBean уже снят с публикации: " + name);
+            }
+        }
+        registered.clear();
+        jmxDomain = null;
+    }
+}
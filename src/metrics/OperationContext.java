@@ -0,0 +1,41 @@
+package metrics;
+
+/**
+ * Счетчики работы текущего потока: прочитанные строки и байты, записанные байты.
+ * <p>
+ * Репозитории сообщают сюда объем просканированных данных, а декоратор {@link MetricsProxy} снимает разницу
+ * счетчиков до и после вызова. Счетчики только растут, поэтому вложенные вызовы (сервис вызывает репозиторий)
+ * учитываются и во внешней, и во внутренней операции. Работа, выполненная в других потоках
+ * (асинхронные сервисы), вызывающей операции не приписывается.
+ */
+public final class OperationContext {
+
+    static final int ROWS_SCANNED = 0;
+    static final int BYTES_READ = 1;
+    static final int BYTES_WRITTEN = 2;
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[3]);
+
+    private OperationContext() {
+    }
+
+    /**
+     * Учитывает чтение файла: количество разобранных строк и их объем в байтах (допускается оценка по символам).
+     */
+    public static void recordScan(long rows, long bytes) {
+        long[] counters = COUNTERS.get();
+        counters[ROWS_SCANNED] += rows;
+        counters[BYTES_READ] += bytes;
+    }
+
+    /**
+     * Учитывает запись в файл.
+     */
+    public static void recordWrite(long bytes) {
+        COUNTERS.get()[BYTES_WRITTEN] += bytes;
+    }
+
+    static long[] counters() {
+        return COUNTERS.get();
+    }
+}
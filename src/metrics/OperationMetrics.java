@@ -0,0 +1,105 @@
+package metrics;
+
+import util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики одной операции: количество вызовов и ошибок, объем данных и гистограмма задержек.
+ * Запись не блокирует: счетчики — {@link LongAdder}, гистограмма — атомарные корзины.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rowsScanned = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Учитывает один вызов.
+     *
+     * @param nanos   длительность вызова в наносекундах
+     * @param failed  завершился ли вызов исключением
+     * @param rows    просканировано строк
+     * @param read    прочитано байт
+     * @param written записано байт
+     */
+    public void record(long nanos, boolean failed, long rows, long read, long written) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (rows != 0) {
+            rowsScanned.add(rows);
+        }
+        if (read != 0) {
+            bytesRead.add(read);
+        }
+        if (written != 0) {
+            bytesWritten.add(written);
+        }
+        latency.record(nanos);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowsScanned() {
+        return rowsScanned.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1000;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return latency.valueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getP99Micros() {
+        return latency.valueAtPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getP999Micros() {
+        return latency.valueAtPercentile(99.9) / 1000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return latency.getMax() / 1000;
+    }
+}
@@ -0,0 +1,29 @@
+package metrics;
+
+/**
+ * JMX-представление метрик одной операции. Задержки — в микросекундах с начала работы приложения.
+ */
+public interface OperationMetricsMBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRowsScanned();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+}
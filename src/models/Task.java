@@ -1,8 +1,13 @@
 package models;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 public class Task {
+    private static final DateTimeFormatter DUE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private Long id;
 
     private Long idClient;
@@ -82,6 +87,25 @@ public class Task {
         this.dueDate = dueDate;
     }
 
+    /**
+     * Срок выполнения задачи в миллисекундах эпохи (по часовому поясу системы).
+     *
+     * @return момент срока или null, если срок не задан или имеет некорректный формат
+     */
+    public Long getDueEpochMillis() {
+        if (dueDate == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(dueDate, DUE_DATE_FORMATTER)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     public LocalDateTime getTaskCreationDate() {
         return taskCreationDate;
     }
@@ -4,8 +4,36 @@ package repositories;
 import models.Client;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public interface ClientRepository extends CrudRepository<Client> {
+
+    /**
+     * Номера полей строки клиента: id|userId|name|email|phone|address|status.
+     */
+    int ID = 0;
+    int USER_ID = 1;
+    int NAME = 2;
+    int EMAIL = 3;
+    int PHONE = 4;
+    int ADDRESS = 5;
+    int STATUS = 6;
+
+    void forEachClient(Consumer<Client> action);
+
+    /**
+     * Сканирует файл без создания {@link Client}: строки, не прошедшие фильтр, отбрасываются,
+     * из остальных проекция читает только нужные поля. Прошедшие фильтр строки, которые не разобрал бы
+     * полный разбор, в результат не попадают и переносятся в карантин.
+     *
+     * @param filter     условие по полям строки
+     * @param projection преобразование строки в результат
+     * @return результаты проекции в порядке файла
+     */
+    <R> List<R> findAll(Predicate<RecordView> filter, Function<RecordView, R> projection);
+
     List<Client> findAllClientToUser(Long idUser);
 
     void updateClientStatus(Client updatedClient, Client.Status newStatus);
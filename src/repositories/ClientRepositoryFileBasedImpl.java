@@ -1,5 +1,9 @@
 package repositories;
 
+import logging.RateLimitedLogger;
+import metrics.FileRewriteEvent;
+import metrics.FileScanEvent;
+import metrics.OperationContext;
 import models.Client;
 import models.Contact;
 import models.Task;
@@ -10,7 +14,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -20,8 +26,15 @@ import java.util.stream.Collectors;
 public class ClientRepositoryFileBasedImpl implements ClientRepository {
     private final String fileName;
     private final IdGenerator idGenerator;
+    /**
+     * Блокировка изменений файла: записи репозитория и перенос строк в карантин выполняются под ней.
+     */
+    private final Object writeLock = new Object();
+    private final Quarantine quarantine;
+    private final FileScanEngine scanEngine;
 
-    private static final Logger logger = Logger.getLogger(TaskRepositoryFileBasedImpl.class.getName());
+    private static final Logger logger = Logger.getLogger(ClientRepositoryFileBasedImpl.class.getName());
+    private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
 
     /**
      * Функция для преобразования строки из файла в объект {@link Client}.
@@ -77,6 +90,8 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
         }
         this.fileName = fileName;
         this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, writeLock);
+        this.scanEngine = new FileScanEngine(fileName, quarantine, logger, lineToClientFunction::apply);
     }
 
 
@@ -92,18 +107,22 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
             throw new IllegalArgumentException("Модель клиента не может быть null");
         }
 
-        model.setId(idGenerator.nextId());
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
-            writer.write(String.format("%d|%d|%s|%s|%s|%s|%s\n",
-                    model.getId(),
-                    model.getUserId(),
-                    model.getName(),
-                    model.getEmail(),
-                    model.getPhone(),
-                    model.getAddress(),
-                    model.getStatus()));
-        } catch (IOException e) {
-            throw new UncheckedIOException("Ошибка при сохранении клиента в файл: " + e.getMessage(), e);
+        synchronized (writeLock) {
+            model.setId(idGenerator.nextId());
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
+                String line = String.format("%d|%d|%s|%s|%s|%s|%s\n",
+                        model.getId(),
+                        model.getUserId(),
+                        model.getName(),
+                        model.getEmail(),
+                        model.getPhone(),
+                        model.getAddress(),
+                        model.getStatus());
+                writer.write(line);
+                OperationContext.recordWrite(line.length());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при сохранении клиента в файл: " + e.getMessage(), e);
+            }
         }
     }
 
@@ -117,20 +136,86 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
     @Override
     public List<Client> findAll() {
         List<Client> clients = new ArrayList<>();
+        forEachClient(clients::add);
+        return clients;
+    }
+
+    /**
+     * Потоково читает файл и передает каждого корректного клиента обработчику в порядке файла,
+     * не накапливая весь файл в памяти.
+     *
+     * @param action обработчик клиентов
+     * @throws IllegalStateException если произошла ошибка при чтении файла
+     */
+    @Override
+    public void forEachClient(Consumer<Client> action) {
+        Quarantine.Batch rejected = quarantine.batch();
+        FileScanEvent scan = new FileScanEvent();
+        scan.begin();
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
+            long rows = 0;
+            long bytes = 0;
             while ((line = reader.readLine()) != null) {
+                rows++;
+                bytes += line.length() + 1;
+                Client client;
                 try {
-                    Client client = lineToClientFunction.apply(line);
-                    clients.add(client);
-                } catch (IllegalArgumentException e) {
-                    logger.warning("Ошибка при чтении строки: " + line + " - " + e.getMessage());
+                    client = lineToClientFunction.apply(line);
+                } catch (RuntimeException e) {
+                    parseLog.warning("Ошибка при чтении строки", "file", fileName, "line", line, "error", e.getMessage());
+                    rejected.addLine(rows - 1, line, e.getMessage());
+                    continue;
                 }
+                action.accept(client);
             }
+            OperationContext.recordScan(rows, bytes);
+            scan.finish(fileName, rows, bytes);
         } catch (IOException e) {
             throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
         }
-        return clients;
+        rejected.isolate();
+    }
+
+    /**
+     * Сканирует файл, размечая строки лениво: для отброшенных фильтром строк объект клиента не создается,
+     * а значения полей декодируются, только если их читают фильтр или проекция. Прошедшие фильтр строки
+     * перед проекцией проверяются по тем же правилам, что и при полном разборе.
+     *
+     * @throws IllegalArgumentException если filter или projection равен null
+     * @throws IllegalStateException    если произошла ошибка при чтении файла
+     */
+    @Override
+    public <R> List<R> findAll(Predicate<RecordView> filter, Function<RecordView, R> projection) {
+        if (filter == null || projection == null) {
+            throw new IllegalArgumentException("Фильтр и проекция не могут быть null");
+        }
+        return scanEngine.findAll(filter, row -> {
+            checkRow(row);
+            return projection.apply(row);
+        });
+    }
+
+    /**
+     * Проверяет строку без создания {@link Client}: количество полей, идентификаторы, статус
+     * и списки идентификаторов задач и контактов.
+     *
+     * @throws IllegalArgumentException если строка не разбирается полным разбором
+     */
+    private static void checkRow(RecordView row) {
+        if (row.size() < 7) {
+            throw new IllegalArgumentException("Некорректный формат строки: " + row.line());
+        }
+        row.getLong(ID);
+        row.getLong(USER_ID);
+        Client.Status.valueOf(row.get(STATUS));
+        for (int field = STATUS + 1; field < Math.min(row.size(), STATUS + 3); field++) {
+            if (!row.isEmpty(field)) {
+                for (String id : row.get(field).split(",")) {
+                    Long.parseLong(id);
+                }
+            }
+        }
     }
 
 
@@ -146,9 +231,8 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
             throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
         }
 
-        return findAll().stream()
-                .filter(client -> client.getUserId().equals(idUser))
-                .collect(Collectors.toList());
+        return scanEngine.findAll(FileScanEngine.fieldEquals(USER_ID, idUser),
+                row -> lineToClientFunction.apply(row.line()));
     }
 
     /**
@@ -165,37 +249,46 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
             throw new IllegalArgumentException("Клиент и новый статус не могут быть null");
         }
 
-        try {
-            List<String> lines = Files.readAllLines(Path.of(fileName));
-            boolean found = false;
-
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
-                String[] parts = line.split("\\|");
-                long currentId = Long.parseLong(parts[0]);
-
-                if (currentId == updatedClient.getId()) {
-                    String newLine = String.format("%d|%d|%s|%s|%s|%s|%s",
-                            updatedClient.getId(),
-                            updatedClient.getUserId(),
-                            updatedClient.getName(),
-                            updatedClient.getEmail(),
-                            updatedClient.getPhone(),
-                            updatedClient.getAddress(),
-                            newStatus.name());
-
-                    lines.set(i, newLine);
-                    found = true;
-                    break;
+        synchronized (writeLock) {
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try {
+                List<String> lines = Files.readAllLines(Path.of(fileName));
+                boolean found = false;
+
+                for (int i = 0; i < lines.size(); i++) {
+                    String line = lines.get(i);
+                    String[] parts = line.split("\\|");
+                    long currentId = Long.parseLong(parts[0]);
+
+                    if (currentId == updatedClient.getId()) {
+                        String newLine = String.format("%d|%d|%s|%s|%s|%s|%s",
+                                updatedClient.getId(),
+                                updatedClient.getUserId(),
+                                updatedClient.getName(),
+                                updatedClient.getEmail(),
+                                updatedClient.getPhone(),
+                                updatedClient.getAddress(),
+                                newStatus.name());
+
+                        lines.set(i, newLine);
+                        found = true;
+                        break;
+                    }
                 }
+                if (!found) {
+                    throw new RuntimeException("Клиент с таким ID не найден.");
+                }
+                // Строки завершаются переводом строки, как при сохранении: иначе следующая запись склеится с последней строкой
+                String content = String.join("\n", lines) + "\n";
+                Files.writeString(Path.of(fileName), content);
+                OperationContext.recordScan(lines.size(), content.length());
+                OperationContext.recordWrite(content.length());
+                rewrite.finish(fileName, lines.size(), content.length());
+
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при обновлении клиента в файле: " + e.getMessage(), e);
             }
-            if (!found) {
-                throw new RuntimeException("Клиент с таким ID не найден.");
-            }
-            Files.writeString(Path.of(fileName), String.join(System.lineSeparator(), lines));
-
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при обновлении клиента в файле: " + e.getMessage(), e);
         }
     }
 
@@ -211,9 +304,7 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
             throw new IllegalArgumentException("Идентификатор клиента не может быть null");
         }
 
-        return findAll().stream()
-                .filter(client -> client.getId().equals(id))
-                .findFirst()
+        return scanEngine.findFirst(FileScanEngine.fieldEquals(ID, id), row -> lineToClientFunction.apply(row.line()))
                 .orElse(null);
     }
 
@@ -249,30 +340,38 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
             throw new IllegalArgumentException("Идентификатор клиента и новое значение не могут быть null");
         }
 
-        try {
-            List<String> lines = Files.readAllLines(Path.of(fileName));
-            boolean found = false;
-
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
-                String[] parts = line.split("\\|");
-                long currentId = Long.parseLong(parts[0]);
-
-                if (currentId == updatedClientId) {
-                    parts[whatToChange] = newMeaning;
-                    String newLine = String.join("|", parts);
-                    lines.set(i, newLine);
-                    found = true;
-                    break;
+        synchronized (writeLock) {
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try {
+                List<String> lines = Files.readAllLines(Path.of(fileName));
+                boolean found = false;
+
+                for (int i = 0; i < lines.size(); i++) {
+                    String line = lines.get(i);
+                    String[] parts = line.split("\\|");
+                    long currentId = Long.parseLong(parts[0]);
+
+                    if (currentId == updatedClientId) {
+                        parts[whatToChange] = newMeaning;
+                        String newLine = String.join("|", parts);
+                        lines.set(i, newLine);
+                        found = true;
+                        break;
+                    }
                 }
+                if (!found) {
+                    throw new RuntimeException("Клиент с таким ID не найден.");
+                }
+                String content = String.join("\n", lines) + "\n";
+                Files.writeString(Path.of(fileName), content);
+                OperationContext.recordScan(lines.size(), content.length());
+                OperationContext.recordWrite(content.length());
+                rewrite.finish(fileName, lines.size(), content.length());
+
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при обновлении клиента в файле: " + e.getMessage(), e);
             }
-            if (!found) {
-                throw new RuntimeException("Клиент с таким ID не найден.");
-            }
-            Files.writeString(Path.of(fileName), String.join(System.lineSeparator(), lines));
-
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при обновлении клиента в файле: " + e.getMessage(), e);
         }
     }
 
@@ -297,6 +396,13 @@ public class ClientRepositoryFileBasedImpl implements ClientRepository {
     private boolean matchesSearchCriteria(Client client, String search) {
         return client.getName().equals(search) || client.getEmail().equals(search) || client.getPhone().equals(search);
     }
-}
-
 
+    /**
+     * Повторно разбирает строки из карантина и возвращает исправленные в файл клиентов.
+     *
+     * @return количество возвращенных и оставшихся в карантине строк
+     */
+    public Quarantine.RepairResult repairQuarantine() {
+        return quarantine.reingest(lineToClientFunction::apply);
+    }
+}
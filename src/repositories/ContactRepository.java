@@ -4,11 +4,24 @@ package repositories;
 import models.Contact;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ContactRepository {
+
+    /**
+     * Номера полей строки контакта: id|clientId|name|email|phone|position.
+     */
+    int ID = 0;
+    int CLIENT_ID = 1;
+
     void addingInformation(Contact model);
 
     void deleteInformation(Long contactClientId, int countDeleteContact);
 
     List<Contact> findAllContactByClient(Long contactClientId);
+
+    /**
+     * @return контакт с указанным идентификатором или пустой Optional, если его нет
+     */
+    Optional<Contact> findById(Long id);
 }
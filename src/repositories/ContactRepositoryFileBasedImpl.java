@@ -1,6 +1,8 @@
 package repositories;
 
 
+import metrics.FileRewriteEvent;
+import metrics.OperationContext;
 import models.Contact;
 import util.IdGenerator;
 
@@ -9,9 +11,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Класс ContactRepositoryFileBasedImpl реализует интерфейс ContactRepository
@@ -30,6 +32,12 @@ public class ContactRepositoryFileBasedImpl implements ContactRepository {
      * Генератор уникальных идентификаторов для новых контактов.
      */
     private final IdGenerator idGenerator;
+    /**
+     * Блокировка изменений файла: записи репозитория и перенос строк в карантин выполняются под ней.
+     */
+    private final Object writeLock = new Object();
+    private final Quarantine quarantine;
+    private final FileScanEngine scanEngine;
 
     private static final Logger logger = Logger.getLogger(ContactRepositoryFileBasedImpl.class.getName());
 
@@ -42,6 +50,8 @@ public class ContactRepositoryFileBasedImpl implements ContactRepository {
     public ContactRepositoryFileBasedImpl(String fileName, IdGenerator idGenerator) {
         this.fileName = fileName;
         this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, writeLock);
+        this.scanEngine = new FileScanEngine(fileName, quarantine, logger, lineToContactFunction::apply);
     }
 
     /**
@@ -75,17 +85,21 @@ public class ContactRepositoryFileBasedImpl implements ContactRepository {
         if (model == null) {
             throw new IllegalArgumentException("Модель контакта не может быть null");
         }
-        model.setId(idGenerator.nextId());
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
-            writer.write(String.format("%d|%d|%s|%s|%s|%s\n",
-                    model.getId(),
-                    model.getClientId(),
-                    model.getName(),
-                    model.getEmail(),
-                    model.getPhone(),
-                    model.getPosition()));
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при сохранении данных контакта в файл: " + e.getMessage(), e);
+        synchronized (writeLock) {
+            model.setId(idGenerator.nextId());
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
+                String line = String.format("%d|%d|%s|%s|%s|%s\n",
+                        model.getId(),
+                        model.getClientId(),
+                        model.getName(),
+                        model.getEmail(),
+                        model.getPhone(),
+                        model.getPosition());
+                writer.write(line);
+                OperationContext.recordWrite(line.length());
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при сохранении данных контакта в файл: " + e.getMessage(), e);
+            }
         }
     }
 
@@ -102,23 +116,34 @@ public class ContactRepositoryFileBasedImpl implements ContactRepository {
             throw new IllegalArgumentException("Идентификатор клиента и количество контактов должны быть корректными");
         }
 
-        try {
-            List<String> lines = Files.readAllLines(Path.of(fileName));
-            List<String> updatedLines = new ArrayList<>();
-
-            int deletedCount = 0;
-            for (String line : lines) {
-                Contact contact = lineToContactFunction.apply(line);
-                if (contact.getClientId().equals(contactClientId) && deletedCount < countDeleteContact) {
-                    deletedCount++;
-                } else {
-                    updatedLines.add(line);
+        synchronized (writeLock) {
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try {
+                List<String> lines = Files.readAllLines(Path.of(fileName));
+                List<String> updatedLines = new ArrayList<>();
+
+                int deletedCount = 0;
+                long bytesRead = 0;
+                long bytesWritten = 0;
+                for (String line : lines) {
+                    bytesRead += line.length() + 1;
+                    Contact contact = lineToContactFunction.apply(line);
+                    if (contact.getClientId().equals(contactClientId) && deletedCount < countDeleteContact) {
+                        deletedCount++;
+                    } else {
+                        updatedLines.add(line);
+                        bytesWritten += line.length() + 1;
+                    }
                 }
-            }
 
-            Files.write(Path.of(fileName), updatedLines);
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при удалении контактов из файла: " + e.getMessage(), e);
+                Files.write(Path.of(fileName), updatedLines);
+                OperationContext.recordScan(lines.size(), bytesRead);
+                OperationContext.recordWrite(bytesWritten);
+                rewrite.finish(fileName, updatedLines.size(), bytesWritten);
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при удалении контактов из файла: " + e.getMessage(), e);
+            }
         }
     }
 
@@ -134,25 +159,30 @@ public class ContactRepositoryFileBasedImpl implements ContactRepository {
         if (contactClientId == null) {
             throw new IllegalArgumentException("Идентификатор клиента не может быть null");
         }
-        return findAll().stream().filter(contact ->
-                contact.getClientId().equals(contactClientId)).collect(Collectors.toList());
+        return scanEngine.findAll(FileScanEngine.fieldEquals(CLIENT_ID, contactClientId),
+                row -> lineToContactFunction.apply(row.line()));
     }
 
-    private List<Contact> findAll() {
-        List<Contact> contacts = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    Contact contact = lineToContactFunction.apply(line);
-                    contacts.add(contact);
-                } catch (IllegalArgumentException e) {
-                    logger.warning("Ошибка при чтении строки: " + line + " - " + e.getMessage());
-                }
-            }
-        } catch (IOException e) {
-            throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
+    /**
+     * Ищет контакт по идентификатору сканированием с остановкой на первом совпадении.
+     *
+     * @throws IllegalArgumentException если id равен null
+     * @throws IllegalStateException    если произошла ошибка при чтении данных из файла
+     */
+    @Override
+    public Optional<Contact> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор контакта не может быть null");
         }
-        return contacts;
+        return scanEngine.findFirst(FileScanEngine.fieldEquals(ID, id), row -> lineToContactFunction.apply(row.line()));
+    }
+
+    /**
+     * Повторно разбирает строки из карантина и возвращает исправленные в файл контактов.
+     *
+     * @return количество возвращенных и оставшихся в карантине строк
+     */
+    public Quarantine.RepairResult repairQuarantine() {
+        return quarantine.reingest(lineToContactFunction::apply);
     }
 }
@@ -0,0 +1,778 @@
+package repositories;
+
+
+import dto.DealStatsDto;
+import models.Deal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Колоночное хранилище сделок для аналитических запросов.
+ * <p>
+ * Каждое поле сделки хранится в отдельном файле фиксированной ширины внутри каталога хранилища:
+ * id.col, status.col, user_id.col, client_id.col, amount.col (сумма в копейках), created.col и closed.col
+ * (даты в днях от эпохи). Строки сгруппированы в блоки по {@link #BLOCK_ROWS}; для каждого блока
+ * в файле {@code <столбец>.stats} хранятся min/max значения. Агрегации читают только нужные столбцы
+ * и пропускают блоки, которые не могут попасть под фильтр.
+ * <p>
+ * Изменение и удаление сделки переписывают одну строку на месте: строка находится по блокам столбца id,
+ * чей диапазон min/max содержит идентификатор (идентификаторы растут, поэтому обычно это один блок),
+ * а min/max блока только расширяются. Удаленная строка остается в столбцах с отметкой в столбце status
+ * и не учитывается в агрегациях; когда удаленных строк становится больше, чем живых,
+ * {@link #needsRebuild()} сообщает, что хранилище пора перестроить.
+ * <p>
+ * Файл {@code source.stamp} хранит отметку состояния исходного файла сделок, по которому построены
+ * столбцы: совпадение количества строк не гарантирует совпадения данных после правки файла.
+ */
+public class DealColumnStore implements AutoCloseable {
+
+    /**
+     * Количество строк в одном блоке.
+     */
+    public static final int BLOCK_ROWS = 4096;
+
+    /**
+     * Значение столбца closed для сделок без даты закрытия.
+     */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Значение столбца status для удаленных сделок.
+     */
+    private static final int DELETED = -1;
+
+    private final Column id;
+    private final Column status;
+    private final Column userId;
+    private final Column clientId;
+    private final Column amount;
+    private final Column created;
+    private final Column closed;
+    private final List<Column> columns;
+    private final Path stampFile;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long rows;
+    private long deleted;
+
+    /**
+     * Открывает (или создает) колоночное хранилище в указанном каталоге.
+     * Если после сбоя столбцы оказались разной длины, все они усекаются до самой короткой,
+     * а отметка исходного файла сбрасывается, чтобы хранилище было перестроено.
+     *
+     * @param directory каталог с файлами столбцов
+     * @throws NullPointerException если directory равен null
+     * @throws UncheckedIOException если не удалось открыть файлы столбцов
+     */
+    public DealColumnStore(String directory) {
+        if (directory == null) {
+            throw new NullPointerException("Параметр directory не может быть null");
+        }
+        Path dir = Path.of(directory);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при создании каталога хранилища: " + e.getMessage(), e);
+        }
+        this.id = new Column(dir, "id", 8);
+        this.status = new Column(dir, "status", 1);
+        this.userId = new Column(dir, "user_id", 8);
+        this.clientId = new Column(dir, "client_id", 8);
+        this.amount = new Column(dir, "amount", 8);
+        this.created = new Column(dir, "created", 4);
+        this.closed = new Column(dir, "closed", 4);
+        this.columns = List.of(id, status, userId, clientId, amount, created, closed);
+        this.stampFile = dir.resolve("source.stamp");
+
+        long minRows = Long.MAX_VALUE;
+        long maxRows = 0;
+        for (Column column : columns) {
+            long columnRows = column.rowsOnDisk();
+            minRows = Math.min(minRows, columnRows);
+            maxRows = Math.max(maxRows, columnRows);
+        }
+        this.rows = minRows;
+        try {
+            if (minRows != maxRows) {
+                Files.deleteIfExists(stampFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при сбросе отметки хранилища: " + e.getMessage(), e);
+        }
+        for (Column column : columns) {
+            column.open(rows);
+        }
+        this.deleted = status.count(rows, DELETED);
+    }
+
+    /**
+     * @return количество сделок в хранилище без удаленных
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return rows - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет сделку в конец всех столбцов и обновляет статистику последнего блока.
+     *
+     * @param deal сделка для добавления
+     * @throws IllegalArgumentException если deal равен null
+     */
+    public void append(Deal deal) {
+        if (deal == null) {
+            throw new IllegalArgumentException("Сделка не может быть null");
+        }
+        lock.writeLock().lock();
+        try {
+            id.append(rows, deal.getId());
+            status.append(rows, deal.getStatus().ordinal());
+            userId.append(rows, deal.getUserId());
+            clientId.append(rows, deal.getClientId());
+            amount.append(rows, toCents(deal.getAmount()));
+            created.append(rows, deal.getCreatedDate().toEpochDay());
+            closed.append(rows, deal.getClosedDate() == null ? NO_DATE : deal.getClosedDate().toEpochDay());
+            rows++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Переписывает на месте строку сделки с тем же идентификатором.
+     *
+     * @param deal сделка с новыми значениями полей
+     * @return false, если строки сделки в хранилище нет
+     * @throws IllegalArgumentException если deal равен null
+     */
+    public boolean update(Deal deal) {
+        if (deal == null) {
+            throw new IllegalArgumentException("Сделка не может быть null");
+        }
+        lock.writeLock().lock();
+        try {
+            long row = findRow(deal.getId());
+            if (row < 0) {
+                return false;
+            }
+            status.set(row, deal.getStatus().ordinal());
+            userId.set(row, deal.getUserId());
+            clientId.set(row, deal.getClientId());
+            amount.set(row, toCents(deal.getAmount()));
+            created.set(row, deal.getCreatedDate().toEpochDay());
+            closed.set(row, deal.getClosedDate() == null ? NO_DATE : deal.getClosedDate().toEpochDay());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Отмечает строку сделки удаленной.
+     *
+     * @param dealId идентификатор сделки
+     * @return false, если строки сделки в хранилище нет
+     */
+    public boolean delete(long dealId) {
+        lock.writeLock().lock();
+        try {
+            long row = findRow(dealId);
+            if (row < 0) {
+                return false;
+            }
+            status.set(row, DELETED);
+            deleted++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true, если удаленных строк больше, чем живых, и хранилище стоит перестроить
+     */
+    public boolean needsRebuild() {
+        lock.readLock().lock();
+        try {
+            return deleted > rows - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет строку живой сделки, читая только блоки столбца id, чей диапазон содержит идентификатор.
+     *
+     * @return номер строки или -1
+     */
+    private long findRow(long dealId) {
+        int blocks = (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+        ByteBuffer buffer = ByteBuffer.allocate(BLOCK_ROWS * 8);
+        long[] ids = new long[BLOCK_ROWS];
+        long[] statuses = new long[BLOCK_ROWS];
+        for (int block = 0; block < blocks; block++) {
+            if (!id.mayContain(block, dealId, dealId)) {
+                continue;
+            }
+            int count = (int) Math.min(BLOCK_ROWS, rows - (long) block * BLOCK_ROWS);
+            id.readBlock(block, count, buffer, ids);
+            status.readBlock(block, count, buffer, statuses);
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == dealId && statuses[i] != DELETED) {
+                    return (long) block * BLOCK_ROWS + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Полностью перестраивает хранилище по переданному набору сделок.
+     * Используется при первом запуске, после расхождения с основным файлом и когда удаленных строк
+     * становится больше, чем живых.
+     *
+     * @param deals актуальный набор сделок
+     */
+    public void rebuild(Collection<Deal> deals) {
+        lock.writeLock().lock();
+        try {
+            id.writeAll(deals, Deal::getId);
+            status.writeAll(deals, deal -> deal.getStatus().ordinal());
+            userId.writeAll(deals, Deal::getUserId);
+            clientId.writeAll(deals, Deal::getClientId);
+            amount.writeAll(deals, deal -> toCents(deal.getAmount()));
+            created.writeAll(deals, deal -> deal.getCreatedDate().toEpochDay());
+            closed.writeAll(deals, deal -> deal.getClosedDate() == null ? NO_DATE : deal.getClosedDate().toEpochDay());
+            rows = deals.size();
+            deleted = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param sourceStamp отметка текущего состояния исходного файла сделок
+     * @return true, если столбцы построены по файлу в этом состоянии
+     */
+    public boolean isSyncedWith(String sourceStamp) {
+        lock.readLock().lock();
+        try {
+            return Files.exists(stampFile) && Files.readString(stampFile).equals(sourceStamp);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Запоминает состояние исходного файла сделок, которому соответствуют столбцы.
+     * Вызывается после каждого изменения файла и хранилища: если процесс остановится между ними,
+     * отметка не совпадет с файлом и хранилище будет перестроено при следующем открытии.
+     *
+     * @param sourceStamp отметка состояния исходного файла сделок
+     * @throws UncheckedIOException если отметку не удалось записать
+     */
+    public void markSynced(String sourceStamp) {
+        lock.writeLock().lock();
+        try {
+            Path temp = stampFile.resolveSibling(stampFile.getFileName() + ".tmp");
+            Files.writeString(temp, sourceStamp);
+            Files.move(temp, stampFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при сохранении отметки хранилища: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Итоги по статусам сделок.
+     *
+     * @param userId      фильтр по менеджеру или null
+     * @param createdFrom нижняя граница даты создания (включительно) или null
+     * @param createdTo   верхняя граница даты создания (включительно) или null
+     * @return количество и сумма сделок для каждого статуса
+     */
+    public Map<Deal.Status, DealStatsDto> totalsByStatus(Long userId, LocalDate createdFrom, LocalDate createdTo) {
+        Deal.Status[] statuses = Deal.Status.values();
+        return groupBy(status, LongUnaryOperator.identity(), value -> statuses[(int) value],
+                new Filter(null, userId, createdFrom, createdTo));
+    }
+
+    /**
+     * Итоги по менеджерам.
+     *
+     * @param status      фильтр по статусу или null
+     * @param createdFrom нижняя граница даты создания (включительно) или null
+     * @param createdTo   верхняя граница даты создания (включительно) или null
+     * @return количество и сумма сделок для каждого userId
+     */
+    public Map<Long, DealStatsDto> totalsByUser(Deal.Status status, LocalDate createdFrom, LocalDate createdTo) {
+        return groupBy(userId, LongUnaryOperator.identity(), Long::valueOf,
+                new Filter(status, null, createdFrom, createdTo));
+    }
+
+    /**
+     * Итоги по месяцам даты создания.
+     *
+     * @param status      фильтр по статусу или null
+     * @param userId      фильтр по менеджеру или null
+     * @param createdFrom нижняя граница даты создания (включительно) или null
+     * @param createdTo   верхняя граница даты создания (включительно) или null
+     * @return количество и сумма сделок для каждого месяца, упорядоченные по возрастанию
+     */
+    public Map<YearMonth, DealStatsDto> totalsByMonth(Deal.Status status, Long userId,
+                                                      LocalDate createdFrom, LocalDate createdTo) {
+        Map<YearMonth, DealStatsDto> result = groupBy(created, DealColumnStore::epochDayToMonthIndex,
+                month -> YearMonth.of((int) (month / 12), (int) (month % 12) + 1),
+                new Filter(status, userId, createdFrom, createdTo));
+        List<YearMonth> months = new ArrayList<>(result.keySet());
+        months.sort(null);
+        Map<YearMonth, DealStatsDto> sorted = new LinkedHashMap<>();
+        for (YearMonth month : months) {
+            sorted.put(month, result.get(month));
+        }
+        return sorted;
+    }
+
+    /**
+     * Общий итог по сделкам, удовлетворяющим фильтру.
+     *
+     * @param status      фильтр по статусу или null
+     * @param userId      фильтр по менеджеру или null
+     * @param createdFrom нижняя граница даты создания (включительно) или null
+     * @param createdTo   верхняя граница даты создания (включительно) или null
+     * @return количество и сумма подходящих сделок
+     */
+    public DealStatsDto totals(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo) {
+        Map<Long, DealStatsDto> result = groupBy(null, value -> 0L, Long::valueOf,
+                new Filter(status, userId, createdFrom, createdTo));
+        return result.getOrDefault(0L, new DealStatsDto(0, 0));
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Column column : columns) {
+                column.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Группирующая агрегация по одному столбцу. Читаются только столбец ключа, столбец суммы,
+     * столбцы, участвующие в фильтре, и столбец status, если в хранилище есть удаленные строки;
+     * блоки, не подходящие по min/max, пропускаются без чтения.
+     *
+     * @param keyColumn столбец ключа группировки или null для общего итога
+     * @param rawKey    преобразование значения столбца в числовой ключ группы
+     * @param toKey     преобразование числового ключа группы в ключ результата
+     * @param filter    фильтр строк
+     */
+    private <K> Map<K, DealStatsDto> groupBy(Column keyColumn, LongUnaryOperator rawKey,
+                                             LongFunction<K> toKey, Filter filter) {
+        lock.readLock().lock();
+        try {
+            Set<Column> needed = new LinkedHashSet<>();
+            if (keyColumn != null) {
+                needed.add(keyColumn);
+            }
+            needed.add(amount);
+            boolean skipDeleted = deleted > 0 && !filter.restrictsStatus();
+            if (filter.restrictsStatus() || skipDeleted) {
+                needed.add(status);
+            }
+            if (filter.restrictsUser()) {
+                needed.add(userId);
+            }
+            if (filter.restrictsCreated()) {
+                needed.add(created);
+            }
+
+            Map<Column, long[]> values = new HashMap<>();
+            for (Column column : needed) {
+                values.put(column, new long[BLOCK_ROWS]);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_ROWS * 8);
+            Map<Long, long[]> groups = new HashMap<>();
+
+            int blocks = (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+            for (int block = 0; block < blocks; block++) {
+                if (filter.restrictsStatus() && !status.mayContain(block, filter.status, filter.status)) {
+                    continue;
+                }
+                if (filter.restrictsUser() && !userId.mayContain(block, filter.userId, filter.userId)) {
+                    continue;
+                }
+                if (filter.restrictsCreated() && !created.mayContain(block, filter.createdFrom, filter.createdTo)) {
+                    continue;
+                }
+
+                int count = (int) Math.min(BLOCK_ROWS, rows - (long) block * BLOCK_ROWS);
+                for (Column column : needed) {
+                    column.readBlock(block, count, buffer, values.get(column));
+                }
+
+                long[] keys = keyColumn == null ? null : values.get(keyColumn);
+                long[] amounts = values.get(amount);
+                long[] statuses = values.get(status);
+                long[] users = values.get(userId);
+                long[] createdDays = values.get(created);
+
+                long lastRaw = 0;
+                long lastKey = 0;
+                long[] lastGroup = null;
+                for (int i = 0; i < count; i++) {
+                    if (filter.restrictsStatus() && statuses[i] != filter.status) {
+                        continue;
+                    }
+                    if (skipDeleted && statuses[i] == DELETED) {
+                        continue;
+                    }
+                    if (filter.restrictsUser() && users[i] != filter.userId) {
+                        continue;
+                    }
+                    if (filter.restrictsCreated()
+                            && (createdDays[i] < filter.createdFrom || createdDays[i] > filter.createdTo)) {
+                        continue;
+                    }
+                    long raw = keys == null ? 0 : keys[i];
+                    if (lastGroup == null || raw != lastRaw) {
+                        lastRaw = raw;
+                        long key = rawKey.applyAsLong(raw);
+                        if (lastGroup == null || key != lastKey) {
+                            lastKey = key;
+                            lastGroup = groups.computeIfAbsent(key, k -> new long[2]);
+                        }
+                    }
+                    lastGroup[0]++;
+                    lastGroup[1] += amounts[i];
+                }
+            }
+
+            Map<K, DealStatsDto> result = new HashMap<>();
+            for (Map.Entry<Long, long[]> entry : groups.entrySet()) {
+                result.put(toKey.apply(entry.getKey()), new DealStatsDto(entry.getValue()[0], entry.getValue()[1]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long toCents(Double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static long epochDayToMonthIndex(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Условия отбора строк в виде значений столбцов; null-аргументы означают отсутствие ограничения.
+     */
+    private static final class Filter {
+        private final long status;
+        private final long userId;
+        private final boolean hasUserId;
+        private final long createdFrom;
+        private final long createdTo;
+
+        private Filter(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo) {
+            this.status = status == null ? -1 : status.ordinal();
+            this.hasUserId = userId != null;
+            this.userId = userId == null ? 0 : userId;
+            this.createdFrom = createdFrom == null ? Long.MIN_VALUE : createdFrom.toEpochDay();
+            this.createdTo = createdTo == null ? Long.MAX_VALUE : createdTo.toEpochDay();
+        }
+
+        private boolean restrictsStatus() {
+            return status >= 0;
+        }
+
+        private boolean restrictsUser() {
+            return hasUserId;
+        }
+
+        private boolean restrictsCreated() {
+            return createdFrom != Long.MIN_VALUE || createdTo != Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Один столбец: файл значений фиксированной ширины и файл статистики блоков (пары min/max).
+     */
+    private static final class Column {
+        private final String name;
+        private final int width;
+        private final Path dataFile;
+        private final Path statsFile;
+        private FileChannel data;
+        private FileChannel stats;
+        private long[] mins = new long[16];
+        private long[] maxs = new long[16];
+
+        private Column(Path dir, String name, int width) {
+            this.name = name;
+            this.width = width;
+            this.dataFile = dir.resolve(name + ".col");
+            this.statsFile = dir.resolve(name + ".stats");
+        }
+
+        private long rowsOnDisk() {
+            try {
+                return Files.exists(dataFile) ? Files.size(dataFile) / width : 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при чтении столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Открывает файлы столбца, усекает данные до rows строк и загружает статистику блоков.
+         * Если файл статистики не соответствует данным, статистика пересчитывается.
+         */
+        private void open(long rows) {
+            try {
+                data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                stats = FileChannel.open(statsFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                data.truncate(rows * width);
+
+                int blocks = (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+                ensureCapacity(blocks);
+                if (stats.size() == (long) blocks * 16) {
+                    ByteBuffer buffer = ByteBuffer.allocate(blocks * 16);
+                    readFully(stats, buffer, 0);
+                    buffer.flip();
+                    for (int block = 0; block < blocks; block++) {
+                        mins[block] = buffer.getLong();
+                        maxs[block] = buffer.getLong();
+                    }
+                } else {
+                    recomputeStats(rows);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при открытии столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void recomputeStats(long rows) throws IOException {
+            stats.truncate(0);
+            int blocks = (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_ROWS * width);
+            long[] values = new long[BLOCK_ROWS];
+            for (int block = 0; block < blocks; block++) {
+                int count = (int) Math.min(BLOCK_ROWS, rows - (long) block * BLOCK_ROWS);
+                readBlock(block, count, buffer, values);
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int i = 0; i < count; i++) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+                writeStats(block, min, max);
+            }
+        }
+
+        private void append(long row, long value) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(width);
+                put(buffer, value);
+                buffer.flip();
+                writeFully(data, buffer, row * width);
+
+                int block = (int) (row / BLOCK_ROWS);
+                if (row % BLOCK_ROWS == 0) {
+                    ensureCapacity(block + 1);
+                    writeStats(block, value, value);
+                } else if (value < mins[block] || value > maxs[block]) {
+                    writeStats(block, Math.min(mins[block], value), Math.max(maxs[block], value));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при записи столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Переписывает значение одной строки и расширяет min/max ее блока, если значение вышло за них.
+         */
+        private void set(long row, long value) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(width);
+                put(buffer, value);
+                buffer.flip();
+                writeFully(data, buffer, row * width);
+
+                int block = (int) (row / BLOCK_ROWS);
+                if (value < mins[block] || value > maxs[block]) {
+                    writeStats(block, Math.min(mins[block], value), Math.max(maxs[block], value));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при записи столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @return количество строк со значением value среди первых rows строк
+         */
+        private long count(long rows, long value) {
+            int blocks = (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_ROWS * width);
+            long[] values = new long[BLOCK_ROWS];
+            long found = 0;
+            for (int block = 0; block < blocks; block++) {
+                if (!mayContain(block, value, value)) {
+                    continue;
+                }
+                int count = (int) Math.min(BLOCK_ROWS, rows - (long) block * BLOCK_ROWS);
+                readBlock(block, count, buffer, values);
+                for (int i = 0; i < count; i++) {
+                    if (values[i] == value) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        }
+
+        private void writeAll(Collection<Deal> deals, ToLongFunction<Deal> extractor) {
+            try {
+                data.truncate(0);
+                stats.truncate(0);
+                ensureCapacity((deals.size() + BLOCK_ROWS - 1) / BLOCK_ROWS);
+
+                ByteBuffer buffer = ByteBuffer.allocate(BLOCK_ROWS * width);
+                long position = 0;
+                int block = 0;
+                int inBlock = 0;
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (Deal deal : deals) {
+                    long value = extractor.applyAsLong(deal);
+                    put(buffer, value);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    if (++inBlock == BLOCK_ROWS) {
+                        buffer.flip();
+                        position += writeFully(data, buffer, position);
+                        buffer.clear();
+                        writeStats(block++, min, max);
+                        inBlock = 0;
+                        min = Long.MAX_VALUE;
+                        max = Long.MIN_VALUE;
+                    }
+                }
+                if (inBlock > 0) {
+                    buffer.flip();
+                    writeFully(data, buffer, position);
+                    writeStats(block, min, max);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при перестроении столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void readBlock(int block, int count, ByteBuffer buffer, long[] values) {
+            try {
+                buffer.clear().limit(count * width);
+                readFully(data, buffer, (long) block * BLOCK_ROWS * width);
+                buffer.flip();
+                for (int i = 0; i < count; i++) {
+                    values[i] = switch (width) {
+                        case 1 -> buffer.get();
+                        case 4 -> buffer.getInt();
+                        default -> buffer.getLong();
+                    };
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при чтении столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        private boolean mayContain(int block, long from, long to) {
+            return maxs[block] >= from && mins[block] <= to;
+        }
+
+        private void writeStats(int block, long min, long max) throws IOException {
+            mins[block] = min;
+            maxs[block] = max;
+            ByteBuffer buffer = ByteBuffer.allocate(16).putLong(min).putLong(max);
+            buffer.flip();
+            writeFully(stats, buffer, (long) block * 16);
+        }
+
+        private void put(ByteBuffer buffer, long value) {
+            switch (width) {
+                case 1 -> buffer.put((byte) value);
+                case 4 -> buffer.putInt((int) value);
+                default -> buffer.putLong(value);
+            }
+        }
+
+        private void ensureCapacity(int blocks) {
+            if (blocks > mins.length) {
+                int capacity = Math.max(blocks, mins.length * 2);
+                mins = Arrays.copyOf(mins, capacity);
+                maxs = Arrays.copyOf(maxs, capacity);
+            }
+        }
+
+        private void close() {
+            try {
+                data.close();
+                stats.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при закрытии столбца " + name + ": " + e.getMessage(), e);
+            }
+        }
+
+        private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            int written = 0;
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, position + written);
+            }
+            return written;
+        }
+
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            long offset = position;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    throw new IOException("Неожиданный конец файла");
+                }
+                offset += read;
+            }
+        }
+    }
+}
@@ -1,8 +1,78 @@
 package repositories;
 
 
+import dto.DealStatsDto;
 import models.Deal;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
 public interface DealRepository extends CrudRepository<Deal> {
+
+    /**
+     * Номера полей строки сделки: id|title|clientId|userId|amount|status|createdDate|closedDate.
+     */
+    int ID = 0;
+    int TITLE = 1;
+    int CLIENT_ID = 2;
+    int USER_ID = 3;
+    int AMOUNT = 4;
+    int STATUS = 5;
+    int CREATED_DATE = 6;
+    int CLOSED_DATE = 7;
+
     void updateDeal(Deal updatedDeal);
+
+    Optional<Deal> findById(Long id);
+
+    List<Deal> findTopByAmount(int limit, Deal.Status status, Long userId);
+
+    List<Deal> findByCreatedDateBetween(LocalDate from, LocalDate to);
+
+    List<Deal> findByClosedDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Сканирует файл без создания {@link Deal}: строки, не прошедшие фильтр, отбрасываются,
+     * из остальных проекция читает только нужные поля. Прошедшие фильтр строки, которые не разобрал бы
+     * полный разбор, в результат не попадают и переносятся в карантин.
+     *
+     * @param filter     условие по полям строки
+     * @param projection преобразование строки в результат
+     * @return результаты проекции в порядке файла
+     */
+    <R> List<R> findAll(Predicate<RecordView> filter, Function<RecordView, R> projection);
+
+    /**
+     * Итоги по статусам сделок. Аргументы-фильтры, равные null, не ограничивают выборку;
+     * границы дат создания включаются.
+     *
+     * @return количество и сумма сделок для каждого статуса
+     */
+    Map<Deal.Status, DealStatsDto> totalsByStatus(Long userId, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Итоги по менеджерам с теми же правилами фильтрации, что и {@link #totalsByStatus}.
+     *
+     * @return количество и сумма сделок для каждого userId
+     */
+    Map<Long, DealStatsDto> totalsByUser(Deal.Status status, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Итоги по месяцам даты создания с теми же правилами фильтрации, что и {@link #totalsByStatus}.
+     *
+     * @return количество и сумма сделок для каждого месяца, упорядоченные по возрастанию
+     */
+    Map<YearMonth, DealStatsDto> totalsByMonth(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Общий итог по сделкам с теми же правилами фильтрации, что и {@link #totalsByStatus}.
+     *
+     * @return количество и сумма подходящих сделок
+     */
+    DealStatsDto totals(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo);
 }
@@ -2,6 +2,11 @@ package repositories;
 
 
 
+import dto.DealStatsDto;
+import logging.RateLimitedLogger;
+import metrics.FileRewriteEvent;
+import metrics.FileScanEvent;
+import metrics.OperationContext;
 import models.Deal;
 import util.IdGenerator;
 
@@ -10,16 +15,30 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
 
 /**
  * Реализация репозитория для работы со сделками, основанная на файловой системе.
  * Предоставляет методы для сохранения сделок и их чтения из файла.
  */
 public class DealRepositoryFileBasedImpl implements DealRepository {
+    private static final Logger logger = Logger.getLogger(DealRepositoryFileBasedImpl.class.getName());
+    private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
+
     /**
      * Имя файла, в котором хранятся данные о сделках.
      */
@@ -30,11 +49,27 @@ public class DealRepositoryFileBasedImpl implements DealRepository {
      */
     private final IdGenerator idGenerator;
 
+    /**
+     * Блокировка изменений файла: записи репозитория и перенос строк в карантин выполняются под ней.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Карантин строк, которые не удалось разобрать.
+     */
+    private final Quarantine quarantine;
+    private final FileScanEngine scanEngine;
+
     /**
      * Форматтер для преобразования дат в строку и обратно.
      */
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    /**
+     * Колоночная копия сделок для аналитики или null, если она не используется.
+     */
+    private final DealColumnStore columnStore;
+
     /**
      * Конструктор для создания экземпляра репозитория.
      *
@@ -48,6 +83,33 @@ public class DealRepositoryFileBasedImpl implements DealRepository {
         }
         this.fileName = fileName;
         this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, writeLock);
+        this.scanEngine = new FileScanEngine(fileName, quarantine, logger, lineToDealFunction::apply);
+        this.columnStore = null;
+    }
+
+    /**
+     * Конструктор для создания экземпляра репозитория с колоночной копией данных.
+     * Если колоночное хранилище построено не по текущему состоянию файла (отметка размера и времени
+     * изменения не совпадает), оно перестраивается.
+     *
+     * @param fileName    имя файла для хранения данных
+     * @param idGenerator генератор уникальных идентификаторов
+     * @param columnStore колоночное хранилище, которое поддерживается в актуальном состоянии
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public DealRepositoryFileBasedImpl(String fileName, IdGenerator idGenerator, DealColumnStore columnStore) {
+        if (fileName == null || idGenerator == null || columnStore == null) {
+            throw new NullPointerException("Параметры fileName, idGenerator и columnStore не могут быть null");
+        }
+        this.fileName = fileName;
+        this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, writeLock);
+        this.scanEngine = new FileScanEngine(fileName, quarantine, logger, lineToDealFunction::apply);
+        this.columnStore = columnStore;
+        if (!columnStore.isSyncedWith(fileStamp())) {
+            rebuildColumnStore();
+        }
     }
 
     /**
@@ -59,7 +121,8 @@ public class DealRepositoryFileBasedImpl implements DealRepository {
      * @throws IllegalArgumentException если строка имеет некорректный формат
      */
     private final Function<String, Deal> lineToDealFunction = line -> {
-        String[] parts = line.split("\\|");
+        // Лимит -1 сохраняет пустую дату закрытия в конце строки
+        String[] parts = line.split("\\|", -1);
 
         // Проверка на корректное количество частей
         if (parts.length < 8) {
@@ -91,68 +154,415 @@ public class DealRepositoryFileBasedImpl implements DealRepository {
             throw new IllegalArgumentException("Модель сделки не может быть null");
         }
 
-        model.setId(idGenerator.nextId());
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
-            String createdDateStr = model.getCreatedDate().format(dateFormatter);
-            String closedDateStr = model.getClosedDate() == null ? "" : model.getClosedDate().format(dateFormatter);
+        synchronized (writeLock) {
+            model.setId(idGenerator.nextId());
 
-            writer.write(String.format("%d|%s|%d|%d|%.2f|%s|%s|%s\n",
-                    model.getId(),
-                    model.getTitle(),
-                    model.getClientId(),
-                    model.getUserId(),
-                    model.getAmount(),
-                    model.getStatus(),
-                    createdDateStr,
-                    closedDateStr));
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при сохранении сделки в файл: " + e.getMessage(), e);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
+                String line = dealToLine(model) + "\n";
+                writer.write(line);
+                OperationContext.recordWrite(line.length());
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при сохранении сделки в файл: " + e.getMessage(), e);
+            }
+            if (columnStore != null) {
+                columnStore.append(model);
+                columnStore.markSynced(fileStamp());
+            }
         }
     }
 
     @Override
     public List<Deal> findAll() {
         List<Deal> deals = new ArrayList<>();
+        forEachDeal(deals::add);
+        return deals;
+    }
+
+    /**
+     * Возвращает самые крупные сделки по сумме, упорядоченные по убыванию суммы.
+     * Файл читается потоково, в памяти удерживается только куча из limit сделок.
+     *
+     * @param limit  максимальное количество сделок в результате
+     * @param status фильтр по статусу или null
+     * @param userId фильтр по менеджеру или null
+     * @return не более limit сделок с наибольшей суммой
+     */
+    @Override
+    public List<Deal> findTopByAmount(int limit, Deal.Status status, Long userId) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество сделок должно быть положительным");
+        }
+        Comparator<Deal> byAmount = Comparator.comparing(Deal::getAmount);
+        PriorityQueue<Deal> heap = new PriorityQueue<>(limit, byAmount);
+        forEachDeal(deal -> {
+            if ((status != null && deal.getStatus() != status) || (userId != null && !userId.equals(deal.getUserId()))) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(deal);
+            } else if (byAmount.compare(deal, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(deal);
+            }
+        });
+        List<Deal> result = new ArrayList<>(heap);
+        result.sort(byAmount.reversed());
+        return result;
+    }
+
+    /**
+     * Возвращает сделки, созданные в указанном интервале, упорядоченные по дате создания.
+     *
+     * @param from нижняя граница (включительно) или null
+     * @param to   верхняя граница (включительно) или null
+     * @return список подходящих сделок
+     */
+    @Override
+    public List<Deal> findByCreatedDateBetween(LocalDate from, LocalDate to) {
+        return findByDateBetween(Deal::getCreatedDate, from, to);
+    }
+
+    /**
+     * Возвращает закрытые в указанном интервале сделки, упорядоченные по дате закрытия.
+     * Сделки без даты закрытия в результат не попадают.
+     *
+     * @param from нижняя граница (включительно) или null
+     * @param to   верхняя граница (включительно) или null
+     * @return список подходящих сделок
+     */
+    @Override
+    public List<Deal> findByClosedDateBetween(LocalDate from, LocalDate to) {
+        return findByDateBetween(Deal::getClosedDate, from, to);
+    }
+
+    private List<Deal> findByDateBetween(Function<Deal, LocalDate> date, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало интервала не может быть позже конца");
+        }
+        List<Deal> result = new ArrayList<>();
+        forEachDeal(deal -> {
+            LocalDate value = date.apply(deal);
+            if (value != null && (from == null || !value.isBefore(from)) && (to == null || !value.isAfter(to))) {
+                result.add(deal);
+            }
+        });
+        result.sort(Comparator.comparing(date));
+        return result;
+    }
+
+    /**
+     * Потоково читает файл и передает каждую корректную сделку обработчику,
+     * не накапливая весь файл в памяти.
+     *
+     * @param action обработчик сделок
+     * @throws IllegalStateException если произошла ошибка при чтении файла
+     */
+    private void forEachDeal(Consumer<Deal> action) {
+        Quarantine.Batch rejected = quarantine.batch();
+        FileScanEvent scan = new FileScanEvent();
+        scan.begin();
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
+            long rows = 0;
+            long bytes = 0;
             while ((line = reader.readLine()) != null) {
+                rows++;
+                bytes += line.length() + 1;
+                Deal deal;
                 try {
-                    Deal deal = lineToDealFunction.apply(line);
-                    deals.add(deal);
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Ошибка при чтении строки: " + line + " - " + e.getMessage());
+                    deal = lineToDealFunction.apply(line);
+                } catch (RuntimeException e) {
+                    parseLog.warning("Ошибка при чтении строки", "file", fileName, "line", line, "error", e.getMessage());
+                    rejected.addLine(rows - 1, line, e.getMessage());
+                    continue;
                 }
+                action.accept(deal);
             }
+            OperationContext.recordScan(rows, bytes);
+            scan.finish(fileName, rows, bytes);
         } catch (IOException e) {
             throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
         }
-        return deals;
+        rejected.isolate();
+    }
+
+    /**
+     * Сканирует файл, размечая строки лениво: для отброшенных фильтром строк объект сделки не создается,
+     * а значения полей декодируются, только если их читают фильтр или проекция. Прошедшие фильтр строки
+     * перед проекцией проверяются по тем же правилам, что и при полном разборе.
+     *
+     * @throws IllegalArgumentException если filter или projection равен null
+     * @throws IllegalStateException    если произошла ошибка при чтении файла
+     */
+    @Override
+    public <R> List<R> findAll(Predicate<RecordView> filter, Function<RecordView, R> projection) {
+        if (filter == null || projection == null) {
+            throw new IllegalArgumentException("Фильтр и проекция не могут быть null");
+        }
+        return scanEngine.findAll(filter, row -> {
+            checkRow(row);
+            return projection.apply(row);
+        });
+    }
+
+    /**
+     * Проверяет все восемь полей строки без создания {@link Deal}.
+     *
+     * @throws IllegalArgumentException    если строка не разбирается полным разбором
+     * @throws java.time.DateTimeException если дата имеет некорректный формат
+     */
+    private void checkRow(RecordView row) {
+        if (row.size() < 8) {
+            throw new IllegalArgumentException("Некорректный формат строки: " + row.line());
+        }
+        row.getLong(ID);
+        row.getLong(CLIENT_ID);
+        row.getLong(USER_ID);
+        row.getDouble(AMOUNT);
+        Deal.Status.valueOf(row.get(STATUS));
+        LocalDate.parse(row.get(CREATED_DATE), dateFormatter);
+        if (!row.isEmpty(CLOSED_DATE)) {
+            LocalDate.parse(row.get(CLOSED_DATE), dateFormatter);
+        }
     }
 
     @Override
     public void deleteById(Long id) {
-        try {
-            Path tempFile = Files.createTempFile("temp", ".txt");
+        synchronized (writeLock) {
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try {
+                Path tempFile = Files.createTempFile("temp", ".txt");
+
+                try (BufferedReader reader = Files.newBufferedReader(Path.of(fileName));
+                     BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+                    String line;
+                    long rows = 0;
+                    long bytesRead = 0;
+                    long bytesWritten = 0;
+                    while ((line = reader.readLine()) != null){
+                        rows++;
+                        bytesRead += line.length() + 1;
+                        if (!line.startsWith(id + "|")){
+                            writer.write(line);
+                            writer.newLine();
+                            bytesWritten += line.length() + 1;
+                        }
+                    }
+                    OperationContext.recordScan(rows, bytesRead);
+                    OperationContext.recordWrite(bytesWritten);
+                    rewrite.finish(fileName, rows, bytesWritten);
+                }
+                Files.move(tempFile, Path.of(fileName), StandardCopyOption.REPLACE_EXISTING);
+            }catch (IOException e){
+                throw new RuntimeException("Ошибка при удалении контакта: " + e.getMessage(), e);
+            }
+            if (columnStore != null) {
+                columnStore.delete(id);
+                if (columnStore.needsRebuild()) {
+                    rebuildColumnStore();
+                } else {
+                    columnStore.markSynced(fileStamp());
+                }
+            }
+        }
+    }
 
-            try (BufferedReader reader = Files.newBufferedReader(Path.of(fileName));
-                 BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
-                String line;
-                while ((line = reader.readLine()) != null){
-                    if (!line.startsWith(id + "|")){
+    /**
+     * Заменяет строку сделки в файле на актуальное состояние сделки.
+     *
+     * @param updatedDeal сделка с новыми значениями полей
+     * @throws RuntimeException если сделка с указанным ID не найдена или произошла ошибка при записи файла
+     */
+    @Override
+    public void updateDeal(Deal updatedDeal) {
+        if (updatedDeal == null || updatedDeal.getId() == null) {
+            throw new IllegalArgumentException("Сделка и её идентификатор не могут быть null");
+        }
+
+        synchronized (writeLock) {
+            boolean found = false;
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try {
+                Path tempFile = Files.createTempFile("temp", ".txt");
+
+                try (BufferedReader reader = Files.newBufferedReader(Path.of(fileName));
+                     BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+                    String line;
+                    long rows = 0;
+                    long bytesRead = 0;
+                    long bytesWritten = 0;
+                    while ((line = reader.readLine()) != null) {
+                        rows++;
+                        bytesRead += line.length() + 1;
+                        if (!found && line.startsWith(updatedDeal.getId() + "|")) {
+                            line = dealToLine(updatedDeal);
+                            found = true;
+                        }
                         writer.write(line);
                         writer.newLine();
+                        bytesWritten += line.length() + 1;
                     }
+                    OperationContext.recordScan(rows, bytesRead);
+                    OperationContext.recordWrite(bytesWritten);
+                    rewrite.finish(fileName, rows, bytesWritten);
+                }
+                if (!found) {
+                    Files.delete(tempFile);
+                    throw new RuntimeException("Сделка с таким ID не найдена.");
+                }
+                Files.move(tempFile, Path.of(fileName), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при обновлении сделки в файле: " + e.getMessage(), e);
+            }
+            if (columnStore != null) {
+                // Строка фиксированной ширины переписывается на месте; полная перестройка нужна,
+                // только если хранилище почему-то не содержит этой сделки
+                if (columnStore.update(updatedDeal)) {
+                    columnStore.markSynced(fileStamp());
+                } else {
+                    rebuildColumnStore();
                 }
             }
-            Files.move(tempFile, Path.of(fileName), StandardCopyOption.REPLACE_EXISTING);
-        }catch (IOException e){
-            throw new RuntimeException("Ошибка при удалении контакта: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Осуществляет поиск сделки по её уникальному идентификатору.
+     *
+     * @param id уникальный идентификатор сделки
+     * @return найденная сделка или пустой Optional
+     */
     @Override
-    public void updateDeal(Deal updatedDeal) {
+    public Optional<Deal> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор сделки не может быть null");
+        }
+        return scanEngine.findFirst(FileScanEngine.fieldEquals(ID, id), row -> lineToDealFunction.apply(row.line()));
+    }
+
+    /**
+     * Итоги считаются по колоночному хранилищу, а без него — потоковым чтением файла.
+     */
+    @Override
+    public Map<Deal.Status, DealStatsDto> totalsByStatus(Long userId, LocalDate createdFrom, LocalDate createdTo) {
+        if (columnStore != null) {
+            return columnStore.totalsByStatus(userId, createdFrom, createdTo);
+        }
+        return groupDeals(null, userId, createdFrom, createdTo, Deal::getStatus, new HashMap<>());
+    }
 
+    @Override
+    public Map<Long, DealStatsDto> totalsByUser(Deal.Status status, LocalDate createdFrom, LocalDate createdTo) {
+        if (columnStore != null) {
+            return columnStore.totalsByUser(status, createdFrom, createdTo);
+        }
+        return groupDeals(status, null, createdFrom, createdTo, Deal::getUserId, new HashMap<>());
+    }
+
+    @Override
+    public Map<YearMonth, DealStatsDto> totalsByMonth(Deal.Status status, Long userId,
+                                                      LocalDate createdFrom, LocalDate createdTo) {
+        if (columnStore != null) {
+            return columnStore.totalsByMonth(status, userId, createdFrom, createdTo);
+        }
+        return groupDeals(status, userId, createdFrom, createdTo,
+                deal -> YearMonth.from(deal.getCreatedDate()), new TreeMap<>());
+    }
+
+    @Override
+    public DealStatsDto totals(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo) {
+        if (columnStore != null) {
+            return columnStore.totals(status, userId, createdFrom, createdTo);
+        }
+        return groupDeals(status, userId, createdFrom, createdTo, deal -> Boolean.TRUE, new HashMap<>())
+                .getOrDefault(Boolean.TRUE, new DealStatsDto(0, 0));
+    }
+
+    /**
+     * Группирует подходящие под фильтр сделки файла по ключу, складывая количество и сумму в копейках.
+     */
+    private <K> Map<K, DealStatsDto> groupDeals(Deal.Status status, Long userId, LocalDate createdFrom,
+                                                LocalDate createdTo, Function<Deal, K> key, Map<K, DealStatsDto> result) {
+        Map<K, long[]> groups = new HashMap<>();
+        forEachDeal(deal -> {
+            if ((status != null && deal.getStatus() != status)
+                    || (userId != null && !userId.equals(deal.getUserId()))
+                    || (createdFrom != null && deal.getCreatedDate().isBefore(createdFrom))
+                    || (createdTo != null && deal.getCreatedDate().isAfter(createdTo))) {
+                return;
+            }
+            long[] group = groups.computeIfAbsent(key.apply(deal), k -> new long[2]);
+            group[0]++;
+            group[1] += Math.round(deal.getAmount() * 100);
+        });
+        for (Map.Entry<K, long[]> entry : groups.entrySet()) {
+            result.put(entry.getKey(), new DealStatsDto(entry.getValue()[0], entry.getValue()[1]));
+        }
+        return result;
+    }
+
+    /**
+     * Перестраивает колоночное хранилище по файлу и отмечает в нем состояние файла.
+     * Отметка снимается после чтения: строки, перенесенные при чтении в карантин, меняют файл.
+     * Вызывается под writeLock или из конструктора.
+     */
+    private void rebuildColumnStore() {
+        List<Deal> deals = new ArrayList<>();
+        if (Files.exists(Path.of(fileName))) {
+            forEachDeal(deals::add);
+        }
+        columnStore.rebuild(deals);
+        columnStore.markSynced(fileStamp());
+    }
+
+    /**
+     * Отметка состояния файла сделок: размер и время последнего изменения.
+     */
+    private String fileStamp() {
+        Path path = Path.of(fileName);
+        try {
+            if (!Files.exists(path)) {
+                return "0|0";
+            }
+            return Files.size(path) + "|" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при чтении файла сделок: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Преобразует сделку в строку файла (без перевода строки).
+     * Формат строки: id|title|clientId|userId|amount|status|createdDate|closedDate
+     */
+    private String dealToLine(Deal deal) {
+        String createdDateStr = deal.getCreatedDate().format(dateFormatter);
+        String closedDateStr = deal.getClosedDate() == null ? "" : deal.getClosedDate().format(dateFormatter);
+
+        return String.format(Locale.ROOT, "%d|%s|%d|%d|%.2f|%s|%s|%s",
+                deal.getId(),
+                deal.getTitle(),
+                deal.getClientId(),
+                deal.getUserId(),
+                deal.getAmount(),
+                deal.getStatus(),
+                createdDateStr,
+                closedDateStr);
+    }
+
+    /**
+     * Повторно разбирает строки из карантина и возвращает исправленные в файл сделок.
+     *
+     * @return количество возвращенных и оставшихся в карантине строк
+     */
+    public Quarantine.RepairResult repairQuarantine() {
+        synchronized (writeLock) {
+            Quarantine.RepairResult result = quarantine.reingest(lineToDealFunction::apply);
+            if (columnStore != null && result.restored() > 0) {
+                rebuildColumnStore();
+            }
+            return result;
+        }
     }
 }
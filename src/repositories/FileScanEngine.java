@@ -0,0 +1,136 @@
+package repositories;
+
+import logging.RateLimitedLogger;
+import metrics.FileScanEvent;
+import metrics.OperationContext;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Сканирование файла данных с фильтром по сырой строке.
+ * <p>
+ * Фильтр проверяется на {@link RecordView} до разбора строки: для поиска по ключу сравнивается одно поле
+ * без разбиения строки и создания объектов. Проекция вызывается только для прошедших фильтр строк,
+ * {@link #findFirst} прекращает чтение файла на первом совпадении, поэтому поиск по уникальному ключу
+ * без индекса читает в среднем половину файла. Строки, которые прошли фильтр, но не разобрались,
+ * переносятся в карантин, как и при полном сканировании. Если фильтр или проекция бросили исключение,
+ * строка проверяется полным разбором репозитория: корректная строка остается в файле, а исключение
+ * передается вызывающему коду как ошибка самого запроса.
+ */
+final class FileScanEngine {
+
+    private final String fileName;
+    private final Quarantine quarantine;
+    private final RateLimitedLogger parseLog;
+    private final Consumer<String> parser;
+
+    /**
+     * @param fileName   файл данных
+     * @param quarantine карантин этого файла
+     * @param logger     журнал репозитория, в который пишутся ошибки разбора
+     * @param parser     полный разбор строки репозитория; отклоняет некорректную строку исключением
+     */
+    FileScanEngine(String fileName, Quarantine quarantine, Logger logger, Consumer<String> parser) {
+        this.fileName = fileName;
+        this.quarantine = quarantine;
+        this.parseLog = new RateLimitedLogger(logger);
+        this.parser = parser;
+    }
+
+    /**
+     * @return фильтр строк, поле которых равно числу; поле сравнивается с десятичной записью числа без разбора
+     */
+    static Predicate<RecordView> fieldEquals(int field, long value) {
+        return fieldEquals(field, Long.toString(value));
+    }
+
+    /**
+     * @return фильтр строк, поле которых равно значению
+     */
+    static Predicate<RecordView> fieldEquals(int field, String value) {
+        return row -> row.fieldEquals(field, value);
+    }
+
+    /**
+     * Возвращает первую строку, прошедшую фильтр, и прекращает чтение файла.
+     *
+     * @throws IllegalStateException если произошла ошибка при чтении файла
+     */
+    <R> Optional<R> findFirst(Predicate<RecordView> filter, Function<RecordView, R> projection) {
+        List<R> result = scan(filter, projection, 1);
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    /**
+     * Возвращает все строки, прошедшие фильтр, в порядке файла.
+     *
+     * @throws IllegalStateException если произошла ошибка при чтении файла
+     */
+    <R> List<R> findAll(Predicate<RecordView> filter, Function<RecordView, R> projection) {
+        return scan(filter, projection, Integer.MAX_VALUE);
+    }
+
+    private <R> List<R> scan(Predicate<RecordView> filter, Function<RecordView, R> projection, int limit) {
+        List<R> result = new ArrayList<>(Math.min(limit, 16));
+        RecordView view = new RecordView();
+        Quarantine.Batch rejected = quarantine.batch();
+        RuntimeException queryError = null;
+        FileScanEvent scan = new FileScanEvent();
+        scan.begin();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            long rows = 0;
+            long bytes = 0;
+            while (queryError == null && result.size() < limit && (line = reader.readLine()) != null) {
+                rows++;
+                bytes += line.length() + 1;
+                view.reset(line);
+                try {
+                    if (filter.test(view)) {
+                        result.add(projection.apply(view));
+                    }
+                } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+                    String reason = parseError(line);
+                    if (reason == null) {
+                        // Строка корректна: исключение бросили фильтр или проекция вызывающего кода
+                        queryError = e;
+                    } else {
+                        parseLog.warning("Ошибка при чтении строки", "file", fileName, "line", line, "error", reason);
+                        rejected.addLine(rows - 1, line, reason);
+                    }
+                }
+            }
+            OperationContext.recordScan(rows, bytes);
+            scan.finish(fileName, rows, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
+        }
+        rejected.isolate();
+        if (queryError != null) {
+            throw queryError;
+        }
+        return result;
+    }
+
+    /**
+     * @return причина, по которой строка не разбирается полным разбором, или null, если строка корректна
+     */
+    private String parseError(String line) {
+        try {
+            parser.accept(line);
+            return null;
+        } catch (RuntimeException e) {
+            return e.getMessage() == null ? e.toString() : e.getMessage();
+        }
+    }
+}
@@ -3,10 +3,46 @@ package repositories;
 
 import models.Message;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface MessageRepository extends CrudRepository<Message> {
 
     List<Message> findMessagesBySenderAndReceiver(Long senderId, Long receiverId);
     List<Message> findMessagesByUser(Long userId);
+
+    /**
+     * Возвращает страницу сообщений пользователя (отправленных и полученных), начиная с самых новых.
+     * Стоимость зависит только от размера страницы, а не от длины истории.
+     *
+     * @param userId   идентификатор пользователя
+     * @param page     номер страницы, начиная с 0
+     * @param pageSize размер страницы
+     * @return сообщения страницы от новых к старым
+     */
+    List<Message> findMessagesByUserNewestFirst(Long userId, int page, int pageSize);
+
+    /**
+     * @param userId    идентификатор получателя
+     * @param messageId идентификатор сообщения
+     * @return количество полученных пользователем сообщений с идентификатором больше messageId
+     */
+    int countReceivedAfter(Long userId, long messageId);
+
+    /**
+     * Полнотекстовый поиск по текстам сообщений.
+     * <p>
+     * Слова запроса через пробел должны встречаться все; {@code OR} между словами — любое из них;
+     * {@code -слово} исключает сообщения; {@code "несколько слов"} — фраза. Регистр и различие 'е'/'ё'
+     * не учитываются.
+     *
+     * @param query      поисковый запрос
+     * @param senderId   фильтр по отправителю или null
+     * @param receiverId фильтр по получателю или null
+     * @param from       начало интервала времени отправки (включительно) или null
+     * @param to         конец интервала времени отправки (включительно) или null
+     * @param limit      максимальное количество результатов
+     * @return найденные сообщения, начиная с самых новых
+     */
+    List<Message> search(String query, Long senderId, Long receiverId, LocalDateTime from, LocalDateTime to, int limit);
 }
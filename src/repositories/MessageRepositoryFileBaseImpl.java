@@ -2,14 +2,27 @@ package repositories;
 
 
 
+import logging.RateLimitedLogger;
+import metrics.FileScanEvent;
+import metrics.OperationContext;
 import models.Message;
 import util.IdGenerator;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -17,16 +30,37 @@ import java.util.stream.Collectors;
 /**
  * Реализация репозитория для работы с сообщениями, основанная на файловой системе.
  * Предоставляет методы для сохранения, поиска и чтения сообщений.
+ * <p>
+ * Для постраничного чтения в памяти держится индекс: для каждого пользователя — смещения его сообщений
+ * в файле и идентификаторы полученных сообщений, а также полнотекстовый {@link MessageSearchIndex}.
+ * Индексы строятся при первом обращении и дополняются
+ * при сохранении; строки, дописанные в файл в обход репозитория, индексируются при следующем запросе.
  */
 public class MessageRepositoryFileBaseImpl implements MessageRepository {
 
     private static final Logger logger = Logger.getLogger(MessageRepositoryFileBaseImpl.class.getName());
+    private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
+    private static final RateLimitedLogger readLog = new RateLimitedLogger(logger);
+    private static final RateLimitedLogger indexLog = new RateLimitedLogger(logger);
 
     private final String fileName;
     private final IdGenerator idGenerator;
+    private final Quarantine quarantine;
 
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private final Object indexLock = new Object();
+    // Смещения строк сообщений пользователя (как отправителя или получателя) в порядке файла
+    private final Map<Long, LongList> offsetsByUser = new HashMap<>();
+    // Идентификаторы сообщений, полученных пользователем, в порядке файла
+    private final Map<Long, LongList> receivedIdsByUser = new HashMap<>();
+    // Полнотекстовый индекс текстов сообщений
+    private MessageSearchIndex searchIndex = new MessageSearchIndex();
+    // Длина проиндексированной части файла
+    private long indexedLength;
+    // Номер поколения индекса: увеличивается при каждой перезаписи файла, после которой смещения недействительны
+    private long indexGeneration;
+
     /**
      * Конструктор для создания экземпляра репозитория.
      *
@@ -40,6 +74,7 @@ public class MessageRepositoryFileBaseImpl implements MessageRepository {
         }
         this.fileName = fileName;
         this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, indexLock);
     }
 
     /**
@@ -76,18 +111,26 @@ public class MessageRepositoryFileBaseImpl implements MessageRepository {
             throw new IllegalArgumentException("Модель сообщения не может быть null");
         }
 
-        model.setId(idGenerator.nextId());
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
+        synchronized (indexLock) {
+            indexTail();
+            // Идентификатор выдается под блокировкой, чтобы порядок сообщений в файле совпадал с порядком id
+            model.setId(idGenerator.nextId());
             String dispatchTime = model.getTimestamp().format(dateFormatter);
-            writer.write(String.format("%d|%s|%s|%s|%s|%s\n",
+            byte[] line = String.format("%d|%s|%s|%s|%s|%s\n",
                     model.getId(),
                     model.getSenderId(),
                     model.getReceiverId(),
                     model.getContent(),
                     model.getTimestamp(),
-                    dispatchTime));
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при сохранении сообщения в файл: " + e.getMessage(), e);
+                    dispatchTime).getBytes(StandardCharsets.UTF_8);
+            try {
+                Files.write(Paths.get(fileName), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                OperationContext.recordWrite(line.length);
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при сохранении сообщения в файл: " + e.getMessage(), e);
+            }
+            index(model, indexedLength);
+            indexedLength += line.length;
         }
     }
 
@@ -100,22 +143,57 @@ public class MessageRepositoryFileBaseImpl implements MessageRepository {
     @Override
     public List<Message> findAll() {
         List<Message> messages = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+        Quarantine.Batch rejected = quarantine.batch();
+        FileScanEvent scan = new FileScanEvent();
+        scan.begin();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName, StandardCharsets.UTF_8))) {
             String line;
+            long rows = 0;
+            long bytes = 0;
             while ((line = reader.readLine()) != null) {
+                rows++;
+                bytes += line.length() + 1;
                 try {
                     Message message = lineToMessageFunction.apply(line);
                     messages.add(message);
-                } catch (IllegalArgumentException e) {
-                    logger.warning("Ошибка при чтении строки: " + line + " - " + e.getMessage());
+                } catch (RuntimeException e) {
+                    parseLog.warning("Ошибка при чтении строки", "file", fileName, "line", line, "error", e.getMessage());
+                    rejected.addLine(rows - 1, line, e.getMessage());
                 }
             }
+            OperationContext.recordScan(rows, bytes);
+            scan.finish(fileName, rows, bytes);
         } catch (IOException e) {
             throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
         }
+        if (!rejected.isEmpty()) {
+            synchronized (indexLock) {
+                if (rejected.isolate() > 0) {
+                    resetIndex();
+                }
+            }
+        }
         return messages;
     }
 
+    /**
+     * Повторно разбирает строки из карантина и возвращает исправленные в файл сообщений.
+     * Возвращенные строки дописываются в конец файла с новыми идентификаторами: индекс рассчитывает
+     * на то, что id растут в порядке файла (подсчет непрочитанных и выдача новых сообщений первыми).
+     * Поэтому возвращенное сообщение считается новым и непрочитанным.
+     *
+     * @return количество возвращенных и оставшихся в карантине строк
+     */
+    public Quarantine.RepairResult repairQuarantine() {
+        synchronized (indexLock) {
+            indexTail();
+            return quarantine.reingestRewriting(line -> {
+                lineToMessageFunction.apply(line);
+                return idGenerator.nextId() + line.substring(line.indexOf('|'));
+            });
+        }
+    }
+
     @Override
     public void deleteById(Long id) {
 
@@ -134,4 +212,253 @@ public class MessageRepositoryFileBaseImpl implements MessageRepository {
                 .filter(message -> message.getSenderId().equals(userId) || message.getReceiverId().equals(userId))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public List<Message> findMessagesByUserNewestFirst(Long userId, int page, int pageSize) {
+        if (userId == null) {
+            throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
+        }
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры страницы");
+        }
+        while (true) {
+            long[] offsets;
+            long generation;
+            synchronized (indexLock) {
+                indexTail();
+                generation = indexGeneration;
+                LongList userOffsets = offsetsByUser.get(userId);
+                int to = userOffsets == null ? 0 : userOffsets.size - page * pageSize;
+                if (to <= 0) {
+                    return new ArrayList<>();
+                }
+                offsets = Arrays.copyOfRange(userOffsets.values, Math.max(0, to - pageSize), to);
+            }
+            long[] newestFirst = new long[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                newestFirst[i] = offsets[offsets.length - 1 - i];
+            }
+            List<Message> messages = readMessagesAt(newestFirst, generation);
+            if (messages != null) {
+                return messages;
+            }
+        }
+    }
+
+    @Override
+    public List<Message> search(String query, Long senderId, Long receiverId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Лимит результатов должен быть положительным");
+        }
+        while (true) {
+            long[] offsets;
+            long generation;
+            synchronized (indexLock) {
+                indexTail();
+                generation = indexGeneration;
+                offsets = searchIndex.search(query, senderId, receiverId, from, to, limit);
+            }
+            List<Message> messages = readMessagesAt(offsets, generation);
+            if (messages != null) {
+                return messages;
+            }
+        }
+    }
+
+    /**
+     * Читает сообщения по смещениям строк в файле, сохраняя порядок смещений.
+     * Чтение идет без indexLock, поэтому файл может быть перезаписан карантином между копированием смещений
+     * и чтением: тогда по старым смещениям лежат чужие строки, и результат отбрасывается.
+     *
+     * @param generation поколение индекса, из которого взяты смещения
+     * @return сообщения или null, если индекс перестроен после копирования смещений и запрос нужно повторить
+     */
+    private List<Message> readMessagesAt(long[] offsets, long generation) {
+        List<Message> messages = new ArrayList<>(offsets.length);
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            for (long offset : offsets) {
+                String line = readLineAt(channel, offset);
+                try {
+                    messages.add(lineToMessageFunction.apply(line));
+                } catch (RuntimeException e) {
+                    readLog.warning("Ошибка при чтении строки", "file", fileName, "offset", offset, "line", line,
+                            "error", e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
+        }
+        synchronized (indexLock) {
+            return generation == indexGeneration ? messages : null;
+        }
+    }
+
+    @Override
+    public int countReceivedAfter(Long userId, long messageId) {
+        synchronized (indexLock) {
+            indexTail();
+            LongList ids = receivedIdsByUser.get(userId);
+            return ids == null ? 0 : ids.size - ids.upperBound(messageId);
+        }
+    }
+
+    /**
+     * Индексирует строки, дописанные в файл после последней проиндексированной позиции.
+     * Недописанная последняя строка (без перевода строки) будет проиндексирована позже.
+     * Вызывается под indexLock.
+     */
+    private void indexTail() {
+        Path path = Paths.get(fileName);
+        try {
+            if (!Files.exists(path) || Files.size(path) <= indexedLength) {
+                return;
+            }
+            Quarantine.Batch rejected = quarantine.batch();
+            FileScanEvent scan = new FileScanEvent();
+            scan.begin();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // Чтение блоками с ручным поиском переводов строк: смещения строк нужны в байтах
+                byte[] block = new byte[1 << 16];
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                long lineStart = indexedLength;
+                long rows = 0;
+                int carried = 0;
+                int read;
+                while ((read = channel.read(buffer, lineStart + carried)) > 0) {
+                    int length = carried + read;
+                    int from = 0;
+                    for (int i = carried; i < length; i++) {
+                        if (block[i] == '\n') {
+                            indexLine(new String(block, from, i - from, StandardCharsets.UTF_8), lineStart, rejected);
+                            rows++;
+                            lineStart += i + 1 - from;
+                            from = i + 1;
+                        }
+                    }
+                    carried = length - from;
+                    if (carried == block.length) {
+                        block = Arrays.copyOf(block, block.length * 2);
+                    } else {
+                        System.arraycopy(block, from, block, 0, carried);
+                    }
+                    buffer = ByteBuffer.wrap(block, carried, block.length - carried);
+                }
+                OperationContext.recordScan(rows, lineStart - indexedLength);
+                scan.finish(fileName, rows, lineStart - indexedLength);
+                indexedLength = lineStart;
+            }
+            if (rejected.isolate() > 0) {
+                // Смещения строк после перенесенных изменились: индекс строится заново
+                resetIndex();
+                indexTail();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Индексирует строку по полям id|senderId|receiverId|content|timestamp без создания {@link Message}:
+     * время разбирается упрощенным парсером, полный разбор даты занимает большую часть времени.
+     */
+    private void indexLine(String line, long offset, Quarantine.Batch rejected) {
+        int first = line.indexOf('|');
+        int second = first < 0 ? -1 : line.indexOf('|', first + 1);
+        int third = second < 0 ? -1 : line.indexOf('|', second + 1);
+        int fourth = third < 0 ? -1 : line.indexOf('|', third + 1);
+        int fifth = fourth < 0 ? -1 : line.indexOf('|', fourth + 1);
+        try {
+            if (fifth < 0) {
+                throw new IllegalArgumentException("Некорректный формат строки: " + line);
+            }
+            index(Long.parseLong(line, 0, first, 10),
+                    Long.parseLong(line, first + 1, second, 10),
+                    Long.parseLong(line, second + 1, third, 10),
+                    line.substring(third + 1, fourth),
+                    MessageSearchIndex.parseEpochSecond(line.substring(fourth + 1, fifth)),
+                    offset);
+        } catch (RuntimeException e) {
+            indexLog.warning("Ошибка при чтении строки", "file", fileName, "offset", offset, "line", line,
+                    "error", e.getMessage());
+            rejected.addAt(offset, line, e.getMessage());
+        }
+    }
+
+    /**
+     * Сбрасывает индексы после перезаписи файла. Вызывается под indexLock.
+     */
+    private void resetIndex() {
+        offsetsByUser.clear();
+        receivedIdsByUser.clear();
+        searchIndex = new MessageSearchIndex();
+        indexedLength = 0;
+        indexGeneration++;
+    }
+
+    private void index(Message message, long offset) {
+        index(message.getId(), message.getSenderId(), message.getReceiverId(), message.getContent(),
+                MessageSearchIndex.parseEpochSecond(message.getTimestamp().toString()), offset);
+    }
+
+    private void index(long messageId, long senderId, long receiverId, String content, long epochSecond, long offset) {
+        searchIndex.add(offset, senderId, receiverId, epochSecond, content);
+        offsetsByUser.computeIfAbsent(senderId, id -> new LongList()).add(offset);
+        if (receiverId != senderId) {
+            offsetsByUser.computeIfAbsent(receiverId, id -> new LongList()).add(offset);
+        }
+        receivedIdsByUser.computeIfAbsent(receiverId, id -> new LongList()).add(messageId);
+    }
+
+    private static String readLineAt(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        while (true) {
+            int read = channel.read(buffer, offset + buffer.position());
+            for (int i = 0; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return new String(buffer.array(), 0, i, StandardCharsets.UTF_8).strip();
+                }
+            }
+            if (read < 0) {
+                return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).strip();
+            }
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Растущий массив long без упаковки в объекты.
+     */
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * @return количество элементов, не превышающих value (элементы упорядочены по возрастанию)
+         */
+        private int upperBound(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
 }
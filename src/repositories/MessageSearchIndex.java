@@ -0,0 +1,425 @@
+package repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс текстов сообщений в памяти.
+ * <p>
+ * Текст разбивается на токены по символам, не являющимся буквами или цифрами; токены приводятся
+ * к нижнему регистру, 'ё' заменяется на 'е'. Для каждого токена хранятся номера документов (сообщений
+ * в порядке файла) и позиции токена в документе, что позволяет искать фразы. Для каждого документа
+ * хранятся отправитель, получатель, время и смещение строки в файле.
+ * <p>
+ * Синтаксис запроса: слова через пробел должны встречаться все; {@code OR} (или {@code ИЛИ}) между словами —
+ * любое из них; {@code -слово} исключает сообщения со словом; {@code "несколько слов"} — фраза.
+ * Слово, которое разбивается на несколько токенов (например, номер договора {@code CRM-2024-15}),
+ * ищется как фраза.
+ * <p>
+ * Класс не потокобезопасен: синхронизация выполняется репозиторием.
+ */
+class MessageSearchIndex {
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long[] offsets = new long[1024];
+    private long[] senders = new long[1024];
+    private long[] receivers = new long[1024];
+    private long[] times = new long[1024];
+    private int size;
+    // Время сообщений не убывает в порядке файла: интервал времени можно искать двоичным поиском
+    private boolean timesSorted = true;
+
+    /**
+     * Добавляет сообщение в индекс.
+     *
+     * @param offset     смещение строки сообщения в файле
+     * @param senderId   отправитель
+     * @param receiverId получатель
+     * @param epochSecond время отправки в секундах (время сообщения, трактуемое как UTC)
+     * @param content    текст сообщения
+     */
+    void add(long offset, long senderId, long receiverId, long epochSecond, String content) {
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            senders = Arrays.copyOf(senders, capacity);
+            receivers = Arrays.copyOf(receivers, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        int doc = size++;
+        if (doc > 0 && epochSecond < times[doc - 1]) {
+            timesSorted = false;
+        }
+        offsets[doc] = offset;
+        senders[doc] = senderId;
+        receivers[doc] = receiverId;
+        times[doc] = epochSecond;
+        List<String> tokens = tokenize(content);
+        for (int position = 0; position < tokens.size(); position++) {
+            postings.computeIfAbsent(tokens.get(position), token -> new Postings()).add(doc, position);
+        }
+    }
+
+    /**
+     * Выполняет запрос и возвращает смещения найденных сообщений, начиная с самых новых.
+     * <p>
+     * Документы перебираются от новых к старым «чехардой» курсоров: каждая группа запроса
+     * двоичным поиском находит ближайший подходящий документ не новее текущего, пока все группы
+     * не сойдутся на одном документе. Поэтому стоимость зависит от лимита, а не от длины списков вхождений.
+     *
+     * @param query      текст запроса
+     * @param senderId   фильтр по отправителю или null
+     * @param receiverId фильтр по получателю или null
+     * @param from       начало интервала времени (включительно) или null
+     * @param to         конец интервала времени (включительно) или null
+     * @param limit      максимальное количество результатов
+     * @return смещения строк найденных сообщений
+     * @throws IllegalArgumentException если запрос пуст
+     */
+    long[] search(String query, Long senderId, Long receiverId, LocalDateTime from, LocalDateTime to, int limit) {
+        Query parsed = Query.parse(query);
+        if (parsed.required.isEmpty() && parsed.excluded.isEmpty()) {
+            throw new IllegalArgumentException("Поисковый запрос не содержит слов");
+        }
+        Postings[][][] groups = new Postings[parsed.required.size()][][];
+        for (int g = 0; g < groups.length; g++) {
+            List<List<String>> alternatives = parsed.required.get(g);
+            List<Postings[]> resolved = new ArrayList<>();
+            for (List<String> phrase : alternatives) {
+                Postings[] lists = resolve(phrase);
+                if (lists != null) {
+                    resolved.add(lists);
+                }
+            }
+            if (resolved.isEmpty()) {
+                return new long[0];
+            }
+            groups[g] = resolved.toArray(new Postings[0][]);
+        }
+        List<Postings[]> excluded = new ArrayList<>();
+        for (List<String> phrase : parsed.excluded) {
+            Postings[] lists = resolve(phrase);
+            if (lists != null) {
+                excluded.add(lists);
+            }
+        }
+
+        long fromSecond = from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+        int target = size - 1;
+        if (timesSorted && to != null) {
+            target = upperBound(times, size, toSecond) - 1;
+        }
+        long[] result = new long[Math.max(0, Math.min(limit, size))];
+        int found = 0;
+        while (target >= 0 && found < result.length) {
+            int doc = target;
+            for (int g = 0; g < groups.length && doc >= 0; g++) {
+                int match = previousGroupMatch(groups[g], doc);
+                if (match != doc) {
+                    doc = match;
+                    g = -1;
+                }
+            }
+            if (doc < 0) {
+                break;
+            }
+            if (timesSorted && times[doc] < fromSecond) {
+                break;
+            }
+            if ((senderId == null || senders[doc] == senderId)
+                    && (receiverId == null || receivers[doc] == receiverId)
+                    && times[doc] >= fromSecond && times[doc] <= toSecond
+                    && !matchesAny(excluded, doc)) {
+                result[found++] = offsets[doc];
+            }
+            target = doc - 1;
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * @return количество проиндексированных сообщений
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Разбивает текст на токены в нижнем регистре; 'ё' заменяется на 'е'.
+     *
+     * @param text текст
+     * @return токены в порядке следования
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c == 'ё' ? 'е' : c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return списки вхождений токенов фразы или null, если какого-то токена нет в индексе
+     */
+    private Postings[] resolve(List<String> phrase) {
+        Postings[] lists = new Postings[phrase.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(phrase.get(i));
+            if (lists[i] == null) {
+                return null;
+            }
+        }
+        return lists;
+    }
+
+    /**
+     * @return ближайший документ не новее target, содержащий любую из фраз группы, или -1
+     */
+    private static int previousGroupMatch(Postings[][] alternatives, int target) {
+        int best = -1;
+        for (Postings[] phrase : alternatives) {
+            best = Math.max(best, previousPhraseMatch(phrase, target));
+            if (best == target) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return ближайший документ не новее target, содержащий фразу, или -1
+     */
+    private static int previousPhraseMatch(Postings[] lists, int target) {
+        int doc = target;
+        while (doc >= 0) {
+            int agreed = doc;
+            for (Postings list : lists) {
+                int previous = list.previous(doc);
+                if (previous < 0) {
+                    return -1;
+                }
+                agreed = Math.min(agreed, previous);
+            }
+            if (agreed != doc) {
+                doc = agreed;
+                continue;
+            }
+            if (lists.length == 1 || containsPhrase(lists, doc)) {
+                return doc;
+            }
+            doc--;
+        }
+        return -1;
+    }
+
+    private static boolean matchesAny(List<Postings[]> phrases, int doc) {
+        for (Postings[] lists : phrases) {
+            if (previousPhraseMatch(lists, doc) == doc) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsPhrase(Postings[] lists, int doc) {
+        int[] slots = new int[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            slots[i] = lists[i].slot(doc);
+        }
+        Postings first = lists[0];
+        for (int p = first.positionStart(slots[0]); p < first.positionEnd(slots[0]); p++) {
+            int start = first.positions[p];
+            boolean matched = true;
+            for (int i = 1; i < lists.length && matched; i++) {
+                matched = lists[i].hasPosition(slots[i], start + i);
+            }
+            if (matched) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return количество первых элементов массива, не превышающих value (массив упорядочен по возрастанию)
+     */
+    private static int upperBound(long[] values, int length, long value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Вхождения одного токена: номера документов по возрастанию и позиции токена в каждом документе.
+     * Позиции документа {@code docs[k]} занимают {@code positions[starts[k] .. starts[k + 1])}.
+     */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] starts = new int[3];
+        private int[] positions = new int[2];
+        private int docCount;
+        private int positionCount;
+
+        private void add(int doc, int position) {
+            if (docCount == 0 || docs[docCount - 1] != doc) {
+                if (docCount == docs.length) {
+                    docs = Arrays.copyOf(docs, docCount * 2);
+                    starts = Arrays.copyOf(starts, docCount * 2 + 1);
+                }
+                docs[docCount] = doc;
+                starts[docCount] = positionCount;
+                docCount++;
+            }
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, positionCount * 2);
+            }
+            positions[positionCount++] = position;
+            starts[docCount] = positionCount;
+        }
+
+        /**
+         * @return ближайший документ не новее target или -1
+         */
+        private int previous(int target) {
+            int low = 0;
+            int high = docCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (docs[mid] <= target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low == 0 ? -1 : docs[low - 1];
+        }
+
+        private int slot(int doc) {
+            return Arrays.binarySearch(docs, 0, docCount, doc);
+        }
+
+        private int positionStart(int slot) {
+            return starts[slot];
+        }
+
+        private int positionEnd(int slot) {
+            return starts[slot + 1];
+        }
+
+        private boolean hasPosition(int slot, int position) {
+            return Arrays.binarySearch(positions, starts[slot], starts[slot + 1], position) >= 0;
+        }
+    }
+
+    /**
+     * Разобранный запрос: группы альтернатив, каждая из которых должна совпасть, и исключаемые фразы.
+     * Фраза — список токенов; одиночное слово — фраза из одного токена.
+     */
+    private static final class Query {
+        private final List<List<List<String>>> required = new ArrayList<>();
+        private final List<List<String>> excluded = new ArrayList<>();
+
+        private static Query parse(String text) {
+            if (text == null) {
+                throw new IllegalArgumentException("Поисковый запрос не может быть null");
+            }
+            Query query = new Query();
+            boolean orPending = false;
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                boolean negated = false;
+                if (c == '-') {
+                    negated = true;
+                    i++;
+                }
+                String item;
+                boolean quoted = i < text.length() && text.charAt(i) == '"';
+                if (quoted) {
+                    int close = text.indexOf('"', i + 1);
+                    int end = close < 0 ? text.length() : close;
+                    item = text.substring(i + 1, end);
+                    i = close < 0 ? end : end + 1;
+                } else {
+                    int end = i;
+                    while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                        end++;
+                    }
+                    item = text.substring(i, end);
+                    i = end;
+                }
+                if (!quoted && !negated && (item.equals("OR") || item.equals("ИЛИ"))) {
+                    orPending = !query.required.isEmpty();
+                    continue;
+                }
+                List<String> phrase = tokenize(item);
+                if (phrase.isEmpty()) {
+                    continue;
+                }
+                if (negated) {
+                    query.excluded.add(phrase);
+                } else if (orPending) {
+                    query.required.get(query.required.size() - 1).add(phrase);
+                } else {
+                    List<List<String>> alternatives = new ArrayList<>();
+                    alternatives.add(phrase);
+                    query.required.add(alternatives);
+                }
+                orPending = false;
+            }
+            return query;
+        }
+    }
+
+    /**
+     * Быстрый разбор времени в формате {@link LocalDateTime#toString()} (yyyy-MM-ddTHH:mm[:ss[.fff]])
+     * в секунды; при другом формате используется {@link LocalDateTime#parse}.
+     *
+     * @param text время
+     * @return секунды с начала эпохи, время трактуется как UTC
+     */
+    static long parseEpochSecond(String text) {
+        if (text.length() >= 16 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+                && text.charAt(13) == ':') {
+            try {
+                int year = Integer.parseInt(text, 0, 4, 10);
+                int month = Integer.parseInt(text, 5, 7, 10);
+                int day = Integer.parseInt(text, 8, 10, 10);
+                int hour = Integer.parseInt(text, 11, 13, 10);
+                int minute = Integer.parseInt(text, 14, 16, 10);
+                int second = text.length() >= 19 && text.charAt(16) == ':' ? Integer.parseInt(text, 17, 19, 10) : 0;
+                return LocalDate.of(year, month, day).toEpochDay() * 86_400 + hour * 3600L + minute * 60L + second;
+            } catch (RuntimeException e) {
+                // Нестандартная запись: разбираем полным парсером
+            }
+        }
+        return LocalDateTime.parse(text).toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,346 @@
+package repositories;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Logger;
+
+/**
+ * Карантин некорректных строк файла данных.
+ * <p>
+ * Строка, которую не удалось разобрать, при первом обнаружении переносится из файла данных в файл
+ * {@code <файл>.quarantine} в формате {@code причина|смещение|строка}, где смещение — позиция строки
+ * в байтах в файле данных на момент переноса. Следующие сканирования ее уже не читают.
+ * После исправления строк в файле карантина {@link #reingest(Consumer)} проверяет их разбором
+ * и возвращает корректные в файл данных.
+ * <p>
+ * Файл данных перезаписывается через временный файл, как и при других перезаписях в репозиториях,
+ * под блокировкой записи репозитория: сохранения, обновления и удаления ждут окончания переноса,
+ * поэтому чтение, обнаружившее некорректную строку, не может потерять параллельную запись.
+ * Строка переносится, только если ее содержимое на найденной позиции не изменилось с момента сканирования,
+ * а перезапись отменяется, если файл дописали во время переноса: такие строки перенесет следующее сканирование.
+ */
+public class Quarantine {
+
+    private static final Logger logger = Logger.getLogger(Quarantine.class.getName());
+
+    private final Path dataFile;
+    private final Path quarantineFile;
+    private final Object writeLock;
+
+    /**
+     * @param dataFileName имя файла данных
+     * @param writeLock    блокировка, под которой репозиторий изменяет файл данных
+     * @throws IllegalArgumentException если dataFileName или writeLock равен null
+     */
+    public Quarantine(String dataFileName, Object writeLock) {
+        if (dataFileName == null || writeLock == null) {
+            throw new IllegalArgumentException("Имя файла данных и блокировка не могут быть null");
+        }
+        this.dataFile = Paths.get(dataFileName);
+        this.quarantineFile = Paths.get(dataFileName + ".quarantine");
+        this.writeLock = writeLock;
+    }
+
+    /**
+     * @return новый список строк для переноса, заполняемый во время одного сканирования
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    public Path getQuarantineFile() {
+        return quarantineFile;
+    }
+
+    /**
+     * Строки, отклоненные одним сканированием. Строка задается номером (с нуля) или смещением в байтах —
+     * тем, что известно сканированию. Пока строк нет, пакет не выделяет памяти.
+     */
+    public final class Batch {
+        private Map<Long, Rejected> byLine;
+        private Map<Long, Rejected> byOffset;
+
+        private Batch() {
+        }
+
+        /**
+         * @param lineIndex номер строки в файле, с нуля
+         * @param line      содержимое строки
+         * @param reason    причина отказа, обычно сообщение исключения разбора
+         */
+        public void addLine(long lineIndex, String line, String reason) {
+            if (byLine == null) {
+                byLine = new HashMap<>();
+            }
+            byLine.put(lineIndex, new Rejected(line, reason));
+        }
+
+        /**
+         * @param offset смещение начала строки в байтах
+         * @param line   содержимое строки
+         * @param reason причина отказа
+         */
+        public void addAt(long offset, String line, String reason) {
+            if (byOffset == null) {
+                byOffset = new HashMap<>();
+            }
+            byOffset.put(offset, new Rejected(line, reason));
+        }
+
+        public boolean isEmpty() {
+            return byLine == null && byOffset == null;
+        }
+
+        /**
+         * Переносит накопленные строки в карантин. Вызывается после закрытия файла данных.
+         *
+         * @return количество строк, удаленных из файла данных (перенесенных и пустых); 0 — файл не изменялся
+         * @throws UncheckedIOException если не удалось перезаписать файлы
+         */
+        public int isolate() {
+            if (isEmpty()) {
+                return 0;
+            }
+            synchronized (writeLock) {
+                return Quarantine.this.isolate(this);
+            }
+        }
+    }
+
+    private record Rejected(String line, String reason) {
+    }
+
+    /**
+     * Итог повторного приема строк из карантина.
+     *
+     * @param restored  строк возвращено в файл данных
+     * @param remaining строк осталось в карантине
+     */
+    public record RepairResult(int restored, int remaining) {
+    }
+
+    private int isolate(Batch batch) {
+        List<String> entries = new ArrayList<>();
+        int[] dropped = new int[1];
+        Path temp = dataFile.resolveSibling(dataFile.getFileName() + ".quarantine.tmp");
+        long scannedSize;
+        try {
+            scannedSize = Files.size(dataFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при переносе строк в карантин: " + e.getMessage(), e);
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(dataFile));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long lineIndex = 0;
+            long offset = 0;
+            long lineStart = 0;
+            int b;
+            boolean pending = false;
+            while ((b = in.read()) != -1) {
+                offset++;
+                line.write(b);
+                pending = true;
+                if (b == '\n') {
+                    if (!reject(batch, lineIndex, lineStart, line, entries, dropped)) {
+                        line.writeTo(out);
+                    }
+                    line.reset();
+                    pending = false;
+                    lineIndex++;
+                    lineStart = offset;
+                }
+            }
+            if (pending && !reject(batch, lineIndex, lineStart, line, entries, dropped)) {
+                line.writeTo(out);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Ошибка при переносе строк в карантин: " + e.getMessage(), e);
+        }
+        if (entries.isEmpty() && dropped[0] == 0) {
+            deleteQuietly(temp);
+            return 0;
+        }
+        try {
+            if (Files.size(dataFile) != scannedSize) {
+                // Файл изменен в обход репозитория во время переноса: строки перенесет следующее сканирование
+                deleteQuietly(temp);
+                return 0;
+            }
+            // Сначала карантин, потом файл данных: при сбое строка окажется в обоих файлах, но не потеряется
+            if (!entries.isEmpty()) {
+                Files.write(quarantineFile, entries, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            }
+            Files.move(temp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Ошибка при переносе строк в карантин: " + e.getMessage(), e);
+        }
+        logger.warning("Строк перенесено в карантин " + quarantineFile + ": " + entries.size());
+        return entries.size() + dropped[0];
+    }
+
+    private static boolean reject(Batch batch, long lineIndex, long lineStart, ByteArrayOutputStream bytes,
+                                  List<String> entries, int[] dropped) {
+        Rejected rejected = batch.byLine == null ? null : batch.byLine.get(lineIndex);
+        if (rejected == null && batch.byOffset != null) {
+            rejected = batch.byOffset.get(lineStart);
+        }
+        if (rejected == null) {
+            return false;
+        }
+        String line = stripLineEnd(bytes.toString(StandardCharsets.UTF_8));
+        if (!line.equals(rejected.line())) {
+            // Файл изменился после сканирования: строка будет найдена следующим сканированием
+            return false;
+        }
+        if (line.isBlank()) {
+            // Пустую строку нечего исправлять: она удаляется без записи в карантин
+            dropped[0]++;
+            return true;
+        }
+        entries.add(sanitize(rejected.reason()) + "|" + lineStart + "|" + line);
+        return true;
+    }
+
+    /**
+     * Разбирает строки карантина заново. Корректные строки дописываются в файл данных,
+     * некорректные остаются в карантине с обновленной причиной.
+     *
+     * @param parser разбор строки файла данных; отклоняет строку исключением
+     * @return количество возвращенных и оставшихся строк
+     * @throws UncheckedIOException если не удалось прочитать или записать файлы
+     */
+    public RepairResult reingest(Consumer<String> parser) {
+        return reingestRewriting(line -> {
+            parser.accept(line);
+            return line;
+        });
+    }
+
+    /**
+     * Как {@link #reingest(Consumer)}, но в файл данных дописывается строка, возвращенная rewriter:
+     * например, с новым идентификатором, если порядок строк в файле должен совпадать с порядком id.
+     * Rewriter вызывается под блокировкой записи репозитория.
+     *
+     * @param rewriter разбор и преобразование строки; отклоняет строку исключением
+     * @return количество возвращенных и оставшихся строк
+     * @throws UncheckedIOException если не удалось прочитать или записать файлы
+     */
+    public RepairResult reingestRewriting(UnaryOperator<String> rewriter) {
+        synchronized (writeLock) {
+            return reingestLocked(rewriter);
+        }
+    }
+
+    private RepairResult reingestLocked(UnaryOperator<String> rewriter) {
+        if (Files.notExists(quarantineFile)) {
+            return new RepairResult(0, 0);
+        }
+        List<String> restored = new ArrayList<>();
+        List<String> remaining = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(quarantineFile, StandardCharsets.UTF_8)) {
+            String entry;
+            while ((entry = reader.readLine()) != null) {
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                String[] parts = entry.split("\\|", 3);
+                if (parts.length < 3) {
+                    remaining.add(entry);
+                    continue;
+                }
+                try {
+                    restored.add(rewriter.apply(parts[2]));
+                } catch (RuntimeException e) {
+                    remaining.add(sanitize(e.getMessage()) + "|" + parts[1] + "|" + parts[2]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при чтении карантина: " + e.getMessage(), e);
+        }
+        try {
+            if (!restored.isEmpty()) {
+                appendLines(restored);
+            }
+            if (remaining.isEmpty()) {
+                Files.delete(quarantineFile);
+            } else {
+                Path temp = quarantineFile.resolveSibling(quarantineFile.getFileName() + ".tmp");
+                Files.write(temp, remaining, StandardCharsets.UTF_8);
+                Files.move(temp, quarantineFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при возврате строк из карантина: " + e.getMessage(), e);
+        }
+        return new RepairResult(restored.size(), remaining.size());
+    }
+
+    private void appendLines(List<String> lines) throws IOException {
+        boolean needsLineBreak = false;
+        if (Files.exists(dataFile) && Files.size(dataFile) > 0) {
+            try (RandomAccessFile file = new RandomAccessFile(dataFile.toFile(), "r")) {
+                file.seek(file.length() - 1);
+                needsLineBreak = file.read() != '\n';
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            if (needsLineBreak) {
+                writer.write('\n');
+            }
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String stripLineEnd(String line) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    private static String sanitize(String reason) {
+        if (reason == null) {
+            return "ошибка разбора";
+        }
+        return reason.replace('|', '/').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.fine("Не удалось удалить временный файл " + path + ": " + e.getMessage());
+        }
+    }
+}
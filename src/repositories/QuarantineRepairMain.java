@@ -0,0 +1,52 @@
+package repositories;
+
+import util.IdGenerator;
+import util.IdGenerators;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.BiFunction;
+
+/**
+ * Возвращает исправленные строки из карантина в файлы данных.
+ * <p>
+ * Порядок работы: исправить строки в файлах {@code <файл>.quarantine} (формат {@code причина|смещение|строка},
+ * правится только строка после второго разделителя), остановить приложение и запустить
+ * {@code java repositories.QuarantineRepairMain [каталог]}. Строки, которые по-прежнему не разбираются,
+ * остаются в карантине с новой причиной. Колоночное хранилище и агрегаты сделок перестраиваются
+ * при следующем запуске приложения, так как размер файла сделок изменился.
+ */
+public class QuarantineRepairMain {
+
+    public static void main(String[] args) {
+        Path dir = Paths.get(args.length > 0 ? args[0] : ".");
+        repair(dir, "users.txt", (file, ids) -> new UsersRepositoryFileBasedImpl(file, ids).repairQuarantine(),
+                "users_id.txt");
+        repair(dir, "client.txt", (file, ids) -> new ClientRepositoryFileBasedImpl(file, ids).repairQuarantine(),
+                "client_id.txt");
+        repair(dir, "contact.txt", (file, ids) -> new ContactRepositoryFileBasedImpl(file, ids).repairQuarantine(),
+                "contact_id.txt");
+        repair(dir, "deal.txt", (file, ids) -> new DealRepositoryFileBasedImpl(file, ids).repairQuarantine(),
+                "deal_id.txt");
+        repair(dir, "task.txt", (file, ids) -> new TaskRepositoryFileBasedImpl(file, ids).repairQuarantine(),
+                "task_id.txt");
+        repair(dir, "message.tst", (file, ids) -> new MessageRepositoryFileBaseImpl(file, ids).repairQuarantine(),
+                "message_id.txt");
+    }
+
+    private static void repair(Path dir, String fileName, BiFunction<String, IdGenerator, Quarantine.RepairResult> action,
+                               String sequenceFileName) {
+        Path file = dir.resolve(fileName);
+        if (Files.notExists(Paths.get(file + ".quarantine"))) {
+            return;
+        }
+        report(fileName, action.apply(file.toString(),
+                IdGenerators.createGenerator(dir.resolve(sequenceFileName).toString())));
+    }
+
+    private static void report(String file, Quarantine.RepairResult result) {
+        System.out.printf("%-12s возвращено: %d, осталось в карантине: %d%n",
+                file, result.restored(), result.remaining());
+    }
+}
@@ -0,0 +1,20 @@
+package repositories;
+
+/**
+ * Отметки о прочтении сообщений: для каждого пользователя хранится идентификатор
+ * последнего прочитанного входящего сообщения.
+ */
+public interface ReadMarkerRepository {
+
+    /**
+     * @param userId идентификатор пользователя
+     * @return идентификатор последнего прочитанного сообщения или 0, если пользователь ничего не читал
+     */
+    long getLastRead(Long userId);
+
+    /**
+     * @param userId    идентификатор пользователя
+     * @param messageId идентификатор последнего прочитанного сообщения
+     */
+    void setLastRead(Long userId, long messageId);
+}
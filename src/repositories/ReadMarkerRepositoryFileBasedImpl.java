@@ -0,0 +1,89 @@
+package repositories;
+
+import logging.RateLimitedLogger;
+import metrics.FileRewriteEvent;
+import metrics.OperationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Реализация отметок о прочтении на файле. Формат строки: userId|lastReadMessageId.
+ * Отметки держатся в памяти; при изменении файл целиком перезаписывается через временный файл.
+ */
+public class ReadMarkerRepositoryFileBasedImpl implements ReadMarkerRepository {
+
+    private static final Logger logger = Logger.getLogger(ReadMarkerRepositoryFileBasedImpl.class.getName());
+    private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
+
+    private final Path file;
+    private final Map<Long, Long> markers = new ConcurrentHashMap<>();
+
+    /**
+     * @param fileName имя файла отметок
+     * @throws IllegalArgumentException если fileName равен null
+     * @throws IllegalStateException    если файл не удалось прочитать
+     */
+    public ReadMarkerRepositoryFileBasedImpl(String fileName) {
+        if (fileName == null) {
+            throw new IllegalArgumentException("Параметр fileName не может быть null");
+        }
+        this.file = Paths.get(fileName);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\\|");
+                    try {
+                        markers.put(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                        parseLog.warning("Ошибка при чтении строки", "file", file, "line", line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public long getLastRead(Long userId) {
+        return markers.getOrDefault(userId, 0L);
+    }
+
+    @Override
+    public synchronized void setLastRead(Long userId, long messageId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
+        }
+        markers.put(userId, messageId);
+        FileRewriteEvent rewrite = new FileRewriteEvent();
+        rewrite.begin();
+        List<String> lines = new ArrayList<>(markers.size());
+        long bytes = 0;
+        for (Map.Entry<Long, Long> entry : markers.entrySet()) {
+            String line = entry.getKey() + "|" + entry.getValue();
+            lines.add(line);
+            bytes += line.length() + 1;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            OperationContext.recordWrite(bytes);
+            rewrite.finish(file.toString(), lines.size(), bytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при сохранении отметки о прочтении: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package repositories;
+
+import java.util.Arrays;
+
+/**
+ * Ленивое представление строки файла данных с полями через {@code |}.
+ * <p>
+ * Границы полей ищутся только до запрошенного поля, значения декодируются только по запросу:
+ * предикат и проекция запросов вида {@code findAll(filter, projection)} читают нужные поля,
+ * остальные не разбираются и не создают строк. Один объект переиспользуется для всех строк
+ * сканирования, поэтому его нельзя сохранять за пределами вызова предиката или проекции.
+ */
+public final class RecordView {
+
+    private static final char SEPARATOR = '|';
+
+    private String line;
+    // ends[i] — позиция разделителя после поля i (или длина строки для последнего поля)
+    private int[] ends = new int[16];
+    private int found;
+    private boolean complete;
+
+    RecordView() {
+    }
+
+    void reset(String line) {
+        this.line = line;
+        this.found = 0;
+        this.complete = false;
+    }
+
+    /**
+     * @return исходная строка
+     */
+    public String line() {
+        return line;
+    }
+
+    /**
+     * @return количество полей в строке; строка размечается полностью
+     */
+    public int size() {
+        while (!complete) {
+            scanNext();
+        }
+        return found;
+    }
+
+    /**
+     * @param field номер поля, с нуля
+     * @return значение поля
+     * @throws IllegalArgumentException если поля нет
+     */
+    public String get(int field) {
+        int end = end(field);
+        return line.substring(start(field), end);
+    }
+
+    /**
+     * Разбирает поле как long без создания промежуточной строки.
+     *
+     * @throws IllegalArgumentException если поля нет или оно не является числом
+     */
+    public long getLong(int field) {
+        int end = end(field);
+        return Long.parseLong(line, start(field), end, 10);
+    }
+
+    /**
+     * @throws IllegalArgumentException если поля нет или оно не является числом
+     */
+    public double getDouble(int field) {
+        return Double.parseDouble(get(field));
+    }
+
+    /**
+     * Сравнивает поле со значением без создания строки.
+     *
+     * @throws IllegalArgumentException если поля нет
+     */
+    public boolean fieldEquals(int field, String value) {
+        int end = end(field);
+        int start = start(field);
+        return end - start == value.length() && line.regionMatches(start, value, 0, value.length());
+    }
+
+    /**
+     * @return true, если поле пустое
+     * @throws IllegalArgumentException если поля нет
+     */
+    public boolean isEmpty(int field) {
+        return end(field) == start(field);
+    }
+
+    private int start(int field) {
+        return field == 0 ? 0 : ends[field - 1] + 1;
+    }
+
+    private int end(int field) {
+        if (field < 0) {
+            throw new IllegalArgumentException("Номер поля не может быть отрицательным");
+        }
+        while (found <= field && !complete) {
+            scanNext();
+        }
+        if (field >= found) {
+            throw new IllegalArgumentException("Некорректный формат строки: нет поля " + field + ": " + line);
+        }
+        return ends[field];
+    }
+
+    private void scanNext() {
+        int from = found == 0 ? 0 : ends[found - 1] + 1;
+        int separator = line.indexOf(SEPARATOR, from);
+        if (found == ends.length) {
+            ends = Arrays.copyOf(ends, found * 2);
+        }
+        if (separator < 0) {
+            ends[found++] = line.length();
+            complete = true;
+        } else {
+            ends[found++] = separator;
+        }
+    }
+}
@@ -3,8 +3,15 @@ package repositories;
 
 import models.Task;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface TaskRepository extends CrudRepository<Task>{
 
     void taskChange(Long idTask, int whatToChange, String newMeaning);
 
+    Optional<Task> findById(Long id);
+
+    List<Task> findDueBetween(long fromEpochMillis, long toEpochMillis);
+
 }
@@ -1,14 +1,22 @@
 package repositories;
 
 
+import logging.RateLimitedLogger;
+import metrics.FileRewriteEvent;
+import metrics.FileScanEvent;
+import metrics.OperationContext;
 import models.Task;
 import util.IdGenerator;
 
 import java.io.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -21,33 +29,59 @@ public class TaskRepositoryFileBasedImpl implements TaskRepository {
 
     // Создаем логгер
     private static final Logger logger = Logger.getLogger(TaskRepositoryFileBasedImpl.class.getName());
+    private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
 
     private final String fileName;
     private final IdGenerator idGenerator;
+    /**
+     * Блокировка изменений файла: записи репозитория и перенос строк в карантин выполняются под ней.
+     */
+    private final Object writeLock = new Object();
+    private final Quarantine quarantine;
     private final Map<Long, Task> taskCache;
 
+    /**
+     * Индекс задач по сроку выполнения: момент срока (мс эпохи) -> идентификаторы задач.
+     */
+    private final NavigableMap<Long, Set<Long>> dueIndex = new ConcurrentSkipListMap<>();
+
     public TaskRepositoryFileBasedImpl(String fileName, IdGenerator idGenerator) {
         this.fileName = fileName;
         this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, writeLock);
         this.taskCache = loadTasks();
+        for (Task task : taskCache.values()) {
+            indexDueDate(task);
+        }
     }
 
     private Map<Long, Task> loadTasks() {
-        Map<Long, Task> cache = new HashMap<>();
+        Map<Long, Task> cache = new ConcurrentHashMap<>();
+        Quarantine.Batch rejected = quarantine.batch();
+        FileScanEvent scan = new FileScanEvent();
+        scan.begin();
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
+            long rows = 0;
+            long bytes = 0;
             while ((line = reader.readLine()) != null) {
+                rows++;
+                bytes += line.length() + 1;
                 try {
                     Task task = lineToTaskFunction.apply(line);
                     cache.put(task.getId(), task);
-                } catch (IllegalArgumentException e) {
-                    logger.log(Level.SEVERE, "Ошибка в строке: " + line + " - " + e.getMessage(), e);
+                } catch (RuntimeException e) {
+                    parseLog.log(Level.SEVERE, e, "Ошибка в строке", "file", fileName, "line", line);
+                    rejected.addLine(rows - 1, line, e.getMessage());
                 }
             }
+            OperationContext.recordScan(rows, bytes);
+            scan.finish(fileName, rows, bytes);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Ошибка чтения файла: " + e.getMessage(), e);
             throw new IllegalStateException("Ошибка чтения файла", e);
         }
+        rejected.isolate();
         return cache;
     }
 
@@ -78,25 +112,35 @@ public class TaskRepositoryFileBasedImpl implements TaskRepository {
 
         model.setId(idGenerator.nextId());
         taskCache.put(model.getId(), model);
+        indexDueDate(model);
         saveTasksToFile();
     }
 
     private void saveTasksToFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            for (Task task : taskCache.values()) {
-                writer.write(String.format("%d|%d|%s|%s|%s|%s|%s\n",
-                        task.getId(),
-                        task.getIdClient(),
-                        task.getTitle(),
-                        task.getDescription(),
-                        task.getAssignedTo(),
-                        task.getTaskCreationDate(),
-                        task.getDueDate(),
-                        task.getStatus(), "\n"));
+        synchronized (writeLock) {
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+                long bytes = 0;
+                for (Task task : taskCache.values()) {
+                    String line = String.format("%d|%d|%s|%s|%s|%s|%s|%s\n",
+                            task.getId(),
+                            task.getIdClient(),
+                            task.getTitle(),
+                            task.getDescription(),
+                            task.getAssignedTo(),
+                            task.getTaskCreationDate(),
+                            task.getDueDate(),
+                            task.getStatus());
+                    writer.write(line);
+                    bytes += line.length();
+                }
+                OperationContext.recordWrite(bytes);
+                rewrite.finish(fileName, taskCache.size(), bytes);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Ошибка при сохранении задач в файл: " + e.getMessage(), e);
+                throw new RuntimeException("Ошибка при сохранении задач в файл: " + e.getMessage(), e);
             }
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Ошибка при сохранении задач в файл: " + e.getMessage(), e);
-            throw new RuntimeException("Ошибка при сохранении задач в файл: " + e.getMessage(), e);
         }
     }
 
@@ -110,7 +154,11 @@ public class TaskRepositoryFileBasedImpl implements TaskRepository {
             case 1 -> task.setTitle(newMeaning);
             case 2 -> task.setDescription(newMeaning);
             case 3 -> task.setAssignedTo(Long.parseLong(newMeaning));
-            case 4 -> task.setDueDate(newMeaning);
+            case 4 -> {
+                unindexDueDate(task);
+                task.setDueDate(newMeaning);
+                indexDueDate(task);
+            }
             case 5 -> task.setStatus(Task.Status.valueOf(newMeaning.toUpperCase()));
             default -> throw new IllegalArgumentException("Некорректный индекс поля для изменения");
         }
@@ -124,7 +172,83 @@ public class TaskRepositoryFileBasedImpl implements TaskRepository {
 
     @Override
     public void deleteById(Long id) {
-        taskCache.remove(id);
+        Task removed = taskCache.remove(id);
+        if (removed != null) {
+            unindexDueDate(removed);
+        }
         saveTasksToFile();
     }
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор задачи не может быть null");
+        }
+        return Optional.ofNullable(taskCache.get(id));
+    }
+
+    /**
+     * Возвращает задачи со сроком выполнения в интервале [from, to), упорядоченные по сроку.
+     * Используется для поиска просроченных и ближайших задач без разбора строк дат.
+     *
+     * @param fromEpochMillis начало интервала (включительно), мс эпохи
+     * @param toEpochMillis   конец интервала (не включительно), мс эпохи
+     * @return список задач
+     */
+    @Override
+    public List<Task> findDueBetween(long fromEpochMillis, long toEpochMillis) {
+        List<Task> result = new ArrayList<>();
+        if (fromEpochMillis >= toEpochMillis) {
+            return result;
+        }
+        for (Set<Long> ids : dueIndex.subMap(fromEpochMillis, true, toEpochMillis, false).values()) {
+            for (Long id : ids) {
+                Task task = taskCache.get(id);
+                if (task != null) {
+                    result.add(task);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void indexDueDate(Task task) {
+        Long due = task.getDueEpochMillis();
+        if (due == null) {
+            logger.warning("Некорректный срок выполнения задачи " + task.getId() + ": " + task.getDueDate());
+            return;
+        }
+        dueIndex.computeIfAbsent(due, key -> ConcurrentHashMap.newKeySet()).add(task.getId());
+    }
+
+    private void unindexDueDate(Task task) {
+        Long due = task.getDueEpochMillis();
+        if (due == null) {
+            return;
+        }
+        dueIndex.computeIfPresent(due, (key, ids) -> {
+            ids.remove(task.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Повторно разбирает строки из карантина и возвращает исправленные в файл задач.
+     *
+     * @return количество возвращенных и оставшихся в карантине строк
+     */
+    public Quarantine.RepairResult repairQuarantine() {
+        synchronized (writeLock) {
+            List<Task> restored = new ArrayList<>();
+            Quarantine.RepairResult result = quarantine.reingest(line -> restored.add(lineToTaskFunction.apply(line)));
+            for (Task task : restored) {
+                Task previous = taskCache.put(task.getId(), task);
+                if (previous != null) {
+                    unindexDueDate(previous);
+                }
+                indexDueDate(task);
+            }
+            return result;
+        }
+    }
 }
@@ -6,7 +6,22 @@ import models.User;
 import java.util.Optional;
 
 public interface UsersRepository extends CrudRepository<User>{
+
+    /**
+     * Номера полей строки пользователя: id|email|password|name|lastName|role.
+     */
+    int ID = 0;
+    int EMAIL = 1;
+
     Optional<User> findByEmail(String email);
     Optional<User> findById(Long id);
 
+    /**
+     * Заменяет сохраненный пароль (хеш) пользователя.
+     *
+     * @param id       идентификатор пользователя
+     * @param password новое значение пароля для хранения
+     */
+    void updatePassword(Long id, String password);
+
 }
@@ -1,14 +1,23 @@
 package repositories;
 
 
+import logging.RateLimitedLogger;
+import metrics.FileRewriteEvent;
+import metrics.FileScanEvent;
+import metrics.OperationContext;
 import models.User;
 import util.IdGenerator;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.logging.Logger;
 
 /**
  * Реализация репозитория пользователей, основанная на хранении данных в файле.
@@ -16,8 +25,17 @@ import java.util.function.Function;
  */
 public class UsersRepositoryFileBasedImpl implements UsersRepository {
 
+    private static final Logger logger = Logger.getLogger(UsersRepositoryFileBasedImpl.class.getName());
+    private static final RateLimitedLogger parseLog = new RateLimitedLogger(logger);
+
     private final String fileName;
     private final IdGenerator idGenerator;
+    /**
+     * Блокировка изменений файла: записи репозитория и перенос строк в карантин выполняются под ней.
+     */
+    private final Object writeLock = new Object();
+    private final Quarantine quarantine;
+    private final FileScanEngine scanEngine;
 
 
     /**
@@ -44,6 +62,8 @@ public class UsersRepositoryFileBasedImpl implements UsersRepository {
     public UsersRepositoryFileBasedImpl(String fileName, IdGenerator idGenerator) {
         this.fileName = fileName;
         this.idGenerator = idGenerator;
+        this.quarantine = new Quarantine(fileName, writeLock);
+        this.scanEngine = new FileScanEngine(fileName, quarantine, logger, lineToUserFunction::apply);
         initializeFile();
     }
 
@@ -60,44 +80,62 @@ public class UsersRepositoryFileBasedImpl implements UsersRepository {
     }
 
 
+    /**
+     * Дописывает пользователя в файл. Запись идет под writeLock, как и {@link #updatePassword}: иначе строка,
+     * дописанная во время перезаписи файла, была бы потеряна при замене файла временным.
+     */
     @Override
     public void save(User model) {
         if (model == null) {
             throw new IllegalArgumentException("Модель пользователя не может быть null");
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
-            model.setId(idGenerator.nextId());
-            String userLine = String.join("|",
-                    model.getId().toString(),
-                    model.getEmail(),
-                    model.getPassword(),
-                    model.getName(),
-                    model.getLastName(),
-                    model.getRole().toString()
-            );
-            writer.write(userLine + "\n");
-        } catch (IOException e) {
-            throw new IllegalStateException("Ошибка при сохранении пользователя: " + e.getMessage(), e);
+        synchronized (writeLock) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
+                model.setId(idGenerator.nextId());
+                String userLine = String.join("|",
+                        model.getId().toString(),
+                        model.getEmail(),
+                        model.getPassword(),
+                        model.getName(),
+                        model.getLastName(),
+                        model.getRole().toString()
+                );
+                writer.write(userLine + "\n");
+                OperationContext.recordWrite(userLine.length() + 1);
+            } catch (IOException e) {
+                throw new IllegalStateException("Ошибка при сохранении пользователя: " + e.getMessage(), e);
+            }
         }
     }
 
     @Override
     public List<User> findAll() {
         List<User> users = new ArrayList<>();
+        Quarantine.Batch rejected = quarantine.batch();
+        FileScanEvent scan = new FileScanEvent();
+        scan.begin();
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
+            long rows = 0;
+            long bytes = 0;
             while ((line = reader.readLine()) != null) {
+                rows++;
+                bytes += line.length() + 1;
                 try {
                     User user = lineToUserFunction.apply(line);
                     users.add(user);
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Ошибка при чтении строки: " + line + " - " + e.getMessage());
+                } catch (RuntimeException e) {
+                    parseLog.warning("Ошибка при чтении строки", "file", fileName, "line", line, "error", e.getMessage());
+                    rejected.addLine(rows - 1, line, e.getMessage());
                 }
             }
+            OperationContext.recordScan(rows, bytes);
+            scan.finish(fileName, rows, bytes);
         } catch (IOException e) {
             throw new IllegalStateException("Ошибка при чтении файла: " + e.getMessage(), e);
         }
+        rejected.isolate();
         return users;
     }
 
@@ -113,13 +151,75 @@ public class UsersRepositoryFileBasedImpl implements UsersRepository {
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return findAll().stream()
-                .filter(user -> email.equals(user.getEmail()))
-                .findFirst();
+        if (email == null) {
+            throw new IllegalArgumentException("Email не может быть null");
+        }
+        return scanEngine.findFirst(FileScanEngine.fieldEquals(EMAIL, email), row -> lineToUserFunction.apply(row.line()));
     }
 
     @Override
     public Optional<User> findById(Long id) {
-        return findAll().stream().filter(user -> id.equals(user.getId())).findFirst();
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
+        }
+        return scanEngine.findFirst(FileScanEngine.fieldEquals(ID, id), row -> lineToUserFunction.apply(row.line()));
+    }
+
+    @Override
+    public void updatePassword(Long id, String password) {
+        if (id == null || password == null) {
+            throw new IllegalArgumentException("Идентификатор и пароль не могут быть null");
+        }
+        synchronized (writeLock) {
+            Path source = Paths.get(fileName);
+            Path temp = Paths.get(fileName + ".tmp");
+            boolean updated = false;
+            FileRewriteEvent rewrite = new FileRewriteEvent();
+            rewrite.begin();
+            try (BufferedReader reader = Files.newBufferedReader(source);
+                 BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                String line;
+                long rows = 0;
+                long bytes = 0;
+                while ((line = reader.readLine()) != null) {
+                    rows++;
+                    bytes += line.length() + 1;
+                    String[] parts = line.split("\\|", -1);
+                    if (parts.length > 2 && parts[0].equals(id.toString())) {
+                        parts[2] = password;
+                        line = String.join("|", parts);
+                        updated = true;
+                    }
+                    writer.write(line + "\n");
+                }
+                OperationContext.recordScan(rows, bytes);
+                OperationContext.recordWrite(bytes);
+                rewrite.finish(fileName, rows, bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Ошибка при обновлении пароля: " + e.getMessage(), e);
+            }
+            if (!updated) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Временный файл будет перезаписан при следующем обновлении
+                }
+                throw new RuntimeException("Пользователь с таким ID не найден.");
+            }
+            try {
+                Files.move(temp, source, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new IllegalStateException("Ошибка при обновлении пароля: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Повторно разбирает строки из карантина и возвращает исправленные в файл пользователей.
+     *
+     * @return количество возвращенных и оставшихся в карантине строк
+     */
+    public Quarantine.RepairResult repairQuarantine() {
+        return quarantine.reingest(lineToUserFunction::apply);
     }
 }
@@ -0,0 +1,28 @@
+package services;
+
+
+import dto.ClientDto;
+import models.Client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link ClientService}: каждая операция возвращает future,
+ * который завершается результатом операции или её исключением.
+ */
+public interface AsyncClientService {
+    CompletableFuture<Void> save(Long id, Long userId, String name, String email, String phone, String address, Client.Status status);
+
+    CompletableFuture<List<ClientDto>> getClients();
+
+    CompletableFuture<List<ClientDto>> getClientToUser(Long userId);
+
+    CompletableFuture<Void> delete(Client client, Client.Status status);
+
+    CompletableFuture<Client> getClientById(Long id);
+
+    CompletableFuture<List<Client>> getClientBySearch(String search);
+
+    CompletableFuture<Void> updateClient(Long id, int whatToChange, String newInfo);
+}
@@ -0,0 +1,66 @@
+package services;
+
+
+import dto.ClientDto;
+import models.Client;
+import util.AsyncExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронная обертка над {@link ClientService}, выполняющая операции на общем {@link AsyncExecutor}.
+ */
+public class AsyncClientServiceImpl implements AsyncClientService {
+
+    private final ClientService clientService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param clientService синхронный сервис клиентов
+     * @param executor      общий исполнитель асинхронных операций
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public AsyncClientServiceImpl(ClientService clientService, AsyncExecutor executor) {
+        if (clientService == null || executor == null) {
+            throw new NullPointerException("ClientService и AsyncExecutor не могут быть null");
+        }
+        this.clientService = clientService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> save(Long id, Long userId, String name, String email, String phone, String address, Client.Status status) {
+        return executor.run(() -> clientService.save(id, userId, name, email, phone, address, status));
+    }
+
+    @Override
+    public CompletableFuture<List<ClientDto>> getClients() {
+        return executor.supply(clientService::getClients);
+    }
+
+    @Override
+    public CompletableFuture<List<ClientDto>> getClientToUser(Long userId) {
+        return executor.supply(() -> clientService.getClientToUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(Client client, Client.Status status) {
+        return executor.run(() -> clientService.delete(client, status));
+    }
+
+    @Override
+    public CompletableFuture<Client> getClientById(Long id) {
+        return executor.supply(() -> clientService.getClientById(id));
+    }
+
+    @Override
+    public CompletableFuture<List<Client>> getClientBySearch(String search) {
+        return executor.supply(() -> clientService.getClientBySearch(search));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateClient(Long id, int whatToChange, String newInfo) {
+        return executor.run(() -> clientService.updateClient(id, whatToChange, newInfo));
+    }
+}
@@ -0,0 +1,19 @@
+package services;
+
+
+import models.Contact;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link ContactService}: каждая операция возвращает future,
+ * который завершается результатом операции или её исключением.
+ */
+public interface AsyncContactService {
+    CompletableFuture<Void> save(Long id, Long clientId, String email, String phone, String name, String position);
+
+    CompletableFuture<List<Contact>> contactGetClient(Long clientId);
+
+    CompletableFuture<Void> deleteContact(Long id);
+}
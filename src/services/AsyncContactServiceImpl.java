@@ -0,0 +1,45 @@
+package services;
+
+
+import models.Contact;
+import util.AsyncExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронная обертка над {@link ContactService}, выполняющая операции на общем {@link AsyncExecutor}.
+ */
+public class AsyncContactServiceImpl implements AsyncContactService {
+
+    private final ContactService contactService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param contactService синхронный сервис контактов
+     * @param executor       общий исполнитель асинхронных операций
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public AsyncContactServiceImpl(ContactService contactService, AsyncExecutor executor) {
+        if (contactService == null || executor == null) {
+            throw new NullPointerException("ContactService и AsyncExecutor не могут быть null");
+        }
+        this.contactService = contactService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> save(Long id, Long clientId, String email, String phone, String name, String position) {
+        return executor.run(() -> contactService.save(id, clientId, email, phone, name, position));
+    }
+
+    @Override
+    public CompletableFuture<List<Contact>> contactGetClient(Long clientId) {
+        return executor.supply(() -> contactService.contactGetClient(clientId));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteContact(Long id) {
+        return executor.run(() -> contactService.deleteContact(id));
+    }
+}
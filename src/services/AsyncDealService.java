@@ -0,0 +1,29 @@
+package services;
+
+
+import dto.DealStatsDto;
+import models.Deal;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link DealService}: каждая операция возвращает future,
+ * который завершается результатом операции или её исключением.
+ */
+public interface AsyncDealService {
+    CompletableFuture<Void> save(Long id, String title, Long clientId, Long userId, Double amount, Deal.Status status, LocalDate createdDate, LocalDate closedDate);
+
+    CompletableFuture<Void> updateDeal(Long id, String title, Double amount, Deal.Status status);
+
+    CompletableFuture<Void> deleteDeal(Long id);
+
+    CompletableFuture<Map<Deal.Status, DealStatsDto>> getDealStatsByStatus();
+
+    CompletableFuture<Map<Long, DealStatsDto>> getDealStatsByUsers();
+
+    CompletableFuture<DealStatsDto> getDealStatsByUser(Long userId);
+
+    CompletableFuture<DealStatsDto> getDealStatsByClient(Long clientId);
+}
@@ -0,0 +1,67 @@
+package services;
+
+
+import dto.DealStatsDto;
+import models.Deal;
+import util.AsyncExecutor;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронная обертка над {@link DealService}, выполняющая операции на общем {@link AsyncExecutor}.
+ */
+public class AsyncDealServiceImpl implements AsyncDealService {
+
+    private final DealService dealService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param dealService синхронный сервис сделок
+     * @param executor    общий исполнитель асинхронных операций
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public AsyncDealServiceImpl(DealService dealService, AsyncExecutor executor) {
+        if (dealService == null || executor == null) {
+            throw new NullPointerException("DealService и AsyncExecutor не могут быть null");
+        }
+        this.dealService = dealService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> save(Long id, String title, Long clientId, Long userId, Double amount, Deal.Status status, LocalDate createdDate, LocalDate closedDate) {
+        return executor.run(() -> dealService.save(id, title, clientId, userId, amount, status, createdDate, closedDate));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateDeal(Long id, String title, Double amount, Deal.Status status) {
+        return executor.run(() -> dealService.updateDeal(id, title, amount, status));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteDeal(Long id) {
+        return executor.run(() -> dealService.deleteDeal(id));
+    }
+
+    @Override
+    public CompletableFuture<Map<Deal.Status, DealStatsDto>> getDealStatsByStatus() {
+        return executor.supply(dealService::getDealStatsByStatus);
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, DealStatsDto>> getDealStatsByUsers() {
+        return executor.supply(dealService::getDealStatsByUsers);
+    }
+
+    @Override
+    public CompletableFuture<DealStatsDto> getDealStatsByUser(Long userId) {
+        return executor.supply(() -> dealService.getDealStatsByUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<DealStatsDto> getDealStatsByClient(Long clientId) {
+        return executor.supply(() -> dealService.getDealStatsByClient(clientId));
+    }
+}
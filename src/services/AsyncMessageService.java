@@ -0,0 +1,19 @@
+package services;
+
+
+import models.Message;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link MessageService}: каждая операция возвращает future,
+ * который завершается результатом операции или её исключением.
+ */
+public interface AsyncMessageService {
+    CompletableFuture<Void> sendMessage(Long id, Long senderId, Long receiverId, String content);
+
+    CompletableFuture<List<Message>> getMessagesBetweenUsers(Long senderId, Long receiverId);
+
+    CompletableFuture<List<Message>> getUserMessages(Long userId);
+}
@@ -0,0 +1,45 @@
+package services;
+
+
+import models.Message;
+import util.AsyncExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронная обертка над {@link MessageService}, выполняющая операции на общем {@link AsyncExecutor}.
+ */
+public class AsyncMessageServiceImpl implements AsyncMessageService {
+
+    private final MessageService messageService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param messageService синхронный сервис сообщений
+     * @param executor       общий исполнитель асинхронных операций
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public AsyncMessageServiceImpl(MessageService messageService, AsyncExecutor executor) {
+        if (messageService == null || executor == null) {
+            throw new NullPointerException("MessageService и AsyncExecutor не могут быть null");
+        }
+        this.messageService = messageService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessage(Long id, Long senderId, Long receiverId, String content) {
+        return executor.run(() -> messageService.sendMessage(id, senderId, receiverId, content));
+    }
+
+    @Override
+    public CompletableFuture<List<Message>> getMessagesBetweenUsers(Long senderId, Long receiverId) {
+        return executor.supply(() -> messageService.getMessagesBetweenUsers(senderId, receiverId));
+    }
+
+    @Override
+    public CompletableFuture<List<Message>> getUserMessages(Long userId) {
+        return executor.supply(() -> messageService.getUserMessages(userId));
+    }
+}
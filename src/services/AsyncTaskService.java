@@ -0,0 +1,18 @@
+package services;
+
+
+import models.Task;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный вариант {@link TaskService}: каждая операция возвращает future,
+ * который завершается после выполнения операции или её исключением.
+ */
+public interface AsyncTaskService {
+    CompletableFuture<Void> save(Long id, Long idClient, String title, String description, Long assignedTo, String dueDate, Task.Status status);
+
+    CompletableFuture<Void> updateTask(Long id, String title, String description, Task.Status status);
+
+    CompletableFuture<Void> deleteTask(Long id);
+}
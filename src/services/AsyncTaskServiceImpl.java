@@ -0,0 +1,44 @@
+package services;
+
+
+import models.Task;
+import util.AsyncExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронная обертка над {@link TaskService}, выполняющая операции на общем {@link AsyncExecutor}.
+ */
+public class AsyncTaskServiceImpl implements AsyncTaskService {
+
+    private final TaskService taskService;
+    private final AsyncExecutor executor;
+
+    /**
+     * @param taskService синхронный сервис задач
+     * @param executor    общий исполнитель асинхронных операций
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public AsyncTaskServiceImpl(TaskService taskService, AsyncExecutor executor) {
+        if (taskService == null || executor == null) {
+            throw new NullPointerException("TaskService и AsyncExecutor не могут быть null");
+        }
+        this.taskService = taskService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> save(Long id, Long idClient, String title, String description, Long assignedTo, String dueDate, Task.Status status) {
+        return executor.run(() -> taskService.save(id, idClient, title, description, assignedTo, dueDate, status));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTask(Long id, String title, String description, Task.Status status) {
+        return executor.run(() -> taskService.updateTask(id, title, description, status));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTask(Long id) {
+        return executor.run(() -> taskService.deleteTask(id));
+    }
+}
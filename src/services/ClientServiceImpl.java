@@ -4,15 +4,17 @@ package services;
 import dto.ClientDto;
 import models.Client;
 import repositories.ClientRepository;
+import repositories.RecordView;
 import template.DocumentGenerator;
+import template.DocumentSink;
+import template.FileDocumentSink;
+import util.AsyncExecutor;
+import util.ValidationUtil;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import static dto.ClientDto.from;
+import java.util.logging.Logger;
 
 /**
  * Сервис для управления клиентами.
@@ -20,19 +22,39 @@ import static dto.ClientDto.from;
  */
 public class ClientServiceImpl implements ClientService {
 
+    private static final Logger logger = Logger.getLogger(ClientServiceImpl.class.getName());
+
     private final ClientRepository clientRepository;
     private final DocumentGenerator documentGenerator;
-    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AsyncExecutor executor;
+    private final DocumentSink documentSink;
+
 
+    /**
+     * Конструктор сервиса. Договоры сохраняются отдельными файлами в рабочем каталоге.
+     *
+     * @param clientRepository  репозиторий для работы с клиентами
+     * @param documentGenerator генератор договоров для новых клиентов
+     * @param executor          общий исполнитель, на котором генерируются договоры
+     */
+    public ClientServiceImpl(ClientRepository clientRepository, DocumentGenerator documentGenerator, AsyncExecutor executor) {
+        this(clientRepository, documentGenerator, executor, new FileDocumentSink("."));
+    }
 
     /**
      * Конструктор сервиса.
      *
-     * @param clientRepository репозиторий для работы с клиентами
+     * @param clientRepository  репозиторий для работы с клиентами
+     * @param documentGenerator генератор договоров для новых клиентов
+     * @param executor          общий исполнитель, на котором генерируются договоры
+     * @param documentSink      приемник, в который сохраняются договоры
      */
-    public ClientServiceImpl(ClientRepository clientRepository, DocumentGenerator documentGenerator) {
+    public ClientServiceImpl(ClientRepository clientRepository, DocumentGenerator documentGenerator,
+                             AsyncExecutor executor, DocumentSink documentSink) {
         this.clientRepository = clientRepository;
         this.documentGenerator = documentGenerator;
+        this.executor = executor;
+        this.documentSink = documentSink;
     }
 
     @Override
@@ -40,27 +62,26 @@ public class ClientServiceImpl implements ClientService {
         if (id == null || userId == null || name == null || email == null || phone == null || address == null || status == null) {
             throw new IllegalArgumentException("Ни один из параметров не может быть null");
         }
+        ValidationUtil.checkStorable(name, "Поле name не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(email, "Поле email не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(phone, "Поле phone не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(address, "Поле address не может содержать символ | и управляющие символы");
         Client client = new Client(id, userId, name, email, phone, address, status);
         clientRepository.save(client);
         executor.execute(()->{
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("name", client.getName());
-            placeholders.put("email", client.getEmail());
-            placeholders.put("phone", client.getPhone());
-            placeholders.put("address", client.getAddress());
-
-            String documentContent = documentGenerator.generateDocument(placeholders);
-            documentGenerator.saveDocument(documentContent, "sales_contract_" + client.getId() + ".txt");
+            String documentName = DocumentGenerator.contractName(client);
+            try {
+                documentGenerator.writeDocument(DocumentGenerator.placeholders(client), documentName, documentSink);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при сохранении документа: " + e.getMessage(), e);
+            }
+            logger.fine("Документ сохранен: " + documentName);
         });
     }
 
-    public void shutdown(){
-        executor.shutdown();
-    }
     @Override
     public List<ClientDto> getClients() {
-        List<Client> clients = clientRepository.findAll();
-        return from(clients);
+        return clientRepository.findAll(row -> true, ClientServiceImpl::toDto);
     }
 
 
@@ -69,8 +90,16 @@ public class ClientServiceImpl implements ClientService {
         if (userId == null) {
             throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
         }
-        List<Client> clients = clientRepository.findAllClientToUser(userId);
-        return from(clients);
+        long owner = userId;
+        return clientRepository.findAll(row -> row.getLong(ClientRepository.USER_ID) == owner, ClientServiceImpl::toDto);
+    }
+
+    /**
+     * Собирает {@link ClientDto} из пяти полей строки клиента, не разбирая статус и остальные поля.
+     */
+    private static ClientDto toDto(RecordView row) {
+        return new ClientDto(row.getLong(ClientRepository.ID), row.get(ClientRepository.NAME),
+                row.get(ClientRepository.EMAIL), row.get(ClientRepository.PHONE), row.get(ClientRepository.ADDRESS));
     }
 
     @Override
@@ -102,6 +131,7 @@ public class ClientServiceImpl implements ClientService {
         if (id == null || newInfo == null) {
             throw new IllegalArgumentException("Идентификатор клиента и новое значение не могут быть null");
         }
+        ValidationUtil.checkStorable(newInfo, "Поле newInfo не может содержать символ | и управляющие символы");
         clientRepository.updateClientInfo(id, whatToChange, newInfo);
     }
 }
@@ -4,6 +4,7 @@ package services;
 import models.Contact;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ContactService {
     void save(Long id, Long clientId,String email, String phone, String name, String position);
@@ -11,4 +12,10 @@ public interface ContactService {
     List<Contact> contactGetClient(Long clientId);
 
     void deleteContact(Long id);
+
+    /**
+     * @return контакт с указанным идентификатором или пустой Optional, если его нет
+     * @throws IllegalArgumentException если id равен null
+     */
+    Optional<Contact> getContactById(Long id);
 }
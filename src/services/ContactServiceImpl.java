@@ -3,8 +3,10 @@ package services;
 
 import models.Contact;
 import repositories.ContactRepository;
+import util.ValidationUtil;
 
 import java.util.List;
+import java.util.Optional;
 /**
  * Сервис для управления контактами.
  * Предоставляет методы для сохранения и поиска контактов.
@@ -45,6 +47,10 @@ public class ContactServiceImpl implements ContactService {
         if (email.trim().isEmpty() || phone.trim().isEmpty() || name.trim().isEmpty() || position.trim().isEmpty()) {
             throw new IllegalArgumentException("Поля email, phone, name и position не могут быть пустыми");
         }
+        ValidationUtil.checkStorable(email, "Поле email не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(phone, "Поле phone не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(name, "Поле name не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(position, "Поле position не может содержать символ | и управляющие символы");
 
         Contact contact = new Contact(id, clientId, name, email, phone, position);
         contactRepository.addingInformation(contact);
@@ -73,4 +79,12 @@ public class ContactServiceImpl implements ContactService {
         }
         // Логика удаления контакта
     }
+
+    @Override
+    public Optional<Contact> getContactById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор контакта не может быть null");
+        }
+        return contactRepository.findById(id);
+    }
 }
@@ -0,0 +1,284 @@
+package services;
+
+
+import dto.DealStatsDto;
+import models.Deal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Инкрементально поддерживаемые итоги по сделкам: количество и сумма по статусу,
+ * по менеджеру (userId) и по клиенту.
+ * <p>
+ * Изменения применяются под монитором объекта, чтобы все три разреза менялись атомарно.
+ * Чтение отдельных значений не блокируется. Итоги периодически сохраняются в файл контрольной точки
+ * вместе с размером и временем изменения файла сделок; если после перезапуска файл сделок
+ * не совпадает с отметкой, итоги пересчитываются полным чтением.
+ */
+public class DealAggregates {
+
+    private static final Logger logger = Logger.getLogger(DealAggregates.class.getName());
+
+    private final String checkpointFileName;
+    private final String dealFileName;
+
+    private final Map<Deal.Status, DealStatsDto> byStatus = new ConcurrentHashMap<>();
+    private final Map<Long, DealStatsDto> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, DealStatsDto> byClient = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService checkpointExecutor;
+    private boolean dirty;
+
+    /**
+     * Итоги только в памяти, без контрольных точек: при каждом запуске пересчитываются из файла сделок.
+     */
+    public DealAggregates() {
+        this.checkpointFileName = null;
+        this.dealFileName = null;
+    }
+
+    /**
+     * @param checkpointFileName файл контрольной точки итогов
+     * @param dealFileName       файл сделок, с которым сверяется контрольная точка
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public DealAggregates(String checkpointFileName, String dealFileName) {
+        if (checkpointFileName == null || dealFileName == null) {
+            throw new NullPointerException("Параметры checkpointFileName и dealFileName не могут быть null");
+        }
+        this.checkpointFileName = checkpointFileName;
+        this.dealFileName = dealFileName;
+    }
+
+    /**
+     * Загружает итоги из контрольной точки, если она соответствует файлу сделок,
+     * иначе пересчитывает их по переданному списку сделок.
+     *
+     * @param loader источник полного списка сделок для пересчета
+     */
+    public synchronized void load(Supplier<List<Deal>> loader) {
+        if (checkpointFileName != null && readCheckpoint()) {
+            return;
+        }
+        byStatus.clear();
+        byUser.clear();
+        byClient.clear();
+        for (Deal deal : loader.get()) {
+            apply(deal, 1);
+        }
+        dirty = true;
+        checkpoint();
+    }
+
+    /**
+     * Запускает периодическое сохранение контрольной точки, если с прошлого сохранения были изменения.
+     *
+     * @param period интервал между контрольными точками
+     * @param unit   единица измерения интервала
+     */
+    public synchronized void startCheckpoints(long period, TimeUnit unit) {
+        if (checkpointFileName == null || checkpointExecutor != null) {
+            return;
+        }
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deal-aggregates-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Ошибка при сохранении итогов по сделкам: " + e.getMessage(), e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Останавливает периодические контрольные точки и сохраняет итоги.
+     */
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = checkpointExecutor;
+            checkpointExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        checkpoint();
+    }
+
+    public synchronized void added(Deal deal) {
+        apply(deal, 1);
+        dirty = true;
+    }
+
+    public synchronized void removed(Deal deal) {
+        apply(deal, -1);
+        dirty = true;
+    }
+
+    public synchronized void replaced(Deal before, Deal after) {
+        apply(before, -1);
+        apply(after, 1);
+        dirty = true;
+    }
+
+    public Map<Deal.Status, DealStatsDto> byStatus() {
+        Map<Deal.Status, DealStatsDto> result = new EnumMap<>(Deal.Status.class);
+        result.putAll(byStatus);
+        return Collections.unmodifiableMap(result);
+    }
+
+    public Map<Long, DealStatsDto> byUser() {
+        return Collections.unmodifiableMap(new HashMap<>(byUser));
+    }
+
+    public DealStatsDto forStatus(Deal.Status status) {
+        return byStatus.getOrDefault(status, new DealStatsDto(0, 0));
+    }
+
+    public DealStatsDto forUser(Long userId) {
+        return byUser.getOrDefault(userId, new DealStatsDto(0, 0));
+    }
+
+    public DealStatsDto forClient(Long clientId) {
+        return byClient.getOrDefault(clientId, new DealStatsDto(0, 0));
+    }
+
+    /**
+     * @return итог по всем сделкам — сумма разреза по статусам
+     */
+    public DealStatsDto total() {
+        long count = 0;
+        long cents = 0;
+        for (DealStatsDto stats : byStatus.values()) {
+            count += stats.getCount();
+            cents += stats.getAmountCents();
+        }
+        return new DealStatsDto(count, cents);
+    }
+
+    /**
+     * Сохраняет итоги в файл контрольной точки, если с прошлого сохранения были изменения.
+     * Вызывается под тем же монитором, что и изменения, поэтому отметка файла сделок
+     * всегда соответствует сохраненным итогам.
+     */
+    public synchronized void checkpoint() {
+        if (checkpointFileName == null || !dirty) {
+            return;
+        }
+        Path target = Path.of(checkpointFileName);
+        Path temp = Path.of(checkpointFileName + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            writer.write("#" + dealFileStamp());
+            writer.newLine();
+            writeSection(writer, "S", byStatus);
+            writeSection(writer, "U", byUser);
+            writeSection(writer, "C", byClient);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при сохранении итогов по сделкам: " + e.getMessage(), e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при сохранении итогов по сделкам: " + e.getMessage(), e);
+        }
+        dirty = false;
+    }
+
+    private void apply(Deal deal, int sign) {
+        long cents = Math.round(deal.getAmount() * 100) * sign;
+        byStatus.merge(deal.getStatus(), new DealStatsDto(sign, cents), DealAggregates::sum);
+        byUser.merge(deal.getUserId(), new DealStatsDto(sign, cents), DealAggregates::sum);
+        byClient.merge(deal.getClientId(), new DealStatsDto(sign, cents), DealAggregates::sum);
+    }
+
+    /**
+     * Складывает показатели; группа без сделок удаляется из разреза.
+     */
+    private static DealStatsDto sum(DealStatsDto left, DealStatsDto right) {
+        long count = left.getCount() + right.getCount();
+        return count == 0 ? null : new DealStatsDto(count, left.getAmountCents() + right.getAmountCents());
+    }
+
+    private boolean readCheckpoint() {
+        Path path = Path.of(checkpointFileName);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String header = reader.readLine();
+            if (header == null || !header.equals("#" + dealFileStamp())) {
+                logger.info("Контрольная точка итогов устарела, итоги будут пересчитаны");
+                return false;
+            }
+            Map<Deal.Status, DealStatsDto> statuses = new HashMap<>();
+            Map<Long, DealStatsDto> users = new HashMap<>();
+            Map<Long, DealStatsDto> clients = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                DealStatsDto stats = new DealStatsDto(Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+                switch (parts[0]) {
+                    case "S" -> statuses.put(Deal.Status.valueOf(parts[1]), stats);
+                    case "U" -> users.put(Long.parseLong(parts[1]), stats);
+                    case "C" -> clients.put(Long.parseLong(parts[1]), stats);
+                    default -> throw new IllegalArgumentException("Некорректный формат строки: " + line);
+                }
+            }
+            byStatus.clear();
+            byStatus.putAll(statuses);
+            byUser.clear();
+            byUser.putAll(users);
+            byClient.clear();
+            byClient.putAll(clients);
+            dirty = false;
+            return true;
+        } catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            logger.warning("Ошибка при чтении контрольной точки итогов: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Отметка состояния файла сделок: размер и время последнего изменения.
+     */
+    private String dealFileStamp() {
+        Path path = Path.of(dealFileName);
+        try {
+            if (!Files.exists(path)) {
+                return "0|0";
+            }
+            return Files.size(path) + "|" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при чтении файла сделок: " + e.getMessage(), e);
+        }
+    }
+
+    private static <K> void writeSection(BufferedWriter writer, String type, Map<K, DealStatsDto> section) throws IOException {
+        for (Map.Entry<K, DealStatsDto> entry : section.entrySet()) {
+            writer.write(type + "|" + entry.getKey() + "|" + entry.getValue().getCount() + "|" + entry.getValue().getAmountCents());
+            writer.newLine();
+        }
+    }
+}
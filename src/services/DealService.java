@@ -1,13 +1,65 @@
 package services;
 
 
+import dto.DealStatsDto;
 import models.Deal;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface DealService {
 
     void save(Long id, String title, Long clientId, Long userId, Double amount, Deal.Status status, LocalDate createdDate, LocalDate closedDate);
     void updateDeal(Long id, String title, Double amount, Deal.Status status);
     void deleteDeal(Long id);
+
+    List<Deal> getDeals();
+
+    /**
+     * @return сделка с указанным идентификатором или пустой Optional, если ее нет
+     * @throws IllegalArgumentException если id равен null
+     */
+    Optional<Deal> getDealById(Long id);
+
+    Map<Deal.Status, DealStatsDto> getDealStatsByStatus();
+
+    Map<Long, DealStatsDto> getDealStatsByUsers();
+
+    DealStatsDto getDealStatsByUser(Long userId);
+
+    DealStatsDto getDealStatsByClient(Long clientId);
+
+    /**
+     * Итоги по статусам за период; фильтры, равные null, не ограничивают выборку.
+     *
+     * @param userId      менеджер или null
+     * @param createdFrom начало периода создания (включительно) или null
+     * @param createdTo   конец периода создания (включительно) или null
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    Map<Deal.Status, DealStatsDto> getDealTotalsByStatus(Long userId, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Итоги по менеджерам за период; фильтры, равные null, не ограничивают выборку.
+     *
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    Map<Long, DealStatsDto> getDealTotalsByUser(Deal.Status status, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Итоги по месяцам создания, упорядоченные по возрастанию; фильтры, равные null, не ограничивают выборку.
+     *
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    Map<YearMonth, DealStatsDto> getDealTotalsByMonth(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Общий итог по сделкам; фильтры, равные null, не ограничивают выборку.
+     *
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    DealStatsDto getDealTotals(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo);
 }
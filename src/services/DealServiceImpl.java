@@ -1,30 +1,55 @@
 package services;
 
 
+import dto.DealStatsDto;
 import models.Deal;
 import repositories.DealRepository;
+import util.ValidationUtil;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Сервис для управления сделками.
- * Предоставляет методы для сохранения сделок.
+ * Предоставляет методы для сохранения сделок и поддерживает итоги по ним для панелей менеджеров.
+ * <p>
+ * Итоги {@code getDealTotals*} без фильтра по периоду отдаются из поддерживаемых {@link DealAggregates},
+ * если запрошенный разрез в них есть (по статусам, по менеджерам, итог по статусу или менеджеру);
+ * фильтры по периоду, сочетание статуса и менеджера и разрез по месяцам считаются репозиторием
+ * по колоночному хранилищу.
  */
 public class DealServiceImpl implements DealService {
 
     private final DealRepository dealRepository;
+    private final DealAggregates aggregates;
 
     /**
-     * Конструктор сервиса.
+     * Конструктор сервиса. Итоги хранятся только в памяти и пересчитываются при запуске.
      *
      * @param dealRepository репозиторий для работы со сделками
      * @throws NullPointerException если dealRepository равен null
      */
     public DealServiceImpl(DealRepository dealRepository) {
-        if (dealRepository == null) {
-            throw new NullPointerException("DealRepository не может быть null");
+        this(dealRepository, new DealAggregates());
+    }
+
+    /**
+     * Конструктор сервиса с внешним хранилищем итогов.
+     *
+     * @param dealRepository репозиторий для работы со сделками
+     * @param aggregates     итоги по сделкам, загружаются из контрольной точки или пересчитываются
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public DealServiceImpl(DealRepository dealRepository, DealAggregates aggregates) {
+        if (dealRepository == null || aggregates == null) {
+            throw new NullPointerException("DealRepository и DealAggregates не могут быть null");
         }
         this.dealRepository = dealRepository;
+        this.aggregates = aggregates;
+        aggregates.load(dealRepository::findAll);
     }
 
     /**
@@ -48,17 +73,39 @@ public class DealServiceImpl implements DealService {
         if (title.trim().isEmpty() || amount < 0) {
             throw new IllegalArgumentException("Название сделки не может быть пустым, а сумма должна быть положительной");
         }
+        ValidationUtil.checkStorable(title, "Поле title не может содержать символ | и управляющие символы");
 
         Deal deal = new Deal(id, title, clientId, userId, amount, status, createdDate, closedDate);
-        dealRepository.save(deal);
+        synchronized (aggregates) {
+            dealRepository.save(deal);
+            aggregates.added(deal);
+        }
     }
 
+    /**
+     * Обновляет название, сумму и статус сделки.
+     * При переходе в статус COMPLETED или FAILED проставляется дата закрытия.
+     *
+     * @throws IllegalArgumentException если параметры некорректны или сделка не найдена
+     */
     @Override
     public void updateDeal(Long id, String title, Double amount, Deal.Status status) {
         if (id == null || title == null || amount == null || status == null) {
             throw new IllegalArgumentException("Ни один из параметров не может быть null");
         }
-        // Логика обновления сделки
+        ValidationUtil.checkStorable(title, "Поле title не может содержать символ | и управляющие символы");
+        synchronized (aggregates) {
+            Deal before = dealRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Сделка с таким ID не найдена"));
+            LocalDate closedDate = before.getClosedDate();
+            if (closedDate == null && (status == Deal.Status.COMPLETED || status == Deal.Status.FAILED)) {
+                closedDate = LocalDate.now();
+            }
+            Deal after = new Deal(id, title, before.getClientId(), before.getUserId(), amount, status,
+                    before.getCreatedDate(), closedDate);
+            dealRepository.updateDeal(after);
+            aggregates.replaced(before, after);
+        }
     }
 
     @Override
@@ -66,7 +113,101 @@ public class DealServiceImpl implements DealService {
         if (id == null) {
             throw new IllegalArgumentException("Идентификатор сделки не может быть null");
         }
-        // Логика удаления сделки
+        synchronized (aggregates) {
+            Deal deal = dealRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Сделка с таким ID не найдена"));
+            dealRepository.deleteById(id);
+            aggregates.removed(deal);
+        }
+    }
+
+    /**
+     * @return все сделки
+     */
+    @Override
+    public List<Deal> getDeals() {
+        return dealRepository.findAll();
+    }
+
+    @Override
+    public Optional<Deal> getDealById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор сделки не может быть null");
+        }
+        return dealRepository.findById(id);
+    }
+
+    @Override
+    public Map<Deal.Status, DealStatsDto> getDealStatsByStatus() {
+        return aggregates.byStatus();
+    }
+
+    @Override
+    public Map<Long, DealStatsDto> getDealStatsByUsers() {
+        return aggregates.byUser();
+    }
+
+    @Override
+    public DealStatsDto getDealStatsByUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
+        }
+        return aggregates.forUser(userId);
+    }
+
+    @Override
+    public DealStatsDto getDealStatsByClient(Long clientId) {
+        if (clientId == null) {
+            throw new IllegalArgumentException("Идентификатор клиента не может быть null");
+        }
+        return aggregates.forClient(clientId);
+    }
 
+    @Override
+    public Map<Deal.Status, DealStatsDto> getDealTotalsByStatus(Long userId, LocalDate createdFrom, LocalDate createdTo) {
+        checkPeriod(createdFrom, createdTo);
+        if (userId == null && createdFrom == null && createdTo == null) {
+            return aggregates.byStatus();
+        }
+        return dealRepository.totalsByStatus(userId, createdFrom, createdTo);
+    }
+
+    @Override
+    public Map<Long, DealStatsDto> getDealTotalsByUser(Deal.Status status, LocalDate createdFrom, LocalDate createdTo) {
+        checkPeriod(createdFrom, createdTo);
+        if (status == null && createdFrom == null && createdTo == null) {
+            return aggregates.byUser();
+        }
+        return dealRepository.totalsByUser(status, createdFrom, createdTo);
+    }
+
+    @Override
+    public Map<YearMonth, DealStatsDto> getDealTotalsByMonth(Deal.Status status, Long userId,
+                                                             LocalDate createdFrom, LocalDate createdTo) {
+        checkPeriod(createdFrom, createdTo);
+        return dealRepository.totalsByMonth(status, userId, createdFrom, createdTo);
+    }
+
+    @Override
+    public DealStatsDto getDealTotals(Deal.Status status, Long userId, LocalDate createdFrom, LocalDate createdTo) {
+        checkPeriod(createdFrom, createdTo);
+        if (createdFrom == null && createdTo == null) {
+            if (status == null && userId == null) {
+                return aggregates.total();
+            }
+            if (userId == null) {
+                return aggregates.forStatus(status);
+            }
+            if (status == null) {
+                return aggregates.forUser(userId);
+            }
+        }
+        return dealRepository.totals(status, userId, createdFrom, createdTo);
+    }
+
+    private static void checkPeriod(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода не может быть позже конца");
+        }
     }
 }
@@ -0,0 +1,237 @@
+package services;
+
+import models.Message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Доставка новых сообщений подписчикам внутри процесса.
+ * <p>
+ * Подписки получателя хранятся в {@link CopyOnWriteArrayList}: публикация обходит снимок списка без блокировок.
+ * У каждой подписки свой ограниченный буфер; если подписчик не успевает, самые старые сообщения вытесняются
+ * и подсчитываются в {@link Subscription#getDropped()}. Ожидающий подписчик не занимает процессор:
+ * блокирующий {@code poll} ждет на очереди, асинхронный {@code pollAsync} — незавершенный future без потока.
+ */
+public class MessageBroker {
+
+    private static final Logger logger = Logger.getLogger(MessageBroker.class.getName());
+
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Executor listenerExecutor;
+    private final int bufferCapacity;
+
+    /**
+     * @param listenerExecutor исполнитель, на котором вызываются слушатели
+     * @param bufferCapacity   размер буфера каждой подписки
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public MessageBroker(Executor listenerExecutor, int bufferCapacity) {
+        if (listenerExecutor == null || bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры брокера сообщений");
+        }
+        this.listenerExecutor = listenerExecutor;
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Подписка для чтения через {@link Subscription#poll} и {@link Subscription#pollAsync}.
+     *
+     * @param receiverId идентификатор получателя
+     * @return подписка; должна быть закрыта, когда больше не нужна
+     */
+    public Subscription subscribe(Long receiverId) {
+        return register(new Subscription(this, receiverId, null));
+    }
+
+    /**
+     * Подписка со слушателем. Слушатель вызывается на исполнителе брокера, сообщения одной подписки
+     * передаются ему последовательно в порядке публикации.
+     *
+     * @param receiverId идентификатор получателя
+     * @param listener   слушатель новых сообщений
+     * @return подписка; должна быть закрыта, когда больше не нужна
+     */
+    public Subscription subscribe(Long receiverId, Consumer<Message> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Слушатель не может быть null");
+        }
+        return register(new Subscription(this, receiverId, listener));
+    }
+
+    /**
+     * Передает сообщение всем подпискам его получателя.
+     *
+     * @param message сохраненное сообщение
+     */
+    public void publish(Message message) {
+        List<Subscription> receivers = subscriptions.get(message.getReceiverId());
+        if (receivers == null) {
+            return;
+        }
+        for (Subscription subscription : receivers) {
+            subscription.offer(message);
+        }
+    }
+
+    /**
+     * @param receiverId идентификатор получателя
+     * @return количество активных подписок получателя
+     */
+    public int subscriberCount(Long receiverId) {
+        List<Subscription> receivers = subscriptions.get(receiverId);
+        return receivers == null ? 0 : receivers.size();
+    }
+
+    private Subscription register(Subscription subscription) {
+        if (subscription.receiverId == null) {
+            throw new IllegalArgumentException("Идентификатор получателя не может быть null");
+        }
+        subscriptions.computeIfAbsent(subscription.receiverId, id -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    private void unregister(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.receiverId, (id, receivers) -> {
+            receivers.remove(subscription);
+            return receivers.isEmpty() ? null : receivers;
+        });
+    }
+
+    /**
+     * Подписка на сообщения одного получателя.
+     */
+    public static final class Subscription implements AutoCloseable {
+        private final MessageBroker broker;
+        private final Long receiverId;
+        private final Consumer<Message> listener;
+        private final LinkedBlockingDeque<Message> buffer;
+        private final AtomicReference<CompletableFuture<Message>> waiter = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscription(MessageBroker broker, Long receiverId, Consumer<Message> listener) {
+            this.broker = broker;
+            this.receiverId = receiverId;
+            this.listener = listener;
+            this.buffer = new LinkedBlockingDeque<>(broker.bufferCapacity);
+        }
+
+        /**
+         * Ожидает следующее сообщение.
+         *
+         * @return сообщение или null, если за время ожидания сообщений не было
+         * @throws InterruptedException если ожидание прервано
+         */
+        public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+            checkPollable();
+            return buffer.pollFirst(timeout, unit);
+        }
+
+        /**
+         * Асинхронно ожидает следующее сообщение, не занимая поток.
+         * Одновременно у подписки может быть только одно ожидание.
+         *
+         * @return future, завершающийся сообщением или null по истечении времени ожидания
+         * @throws IllegalStateException если предыдущее ожидание еще не завершено
+         */
+        public CompletableFuture<Message> pollAsync(long timeout, TimeUnit unit) {
+            checkPollable();
+            Message ready = buffer.pollFirst();
+            if (ready != null) {
+                return CompletableFuture.completedFuture(ready);
+            }
+            CompletableFuture<Message> future = new CompletableFuture<>();
+            if (!waiter.compareAndSet(null, future)) {
+                throw new IllegalStateException("Предыдущее ожидание сообщения еще не завершено");
+            }
+            future.whenComplete((message, error) -> waiter.compareAndSet(future, null));
+            // Сообщение могло попасть в буфер до установки ожидания
+            ready = buffer.pollFirst();
+            if (ready != null && !future.complete(ready)) {
+                buffer.offerFirst(ready);
+            }
+            future.completeOnTimeout(null, timeout, unit);
+            return future;
+        }
+
+        /**
+         * @return количество сообщений, вытесненных из переполненного буфера
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public Long getReceiverId() {
+            return receiverId;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            broker.unregister(this);
+            CompletableFuture<Message> pending = waiter.getAndSet(null);
+            if (pending != null) {
+                pending.complete(null);
+            }
+        }
+
+        private void checkPollable() {
+            if (listener != null) {
+                throw new IllegalStateException("Сообщения подписки со слушателем передаются слушателю");
+            }
+            if (closed) {
+                throw new IllegalStateException("Подписка закрыта");
+            }
+        }
+
+        private void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            CompletableFuture<Message> pending = waiter.getAndSet(null);
+            if (pending != null && pending.complete(message)) {
+                return;
+            }
+            while (!buffer.offerLast(message)) {
+                if (buffer.pollFirst() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            if (listener != null && draining.compareAndSet(false, true)) {
+                broker.listenerExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Message message;
+                while (!closed && (message = buffer.pollFirst()) != null) {
+                    try {
+                        listener.accept(message);
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "Ошибка в слушателе сообщений: " + e.getMessage(), e);
+                    }
+                }
+                draining.set(false);
+                // Сообщение могло прийти после опустошения буфера, но до сброса флага
+                if (closed || buffer.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -3,7 +3,9 @@ package services;
 
 import models.Message;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MessageService {
     void sendMessage(Long id, Long senderId, Long receiverId, String content);
@@ -12,5 +14,70 @@ public interface MessageService {
 
     List<Message> getUserMessages(Long userId);
 
+    /**
+     * Возвращает страницу сообщений пользователя, начиная с самых новых.
+     *
+     * @param userId   идентификатор пользователя
+     * @param page     номер страницы, начиная с 0
+     * @param pageSize размер страницы
+     * @return сообщения страницы от новых к старым
+     */
+    List<Message> getUserMessagesPage(Long userId, int page, int pageSize);
+
+    /**
+     * @param userId идентификатор пользователя
+     * @return количество непрочитанных входящих сообщений
+     */
+    int getUnreadCount(Long userId);
+
+    /**
+     * Отмечает прочитанными все входящие сообщения пользователя с идентификатором не больше messageId.
+     *
+     * @param userId    идентификатор пользователя
+     * @param messageId идентификатор последнего прочитанного сообщения
+     */
+    void markRead(Long userId, Long messageId);
+
+    /**
+     * Подписывает на новые сообщения получателя; сообщения читаются через poll или pollAsync подписки.
+     *
+     * @param receiverId идентификатор получателя
+     * @return подписка; должна быть закрыта, когда больше не нужна
+     */
+    MessageBroker.Subscription subscribe(Long receiverId);
+
+    /**
+     * Подписывает слушателя на новые сообщения получателя.
+     *
+     * @param receiverId идентификатор получателя
+     * @param listener   слушатель новых сообщений
+     * @return подписка; должна быть закрыта, когда больше не нужна
+     */
+    MessageBroker.Subscription subscribe(Long receiverId, Consumer<Message> listener);
+
+    /**
+     * Полнотекстовый поиск по сообщениям.
+     *
+     * @param query      поисковый запрос (слова, OR, -исключение, "фраза")
+     * @param senderId   фильтр по отправителю или null
+     * @param receiverId фильтр по получателю или null
+     * @param from       начало интервала времени или null
+     * @param to         конец интервала времени или null
+     * @param limit      максимальное количество результатов
+     * @return найденные сообщения, начиная с самых новых
+     */
+    List<Message> searchMessages(String query, Long senderId, Long receiverId, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Полнотекстовый поиск по переписке пользователя: сообщениям, которые он отправил или получил.
+     *
+     * @param query  поисковый запрос (слова, OR, -исключение, "фраза")
+     * @param userId идентификатор пользователя
+     * @param from   начало интервала времени или null
+     * @param to     конец интервала времени или null
+     * @param limit  максимальное количество результатов
+     * @return найденные сообщения, начиная с самых новых
+     */
+    List<Message> searchUserMessages(String query, Long userId, LocalDateTime from, LocalDateTime to, int limit);
 
 }
@@ -3,10 +3,19 @@ package services;
 
 import models.Message;
 import repositories.MessageRepository;
+import repositories.ReadMarkerRepository;
 import util.IdGenerator;
+import util.ValidationUtil;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Сервис для работы с сообщениями.
@@ -15,25 +24,41 @@ import java.util.List;
 public class MessageServiceImpl implements MessageService {
 
     private final MessageRepository messageRepository;
+    private final ReadMarkerRepository readMarkerRepository;
+    private final MessageBroker messageBroker;
     private IdGenerator idGenerator;
 
+    /**
+     * Счетчики непрочитанных сообщений. Счетчик пользователя создается при первом запросе по индексу
+     * репозитория, затем увеличивается при отправке и пересчитывается при отметке о прочтении.
+     * Изменения выполняются под блокировкой самой карты, чтобы отправка не потерялась при пересчете.
+     */
+    private final Map<Long, AtomicInteger> unreadCounters = new ConcurrentHashMap<>();
+
 
     /**
      * Конструктор для создания экземпляра сервиса.
      *
-     * @param messageRepository репозиторий для работы с сообщениями
-     * @throws IllegalArgumentException если messageRepository равен null
+     * @param messageRepository    репозиторий для работы с сообщениями
+     * @param readMarkerRepository репозиторий отметок о прочтении
+     * @param messageBroker        брокер, через который новые сообщения доставляются подписчикам
+     * @throws IllegalArgumentException если один из параметров равен null
      */
-    public MessageServiceImpl(MessageRepository messageRepository) {
-        if (messageRepository == null) {
-            throw new IllegalArgumentException("Репозиторий не может быть null");
+    public MessageServiceImpl(MessageRepository messageRepository, ReadMarkerRepository readMarkerRepository,
+                              MessageBroker messageBroker) {
+        if (messageRepository == null || readMarkerRepository == null || messageBroker == null) {
+            throw new IllegalArgumentException("Репозитории и брокер сообщений не могут быть null");
         }
         this.messageRepository = messageRepository;
+        this.readMarkerRepository = readMarkerRepository;
+        this.messageBroker = messageBroker;
     }
 
 
     @Override
     public void sendMessage(Long id, Long senderId, Long receiverId, String content) {
+        ValidationUtil.checkNotNull(content, "Текст сообщения не может быть null");
+        ValidationUtil.checkStorable(content, "Поле content не может содержать символ | и управляющие символы");
         Message message = new Message(
                 id,
                 senderId,
@@ -41,7 +66,14 @@ public class MessageServiceImpl implements MessageService {
                 content,
                 LocalDateTime.now()
         );
-        messageRepository.save(message);
+        synchronized (unreadCounters) {
+            messageRepository.save(message);
+            AtomicInteger counter = unreadCounters.get(receiverId);
+            if (counter != null) {
+                counter.incrementAndGet();
+            }
+        }
+        messageBroker.publish(message);
     }
 
     @Override
@@ -53,4 +85,78 @@ public class MessageServiceImpl implements MessageService {
     public List<Message> getUserMessages(Long userId) {
         return messageRepository.findMessagesByUser(userId);
     }
+
+    @Override
+    public List<Message> getUserMessagesPage(Long userId, int page, int pageSize) {
+        return messageRepository.findMessagesByUserNewestFirst(userId, page, pageSize);
+    }
+
+    @Override
+    public int getUnreadCount(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
+        }
+        AtomicInteger counter = unreadCounters.get(userId);
+        if (counter == null) {
+            synchronized (unreadCounters) {
+                counter = unreadCounters.computeIfAbsent(userId, id ->
+                        new AtomicInteger(messageRepository.countReceivedAfter(id, readMarkerRepository.getLastRead(id))));
+            }
+        }
+        return counter.get();
+    }
+
+    @Override
+    public void markRead(Long userId, Long messageId) {
+        if (userId == null || messageId == null) {
+            throw new IllegalArgumentException("Идентификаторы пользователя и сообщения не могут быть null");
+        }
+        synchronized (unreadCounters) {
+            long lastRead = Math.max(readMarkerRepository.getLastRead(userId), messageId);
+            readMarkerRepository.setLastRead(userId, lastRead);
+            unreadCounters.put(userId, new AtomicInteger(messageRepository.countReceivedAfter(userId, lastRead)));
+        }
+    }
+
+    @Override
+    public MessageBroker.Subscription subscribe(Long receiverId) {
+        return messageBroker.subscribe(receiverId);
+    }
+
+    @Override
+    public MessageBroker.Subscription subscribe(Long receiverId, Consumer<Message> listener) {
+        return messageBroker.subscribe(receiverId, listener);
+    }
+
+    @Override
+    public List<Message> searchMessages(String query, Long senderId, Long receiverId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Поисковый запрос не может быть пустым");
+        }
+        return messageRepository.search(query, senderId, receiverId, from, to, limit);
+    }
+
+    @Override
+    public List<Message> searchUserMessages(String query, Long userId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (userId == null) {
+            throw new IllegalArgumentException("Идентификатор пользователя не может быть null");
+        }
+        // Отправленные и полученные ищутся отдельно и сливаются по убыванию идентификатора;
+        // сообщение самому себе попадает в оба списка и учитывается один раз
+        TreeMap<Long, Message> merged = new TreeMap<>(Comparator.reverseOrder());
+        for (Message message : searchMessages(query, userId, null, from, to, limit)) {
+            merged.put(message.getId(), message);
+        }
+        for (Message message : searchMessages(query, null, userId, from, to, limit)) {
+            merged.put(message.getId(), message);
+        }
+        List<Message> result = new ArrayList<>(Math.min(limit, merged.size()));
+        for (Message message : merged.values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(message);
+        }
+        return result;
+    }
 }
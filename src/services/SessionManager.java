@@ -0,0 +1,143 @@
+package services;
+
+import models.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сессии пользователей после входа.
+ * <p>
+ * Сессия идентифицируется непрозрачным случайным токеном и хранится в {@link ConcurrentHashMap}, поэтому
+ * проверка токена выполняется за O(1) без чтения файла пользователей и без хеширования пароля.
+ * Сессия истекает, если ею не пользовались дольше {@code ttl}; каждое успешное обращение продлевает её.
+ * Истекшие сессии удаляются при обращении к ним и периодически при создании новых.
+ */
+public class SessionManager {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int PURGE_EVERY = 1024;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong created = new AtomicLong();
+    private final long ttlMillis;
+
+    /**
+     * @param ttl время жизни сессии без обращений
+     * @throws IllegalArgumentException если ttl не положительно
+     */
+    public SessionManager(Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Время жизни сессии должно быть положительным");
+        }
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Создает сессию для пользователя.
+     *
+     * @param user пользователь, прошедший проверку пароля
+     * @return токен сессии
+     */
+    public String create(User user) {
+        if (created.incrementAndGet() % PURGE_EVERY == 0) {
+            purgeExpired();
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user.getId(), user.getRole(), System.currentTimeMillis() + ttlMillis));
+        return token;
+    }
+
+    /**
+     * Проверяет токен и продлевает сессию.
+     *
+     * @param token токен сессии
+     * @return сессия или пустой Optional, если токен неизвестен или сессия истекла
+     */
+    public Optional<Session> authenticate(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        if (session.expiresAt < now) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+        session.expiresAt = now + ttlMillis;
+        return Optional.of(session);
+    }
+
+    /**
+     * Завершает сессию.
+     *
+     * @param token токен сессии
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Завершает все сессии пользователя (например, после смены пароля).
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void invalidateUser(Long userId) {
+        sessions.values().removeIf(session -> session.userId.equals(userId));
+    }
+
+    /**
+     * @return количество активных сессий
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.expiresAt < now);
+    }
+
+    /**
+     * Сессия пользователя.
+     */
+    public static final class Session {
+        private final Long userId;
+        private final User.Role role;
+        private volatile long expiresAt;
+
+        private Session(Long userId, User.Role role, long expiresAt) {
+            this.userId = userId;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public User.Role getRole() {
+            return role;
+        }
+
+        /**
+         * @return момент истечения сессии, мс с начала эпохи
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package services;
+
+
+import models.Task;
+import models.User;
+import repositories.TaskRepository;
+import repositories.UsersRepository;
+import util.HashedWheelTimer;
+import util.MailUtil;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Планировщик напоминаний о сроках задач.
+ * <p>
+ * Напоминания ставятся в {@link HashedWheelTimer} на момент срока задачи и отправляются
+ * исполнителю через {@link MailUtil}. При запуске планировщик восстанавливает все будущие напоминания
+ * из индекса сроков репозитория задач. Перед отправкой задача перечитывается: если она удалена
+ * или её срок изменился, напоминание не отправляется.
+ */
+public class TaskReminderScheduler {
+
+    private static final Logger logger = Logger.getLogger(TaskReminderScheduler.class.getName());
+
+    private final TaskRepository taskRepository;
+    private final UsersRepository usersRepository;
+    private final MailUtil mailUtil;
+    private final HashedWheelTimer timer;
+    private final Map<Long, HashedWheelTimer.Timeout> scheduled = new ConcurrentHashMap<>();
+
+    /**
+     * @param taskRepository  репозиторий задач с индексом сроков
+     * @param usersRepository репозиторий пользователей для поиска email исполнителя
+     * @param mailUtil        утилита для отправки напоминаний
+     * @param timer           таймер, на котором планируются напоминания
+     * @throws NullPointerException если любой из параметров равен null
+     */
+    public TaskReminderScheduler(TaskRepository taskRepository, UsersRepository usersRepository,
+                                 MailUtil mailUtil, HashedWheelTimer timer) {
+        if (taskRepository == null || usersRepository == null || mailUtil == null || timer == null) {
+            throw new NullPointerException("Параметры планировщика напоминаний не могут быть null");
+        }
+        this.taskRepository = taskRepository;
+        this.usersRepository = usersRepository;
+        this.mailUtil = mailUtil;
+        this.timer = timer;
+    }
+
+    /**
+     * Восстанавливает напоминания для всех задач, срок которых еще не наступил.
+     *
+     * @return количество запланированных напоминаний
+     */
+    public int start() {
+        int count = 0;
+        for (Task task : taskRepository.findDueBetween(System.currentTimeMillis(), Long.MAX_VALUE)) {
+            if (schedule(task)) {
+                count++;
+            }
+        }
+        logger.info("Восстановлено напоминаний о задачах: " + count);
+        return count;
+    }
+
+    /**
+     * Планирует (или перепланирует) напоминание для задачи.
+     *
+     * @param task задача с заполненным идентификатором
+     * @return true, если напоминание запланировано; false, если у задачи нет корректного срока
+     */
+    public boolean schedule(Task task) {
+        Long due = task.getDueEpochMillis();
+        if (task.getId() == null || due == null) {
+            return false;
+        }
+        Long taskId = task.getId();
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> remind(taskId, due), due);
+        HashedWheelTimer.Timeout previous = scheduled.put(taskId, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Отменяет напоминание для задачи, если оно было запланировано.
+     *
+     * @param taskId идентификатор задачи
+     */
+    public void cancel(Long taskId) {
+        HashedWheelTimer.Timeout timeout = scheduled.remove(taskId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * @return количество ожидающих напоминаний
+     */
+    public int pendingCount() {
+        return scheduled.size();
+    }
+
+    public void stop() {
+        timer.stop();
+        scheduled.clear();
+    }
+
+    private void remind(Long taskId, long due) {
+        Optional<Task> taskOptional = taskRepository.findById(taskId);
+        HashedWheelTimer.Timeout current = scheduled.get(taskId);
+        if (current != null && current.getDeadlineMillis() == due) {
+            scheduled.remove(taskId, current);
+        }
+        if (taskOptional.isEmpty()) {
+            return;
+        }
+        Task task = taskOptional.get();
+        Long actualDue = task.getDueEpochMillis();
+        if (actualDue == null || actualDue != due) {
+            return;
+        }
+        Optional<User> assignee = usersRepository.findById(task.getAssignedTo());
+        if (assignee.isEmpty()) {
+            logger.warning("Исполнитель задачи " + taskId + " не найден: " + task.getAssignedTo());
+            return;
+        }
+        try {
+            mailUtil.sendMail(assignee.get().getEmail(),
+                    "Напоминание: наступил срок задачи \"" + task.getTitle() + "\" (" + task.getDueDate() + ")");
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Ошибка при отправке напоминания о задаче " + taskId + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -3,9 +3,28 @@ package services;
 
 import models.Task;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface TaskService {
     void save(Long id, Long idClient, String title, String description, Long assignedTo, String dueDate, Task.Status status);
     void updateTask(Long id, String title, String description, Task.Status status);
+
+    /**
+     * Изменяет одно поле задачи; при изменении срока напоминание перепланируется.
+     *
+     * @param whatToChange 1 — название, 2 — описание, 3 — исполнитель, 4 — срок (yyyy-MM-dd HH:mm:ss), 5 — статус
+     * @throws IllegalArgumentException если значение некорректно
+     */
+    void changeTask(Long id, int whatToChange, String newMeaning);
     void deleteTask(Long id);
 
+    List<Task> getTasks();
+
+    /**
+     * @return задача с указанным идентификатором или пустой Optional, если ее нет
+     * @throws IllegalArgumentException если id равен null
+     */
+    Optional<Task> getTaskById(Long id);
+
 }
@@ -5,12 +5,25 @@ import models.Task;
 import repositories.TaskRepository;
 import util.ValidationUtil;
 
+import java.util.List;
+import java.util.Optional;
+
 public class TaskServiceImpl implements TaskService {
 
     private final TaskRepository taskRepository;
+    private final TaskReminderScheduler reminderScheduler;
 
     public TaskServiceImpl(TaskRepository taskRepository) {
+        this(taskRepository, null);
+    }
+
+    /**
+     * @param taskRepository    репозиторий задач
+     * @param reminderScheduler планировщик напоминаний о сроках или null, если напоминания не нужны
+     */
+    public TaskServiceImpl(TaskRepository taskRepository, TaskReminderScheduler reminderScheduler) {
         this.taskRepository = taskRepository;
+        this.reminderScheduler = reminderScheduler;
     }
 
     @Override
@@ -23,8 +36,13 @@ public class TaskServiceImpl implements TaskService {
         ValidationUtil.checkNotNull(assignedTo, "Фамилия не может быть null");
         ValidationUtil.checkValidDateTimeString(dueDate, "Некорректный формат даты и времени. Используйте формат: yyyy-MM-dd HH:mm:ss");
         ValidationUtil.checkNotNull(status, "Статус не может быть null");
+        ValidationUtil.checkStorable(title, "Поле title не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(description, "Поле description не может содержать символ | и управляющие символы");
         Task task = new Task(id, idClient, title, description, assignedTo, dueDate, status);
         taskRepository.save(task);
+        if (reminderScheduler != null) {
+            reminderScheduler.schedule(task);
+        }
     }
 
     @Override
@@ -35,11 +53,40 @@ public class TaskServiceImpl implements TaskService {
         // Логика обновления задачи
     }
 
+    @Override
+    public void changeTask(Long id, int whatToChange, String newMeaning) {
+        ValidationUtil.checkNotNull(id, "Идентификатор задачи не может быть null");
+        ValidationUtil.checkNotNull(newMeaning, "Новое значение не может быть null");
+        ValidationUtil.checkStorable(newMeaning, "Поле не может содержать символ | и управляющие символы");
+        if (whatToChange == 4) {
+            ValidationUtil.checkValidDateTimeString(newMeaning, "Некорректный формат даты и времени. Используйте формат: yyyy-MM-dd HH:mm:ss");
+        }
+        taskRepository.taskChange(id, whatToChange, newMeaning);
+        // Напоминание запланировано на старый срок: без перепланирования оно сработало бы не вовремя
+        if (whatToChange == 4 && reminderScheduler != null) {
+            taskRepository.findById(id).ifPresent(reminderScheduler::schedule);
+        }
+    }
+
     @Override
     public void deleteTask(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("Идентификатор задачи не может быть null");
         }
-        // Логика удаления задачи
+        taskRepository.deleteById(id);
+        if (reminderScheduler != null) {
+            reminderScheduler.cancel(id);
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return taskRepository.findAll();
+    }
+
+    @Override
+    public Optional<Task> getTaskById(Long id) {
+        ValidationUtil.checkNotNull(id, "Идентификатор задачи не может быть null");
+        return taskRepository.findById(id);
     }
 }
@@ -5,10 +5,35 @@ import dto.UserDto;
 import models.User;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface UsersService {
     void signUp(Long id, String login, String password, String name, String lastName, User.Role role);
     boolean signIn(String login, String password);
+
+    /**
+     * Проверяет логин и пароль и открывает сессию.
+     *
+     * @param login    логин (email)
+     * @param password пароль
+     * @return токен сессии или пустой Optional, если данные неверны
+     */
+    Optional<String> login(String login, String password);
+
+    /**
+     * Проверяет токен сессии без обращения к файлу пользователей.
+     *
+     * @param token токен сессии
+     * @return сессия или пустой Optional, если токен недействителен
+     */
+    Optional<SessionManager.Session> authenticate(String token);
+
+    /**
+     * Завершает сессию.
+     *
+     * @param token токен сессии
+     */
+    void logout(String token);
     List<UserDto> getUsers();
     void deleteUser(Long id);
 }
@@ -5,8 +5,10 @@ import dto.UserDto;
 import models.User;
 import repositories.UsersRepository;
 import util.MailUtil;
+import util.PasswordHasher;
 import util.ValidationUtil;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,16 +22,38 @@ import static dto.UserDto.from;
 public class UsersServiceImpl implements UsersService {
     private final UsersRepository usersRepository;
     private final MailUtil mailUtil;
+    private final PasswordHasher passwordHasher;
+    private final SessionManager sessionManager;
+    /**
+     * Хеш, с которым сверяется пароль неизвестного логина, чтобы время ответа не выдавало существующие аккаунты.
+     */
+    private final String dummyHash;
 
     /**
-     * Конструктор сервиса.
+     * Конструктор сервиса с хешированием по умолчанию и сессиями на 30 минут.
      *
      * @param usersRepository репозиторий для работы с пользователями
      * @param mailUtil        утилита для отправки электронной почты
      */
     public UsersServiceImpl(UsersRepository usersRepository, MailUtil mailUtil) {
+        this(usersRepository, mailUtil, new PasswordHasher(), new SessionManager(Duration.ofMinutes(30)));
+    }
+
+    /**
+     * Конструктор сервиса.
+     *
+     * @param usersRepository репозиторий для работы с пользователями
+     * @param mailUtil        утилита для отправки электронной почты
+     * @param passwordHasher  хешер паролей
+     * @param sessionManager  хранилище сессий
+     */
+    public UsersServiceImpl(UsersRepository usersRepository, MailUtil mailUtil,
+                            PasswordHasher passwordHasher, SessionManager sessionManager) {
         this.usersRepository = usersRepository;
         this.mailUtil = mailUtil;
+        this.passwordHasher = passwordHasher;
+        this.sessionManager = sessionManager;
+        this.dummyHash = passwordHasher.hash("dummy-password");
     }
 
     @Override
@@ -40,8 +64,10 @@ public class UsersServiceImpl implements UsersService {
         ValidationUtil.checkNotEmpty(name, "Имя не может быть null");
         ValidationUtil.checkNotEmpty(lastName, "Фамилия не может быть null");
         ValidationUtil.checkNotNull(role, "Должность не может быть null");
+        ValidationUtil.checkStorable(name, "Поле name не может содержать символ | и управляющие символы");
+        ValidationUtil.checkStorable(lastName, "Поле lastName не может содержать символ | и управляющие символы");
         // Создаем модель пользователя
-        User user = new User(id, login, password, name, lastName, role);
+        User user = new User(id, login, passwordHasher.hash(password), name, lastName, role);
         usersRepository.save(user);
         // Отправляем письмо с подтверждением регистрации
         mailUtil.sendMail(login, "Вы были успешно зарегистрированы, ваш временный пароль: " + password);
@@ -60,12 +86,46 @@ public class UsersServiceImpl implements UsersService {
     public boolean signIn(String login, String password) {
         ValidationUtil.checkNotEmpty(login, "Логин не может быть null");
         ValidationUtil.checkNotEmpty(password, "Пароль не может быть null");
+        return verifyCredentials(login, password).isPresent();
+    }
+
+    @Override
+    public Optional<String> login(String login, String password) {
+        ValidationUtil.checkNotEmpty(login, "Логин не может быть null");
+        ValidationUtil.checkNotEmpty(password, "Пароль не может быть null");
+        return verifyCredentials(login, password).map(sessionManager::create);
+    }
+
+    @Override
+    public Optional<SessionManager.Session> authenticate(String token) {
+        return sessionManager.authenticate(token);
+    }
+
+    @Override
+    public void logout(String token) {
+        sessionManager.invalidate(token);
+    }
+
+    /**
+     * Проверяет пароль пользователя. Пароль, сохраненный открытым текстом или с устаревшей стоимостью
+     * хеширования, после успешной проверки перехешируется.
+     *
+     * @return пользователь, если логин и пароль верны
+     */
+    private Optional<User> verifyCredentials(String login, String password) {
         Optional<User> userOptional = usersRepository.findByEmail(login);
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            return user.getPassword().equals(password); // Сравнение паролей (в реальном проекте используйте хэширование)
+        if (userOptional.isEmpty()) {
+            passwordHasher.verify(password, dummyHash);
+            return Optional.empty();
+        }
+        if (!passwordHasher.verify(password, userOptional.get().getPassword())) {
+            return Optional.empty();
+        }
+        User user = userOptional.get();
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            usersRepository.updatePassword(user.getId(), passwordHasher.hash(password));
         }
-        return false;
+        return userOptional;
     }
 
     @Override
@@ -0,0 +1,73 @@
+package template;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Итог пакетной генерации документов.
+ */
+public class BatchReport {
+
+    private final long generated;
+    private final long failed;
+    private final long skipped;
+    private final Duration elapsed;
+    private final List<Long> failedClientIds;
+
+    public BatchReport(long generated, long failed, long skipped, Duration elapsed, List<Long> failedClientIds) {
+        this.generated = generated;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.elapsed = elapsed;
+        this.failedClientIds = Collections.unmodifiableList(failedClientIds);
+    }
+
+    /**
+     * @return количество успешно сгенерированных документов
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * @return количество клиентов, для которых документ сгенерировать не удалось
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return количество клиентов, пропущенных как обработанные в прерванном ранее запуске
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public List<Long> getFailedClientIds() {
+        return failedClientIds;
+    }
+
+    /**
+     * @return скорость генерации, документов в секунду
+     */
+    public double getDocsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : generated / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReport{" +
+                "generated=" + generated +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", elapsed=" + elapsed +
+                ", docsPerSecond=" + String.format("%.1f", getDocsPerSecond()) +
+                '}';
+    }
+}
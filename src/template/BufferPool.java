@@ -0,0 +1,48 @@
+package template;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Небольшой ограниченный пул буферов рендеринга.
+ * <p>
+ * Документы рендерятся на виртуальных потоках {@code AsyncExecutor}, по потоку на задачу, поэтому буфер
+ * в {@link ThreadLocal} создавался бы заново для каждого документа. Пул хранит не больше {@code capacity}
+ * свободных буферов; если свободного нет, создается новый, а лишний при возврате отбрасывается.
+ * Слишком выросшие буферы не возвращаются, чтобы один большой документ не удерживал память.
+ */
+final class BufferPool {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private final ArrayBlockingQueue<StringBuilder> free;
+
+    /**
+     * @param capacity максимальное количество свободных буферов в пуле
+     */
+    BufferPool(int capacity) {
+        this.free = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @return пул на число процессоров: столько документов рендерится одновременно без ожидания записи
+     */
+    static BufferPool forProcessors() {
+        return new BufferPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return пустой буфер; после использования его нужно вернуть через {@link #release}
+     */
+    StringBuilder acquire() {
+        StringBuilder buffer = free.poll();
+        return buffer == null ? new StringBuilder(INITIAL_CAPACITY) : buffer;
+    }
+
+    void release(StringBuilder buffer) {
+        if (buffer.capacity() <= MAX_RETAINED_CAPACITY) {
+            buffer.setLength(0);
+            free.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package template;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разобранный шаблон документа: последовательность литеральных фрагментов и плейсхолдеров вида {name}.
+ * <p>
+ * Шаблон разбирается один раз, после чего рендеринг выполняется за один проход без промежуточных строк.
+ * Плейсхолдер, для которого не передано значение, выводится как есть.
+ */
+public class CompiledTemplate {
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Разбирает текст шаблона. Литерал всегда на один больше, чем плейсхолдеров:
+     * literal[0] {placeholder[0]} literal[1] ... {placeholder[n-1]} literal[n].
+     *
+     * @param text текст шаблона
+     * @return разобранный шаблон
+     */
+    public static CompiledTemplate compile(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Текст шаблона не может быть null");
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int open = text.indexOf('{');
+        while (open >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            int nestedOpen = text.lastIndexOf('{', close);
+            if (nestedOpen != open) {
+                // "{ ... {name}" — плейсхолдером считается только ближайшая к '}' открывающая скобка
+                open = nestedOpen;
+            }
+            literals.add(text.substring(literalStart, open));
+            placeholders.add(text.substring(open + 1, close));
+            literalStart = close + 1;
+            open = text.indexOf('{', literalStart);
+        }
+        literals.add(text.substring(literalStart));
+        return new CompiledTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * Рендерит документ в переданный буфер.
+     *
+     * @param values значения плейсхолдеров
+     * @param out    буфер, в который дописывается документ
+     */
+    public void render(Map<String, String> values, StringBuilder out) {
+        out.ensureCapacity(out.length() + literalLength + placeholders.length * 16);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            String value = values.get(placeholders[i]);
+            if (value != null) {
+                out.append(value);
+            } else {
+                out.append('{').append(placeholders[i]).append('}');
+            }
+        }
+        out.append(literals[placeholders.length]);
+    }
+
+    /**
+     * Рендерит документ в произвольный приемник символов (например, {@link java.io.Writer}).
+     *
+     * @param values значения плейсхолдеров
+     * @param out    приемник документа
+     * @throws IOException если приемник не смог принять данные
+     */
+    public void render(Map<String, String> values, Appendable out) throws IOException {
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            String value = values.get(placeholders[i]);
+            if (value != null) {
+                out.append(value);
+            } else {
+                out.append('{').append(placeholders[i]).append('}');
+            }
+        }
+        out.append(literals[placeholders.length]);
+    }
+
+    /**
+     * @return оценка длины документа без учета значений плейсхолдеров
+     */
+    public int literalLength() {
+        return literalLength;
+    }
+}
@@ -1,40 +1,437 @@
 package template;
 
+import metrics.DocumentRenderEvent;
+import models.Client;
+import repositories.ClientRepository;
+
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class DocumentGenerator {
+    private static final Logger logger = Logger.getLogger(DocumentGenerator.class.getName());
+
+    /**
+     * Как часто (в документах) сохранять прогресс пакетной генерации.
+     */
+    private static final int PROGRESS_FLUSH_EVERY = 100;
+
     private final String templatePath;
 
+    /**
+     * Как часто (в мс) проверять, изменился ли файл шаблона.
+     */
+    private final long reloadCheckIntervalMillis;
+
+    /**
+     * Разобранный шаблон вместе с отметкой файла, из которой он получен.
+     * Пересобирается, только если файл шаблона изменился.
+     */
+    private volatile CachedTemplate cachedTemplate;
+
+    /**
+     * Буферы рендеринга, переиспользуемые между документами.
+     */
+    private final BufferPool buffers = BufferPool.forProcessors();
+
     public DocumentGenerator(String templatePath) {
+        this(templatePath, 1000);
+    }
+
+    /**
+     * @param templatePath              путь к файлу шаблона
+     * @param reloadCheckIntervalMillis интервал проверки изменения файла шаблона; 0 — проверять при каждом вызове
+     */
+    public DocumentGenerator(String templatePath, long reloadCheckIntervalMillis) {
         this.templatePath = templatePath;
+        this.reloadCheckIntervalMillis = reloadCheckIntervalMillis;
     }
 
     public String generateDocument(Map<String, String> placeholders) {
+        DocumentRenderEvent render = new DocumentRenderEvent();
+        render.begin();
+        StringBuilder buffer = buffers.acquire();
         try {
-            // Чтение шаблона из файла
-            String template = new String(Files.readAllBytes(Paths.get(templatePath)));
+            compiledTemplate().render(placeholders, buffer);
+            render.finish(templatePath, null);
+            return buffer.toString();
+        } finally {
+            buffers.release(buffer);
+        }
+    }
 
-            // Замена плейсхолдеров на реальные данные
-            for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-                template = template.replace("{" + entry.getKey() + "}", entry.getValue());
-            }
+    /**
+     * Рендерит документ напрямую в приемник, не создавая промежуточную строку.
+     *
+     * @param placeholders значения плейсхолдеров
+     * @param out          приемник документа
+     * @throws IOException если приемник не смог принять данные
+     */
+    public void generateDocument(Map<String, String> placeholders, Appendable out) throws IOException {
+        DocumentRenderEvent render = new DocumentRenderEvent();
+        render.begin();
+        compiledTemplate().render(placeholders, out);
+        render.finish(templatePath, null);
+    }
 
-            return template;
+    /**
+     * Возвращает разобранный шаблон. Файл шаблона читается и разбирается только при первом обращении
+     * и после его изменения (по времени модификации и размеру); изменения файла проверяются
+     * не чаще одного раза за {@code reloadCheckIntervalMillis}.
+     *
+     * @return актуальный разобранный шаблон
+     * @throws RuntimeException если не удалось прочитать шаблон
+     */
+    public CompiledTemplate compiledTemplate() {
+        CachedTemplate cached = cachedTemplate;
+        long now = System.currentTimeMillis();
+        if (cached != null && now < cached.checkedAt + reloadCheckIntervalMillis) {
+            return cached.template;
+        }
+        Path path = Paths.get(templatePath);
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            long size = Files.size(path);
+            if (cached != null && cached.modified.equals(modified) && cached.size == size) {
+                cached.checkedAt = now;
+                return cached.template;
+            }
+            synchronized (this) {
+                cached = cachedTemplate;
+                if (cached != null && cached.modified.equals(modified) && cached.size == size) {
+                    return cached.template;
+                }
+                String text = Files.readString(path, StandardCharsets.UTF_8);
+                CompiledTemplate template = CompiledTemplate.compile(text);
+                cachedTemplate = new CachedTemplate(template, modified, size, now);
+                return template;
+            }
         } catch (IOException e) {
             throw new RuntimeException("Ошибка при чтении шаблона: " + e.getMessage(), e);
         }
     }
 
-    public void saveDocument(String content, String outputPath) {
+    /**
+     * Значения плейсхолдеров договора для клиента.
+     *
+     * @param client клиент
+     * @return значения плейсхолдеров name, email, phone и address
+     */
+    public static Map<String, String> placeholders(Client client) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("name", client.getName());
+        placeholders.put("email", client.getEmail());
+        placeholders.put("phone", client.getPhone());
+        placeholders.put("address", client.getAddress());
+        return placeholders;
+    }
+
+    /**
+     * Пакетно генерирует договоры для всех клиентов репозитория.
+     * <p>
+     * Клиенты читаются потоково и передаются через ограниченную очередь {@code concurrency} потокам,
+     * которые рендерят и записывают документы; при заполнении очереди чтение приостанавливается.
+     * Номер последнего клиента, до которого все документы готовы, периодически сохраняется
+     * в {@code progressFileName}. Если генерация была прервана, повторный запуск пропускает уже обработанных
+     * клиентов (порядок строк файла клиентов должен сохраняться). После полного завершения файл прогресса удаляется.
+     *
+     * @param clientRepository репозиторий клиентов
+     * @param outputDirectory  каталог для документов
+     * @param concurrency      количество потоков генерации и одновременно записываемых файлов
+     * @param progressFileName файл прогресса для возобновления
+     * @return итог генерации
+     * @throws IllegalStateException если генерация была прервана; прогресс при этом сохраняется
+     */
+    public BatchReport generateBatch(ClientRepository clientRepository, String outputDirectory,
+                                     int concurrency, String progressFileName) {
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("Параметры пакетной генерации не могут быть null");
+        }
+        return generateBatch(clientRepository, new FileDocumentSink(outputDirectory), concurrency, progressFileName);
+    }
+
+    /**
+     * Пакетно генерирует договоры для всех клиентов репозитория в переданный приемник.
+     * Приемник не закрывается. Для возобновления прерванной генерации нужен приемник, сохраняющий
+     * уже записанные документы между запусками (каталог или {@link PackDocumentSink}, но не {@link ZipDocumentSink}).
+     *
+     * @param clientRepository репозиторий клиентов
+     * @param sink             приемник документов
+     * @param concurrency      количество потоков генерации
+     * @param progressFileName файл прогресса для возобновления
+     * @return итог генерации
+     * @throws IllegalStateException если генерация была прервана; прогресс при этом сохраняется
+     * @see #generateBatch(ClientRepository, String, int, String)
+     */
+    public BatchReport generateBatch(ClientRepository clientRepository, DocumentSink sink,
+                                     int concurrency, String progressFileName) {
+        if (clientRepository == null || sink == null || progressFileName == null) {
+            throw new IllegalArgumentException("Параметры пакетной генерации не могут быть null");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным");
+        }
+
+        BatchProgress progress = new BatchProgress(Paths.get(progressFileName));
+        long resumeFrom = progress.watermark;
+        AtomicLong generated = new AtomicLong();
+        List<Long> failedIds = Collections.synchronizedList(new ArrayList<>());
+        BlockingQueue<BatchItem> queue = new ArrayBlockingQueue<>(concurrency * 4);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                try {
+                    BatchItem item;
+                    while ((item = queue.take()) != BatchItem.END) {
+                        Client client = item.client;
+                        boolean written = false;
+                        try {
+                            writeDocument(placeholders(client), contractName(client), sink);
+                            generated.incrementAndGet();
+                            written = true;
+                        } catch (IOException | RuntimeException e) {
+                            failedIds.add(client.getId());
+                            logger.log(Level.WARNING, "Ошибка при генерации договора клиента " + client.getId() + ": " + e.getMessage(), e);
+                        }
+                        progress.completed(item.sequence, written);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        long[] sequence = {0};
+        boolean finished = false;
         try {
-            // Сохранение документа в файл
-            Files.write(Paths.get(outputPath), content.getBytes());
-            System.out.println("Документ сохранен в " + outputPath);
+            try {
+                clientRepository.forEachClient(client -> {
+                    long current = sequence[0]++;
+                    if (current < resumeFrom && !progress.isRetry(current)) {
+                        return;
+                    }
+                    try {
+                        queue.put(new BatchItem(current, client));
+                    } catch (InterruptedException e) {
+                        throw new BatchInterruptedException(e);
+                    }
+                });
+                for (int i = 0; i < concurrency; i++) {
+                    queue.put(BatchItem.END);
+                }
+                workers.shutdown();
+                while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    logger.fine("Ожидание завершения пакетной генерации");
+                }
+                finished = true;
+            } catch (BatchInterruptedException e) {
+                throw (InterruptedException) e.getCause();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Пакетная генерация прервана, обработано клиентов: " + progress.watermark, e);
+        } finally {
+            // При любом аварийном выходе (прерывание, ошибка чтения клиентов) останавливаем потоки пула,
+            // иначе они остались бы ждать очередь, и сохраняем прогресс для возобновления
+            if (!finished) {
+                workers.shutdownNow();
+                progress.flush();
+            }
+        }
+
+        progress.finish();
+        BatchReport report = new BatchReport(generated.get(), failedIds.size(), resumeFrom - progress.retryCount(),
+                Duration.ofNanos(System.nanoTime() - start), new ArrayList<>(failedIds));
+        logger.info("Пакетная генерация договоров завершена: " + report);
+        return report;
+    }
+
+    /**
+     * Рендерит документ и записывает его в приемник под указанным именем.
+     *
+     * @param placeholders значения плейсхолдеров
+     * @param name         имя документа в приемнике
+     * @param sink         приемник документов
+     * @throws IOException если документ не удалось записать
+     */
+    public void writeDocument(Map<String, String> placeholders, String name, DocumentSink sink) throws IOException {
+        DocumentRenderEvent render = new DocumentRenderEvent();
+        render.begin();
+        CompiledTemplate template = compiledTemplate();
+        sink.write(name, out -> template.render(placeholders, out));
+        render.finish(templatePath, name);
+    }
+
+    /**
+     * @param client клиент
+     * @return имя документа договора клиента
+     */
+    public static String contractName(Client client) {
+        return "sales_contract_" + client.getId() + ".txt";
+    }
+
+    public void saveDocument(String content, String outputPath) {
+        // Сохранение документа в файл, потоково и в UTF-8 независимо от кодировки платформы
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+            writer.write(content);
         } catch (IOException e) {
             throw new RuntimeException("Ошибка при сохранении документа: " + e.getMessage(), e);
         }
+        System.out.println("Документ сохранен в " + outputPath);
+    }
+
+    private static final class BatchItem {
+        private static final BatchItem END = new BatchItem(-1, null);
+
+        private final long sequence;
+        private final Client client;
+
+        private BatchItem(long sequence, Client client) {
+            this.sequence = sequence;
+            this.client = client;
+        }
+    }
+
+    /**
+     * Прерывание чтения клиентов, пробрасываемое через обработчик репозитория.
+     */
+    private static final class BatchInterruptedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private BatchInterruptedException(InterruptedException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Прогресс пакетной генерации: watermark — количество клиентов от начала файла,
+     * для которых обработка завершена без пропусков. Документы завершаются не по порядку,
+     * поэтому номера, завершенные раньше watermark, временно хранятся в множестве.
+     * Номера клиентов, договор которых не удалось записать, сохраняются в файле прогресса
+     * после watermark (по строке на номер), и возобновленный запуск генерирует их повторно.
+     */
+    private static final class BatchProgress {
+        private final Path file;
+        private final TreeSet<Long> completedAhead = new TreeSet<>();
+        private final TreeSet<Long> failed = new TreeSet<>();
+        private final Set<Long> retry;
+        private long watermark;
+        private int sinceFlush;
+
+        private BatchProgress(Path file) {
+            this.file = file;
+            if (Files.exists(file)) {
+                try {
+                    List<String> lines = Files.readAllLines(file);
+                    long loadedWatermark = Long.parseLong(lines.get(0).trim());
+                    for (String line : lines.subList(1, lines.size())) {
+                        if (!line.isBlank()) {
+                            failed.add(Long.parseLong(line.trim()));
+                        }
+                    }
+                    this.watermark = loadedWatermark;
+                    logger.info("Возобновление пакетной генерации с клиента №" + watermark
+                            + ", повторно генерируется ошибочных: " + failed.size());
+                } catch (IOException | RuntimeException e) {
+                    failed.clear();
+                    logger.warning("Некорректный файл прогресса " + file + ", генерация начнется сначала");
+                }
+            }
+            this.retry = Set.copyOf(failed);
+        }
+
+        /**
+         * @return true, если клиент до watermark не был обработан в прошлом запуске и генерируется повторно
+         */
+        private boolean isRetry(long sequence) {
+            return retry.contains(sequence);
+        }
+
+        private int retryCount() {
+            return retry.size();
+        }
+
+        private synchronized void completed(long sequence, boolean written) {
+            if (written) {
+                failed.remove(sequence);
+            } else {
+                failed.add(sequence);
+            }
+            if (retry.contains(sequence)) {
+                // Повтор из прошлого запуска уже находится ниже watermark
+                return;
+            }
+            if (sequence == watermark) {
+                watermark++;
+                while (completedAhead.remove(watermark)) {
+                    watermark++;
+                }
+            } else {
+                completedAhead.add(sequence);
+            }
+            if (++sinceFlush >= PROGRESS_FLUSH_EVERY) {
+                flush();
+            }
+        }
+
+        private synchronized void flush() {
+            sinceFlush = 0;
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                StringBuilder content = new StringBuilder().append(watermark).append('\n');
+                for (Long sequence : failed) {
+                    content.append(sequence).append('\n');
+                }
+                Files.writeString(temp, content);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка при сохранении прогресса генерации: " + e.getMessage(), e);
+            }
+        }
+
+        private synchronized void finish() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка при удалении файла прогресса: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class CachedTemplate {
+        private final CompiledTemplate template;
+        private final FileTime modified;
+        private final long size;
+        private volatile long checkedAt;
+
+        private CachedTemplate(CompiledTemplate template, FileTime modified, long size, long checkedAt) {
+            this.template = template;
+            this.modified = modified;
+            this.size = size;
+            this.checkedAt = checkedAt;
+        }
     }
 }
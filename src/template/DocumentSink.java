@@ -0,0 +1,30 @@
+package template;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Приемник сгенерированных документов: отдельные файлы, ZIP-архив или pack-файл с индексом.
+ * <p>
+ * Документ передается как {@link DocumentBody}, который рендерит содержимое в предоставленный приемником буфер.
+ * Все реализации записывают текст в UTF-8 и потокобезопасны.
+ */
+public interface DocumentSink extends Closeable {
+
+    /**
+     * Записывает документ.
+     *
+     * @param name имя документа (имя файла или записи архива)
+     * @param body содержимое документа
+     * @throws IOException если документ не удалось записать
+     */
+    void write(String name, DocumentBody body) throws IOException;
+
+    /**
+     * Содержимое документа, рендерящееся в приемник символов.
+     */
+    @FunctionalInterface
+    interface DocumentBody {
+        void writeTo(Appendable out) throws IOException;
+    }
+}
@@ -0,0 +1,31 @@
+package template;
+
+/**
+ * Общие проверки для реализаций {@link DocumentSink}.
+ */
+final class DocumentSinks {
+
+    private DocumentSinks() {
+    }
+
+    /**
+     * Проверяет имя документа: оно не может быть пустым, содержать разделители каталогов,
+     * разделитель индекса '|' или перевод строки.
+     *
+     * @param name имя документа
+     * @return то же имя
+     * @throws IllegalArgumentException если имя некорректно
+     */
+    static String checkName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Имя документа не может быть пустым");
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '/' || c == '\\' || c == '|' || c == '\n' || c == '\r') {
+                throw new IllegalArgumentException("Недопустимый символ в имени документа: " + name);
+            }
+        }
+        return name;
+    }
+}
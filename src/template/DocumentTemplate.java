@@ -3,24 +3,40 @@ package template;
 
 import models.Client;
 
+import java.io.IOException;
+
 public abstract class DocumentTemplate {
+    public final void createDocument(Client client, DocumentSink sink) throws IOException {
+        saveDocument(client, sink);
+    }
+
+    /**
+     * Рендерит документ в переданный приемник. Приемник можно переиспользовать между документами,
+     * например, очищая один и тот же {@link StringBuilder}.
+     *
+     * @param client клиент
+     * @param out    приемник документа
+     * @throws IOException если приемник не смог принять данные
+     */
     // Шаблонный метод
-    public final void createDocument(Client client) {
-        addHeader();
-        addClientDetails(client);
-        addTerms();
-        addFooter();
-        saveDocument();
+    public final void render(Client client, Appendable out) throws IOException {
+        addHeader(out);
+        addClientDetails(client, out);
+        addTerms(out);
+        addFooter(out);
     }
 
     // Шаги, которые должны быть реализованы в подклассах
-    protected abstract void addHeader();
-    protected abstract void addClientDetails(Client client);
-    protected abstract void addTerms();
-    protected abstract void addFooter();
-
-    // Общий метод для сохранения документа
-    protected void saveDocument() {
-        System.out.println("Документ сохранен.");
+    protected abstract void addHeader(Appendable out) throws IOException;
+    protected abstract void addClientDetails(Client client, Appendable out) throws IOException;
+    protected abstract void addTerms(Appendable out) throws IOException;
+    protected abstract void addFooter(Appendable out) throws IOException;
+
+    // Имя документа в приемнике
+    protected abstract String documentName(Client client);
+
+    // Общий метод для сохранения документа: тот же приемник, что и у DocumentGenerator
+    protected void saveDocument(Client client, DocumentSink sink) throws IOException {
+        sink.write(documentName(client), out -> render(client, out));
     }
 }
@@ -0,0 +1,47 @@
+package template;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Записывает каждый документ в отдельный файл каталога, потоково и в UTF-8.
+ */
+public class FileDocumentSink implements DocumentSink {
+
+    private final Path directory;
+
+    /**
+     * @param directory каталог для документов; создается при необходимости
+     * @throws UncheckedIOException если каталог не удалось создать
+     */
+    public FileDocumentSink(String directory) {
+        this.directory = Paths.get(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при создании каталога документов: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void write(String name, DocumentBody body) throws IOException {
+        Path file = directory.resolve(DocumentSinks.checkName(name));
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            body.writeTo(writer);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return "FileDocumentSink{" + directory + '}';
+    }
+}
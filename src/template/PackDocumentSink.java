@@ -0,0 +1,322 @@
+package template;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Складывает документы в один файл данных {@code <name>.pack} с таблицей смещений {@code <name>.idx}.
+ * <p>
+ * Формат индекса: строки {@code имя|смещение|длина в байтах}. Документы только дописываются в конец:
+ * сначала данные, затем строка индекса, поэтому после сбоя хвост данных без строки индекса отбрасывается
+ * при следующем открытии. Повторная запись документа с тем же именем заменяет его в индексе,
+ * а старые байты остаются в файле данных мертвыми ({@link #deadBytes()}): например, повторная генерация
+ * всех договоров увеличивает pack-файл на полную копию. {@link #compact()} переписывает только живые
+ * документы; при открытии это делается автоматически, если мертвых байтов больше, чем живых.
+ * Любой документ читается по имени одним позиционным чтением без просмотра остальных.
+ * <p>
+ * Уплотнение пишет новый файл данных {@code <name>.pack.tmp} и индекс, затем переименовывает индекс
+ * в {@code <name>.idx.compact} — с этого момента уплотнение считается состоявшимся — и заменяет
+ * им и новым файлом данных старые. Открытие после сбоя доводит состоявшееся уплотнение до конца,
+ * а незавершенное отбрасывает.
+ */
+public class PackDocumentSink implements DocumentSink {
+
+    private static final Logger logger = Logger.getLogger(PackDocumentSink.class.getName());
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final Path compactDataFile;
+    private final Path compactIndexFile;
+    private final Path committedIndexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final BufferPool buffers = BufferPool.forProcessors();
+    // Файлы переоткрываются после уплотнения; запись, чтение и уплотнение идут под монитором объекта
+    private FileChannel data;
+    private BufferedWriter index;
+    private long end;
+    private long liveBytes;
+
+    /**
+     * Открывает pack-файл, создавая его при необходимости.
+     *
+     * @param packName путь к pack-файлу без расширения
+     * @throws IOException если файлы не удалось открыть или восстановить
+     */
+    public PackDocumentSink(String packName) throws IOException {
+        this.dataFile = Paths.get(packName + ".pack");
+        this.indexFile = Paths.get(packName + ".idx");
+        this.compactDataFile = Paths.get(packName + ".pack.tmp");
+        this.compactIndexFile = Paths.get(packName + ".idx.tmp");
+        this.committedIndexFile = Paths.get(packName + ".idx.compact");
+        recoverCompaction();
+        this.data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            loadIndex();
+            if (data.size() > end) {
+                logger.warning("Отброшен хвост pack-файла без записи в индексе: " + (data.size() - end) + " байт");
+                data.truncate(end);
+            }
+            this.index = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (end - liveBytes > liveBytes) {
+                compactFiles();
+            }
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(String name, DocumentBody body) throws IOException {
+        DocumentSinks.checkName(name);
+        StringBuilder buffer = buffers.acquire();
+        ByteBuffer bytes;
+        try {
+            body.writeTo(buffer);
+            bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(buffer));
+        } finally {
+            buffers.release(buffer);
+        }
+        int length = bytes.remaining();
+        synchronized (this) {
+            long offset = end;
+            long position = offset;
+            while (bytes.hasRemaining()) {
+                position += data.write(bytes, position);
+            }
+            end = position;
+            index.write(name + "|" + offset + "|" + length);
+            index.newLine();
+            index.flush();
+            Entry previous = entries.put(name, new Entry(offset, length));
+            liveBytes += length - (previous == null ? 0 : previous.length);
+        }
+    }
+
+    /**
+     * Читает документ по имени.
+     *
+     * @param name имя документа
+     * @return текст документа или пустой Optional, если документа нет
+     * @throws IOException если данные не удалось прочитать
+     */
+    public synchronized Optional<String> read(String name) throws IOException {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        long position = entry.offset;
+        while (buffer.hasRemaining()) {
+            int read = data.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Pack-файл поврежден: документ " + name + " выходит за конец данных");
+            }
+            position += read;
+        }
+        buffer.flip();
+        return Optional.of(StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+
+    /**
+     * @return имена документов в pack-файле в алфавитном порядке
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(new TreeSet<>(entries.keySet()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return байты файла данных, занятые замененными документами
+     */
+    public synchronized long deadBytes() {
+        return end - liveBytes;
+    }
+
+    /**
+     * Переписывает pack-файл, оставляя только документы из индекса, и освобождает место замененных версий.
+     *
+     * @return количество освобожденных байтов
+     * @throws IOException если файлы не удалось переписать; до переименования индекса старые файлы
+     *                     остаются в силе, после него уплотнение будет завершено при следующем открытии
+     */
+    public synchronized long compact() throws IOException {
+        return compactFiles();
+    }
+
+    private long compactFiles() throws IOException {
+        long reclaimed = end - liveBytes;
+        if (reclaimed == 0) {
+            return 0;
+        }
+        List<Map.Entry<String, Entry>> live = new ArrayList<>(entries.entrySet());
+        live.sort((left, right) -> Long.compare(left.getValue().offset, right.getValue().offset));
+        Map<String, Entry> moved = new HashMap<>();
+        long position = 0;
+        try (FileChannel target = FileChannel.open(compactDataFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             BufferedWriter targetIndex = Files.newBufferedWriter(compactIndexFile, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : live) {
+                Entry source = entry.getValue();
+                long copied = 0;
+                while (copied < source.length) {
+                    copied += data.transferTo(source.offset + copied, source.length - copied, target);
+                }
+                moved.put(entry.getKey(), new Entry(position, source.length));
+                targetIndex.write(entry.getKey() + "|" + position + "|" + source.length);
+                targetIndex.newLine();
+                position += source.length;
+            }
+            target.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(compactDataFile);
+            Files.deleteIfExists(compactIndexFile);
+            throw e;
+        }
+        Files.move(compactIndexFile, committedIndexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index.close();
+        data.close();
+        finishCompaction();
+        data = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        entries.putAll(moved);
+        end = position;
+        liveBytes = position;
+        logger.info("Pack-файл " + dataFile + " уплотнен, освобождено байт: " + reclaimed);
+        return reclaimed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeFiles();
+    }
+
+    private void closeFiles() throws IOException {
+        try {
+            if (index != null) {
+                index.close();
+            }
+        } finally {
+            data.close();
+        }
+    }
+
+    /**
+     * Доводит до конца уплотнение, прерванное после переименования индекса, или отбрасывает незавершенное.
+     */
+    private void recoverCompaction() throws IOException {
+        if (Files.exists(committedIndexFile)) {
+            logger.warning("Завершается прерванное уплотнение pack-файла " + dataFile);
+            finishCompaction();
+        }
+        Files.deleteIfExists(compactDataFile);
+        Files.deleteIfExists(compactIndexFile);
+    }
+
+    private void finishCompaction() throws IOException {
+        if (Files.exists(compactDataFile)) {
+            Files.move(compactDataFile, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(committedIndexFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Загружает индекс. Строки, указывающие за конец данных, и недописанная последняя строка
+     * считаются следами сбоя: индекс перезаписывается без них.
+     */
+    private void loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        long dataSize = data.size();
+        List<String> validLines = new ArrayList<>();
+        // Последняя строка без перевода строки могла быть оборвана посередине числа и разобраться
+        // в неверное смещение или длину, поэтому она отбрасывается без разбора
+        boolean truncated = endsWithoutNewline();
+        boolean damaged = truncated;
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                if (next == null && truncated) {
+                    logger.warning("Отброшена недописанная строка индекса pack-файла: " + line);
+                    break;
+                }
+                String[] parts = line.split("\\|");
+                try {
+                    if (parts.length != 3) {
+                        throw new NumberFormatException(line);
+                    }
+                    long offset = Long.parseLong(parts[1]);
+                    int length = Integer.parseInt(parts[2]);
+                    if (offset < 0 || length < 0 || offset + length > dataSize) {
+                        throw new NumberFormatException(line);
+                    }
+                    Entry previous = entries.put(parts[0], new Entry(offset, length));
+                    liveBytes += length - (previous == null ? 0 : previous.length);
+                    end = Math.max(end, offset + length);
+                    validLines.add(line);
+                } catch (NumberFormatException e) {
+                    logger.warning("Пропущена поврежденная строка индекса pack-файла: " + line);
+                    damaged = true;
+                }
+                line = next;
+            }
+        }
+        if (damaged) {
+            Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            Files.write(temp, validLines, StandardCharsets.UTF_8);
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private boolean endsWithoutNewline() throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return false;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) != '\n';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PackDocumentSink{" + dataFile + '}';
+    }
+
+    private static final class Entry {
+        private final long offset;
+        private final int length;
+
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -3,29 +3,37 @@ package template;
 
 import models.Client;
 
+import java.io.IOException;
+
 public class SalesContractTemplate extends DocumentTemplate{
     @Override
-    protected void addHeader() {
-        System.out.println("=== Договор продаж ===");
+    protected void addHeader(Appendable out) throws IOException {
+        out.append("=== Договор продаж ===\n");
+    }
+
+    @Override
+    protected void addClientDetails(Client client, Appendable out) throws IOException {
+        out.append("Клиент: ").append(client.getName()).append('\n');
+        out.append("Email: ").append(client.getEmail()).append('\n');
+        out.append("Телефон: ").append(client.getPhone()).append('\n');
+        out.append("Адрес: ").append(client.getAddress()).append('\n');
     }
 
     @Override
-    protected void addClientDetails(Client client) {
-        System.out.println("Клиент: " + client.getName());
-        System.out.println("Email: " + client.getEmail());
-        System.out.println("Телефон: " + client.getPhone());
-        System.out.println("Адрес: " + client.getAddress());
+    protected void addTerms(Appendable out) throws IOException {
+        out.append("Условия:\n");
+        out.append("1. Оплата в течение 30 дней.\n");
+        out.append("2. Доставка в течение 5 рабочих дней.\n");
     }
 
     @Override
-    protected void addTerms() {
-        System.out.println("Условия:");
-        System.out.println("1. Оплата в течение 30 дней.");
-        System.out.println("2. Доставка в течение 5 рабочих дней.");
+    protected void addFooter(Appendable out) throws IOException {
+        out.append("Подпись: _______________\n");
     }
 
+    // Собственный префикс: договор по шаблону не должен заменять в приемнике договор из DocumentGenerator
     @Override
-    protected void addFooter() {
-        System.out.println("Подпись: _______________");
+    protected String documentName(Client client) {
+        return "sales_contract_template_" + client.getId() + ".txt";
     }
 }
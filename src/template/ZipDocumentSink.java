@@ -0,0 +1,63 @@
+package template;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Складывает документы в один ZIP-архив.
+ * <p>
+ * Архив создается заново при открытии. Документ сначала рендерится в буфер из пула,
+ * поэтому под блокировкой архива выполняется только сжатие и запись готового текста.
+ */
+public class ZipDocumentSink implements DocumentSink {
+
+    private final Path file;
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final BufferPool buffers = BufferPool.forProcessors();
+
+    /**
+     * @param fileName путь к архиву
+     * @throws IOException если архив не удалось создать
+     */
+    public ZipDocumentSink(String fileName) throws IOException {
+        this.file = Paths.get(fileName);
+        this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8);
+        this.writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(String name, DocumentBody body) throws IOException {
+        ZipEntry entry = new ZipEntry(DocumentSinks.checkName(name));
+        StringBuilder buffer = buffers.acquire();
+        try {
+            body.writeTo(buffer);
+            synchronized (this) {
+                zip.putNextEntry(entry);
+                writer.append(buffer);
+                writer.flush();
+                zip.closeEntry();
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ZipDocumentSink{" + file + '}';
+    }
+}
@@ -0,0 +1,129 @@
+package util;
+
+import metrics.ExecutorQueueEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Общий исполнитель асинхронных операций: каждая задача выполняется в собственном виртуальном потоке.
+ * <p>
+ * Количество одновременно выполняющихся задач ограничено {@code maxConcurrency}; остальные ждут разрешения,
+ * не занимая потоков платформы. Исполнитель один на приложение и закрывается его владельцем.
+ */
+public class AsyncExecutor implements Executor, AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(AsyncExecutor.class.getName());
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * @param name           префикс имени виртуальных потоков
+     * @param maxConcurrency максимальное количество одновременно выполняющихся задач
+     * @throws IllegalArgumentException если maxConcurrency не положителен
+     */
+    public AsyncExecutor(String name, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Ограничение параллельности должно быть положительным");
+        }
+        this.name = name;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Выполняет задачу асинхронно и возвращает её результат.
+     *
+     * @param task задача
+     * @return future, завершающийся результатом задачи или её исключением
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                ExecutorQueueEvent.emit(name, submitted);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Выполняет действие асинхронно.
+     *
+     * @param task действие
+     * @return future, завершающийся после выполнения действия
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет действие без ожидания результата; исключения действия записываются в журнал.
+     */
+    @Override
+    public void execute(Runnable command) {
+        run(command).whenComplete((result, error) -> {
+            if (error != null) {
+                logger.log(Level.SEVERE, "Ошибка при выполнении асинхронной задачи: " + error.getMessage(), error);
+            }
+        });
+    }
+
+    /**
+     * @return количество задач, выполняющихся в данный момент
+     */
+    public int activeCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Прекращает прием новых задач; уже принятые задачи выполняются до конца.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Прекращает прием задач и ожидает завершения уже принятых.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,50 @@
+package util;
+
+/**
+ * Результат доставки одного письма пачки, возвращаемый {@link MailTransport}.
+ */
+public final class DeliveryResult {
+
+    private final OutboxMail mail;
+    private final String error;
+
+    private DeliveryResult(OutboxMail mail, String error) {
+        this.mail = mail;
+        this.error = error;
+    }
+
+    /**
+     * @param mail доставленное письмо
+     */
+    public static DeliveryResult delivered(OutboxMail mail) {
+        return new DeliveryResult(mail, null);
+    }
+
+    /**
+     * @param mail   недоставленное письмо
+     * @param reason причина ошибки
+     */
+    public static DeliveryResult failed(OutboxMail mail, String reason) {
+        return new DeliveryResult(mail, reason == null ? "неизвестная ошибка" : reason);
+    }
+
+    public OutboxMail getMail() {
+        return mail;
+    }
+
+    public boolean isDelivered() {
+        return error == null;
+    }
+
+    /**
+     * @return причина ошибки или null, если письмо доставлено
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryResult{" + mail.getId() + (error == null ? ", доставлено" : ", ошибка=" + error) + '}';
+    }
+}
@@ -0,0 +1,191 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Объединяет уведомления одному получателю в сводку.
+ * <p>
+ * Первое уведомление получателю открывает окно длиной {@code windowMillis}; все уведомления, пришедшие
+ * в это окно, отправляются через исходный {@link MailUtil} одним письмом. Одинаковые тексты в окне
+ * отправляются один раз. Если в окне одно уведомление, оно уходит без изменений.
+ * <p>
+ * Память ограничена: в сводке хранится не больше {@code maxMessagesPerDigest} текстов (остальные только
+ * подсчитываются), а открытых окон — не больше {@code maxRecipients}; уведомление новому получателю
+ * сверх этого предела отправляется сразу.
+ */
+public class DigestMailUtil implements MailUtil, AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(DigestMailUtil.class.getName());
+
+    private final MailUtil delegate;
+    private final HashedWheelTimer timer;
+    private final long windowMillis;
+    private final int maxMessagesPerDigest;
+    private final int maxRecipients;
+    private final Map<String, Digest> digests = new ConcurrentHashMap<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * @param delegate             утилита, через которую отправляются сводки
+     * @param timer                таймер, закрывающий окна; останавливается в {@link #close()}
+     * @param windowMillis         длина окна объединения, мс
+     * @param maxMessagesPerDigest максимальное количество различных текстов в одной сводке
+     * @param maxRecipients        максимальное количество одновременно открытых окон
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public DigestMailUtil(MailUtil delegate, HashedWheelTimer timer, long windowMillis,
+                          int maxMessagesPerDigest, int maxRecipients) {
+        if (delegate == null || timer == null) {
+            throw new IllegalArgumentException("Утилита отправки и таймер не могут быть null");
+        }
+        if (windowMillis <= 0 || maxMessagesPerDigest <= 0 || maxRecipients <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры объединения уведомлений");
+        }
+        this.delegate = delegate;
+        this.timer = timer;
+        this.windowMillis = windowMillis;
+        this.maxMessagesPerDigest = maxMessagesPerDigest;
+        this.maxRecipients = maxRecipients;
+    }
+
+    @Override
+    public void sendMail(String email, String text) {
+        if (email == null || text == null) {
+            throw new IllegalArgumentException("Email и текст сообщения не могут быть null");
+        }
+        received.incrementAndGet();
+        while (true) {
+            Digest digest = digests.get(email);
+            if (digest == null) {
+                if (digests.size() >= maxRecipients) {
+                    send(email, text);
+                    return;
+                }
+                Digest created = new Digest();
+                digest = digests.putIfAbsent(email, created);
+                if (digest == null) {
+                    created.add(text, maxMessagesPerDigest);
+                    timer.schedule(() -> flush(email, created), System.currentTimeMillis() + windowMillis);
+                    return;
+                }
+            }
+            if (digest.add(text, maxMessagesPerDigest)) {
+                return;
+            }
+            // Окно уже закрывается: повторяем с новым окном
+        }
+    }
+
+    /**
+     * @return количество открытых окон
+     */
+    public int pendingRecipients() {
+        return digests.size();
+    }
+
+    /**
+     * @return количество принятых уведомлений
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return количество фактически отправленных писем
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Отправляет все накопленные сводки, не дожидаясь окончания окон, и останавливает таймер.
+     */
+    @Override
+    public void close() {
+        timer.stop();
+        for (Map.Entry<String, Digest> entry : digests.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void flush(String email, Digest digest) {
+        if (!digests.remove(email, digest)) {
+            return;
+        }
+        String text = digest.close();
+        if (text != null) {
+            send(email, text);
+        }
+    }
+
+    private void send(String email, String text) {
+        try {
+            delegate.sendMail(email, text);
+            sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Ошибка при отправке уведомления на " + email + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Уведомления одному получателю в пределах окна.
+     */
+    private static final class Digest {
+        private final Set<String> messages = new LinkedHashSet<>();
+        private int duplicates;
+        private int overflow;
+        private boolean closed;
+
+        /**
+         * @return false, если окно уже закрыто и уведомление нужно добавить в новое
+         */
+        private synchronized boolean add(String text, int maxMessages) {
+            if (closed) {
+                return false;
+            }
+            if (messages.contains(text)) {
+                duplicates++;
+            } else if (messages.size() < maxMessages) {
+                messages.add(text);
+            } else {
+                overflow++;
+            }
+            return true;
+        }
+
+        /**
+         * Закрывает окно и собирает текст письма.
+         */
+        private synchronized String close() {
+            closed = true;
+            if (messages.isEmpty()) {
+                return null;
+            }
+            if (messages.size() == 1 && overflow == 0) {
+                return messages.iterator().next();
+            }
+            List<String> lines = new ArrayList<>(messages);
+            StringBuilder text = new StringBuilder("Сводка уведомлений (")
+                    .append(lines.size() + overflow).append("):\n");
+            for (String line : lines) {
+                text.append("- ").append(line).append('\n');
+            }
+            if (overflow > 0) {
+                text.append("...и еще ").append(overflow).append(" уведомлений\n");
+            }
+            if (duplicates > 0) {
+                text.append("Повторяющихся уведомлений пропущено: ").append(duplicates).append('\n');
+            }
+            return text.toString();
+        }
+    }
+}
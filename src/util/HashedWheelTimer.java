@@ -0,0 +1,261 @@
+package util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Таймер на основе хешированного колеса.
+ * <p>
+ * Колесо состоит из {@code wheelSize} ячеек, каждая соответствует одному тику длительностью {@code tickMillis}.
+ * Постановка и отмена выполняются за O(1): задача кладется в неблокирующую очередь, а рабочий поток
+ * раз в тик переносит новые задачи в ячейки колеса и запускает наступившие. Сроки дальше одного оборота
+ * колеса хранятся с количеством оставшихся оборотов. Точность срабатывания — один тик.
+ */
+public class HashedWheelTimer implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(HashedWheelTimer.class.getName());
+
+    private final long tickMillis;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor callbackExecutor;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Thread worker;
+    private final long startMillis;
+    private long tick;
+
+    /**
+     * @param tickMillis       длительность тика в миллисекундах
+     * @param wheelSize        количество ячеек колеса (округляется до степени двойки)
+     * @param callbackExecutor исполнитель, на котором запускаются наступившие задачи
+     * @param threadName       имя рабочего потока таймера
+     * @throws IllegalArgumentException если tickMillis или wheelSize не положительны
+     */
+    public HashedWheelTimer(long tickMillis, int wheelSize, Executor callbackExecutor, String threadName) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Длительность тика и размер колеса должны быть положительными");
+        }
+        if (callbackExecutor == null) {
+            throw new IllegalArgumentException("Исполнитель задач не может быть null");
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.callbackExecutor = callbackExecutor;
+        this.startMillis = System.currentTimeMillis();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Планирует задачу на указанный момент. Задачи с прошедшим сроком запускаются на ближайшем тике.
+     *
+     * @param task           задача
+     * @param deadlineMillis момент запуска в миллисекундах эпохи
+     * @return дескриптор для отмены
+     * @throws IllegalStateException если таймер остановлен
+     */
+    public Timeout schedule(Runnable task, long deadlineMillis) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не может быть null");
+        }
+        if (!running.get()) {
+            throw new IllegalStateException("Таймер остановлен");
+        }
+        Timeout timeout = new Timeout(this, task, deadlineMillis);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return количество задач, ожидающих запуска
+     */
+    public int pendingCount() {
+        int count = pendingTimeouts.size();
+        synchronized (wheel) {
+            for (Bucket bucket : wheel) {
+                count += bucket.size;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Останавливает рабочий поток; незапущенные задачи отбрасываются.
+     */
+    public void stop() {
+        if (running.compareAndSet(true, false)) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void run() {
+        while (running.get()) {
+            long deadline = startMillis + (tick + 1) * tickMillis;
+            long sleep = deadline - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running.get()) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            synchronized (wheel) {
+                removeCancelled();
+                transferPending();
+                expire(wheel[(int) (tick & mask)]);
+            }
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long ticks = Math.max(tick, (timeout.deadlineMillis - startMillis) / tickMillis);
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.cancelled) {
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                Runnable task = timeout.task;
+                try {
+                    callbackExecutor.execute(() -> {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            logger.log(Level.WARNING, "Ошибка при выполнении задачи таймера: " + e.getMessage(), e);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Не удалось запустить задачу таймера: " + e.getMessage(), e);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Дескриптор запланированной задачи.
+     */
+    public static final class Timeout {
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineMillis;
+        private volatile boolean cancelled;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadlineMillis) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Отменяет задачу, если она еще не запущена.
+         */
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                timer.cancelledTimeouts.add(this);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Ячейка колеса: двусвязный список задач для удаления за O(1).
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        private int size;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+            size++;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+            size--;
+        }
+    }
+}
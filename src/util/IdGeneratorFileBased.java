@@ -1,6 +1,10 @@
 package util;
 
+import metrics.LockWaitEvent;
+
 import java.io.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class IdGeneratorFileBased implements IdGenerator {
     private final ReentrantLock lock = new ReentrantLock();
@@ -45,7 +49,10 @@ public class IdGeneratorFileBased implements IdGenerator {
 
     @Override
     public Long nextId() {
+        LockWaitEvent lockWait = new LockWaitEvent();
+        lockWait.begin();
         lock.lock();
+        lockWait.finish(fileName);
         try {
             Long oldId = findOldId();
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
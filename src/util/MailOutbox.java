@@ -0,0 +1,642 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Надежная очередь исходящих писем.
+ * <p>
+ * {@link #sendMail} только дописывает письмо в файл очереди {@code <name>.queue} и сразу возвращает управление.
+ * Отдельный поток доставки забирает готовые письма, группирует их по домену получателя в пачки
+ * и передает в {@link MailTransport}. Для каждого домена действует ограничение скорости (token bucket).
+ * Транспорт сообщает результат по каждому письму: неудачно доставленные письма повторяются с экспоненциальной
+ * задержкой, остальные письма пачки считаются доставленными; после {@code maxAttempts} попыток письмо
+ * переносится в {@code <name>.dead}. Идентификаторы доставленных писем дописываются в {@code <name>.done}.
+ * <p>
+ * При открытии очередь восстанавливается: письма без отметки о доставке ставятся в очередь заново,
+ * а файл очереди сжимается до недоставленных писем. Во время работы файлы сжимаются так же, как только
+ * количество отметок о доставке достигает {@code crm.mail.compactAfter} (по умолчанию 10000).
+ * <p>
+ * Глубина очереди и задержка доставки доступны через {@link #stats()} и JMX ({@link MailOutboxMBean}).
+ */
+public class MailOutbox implements MailUtil, MailOutboxMBean, AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(MailOutbox.class.getName());
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+    private static final int COMPACT_AFTER_DONE = Integer.getInteger("crm.mail.compactAfter", 10_000);
+
+    private final Path queueFile;
+    private final Path doneFile;
+    private final Path deadFile;
+    private final MailTransport transport;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double domainRatePerSecond;
+
+    private final DelayQueue<Pending> queue = new DelayQueue<>();
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final Object fileLock = new Object();
+    // Файлы очереди и отметок переоткрываются при сжатии, поэтому поля не final; доступ под fileLock
+    private BufferedWriter queueWriter;
+    private BufferedWriter doneWriter;
+    private final BufferedWriter deadWriter;
+    private int doneSinceCompaction;
+    private final Thread worker;
+    private volatile boolean running;
+
+    private final AtomicLong nextId;
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder latencyTotalMillis = new LongAdder();
+    private final AtomicLong latencyMaxMillis = new AtomicLong();
+
+    /**
+     * Очередь с настройками по умолчанию: пачки до 50 писем, 5 попыток, задержка повтора от 1 с до 1 мин,
+     * не более 10 писем в секунду на домен.
+     *
+     * @param name      путь к файлам очереди без расширения
+     * @param transport транспорт доставки
+     */
+    public MailOutbox(String name, MailTransport transport) {
+        this(name, transport, 50, 5, 1000, 60_000, 10);
+    }
+
+    /**
+     * @param name                путь к файлам очереди без расширения
+     * @param transport           транспорт доставки
+     * @param batchSize           максимальный размер пачки
+     * @param maxAttempts         количество попыток до переноса письма в dead-файл
+     * @param baseBackoffMillis   задержка перед первым повтором; каждая следующая вдвое больше
+     * @param maxBackoffMillis    максимальная задержка перед повтором
+     * @param domainRatePerSecond максимальная скорость отправки на один домен, писем в секунду
+     * @throws IllegalArgumentException если параметры некорректны
+     * @throws UncheckedIOException     если файлы очереди не удалось прочитать или открыть
+     */
+    public MailOutbox(String name, MailTransport transport, int batchSize, int maxAttempts,
+                      long baseBackoffMillis, long maxBackoffMillis, double domainRatePerSecond) {
+        if (name == null || transport == null) {
+            throw new IllegalArgumentException("Имя очереди и транспорт не могут быть null");
+        }
+        if (batchSize <= 0 || maxAttempts <= 0 || baseBackoffMillis < 0 || maxBackoffMillis < baseBackoffMillis
+                || domainRatePerSecond <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры очереди писем");
+        }
+        this.queueFile = Paths.get(name + ".queue");
+        this.doneFile = Paths.get(name + ".done");
+        this.deadFile = Paths.get(name + ".dead");
+        this.transport = transport;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.domainRatePerSecond = domainRatePerSecond;
+        try {
+            this.nextId = new AtomicLong(recover() + 1);
+            this.queueWriter = openAppend(queueFile);
+            this.doneWriter = openAppend(doneFile);
+            this.deadWriter = Files.newBufferedWriter(deadFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при открытии очереди писем: " + e.getMessage(), e);
+        }
+        this.worker = new Thread(this::runWorker, "mail-outbox");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Запускает поток доставки.
+     */
+    public void start() {
+        running = true;
+        worker.start();
+        logger.info("Очередь писем запущена, ожидают доставки: " + depth.get());
+    }
+
+    /**
+     * Ставит письмо в очередь. После возврата письмо записано в файл очереди
+     * и будет доставлено даже при перезапуске приложения.
+     *
+     * @throws IllegalArgumentException если email или текст равны null
+     * @throws UncheckedIOException     если письмо не удалось записать в очередь
+     */
+    @Override
+    public void sendMail(String email, String text) {
+        if (email == null || text == null) {
+            throw new IllegalArgumentException("Email и текст сообщения не могут быть null");
+        }
+        OutboxMail mail = new OutboxMail(nextId.getAndIncrement(), email, text, System.currentTimeMillis());
+        String line = mail.getId() + "|" + mail.getEnqueuedAt() + "|" + encode(email) + "|" + encode(text);
+        synchronized (fileLock) {
+            try {
+                queueWriter.write(line);
+                queueWriter.newLine();
+                queueWriter.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка при записи письма в очередь: " + e.getMessage(), e);
+            }
+        }
+        depth.incrementAndGet();
+        queue.put(new Pending(mail, mail.getEnqueuedAt()));
+    }
+
+    /**
+     * @return количество писем, ожидающих доставки (включая ожидающие повтора)
+     */
+    @Override
+    public int getDepth() {
+        return depth.get();
+    }
+
+    @Override
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    @Override
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    @Override
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * @return средняя задержка от постановки в очередь до доставки, мс
+     */
+    @Override
+    public double getAverageLatencyMillis() {
+        long count = delivered.sum();
+        return count == 0 ? 0 : latencyTotalMillis.sum() / (double) count;
+    }
+
+    @Override
+    public long getMaxLatencyMillis() {
+        return latencyMaxMillis.get();
+    }
+
+    /**
+     * @return снимок метрик очереди
+     */
+    public Stats stats() {
+        return new Stats(getDepth(), getDelivered(), getRetried(), getDeadLettered(),
+                getAverageLatencyMillis(), getMaxLatencyMillis());
+    }
+
+    /**
+     * Останавливает поток доставки и закрывает файлы. Поток прерывается и дожидается полностью,
+     * чтобы отметки о доставке уже отправленной пачки были записаны до закрытия файлов.
+     * Недоставленные письма остаются в файле очереди и будут отправлены после следующего открытия.
+     */
+    @Override
+    public void close() {
+        // Под fileLock поток доставки не может быть посреди записи в файлы; в следующую запись
+        // он войдет уже с флагом прерывания и снимет его на время записи
+        synchronized (fileLock) {
+            running = false;
+            worker.interrupt();
+        }
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            try {
+                queueWriter.close();
+                doneWriter.close();
+                deadWriter.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка при закрытии очереди писем: " + e.getMessage(), e);
+            }
+        }
+        logger.info("Очередь писем остановлена: " + stats());
+    }
+
+    private void runWorker() {
+        List<OutboxMail> ready = new ArrayList<>();
+        while (running) {
+            Pending first;
+            try {
+                first = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            ready.clear();
+            ready.add(first.mail);
+            Pending next;
+            while (ready.size() < batchSize * 8 && (next = queue.poll()) != null) {
+                ready.add(next.mail);
+            }
+            Map<String, List<OutboxMail>> byDomain = new LinkedHashMap<>();
+            for (OutboxMail mail : ready) {
+                byDomain.computeIfAbsent(mail.getDomain(), domain -> new ArrayList<>()).add(mail);
+            }
+            for (Map.Entry<String, List<OutboxMail>> entry : byDomain.entrySet()) {
+                if (!running) {
+                    // Остальные письма не отмечены доставленными и будут отправлены после перезапуска
+                    return;
+                }
+                deliverDomain(entry.getKey(), entry.getValue());
+            }
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Отправляет письма одного домена в пределах его лимита; остальные откладываются
+     * до момента, когда лимит восстановится.
+     */
+    private void deliverDomain(String domain, List<OutboxMail> mails) {
+        TokenBucket bucket = buckets.computeIfAbsent(domain, key -> new TokenBucket(domainRatePerSecond));
+        int allowed = bucket.tryAcquire(mails.size());
+        if (allowed < mails.size()) {
+            long readyAt = System.currentTimeMillis() + bucket.millisUntilAvailable();
+            for (OutboxMail mail : mails.subList(allowed, mails.size())) {
+                queue.put(new Pending(mail, readyAt));
+            }
+        }
+        for (int from = 0; from < allowed; from += batchSize) {
+            deliverBatch(mails.subList(from, Math.min(allowed, from + batchSize)));
+        }
+    }
+
+    private void deliverBatch(List<OutboxMail> batch) {
+        List<DeliveryResult> results;
+        try {
+            results = transport.deliver(batch);
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("Транспорт вернул " + (results == null ? 0 : results.size())
+                        + " результатов для " + batch.size() + " писем");
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Ошибка при доставке " + batch.size() + " писем: " + e.getMessage(), e);
+            for (OutboxMail mail : batch) {
+                failed(mail, e.getMessage());
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<OutboxMail> done = new ArrayList<>(batch.size());
+        for (DeliveryResult result : results) {
+            OutboxMail mail = result.getMail();
+            if (!result.isDelivered()) {
+                logger.warning("Письмо " + mail.getId() + " на " + mail.getEmail() + " не доставлено: " + result.getError());
+                failed(mail, result.getError());
+                continue;
+            }
+            long latency = now - mail.getEnqueuedAt();
+            latencyTotalMillis.add(latency);
+            latencyMaxMillis.accumulateAndGet(latency, Math::max);
+            done.add(mail);
+        }
+        if (!done.isEmpty()) {
+            markDone(done);
+            delivered.add(done.size());
+            depth.addAndGet(-done.size());
+        }
+    }
+
+    /**
+     * Планирует повтор недоставленного письма или переносит его в dead-файл, если попытки исчерпаны.
+     */
+    private void failed(OutboxMail mail, String reason) {
+        mail.incrementAttempts();
+        if (mail.getAttempts() >= maxAttempts) {
+            deadLetter(mail, reason);
+        } else {
+            retried.increment();
+            queue.put(new Pending(mail, System.currentTimeMillis() + backoffMillis(mail.getAttempts())));
+        }
+    }
+
+    private long backoffMillis(int attempts) {
+        long backoff = baseBackoffMillis << Math.min(attempts - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoffMillis) {
+            backoff = maxBackoffMillis;
+        }
+        // Разброс до 20%, чтобы повторы разных писем не приходились на один момент
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+
+    private void markDone(List<OutboxMail> mails) {
+        synchronized (fileLock) {
+            boolean interrupted = Thread.interrupted();
+            try {
+                for (OutboxMail mail : mails) {
+                    doneWriter.write(Long.toString(mail.getId()));
+                    doneWriter.newLine();
+                }
+                doneWriter.flush();
+                doneSinceCompaction += mails.size();
+            } catch (IOException e) {
+                // Письма уже доставлены; без отметки они будут отправлены повторно после перезапуска
+                logger.log(Level.SEVERE, "Ошибка при записи отметки о доставке: " + e.getMessage(), e);
+            } finally {
+                // Файловый канал закрывается при записи из прерванного потока, поэтому прерывание
+                // от close() снимается на время записи и восстанавливается после нее
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void deadLetter(OutboxMail mail, String reason) {
+        logger.severe("Письмо " + mail.getId() + " на " + mail.getEmail() + " не доставлено после "
+                + mail.getAttempts() + " попыток: " + reason);
+        synchronized (fileLock) {
+            boolean interrupted = Thread.interrupted();
+            try {
+                deadWriter.write(mail.getId() + "|" + mail.getAttempts() + "|" + encode(mail.getEmail()) + "|"
+                        + encode(mail.getText()) + "|" + encode(String.valueOf(reason)));
+                deadWriter.newLine();
+                deadWriter.flush();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Ошибка при записи в dead-файл: " + e.getMessage(), e);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        markDone(List.of(mail));
+        deadLettered.increment();
+        depth.decrementAndGet();
+    }
+
+    /**
+     * Сжимает файлы очереди, если с прошлого сжатия накопилось достаточно отметок о доставке.
+     * Вызывается потоком доставки; запись новых писем на время сжатия ждет на fileLock.
+     */
+    private void compactIfNeeded() {
+        synchronized (fileLock) {
+            // При остановке сжатие откладывается до следующего открытия, которое все равно сжимает файлы
+            if (doneSinceCompaction < COMPACT_AFTER_DONE || !running) {
+                return;
+            }
+            try {
+                queueWriter.close();
+                doneWriter.close();
+                Set<Long> done = readDoneIds();
+                List<String> pendingLines = new ArrayList<>();
+                try (BufferedReader reader = Files.newBufferedReader(queueFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int separator = line.indexOf('|');
+                        try {
+                            if (!done.contains(Long.parseLong(separator < 0 ? line : line.substring(0, separator)))) {
+                                pendingLines.add(line);
+                            }
+                        } catch (NumberFormatException e) {
+                            logger.warning("Пропущена некорректная строка очереди писем: " + line);
+                        }
+                    }
+                }
+                rewriteQueue(pendingLines);
+                logger.fine("Очередь писем сжата: осталось " + pendingLines.size() + " писем, удалено отметок " + done.size());
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка при сжатии очереди писем: " + e.getMessage(), e);
+            } finally {
+                doneSinceCompaction = 0;
+                reopenWriters();
+            }
+        }
+    }
+
+    private void reopenWriters() {
+        try {
+            queueWriter = openAppend(queueFile);
+            doneWriter = openAppend(doneFile);
+        } catch (IOException e) {
+            // Без открытых файлов письма нельзя ни принять, ни отметить: sendMail сообщит об ошибке записи
+            logger.log(Level.SEVERE, "Ошибка при открытии файлов очереди писем: " + e.getMessage(), e);
+        }
+    }
+
+    private static BufferedWriter openAppend(Path file) throws IOException {
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private Set<Long> readDoneIds() throws IOException {
+        Set<Long> done = new HashSet<>();
+        if (Files.exists(doneFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(doneFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        done.add(Long.parseLong(line.trim()));
+                    } catch (NumberFormatException e) {
+                        logger.warning("Пропущена некорректная строка файла доставленных писем: " + line);
+                    }
+                }
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Заменяет файл очереди недоставленными письмами и очищает файл отметок о доставке.
+     */
+    private void rewriteQueue(List<String> pendingLines) throws IOException {
+        // После сжатия в очереди остаются только недоставленные письма, поэтому отметки о доставке больше не нужны
+        Path temp = queueFile.resolveSibling(queueFile.getFileName() + ".tmp");
+        Files.write(temp, pendingLines, StandardCharsets.UTF_8);
+        Files.move(temp, queueFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.writeString(doneFile, "", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Восстанавливает недоставленные письма и сжимает файл очереди.
+     *
+     * @return максимальный идентификатор письма в очереди до сжатия
+     */
+    private long recover() throws IOException {
+        Set<Long> done = readDoneIds();
+        long maxId = 0;
+        List<String> pendingLines = new ArrayList<>();
+        if (Files.exists(queueFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(queueFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\\|", -1);
+                    try {
+                        long id = Long.parseLong(parts[0]);
+                        maxId = Math.max(maxId, id);
+                        if (done.contains(id)) {
+                            continue;
+                        }
+                        OutboxMail mail = new OutboxMail(id, decode(parts[2]), decode(parts[3]), Long.parseLong(parts[1]));
+                        queue.put(new Pending(mail, System.currentTimeMillis()));
+                        depth.incrementAndGet();
+                        pendingLines.add(line);
+                    } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+                        logger.warning("Пропущена некорректная строка очереди писем: " + line);
+                    }
+                }
+            }
+        }
+        rewriteQueue(pendingLines);
+        return maxId;
+    }
+
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Снимок метрик очереди.
+     */
+    public static class Stats {
+        private final int depth;
+        private final long delivered;
+        private final long retried;
+        private final long deadLettered;
+        private final double averageLatencyMillis;
+        private final long maxLatencyMillis;
+
+        private Stats(int depth, long delivered, long retried, long deadLettered,
+                      double averageLatencyMillis, long maxLatencyMillis) {
+            this.depth = depth;
+            this.delivered = delivered;
+            this.retried = retried;
+            this.deadLettered = deadLettered;
+            this.averageLatencyMillis = averageLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getRetried() {
+            return retried;
+        }
+
+        public long getDeadLettered() {
+            return deadLettered;
+        }
+
+        /**
+         * @return средняя задержка от постановки в очередь до доставки, мс
+         */
+        public double getAverageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+
+        public long getMaxLatencyMillis() {
+            return maxLatencyMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "depth=" + depth +
+                    ", delivered=" + delivered +
+                    ", retried=" + retried +
+                    ", deadLettered=" + deadLettered +
+                    ", averageLatencyMillis=" + String.format(java.util.Locale.ROOT, "%.1f", averageLatencyMillis) +
+                    ", maxLatencyMillis=" + maxLatencyMillis +
+                    '}';
+        }
+    }
+
+    private static final class Pending implements Delayed {
+        private final OutboxMail mail;
+        private final long readyAt;
+
+        private Pending(OutboxMail mail, long readyAt) {
+            this.mail = mail;
+            this.readyAt = readyAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((Pending) other).readyAt);
+        }
+    }
+
+    /**
+     * Ограничитель скорости для одного домена: запас разрешений пополняется со скоростью {@code ratePerSecond}
+     * и не превышает одной секунды отправки. Используется только потоком доставки.
+     */
+    private static final class TokenBucket {
+        private final double ratePerSecond;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private TokenBucket(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = Math.max(1, ratePerSecond);
+            this.tokens = capacity;
+        }
+
+        private int tryAcquire(int requested) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / 1_000_000_000.0 * ratePerSecond);
+            refilledAt = now;
+            int granted = (int) Math.min(requested, Math.floor(tokens));
+            tokens -= granted;
+            return granted;
+        }
+
+        private long millisUntilAvailable() {
+            return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerSecond * 1000));
+        }
+    }
+}
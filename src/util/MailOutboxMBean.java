@@ -0,0 +1,19 @@
+package util;
+
+/**
+ * JMX-представление очереди исходящих писем: глубина очереди и задержка доставки с начала работы.
+ */
+public interface MailOutboxMBean {
+
+    int getDepth();
+
+    long getDelivered();
+
+    long getRetried();
+
+    long getDeadLettered();
+
+    double getAverageLatencyMillis();
+
+    long getMaxLatencyMillis();
+}
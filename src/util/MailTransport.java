@@ -0,0 +1,22 @@
+package util;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Способ фактической доставки писем из {@link MailOutbox}.
+ */
+public interface MailTransport {
+
+    /**
+     * Доставляет пачку писем одного домена. Сервер может принять часть писем пачки и отклонить
+     * остальные, поэтому результат возвращается для каждого письма: повторно отправляются
+     * только недоставленные.
+     *
+     * @param batch письма для доставки
+     * @return результаты в порядке писем пачки, по одному на письмо
+     * @throws IOException если пачка не доставлена целиком (например, нет соединения);
+     *                     все письма пачки будут отправлены повторно
+     */
+    List<DeliveryResult> deliver(List<OutboxMail> batch) throws IOException;
+}
@@ -1,13 +1,15 @@
 package util;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 public class MailUtilMockImpl implements MailUtil {
 
     private static final Logger logger = Logger.getLogger(MailUtilMockImpl.class.getName());
-    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AsyncExecutor executor;
+
+    public MailUtilMockImpl(AsyncExecutor executor) {
+        this.executor = executor;
+    }
 
     @Override
     public void sendMail(String email, String text) {
@@ -23,7 +25,4 @@ public class MailUtilMockImpl implements MailUtil {
             throw new RuntimeException("Ошибка при отправке сообщения на почту: " + email);
         }
     }
-    public void shutdown(){
-        executor.shutdown();
-    }
 }
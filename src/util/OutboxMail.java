@@ -0,0 +1,67 @@
+package util;
+
+/**
+ * Письмо в очереди {@link MailOutbox}.
+ */
+public class OutboxMail {
+
+    private final long id;
+    private final String email;
+    private final String text;
+    private final long enqueuedAt;
+    private int attempts;
+
+    public OutboxMail(long id, String email, String text, long enqueuedAt) {
+        this.id = id;
+        this.email = email;
+        this.text = text;
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return момент постановки в очередь, мс с начала эпохи
+     */
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    /**
+     * @return количество неудачных попыток доставки
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    void incrementAttempts() {
+        attempts++;
+    }
+
+    /**
+     * @return домен адреса получателя в нижнем регистре
+     */
+    public String getDomain() {
+        int at = email.lastIndexOf('@');
+        return at < 0 ? "" : email.substring(at + 1).toLowerCase(java.util.Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMail{" +
+                "id=" + id +
+                ", email='" + email + '\'' +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
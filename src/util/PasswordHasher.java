@@ -0,0 +1,113 @@
+package util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Хеширование паролей алгоритмом PBKDF2 (HMAC-SHA256) с солью.
+ * <p>
+ * Формат хранимого значения: {@code pbkdf2$<итерации>$<соль в Base64>$<хеш в Base64>}; символы формата
+ * не пересекаются с разделителем '|' файла пользователей. Значения в другом формате считаются паролями,
+ * сохраненными открытым текстом до появления хеширования: они проверяются сравнением и требуют перехеширования.
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Хешер с количеством итераций из свойства {@code crm.password.iterations} (по умолчанию 210000).
+     */
+    public PasswordHasher() {
+        this(Integer.getInteger("crm.password.iterations", 210_000));
+    }
+
+    /**
+     * @param iterations количество итераций PBKDF2 — стоимость проверки одного пароля
+     * @throws IllegalArgumentException если iterations не положительно
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Количество итераций должно быть положительным");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param password пароль
+     * @return значение для хранения
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Проверяет пароль за время, не зависящее от места первого несовпадения.
+     *
+     * @param password пароль
+     * @param stored   сохраненное значение
+     * @return true, если пароль совпадает
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] salt = decoder.decode(parts[2]);
+            byte[] expected = decoder.decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param stored сохраненное значение
+     * @return true, если значение хранится открытым текстом или захешировано с меньшей стоимостью
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(stored.split("\\$")[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX + "$") && stored.split("\\$").length == 4;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Алгоритм " + ALGORITHM + " недоступен: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Локальная заглушка транспорта: письма не уходят в сеть, а записываются в журнал и подсчитываются.
+ * Позволяет измерять пропускную способность {@link MailOutbox} без SMTP-сервера.
+ * <p>
+ * Как и {@link MailUtilMockImpl}, имитирует ошибку для адресов, содержащих "error": такие письма
+ * отклоняются по отдельности, остальные письма пачки доставляются.
+ */
+public class StubMailTransport implements MailTransport {
+
+    private static final Logger logger = Logger.getLogger(StubMailTransport.class.getName());
+
+    private final long batchLatencyMillis;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public StubMailTransport() {
+        this(0);
+    }
+
+    /**
+     * @param batchLatencyMillis имитируемая задержка доставки одной пачки
+     */
+    public StubMailTransport(long batchLatencyMillis) {
+        this.batchLatencyMillis = batchLatencyMillis;
+    }
+
+    @Override
+    public List<DeliveryResult> deliver(List<OutboxMail> batch) throws IOException {
+        if (batchLatencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(batchLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Доставка прервана", e);
+            }
+        }
+        List<DeliveryResult> results = new ArrayList<>(batch.size());
+        long count = 0;
+        for (OutboxMail mail : batch) {
+            if (mail.getEmail().contains("error")) {
+                results.add(DeliveryResult.failed(mail, "Ошибка при отправке сообщения на почту: " + mail.getEmail()));
+            } else {
+                logger.fine("Сообщение <" + mail.getText() + "> было отправлено на почту: " + mail.getEmail());
+                results.add(DeliveryResult.delivered(mail));
+                count++;
+            }
+        }
+        delivered.addAndGet(count);
+        batches.incrementAndGet();
+        return results;
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+}
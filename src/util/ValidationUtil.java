@@ -46,6 +46,27 @@ public class ValidationUtil {
         }
     }
 
+    /**
+     * Проверяет, что значение можно записать в поле файла данных: поля разделяются символом {@code |},
+     * записи — переводом строки, поэтому эти и другие управляющие символы в значении позволили бы
+     * дописать в файл посторонние поля или целые записи.
+     *
+     * @param value   значение поля; null пропускается, его проверяют отдельно
+     * @param message сообщение об ошибке
+     * @throws IllegalArgumentException если значение содержит {@code |} или управляющий символ
+     */
+    public static void checkStorable(String value, String message) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '|' || Character.isISOControl(c)) {
+                throw new IllegalArgumentException(message);
+            }
+        }
+    }
+
     public static void checkPositive(Double number, String message) {
         if (number == null || number < 0) {
             throw new IllegalArgumentException(message);